@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import io.scalecube.cluster.transport.api.Message;
+import io.scalecube.cluster.transport.api.MessageCodec;
+import org.jetlinks.community.configure.cluster.BinaryMessageCodec;
+import org.jetlinks.community.configure.cluster.FSTMessageCodec;
+import org.jetlinks.core.message.DeviceMessage;
+import org.jetlinks.core.message.DeviceOnlineMessage;
+import org.jetlinks.core.message.function.FunctionInvokeMessage;
+import org.jetlinks.core.message.function.FunctionParameter;
+import org.jetlinks.core.message.property.ReportPropertyMessage;
+import org.nustaq.serialization.FSTConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群消息编解码基准测试,对比{@link BinaryMessageCodec}与{@link FSTMessageCodec}.
+ * <p>
+ * 初始化时会进行一次编解码,校验解码后的消息与原始消息一致.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusterMessageCodecBenchmark {
+
+    @Param({"binary", "fst"})
+    private String codecType;
+
+    @Param({"property", "function", "online"})
+    private String messageType;
+
+    private MessageCodec codec;
+
+    private Message message;
+
+    private byte[] encoded;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(1024);
+
+    @Setup
+    public void setup() throws Exception {
+        codec = "fst".equals(codecType)
+            ? new FSTMessageCodec(ClusterMessageCodecBenchmark::fst)
+            : new BinaryMessageCodec(ClusterMessageCodecBenchmark::fst);
+
+        DeviceMessage data = createMessage();
+        message = Message
+            .builder()
+            .qualifier("/device/demo-product/device-1/message")
+            .header("from", "node-1")
+            .data(data)
+            .build();
+        encoded = encode();
+
+        //校验编解码结果
+        DeviceMessage decoded = codec.deserialize(new ByteArrayInputStream(encoded)).data();
+        if (!Objects.equals(data.toJson(), decoded.toJson())) {
+            throw new IllegalStateException("codec round trip mismatch:\n" + data + "\n" + decoded);
+        }
+    }
+
+    private DeviceMessage createMessage() {
+        switch (messageType) {
+            case "function": {
+                FunctionInvokeMessage msg = new FunctionInvokeMessage();
+                msg.setFunctionId("restart");
+                msg.setInputs(Arrays.asList(
+                    new FunctionParameter("delay", 1000),
+                    new FunctionParameter("reason", "upgrade")));
+                return fill(msg);
+            }
+            case "online":
+                return fill(new DeviceOnlineMessage());
+            default: {
+                Map<String, Object> properties = new HashMap<>();
+                properties.put("temperature", 36.5);
+                properties.put("humidity", 45);
+                properties.put("state", "running");
+                ReportPropertyMessage msg = new ReportPropertyMessage();
+                msg.setProperties(properties);
+                return fill(msg);
+            }
+        }
+    }
+
+    private static <T extends DeviceMessage> T fill(T msg) {
+        msg.messageId("1");
+        msg.addHeader("productId", "demo-product");
+        msg.addHeader("deviceName", "设备1");
+        if (msg instanceof ReportPropertyMessage report) {
+            report.setDeviceId("device-1");
+        } else if (msg instanceof FunctionInvokeMessage invoke) {
+            invoke.setDeviceId("device-1");
+        } else if (msg instanceof DeviceOnlineMessage online) {
+            online.setDeviceId("device-1");
+        }
+        return msg;
+    }
+
+    private static FSTConfiguration fst() {
+        return FSTConfiguration
+            .createDefaultConfiguration()
+            .setForceSerializable(true);
+    }
+
+    private byte[] encode() throws Exception {
+        output.reset();
+        codec.serialize(message, output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return encode();
+    }
+
+    @Benchmark
+    public Message deserialize() throws Exception {
+        return codec.deserialize(new ByteArrayInputStream(encoded));
+    }
+
+    @Benchmark
+    public Message roundTrip() throws Exception {
+        return codec.deserialize(new ByteArrayInputStream(encode()));
+    }
+}
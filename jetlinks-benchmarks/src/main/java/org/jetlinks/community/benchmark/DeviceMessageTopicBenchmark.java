@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import org.jetlinks.community.PropertyConstants;
+import org.jetlinks.community.device.configuration.DeviceHeaderCacheProperties;
+import org.jetlinks.community.device.message.DeviceConfigHeaderCache;
+import org.jetlinks.community.device.message.DeviceMessageConnector;
+import org.jetlinks.core.device.DeviceInfo;
+import org.jetlinks.core.device.ProductInfo;
+import org.jetlinks.core.message.property.ReportPropertyMessage;
+import org.jetlinks.supports.event.InternalEventBus;
+import org.jetlinks.supports.test.InMemoryDeviceRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DeviceMessageConnector#createDeviceMessageTopic(org.jetlinks.core.device.DeviceRegistry, org.jetlinks.core.message.Message)}基准测试
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceMessageTopicBenchmark {
+
+    private static final String PRODUCT_ID = "benchmark-product";
+
+    private static final String METADATA = "{\"properties\":[],\"functions\":[],\"events\":[],\"tags\":[]}";
+
+    //设备数量
+    @Param({"1000"})
+    private int devices;
+
+    private InMemoryDeviceRegistry registry;
+
+    private DeviceConfigHeaderCache headerCache;
+
+    @Setup
+    public void setup() {
+        headerCache = new DeviceConfigHeaderCache(new InternalEventBus(), new DeviceHeaderCacheProperties());
+        registry = InMemoryDeviceRegistry.create();
+        registry
+            .register(ProductInfo
+                          .builder()
+                          .id(PRODUCT_ID)
+                          .protocol("benchmark")
+                          .metadata(METADATA)
+                          .build()
+                          .addConfig(PropertyConstants.productName, "benchmark"))
+            .block();
+        for (int i = 0; i < devices; i++) {
+            registry
+                .register(DeviceInfo
+                              .builder()
+                              .id("device-" + i)
+                              .productId(PRODUCT_ID)
+                              .build()
+                              .addConfig(PropertyConstants.deviceName, "device-" + i)
+                              .addConfig(PropertyConstants.orgId, "org-" + (i % 10)))
+                .block();
+        }
+    }
+
+    private ReportPropertyMessage createMessage() {
+        ReportPropertyMessage message = new ReportPropertyMessage();
+        message.setDeviceId("device-" + ThreadLocalRandom.current().nextInt(devices));
+        message.setProperties(Collections.singletonMap("temperature", 36.5));
+        return message;
+    }
+
+    @Benchmark
+    public List<String> createTopicFromRegistry() {
+        return DeviceMessageConnector
+            .createDeviceMessageTopic(registry, createMessage())
+            .collectList()
+            .block();
+    }
+
+    @Benchmark
+    public List<String> createTopicFromCache() {
+        return DeviceMessageConnector
+            .createDeviceMessageTopic(registry, headerCache, createMessage())
+            .collectList()
+            .block();
+    }
+
+    @Benchmark
+    public String createTopic() {
+        ReportPropertyMessage message = createMessage();
+        return DeviceMessageConnector.createDeviceMessageTopic(PRODUCT_ID, message.getDeviceId(), message);
+    }
+}
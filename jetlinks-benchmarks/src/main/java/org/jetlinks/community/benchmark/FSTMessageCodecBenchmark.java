@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import io.scalecube.cluster.transport.api.Message;
+import org.jetlinks.community.configure.cluster.FSTMessageCodec;
+import org.jetlinks.core.message.property.ReportPropertyMessage;
+import org.nustaq.serialization.FSTConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群消息编解码{@link FSTMessageCodec}基准测试
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FSTMessageCodecBenchmark {
+
+    private FSTMessageCodec codec;
+
+    private Message message;
+
+    private byte[] encoded;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(1024);
+
+    @Setup
+    public void setup() throws Exception {
+        codec = new FSTMessageCodec(() -> FSTConfiguration
+            .createDefaultConfiguration()
+            .setForceSerializable(true));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("temperature", 36.5);
+        properties.put("humidity", 45);
+        properties.put("state", "running");
+        ReportPropertyMessage report = new ReportPropertyMessage();
+        report.setDeviceId("device-1");
+        report.setMessageId("1");
+        report.setProperties(properties);
+        report.addHeader("productId", "demo-product");
+
+        message = Message
+            .builder()
+            .qualifier("/device/demo-product/device-1/message/property/report")
+            .data(report)
+            .build();
+        encoded = encode();
+    }
+
+    private byte[] encode() throws Exception {
+        output.reset();
+        codec.serialize(message, output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return encode();
+    }
+
+    @Benchmark
+    public Message deserialize() throws Exception {
+        return codec.deserialize(new ByteArrayInputStream(encoded));
+    }
+
+    @Benchmark
+    public Message roundTrip() throws Exception {
+        return codec.deserialize(new ByteArrayInputStream(encode()));
+    }
+}
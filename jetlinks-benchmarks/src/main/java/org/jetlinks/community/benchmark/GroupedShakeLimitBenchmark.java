@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import org.jetlinks.community.rule.engine.commons.ShakeLimit;
+import org.jetlinks.community.rule.engine.commons.ShakeLimitProvider;
+import org.jetlinks.community.rule.engine.commons.impl.SimpleShakeLimitProvider;
+import org.jetlinks.community.rule.engine.commons.impl.TimingWheelShakeLimitProvider;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分组防抖基准测试,对比{@link SimpleShakeLimitProvider}与{@link TimingWheelShakeLimitProvider}.
+ * <p>
+ * 每次操作处理 {@code events} 个事件,事件平均分布在 {@code keys} 个分组中.
+ * 初始化时会保持 {@code keys} 个分组处于活跃状态并输出每个分组占用的堆内存(字节).
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupedShakeLimitBenchmark {
+
+    @Param({"simple", "timing-wheel"})
+    private String provider;
+
+    @Param({"100000"})
+    private int keys;
+
+    @Param({"1000000"})
+    private int events;
+
+    private ShakeLimitProvider shakeLimitProvider;
+
+    private ShakeLimit limit;
+
+    private String[] keyNames;
+
+    @Setup
+    public void setup() {
+        shakeLimitProvider = TimingWheelShakeLimitProvider.PROVIDER.equals(provider)
+            ? TimingWheelShakeLimitProvider.GLOBAL
+            : SimpleShakeLimitProvider.GLOBAL;
+        limit = new ShakeLimit();
+        limit.setEnabled(true);
+        limit.setTime(60);
+        limit.setThreshold(3);
+        limit.setAlarmFirst(true);
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "device-" + i;
+        }
+        System.out.printf("%n[%s] heap bytes per key: %d%n", provider, measureBytesPerKey());
+    }
+
+    //保持所有分组活跃,统计每个分组占用的内存
+    private long measureBytesPerKey() {
+        long before = usedMemory();
+        Disposable disposable = shakeLimitProvider
+            .shakeLimit("memory",
+                        Flux.range(0, keys).concatWith(Flux.never()),
+                        i -> keyNames[i],
+                        limit)
+            .subscribe();
+        long after = usedMemory();
+        disposable.dispose();
+        return (after - before) / keys;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public Long shakeLimit() {
+        return shakeLimitProvider
+            .shakeLimit("benchmark",
+                        Flux.range(0, events),
+                        i -> keyNames[i % keys],
+                        limit)
+            .count()
+            .block();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.mqtt.MqttClient;
+import io.vertx.mqtt.MqttClientOptions;
+import io.vertx.mqtt.MqttServer;
+import io.vertx.mqtt.MqttServerOptions;
+import org.jetlinks.community.network.mqtt.server.MqttConnection;
+import org.jetlinks.community.network.mqtt.server.vertx.VertxMqttServer;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MQTT连接基准测试,对比默认连接模式与精简连接模式.
+ * <p>
+ * 初始化时建立 {@code connections} 个空闲连接并输出每个连接占用的堆内存(字节),
+ * 客户端与服务端在同一个进程中,两种模式下客户端占用的内存相同,可直接对比差值.
+ * 测试方法为QoS1消息从发送到收到PUBACK的吞吐量.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MqttConnectionBenchmark {
+
+    @Param({"default", "compact"})
+    private String mode;
+
+    @Param({"2000"})
+    private int connections;
+
+    private Vertx vertx;
+
+    private VertxMqttServer server;
+
+    private Disposable disposable;
+
+    private final List<MqttClient> clients = new ArrayList<>();
+
+    private volatile CompletableFuture<Void> pending;
+
+    private Buffer payload;
+
+    @Setup
+    public void setup() throws Exception {
+        vertx = Vertx.vertx();
+        payload = Buffer.buffer("{\"temperature\":36.5}");
+        server = new VertxMqttServer("benchmark");
+        server.setInboundQueueSize("compact".equals(mode) ? 32 : 0);
+        MqttServer mqttServer = MqttServer.create(vertx, new MqttServerOptions().setPort(0).setHost("127.0.0.1"));
+        server.setMqttServer(new ArrayList<>(Collections.singletonList(mqttServer)));
+
+        disposable = server
+            .handleConnection()
+            .flatMap(connection -> connection
+                         .accept()
+                         .handleMessage(publishing -> {
+                             publishing.acknowledge();
+                             return Mono.empty();
+                         })
+                         .then(connection.close()),
+                     Integer.MAX_VALUE)
+            .subscribe();
+
+        int port = await(mqttServer.listen()).actualPort();
+
+        long before = usedMemory();
+        for (int i = 0; i < connections; i++) {
+            MqttClient client = MqttClient.create(vertx, new MqttClientOptions()
+                .setClientId("benchmark-" + i)
+                .setAutoKeepAlive(true));
+            await(client.connect(port, "127.0.0.1"));
+            clients.add(client);
+        }
+        long after = usedMemory();
+        System.out.printf("%n[%s] heap bytes per connection(server + client): %d%n", mode, (after - before) / connections);
+
+        clients.get(0).publishCompletionHandler(id -> {
+            CompletableFuture<Void> future = pending;
+            if (future != null) {
+                future.complete(null);
+            }
+        });
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future
+            .toCompletionStage()
+            .toCompletableFuture()
+            .get(30, TimeUnit.SECONDS);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (MqttClient client : clients) {
+            client.disconnect();
+        }
+        disposable.dispose();
+        server.shutdown();
+        await(vertx.close());
+    }
+
+    @Benchmark
+    public void publishQos1() throws Exception {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        pending = future;
+        clients.get(0).publish("/benchmark/properties/report", payload, MqttQoS.AT_LEAST_ONCE, false, false);
+        future.get(10, TimeUnit.SECONDS);
+    }
+}
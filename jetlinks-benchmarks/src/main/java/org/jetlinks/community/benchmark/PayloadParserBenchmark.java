@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import io.vertx.core.buffer.Buffer;
+import org.jetlinks.community.ValueObject;
+import org.jetlinks.community.network.tcp.parser.LengthFieldPayloadParserBuilder;
+import org.jetlinks.community.network.tcp.parser.PayloadParser;
+import org.jetlinks.community.network.tcp.parser.strateies.PipePayloadParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP粘拆包解析基准测试
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadParserBenchmark {
+
+    //包体长度
+    @Param({"64", "1024"})
+    private int payloadSize;
+
+    private PayloadParser lengthFieldParser;
+
+    private PipePayloadParser pipeParser;
+
+    private Buffer frame;
+
+    private Buffer firstHalf, secondHalf;
+
+    //解析结果,避免被JIT优化
+    private volatile long consumed;
+
+    @Setup
+    public void setup() {
+        byte[] payload = new byte[payloadSize];
+        ThreadLocalRandom.current().nextBytes(payload);
+        frame = Buffer.buffer(payloadSize + 4)
+                      .appendInt(payloadSize)
+                      .appendBytes(payload);
+        int half = frame.length() / 2;
+        firstHalf = frame.getBuffer(0, half);
+        secondHalf = frame.getBuffer(half, frame.length());
+
+        lengthFieldParser = new LengthFieldPayloadParserBuilder()
+            .buildLazy(ValueObject.of(Collections.singletonMap("length", 4)))
+            .get();
+        lengthFieldParser.handlePayload().subscribe(this::consume);
+
+        pipeParser = new PipePayloadParser();
+        pipeParser
+            .fixed(4)
+            .handler((buffer, parser) -> parser.fixed(buffer.getInt(0)))
+            .handler((buffer, parser) -> parser.result(buffer).complete());
+        pipeParser.handlePayload().subscribe(this::consume);
+    }
+
+    private void consume(Buffer buffer) {
+        consumed += buffer.length();
+    }
+
+    @TearDown
+    public void tearDown() {
+        lengthFieldParser.close();
+        pipeParser.close();
+    }
+
+    @Benchmark
+    public void lengthField() {
+        lengthFieldParser.handle(frame);
+    }
+
+    @Benchmark
+    public void lengthFieldSplit() {
+        lengthFieldParser.handle(firstHalf);
+        lengthFieldParser.handle(secondHalf);
+    }
+
+    @Benchmark
+    public void pipe() {
+        pipeParser.handle(frame);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import org.jetlinks.community.buffer.BufferQueueType;
+import org.jetlinks.community.buffer.BufferSettings;
+import org.jetlinks.community.buffer.PersistenceBuffer;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link PersistenceBuffer}写入及刷新基准测试,分别使用1,4,16个线程并发写入,对比分片写入在竞争下的吞吐量.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBufferBenchmark {
+
+    @Param({"mvstore", "segment"})
+    private BufferQueueType queueType;
+
+    @Param({"false", "true"})
+    private boolean striped;
+
+    @Param({"1000"})
+    private int bufferSize;
+
+    @Param({"4"})
+    private int parallelism;
+
+    private Path directory;
+
+    private PersistenceBuffer<String> buffer;
+
+    private final String data = "{\"deviceId\":\"device-1\",\"property\":\"temperature\",\"value\":36.5}";
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("jetlinks-buffer-benchmark");
+        buffer = new PersistenceBuffer<String>(
+            BufferSettings
+                .create(directory.toString(), "benchmark.queue")
+                .bufferSize(bufferSize)
+                .parallelism(parallelism)
+                .bufferTimeout(Duration.ofMillis(100))
+                .queueType(queueType)
+                .striped(striped),
+            null,
+            //模拟写出
+            (list, context) -> Mono.just(false))
+            .name("benchmark");
+        buffer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        buffer.dispose();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a))
+                 .forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void write1Thread() {
+        buffer.writeAsync(data).block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void write4Threads() {
+        buffer.writeAsync(data).block();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void write16Threads() {
+        buffer.writeAsync(data).block();
+    }
+}
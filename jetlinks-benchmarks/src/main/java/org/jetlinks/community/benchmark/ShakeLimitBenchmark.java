@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import org.jetlinks.community.rule.engine.commons.ShakeLimit;
+import org.jetlinks.community.rule.engine.commons.ShakeLimitFlux;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShakeLimitFlux}基准测试,每次操作处理 {@code events} 个事件.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShakeLimitBenchmark {
+
+    @Param({"10000"})
+    private int events;
+
+    @Param({"true", "false"})
+    private boolean rolling;
+
+    private ShakeLimit limit;
+
+    @Setup
+    public void setup() {
+        limit = new ShakeLimit();
+        limit.setEnabled(true);
+        limit.setTime(1);
+        limit.setThreshold(3);
+        limit.setAlarmFirst(true);
+        limit.setRolling(rolling);
+    }
+
+    @Benchmark
+    public Long shakeLimit() {
+        return ShakeLimitFlux
+            .create("benchmark", Flux.range(0, events), limit)
+            .count()
+            .block();
+    }
+}
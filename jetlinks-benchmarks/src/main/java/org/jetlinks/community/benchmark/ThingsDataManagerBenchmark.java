@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import org.jetlinks.community.things.data.LocalFileThingsDataManager;
+import org.jetlinks.community.things.data.ThingsDataStoreType;
+import org.jetlinks.core.things.ThingProperty;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocalFileThingsDataManager}属性读写基准测试
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThingsDataManagerBenchmark {
+
+    private static final String THING_TYPE = "device";
+
+    //物实例数量
+    @Param({"10000"})
+    private int things;
+
+    //每个物实例的属性数量
+    @Param({"10"})
+    private int properties;
+
+    //内存缓存存储方式
+    @Param({"heap", "columnar"})
+    private ThingsDataStoreType storeType;
+
+    private File file;
+
+    private LocalFileThingsDataManager manager;
+
+    private String[] thingIds;
+
+    private String[] propertyIds;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("jetlinks-things-benchmark", ".db").toFile();
+        file.delete();
+        manager = new LocalFileThingsDataManager(file.getAbsolutePath(), storeType);
+        thingIds = new String[things];
+        propertyIds = new String[properties];
+        for (int i = 0; i < things; i++) {
+            thingIds[i] = "device-" + i;
+        }
+        for (int i = 0; i < properties; i++) {
+            propertyIds[i] = "property-" + i;
+        }
+        long now = System.currentTimeMillis();
+        for (String thingId : thingIds) {
+            for (String property : propertyIds) {
+                manager.updateProperty(THING_TYPE, thingId, property, now, 1, null).block();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public void updateProperty() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        manager
+            .updateProperty(THING_TYPE,
+                            thingIds[random.nextInt(things)],
+                            propertyIds[random.nextInt(properties)],
+                            System.currentTimeMillis(),
+                            random.nextInt(100),
+                            null)
+            .block();
+    }
+
+    @Benchmark
+    public ThingProperty getLastProperty() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return manager
+            .getLastProperty(THING_TYPE,
+                             thingIds[random.nextInt(things)],
+                             propertyIds[random.nextInt(properties)],
+                             System.currentTimeMillis() + 1)
+            .block();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.benchmark;
+
+import org.jetlinks.community.PropertyConstants;
+import org.jetlinks.community.utils.TopicUtils;
+import org.jetlinks.core.lang.SharedPathString;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TopicUtils#refactorTopic(Map, String)}基准测试
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicUtilsBenchmark {
+
+    private static final String TOPIC = "/device/demo-product/demo-device/message/property/report";
+
+    private final SharedPathString sharedTopic = SharedPathString.of(TOPIC);
+
+    private Map<String, Object> configs;
+
+    @Setup
+    public void setup() {
+        configs = new HashMap<>();
+        configs.put(PropertyConstants.productId.getKey(), "demo-product");
+        configs.put(PropertyConstants.creatorId.getKey(), "admin");
+    }
+
+    @Benchmark
+    public Set<String> refactorTopic() {
+        return TopicUtils.refactorTopic(configs, TOPIC);
+    }
+
+    @Benchmark
+    public Object refactorSharedTopic() {
+        return TopicUtils.refactorTopic(configs, sharedTopic);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 共享定时调度器.
+ * <p>
+ * {@link TimerSpec#flux()}会为每个订阅者创建独立的定时任务,当存在大量定时规则(如: 定时触发的场景)时会产生大量的定时任务.
+ * 此调度器将相同的{@link TimerSpec}合并为一个定时,所有定时的下一次执行时间保存在同一个优先级队列中,
+ * 只使用一个定时任务等待最近的执行时间,到期后通知所有订阅者.
+ * <p>
+ * 调度器只在当前节点内去重,集群下每个定时任务由规则引擎调度负载均衡只分配到一个节点执行.
+ *
+ * @author zhouhao
+ * @see TimerSpec#sharedFlux()
+ * @since 2.11
+ */
+@Slf4j
+public class SharedTimerScheduler {
+
+    private static final SharedTimerScheduler GLOBAL = new SharedTimerScheduler(Schedulers.parallel());
+
+    private final Scheduler scheduler;
+
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    private final PriorityQueue<Timer> queue = new PriorityQueue<>(Comparator.comparingLong(timer -> timer.nextTime));
+
+    //当前等待中的唤醒任务
+    private Disposable wakeup;
+    private long wakeupTime = Long.MAX_VALUE;
+
+    public SharedTimerScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public static SharedTimerScheduler global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 订阅定时,数据为订阅后触发的次数,从0开始.
+     *
+     * @param spec 定时规则
+     * @return 定时流
+     */
+    public Flux<Long> flux(TimerSpec spec) {
+        String key = JSON.toJSONString(spec);
+        return Flux.create(sink -> {
+            Subscriber subscriber = new Subscriber(sink);
+            Timer timer = subscribe(key, spec, subscriber);
+            sink.onDispose(() -> unsubscribe(timer, subscriber));
+        });
+    }
+
+    /**
+     * @return 当前定时数量
+     */
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    private synchronized Timer subscribe(String key, TimerSpec spec, Subscriber subscriber) {
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = new Timer(key, spec);
+            if (!timer.next(now())) {
+                subscriber.sink.complete();
+                return timer;
+            }
+            timers.put(key, timer);
+            queue.add(timer);
+            log.debug("create shared timer [{}],next time:{}", key, timer.nextTime);
+            tryWakeup();
+        }
+        timer.subscribers.add(subscriber);
+        return timer;
+    }
+
+    private synchronized void unsubscribe(Timer timer, Subscriber subscriber) {
+        timer.subscribers.remove(subscriber);
+        if (timer.subscribers.isEmpty() && timers.remove(timer.key, timer)) {
+            queue.remove(timer);
+            log.debug("remove shared timer [{}]", timer.key);
+        }
+    }
+
+    //重新安排唤醒时间
+    private void tryWakeup() {
+        Timer head = queue.peek();
+        if (head == null || head.nextTime >= wakeupTime) {
+            return;
+        }
+        if (wakeup != null) {
+            wakeup.dispose();
+        }
+        wakeupTime = head.nextTime;
+        wakeup = scheduler.schedule(this::fire,
+                                    Math.max(0, head.nextTime - scheduler.now(TimeUnit.MILLISECONDS)),
+                                    TimeUnit.MILLISECONDS);
+    }
+
+    private void fire() {
+        List<Timer> fired = new ArrayList<>();
+        synchronized (this) {
+            wakeup = null;
+            wakeupTime = Long.MAX_VALUE;
+            long now = scheduler.now(TimeUnit.MILLISECONDS);
+            Timer head;
+            while ((head = queue.peek()) != null && head.nextTime <= now) {
+                queue.poll();
+                fired.add(head);
+                //计算下一次执行时间
+                if (head.next(now)) {
+                    queue.add(head);
+                } else {
+                    timers.remove(head.key, head);
+                }
+            }
+            tryWakeup();
+        }
+        //在锁外通知订阅者
+        for (Timer timer : fired) {
+            timer.emit();
+        }
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    private static class Timer {
+        private final String key;
+        private final Iterator<ZonedDateTime> iterator;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        private long nextTime;
+        private boolean completed;
+
+        Timer(String key, TimerSpec spec) {
+            this.key = key;
+            this.iterator = spec
+                .iterable()
+                .iterator(ZonedDateTime.ofInstant(Instant.now(), ZoneId.systemDefault()));
+        }
+
+        //计算下一次执行时间,返回是否还有下一次
+        boolean next(long now) {
+            while (iterator.hasNext()) {
+                ZonedDateTime time = iterator.next();
+                if (time == null) {
+                    break;
+                }
+                long millis = time.toInstant().toEpochMilli();
+                if (millis > now) {
+                    nextTime = millis;
+                    return true;
+                }
+            }
+            completed = true;
+            return false;
+        }
+
+        void emit() {
+            for (Subscriber subscriber : subscribers) {
+                try {
+                    subscriber.sink.next(subscriber.count.getAndIncrement());
+                } catch (Throwable error) {
+                    log.warn("emit shared timer [{}] error", key, error);
+                }
+                if (completed) {
+                    subscriber.sink.complete();
+                }
+            }
+        }
+    }
+
+    private static class Subscriber {
+        private final FluxSink<Long> sink;
+        //emit可能在不同线程中并发执行
+        private final AtomicLong count = new AtomicLong();
+
+        Subscriber(FluxSink<Long> sink) {
+            this.sink = sink;
+        }
+    }
+}
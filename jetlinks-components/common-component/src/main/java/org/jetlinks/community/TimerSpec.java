@@ -675,6 +675,17 @@ public class TimerSpec implements Serializable {
         return new TimerFlux(nextDurationBuilder(), scheduler);
     }
 
+    /**
+     * 使用共享调度器创建定时流,相同的定时规则共用同一个定时任务.
+     *
+     * @return 定时流
+     * @see SharedTimerScheduler
+     * @since 2.11
+     */
+    public Flux<Long> sharedFlux() {
+        return SharedTimerScheduler.global().flux(this);
+    }
+
     @Override
     public String toString() {
         if (getTrigger() == null) {
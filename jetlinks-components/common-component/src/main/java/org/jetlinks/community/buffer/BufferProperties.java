@@ -47,6 +47,15 @@ public class BufferProperties {
     //淘汰策略
     private BufferEvictionSpec eviction = new BufferEvictionSpec();
 
+    //文件队列存储类型,数据量较大时建议使用segment
+    private BufferQueueType queueType = BufferQueueType.mvstore;
+
+    //分段文件队列配置,queueType为segment时生效
+    private SegmentQueueSpec segment = new SegmentQueueSpec();
+
+    //启用分片写入,按parallelism创建多个写入队列并批量写入文件队列,减少并发写入时的竞争
+    private boolean striped = false;
+
     public boolean isExceededRetryCount(int count) {
         return maxRetryTimes > 0 && count >= maxRetryTimes;
     }
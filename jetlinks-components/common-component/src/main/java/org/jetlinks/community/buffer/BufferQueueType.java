@@ -0,0 +1,31 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.buffer;
+
+/**
+ * 缓冲区文件队列存储类型
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+public enum BufferQueueType {
+
+    //基于MVStore的文件队列
+    mvstore,
+
+    //基于内存映射的追加写分段文件,适用于大量数据写入磁盘的场景
+    segment
+}
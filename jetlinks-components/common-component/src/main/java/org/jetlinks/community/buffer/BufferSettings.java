@@ -75,6 +75,15 @@ public class BufferSettings {
 
     private final ConsumeStrategy strategy;
 
+    //文件队列存储类型
+    private final BufferQueueType queueType;
+
+    //分段文件队列配置
+    private final SegmentQueueSpec segment;
+
+    //是否启用分片写入,启用后将按并行度创建多个无锁环形队列,由持久化线程批量写入文件队列后再通知写入完成,并由各分片自行刷新.
+    private final boolean striped;
+
     public static BufferSettings create(String filePath, String fileName) {
         return new BufferSettings(
             filePath,
@@ -87,7 +96,10 @@ public class BufferSettings {
             Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
             5,
             1,
-            ConsumeStrategy.FIFO);
+            ConsumeStrategy.FIFO,
+            BufferQueueType.mvstore,
+            SegmentQueueSpec.DEFAULT,
+            false);
     }
 
     public static BufferSettings create(BufferProperties properties) {
@@ -108,7 +120,10 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings bufferSize(int bufferSize) {
@@ -121,7 +136,10 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings bufferTimeout(Duration bufferTimeout) {
@@ -134,7 +152,10 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings parallelism(int parallelism) {
@@ -147,7 +168,10 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings maxRetry(int maxRetryTimes) {
@@ -160,7 +184,10 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings retryWhenError(Predicate<Throwable> retryWhenError) {
@@ -173,7 +200,10 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings fileConcurrency(int fileConcurrency) {
@@ -186,7 +216,10 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings strategy(ConsumeStrategy strategy) {
@@ -199,7 +232,58 @@ public class BufferSettings {
                                   parallelism,
                                   maxRetryTimes,
                                   fileConcurrency,
-                                  strategy);
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
+    }
+
+    public BufferSettings queueType(BufferQueueType queueType) {
+        return new BufferSettings(filePath,
+                                  fileName,
+                                  eviction,
+                                  retryWhenError,
+                                  bufferSize,
+                                  bufferTimeout,
+                                  parallelism,
+                                  maxRetryTimes,
+                                  fileConcurrency,
+                                  strategy,
+                                  Objects.requireNonNull(queueType),
+                                  segment,
+                                  striped);
+    }
+
+    public BufferSettings segment(SegmentQueueSpec segment) {
+        return new BufferSettings(filePath,
+                                  fileName,
+                                  eviction,
+                                  retryWhenError,
+                                  bufferSize,
+                                  bufferTimeout,
+                                  parallelism,
+                                  maxRetryTimes,
+                                  fileConcurrency,
+                                  strategy,
+                                  queueType,
+                                  Objects.requireNonNull(segment),
+                                  striped);
+    }
+
+    public BufferSettings striped(boolean striped) {
+        return new BufferSettings(filePath,
+                                  fileName,
+                                  eviction,
+                                  retryWhenError,
+                                  bufferSize,
+                                  bufferTimeout,
+                                  parallelism,
+                                  maxRetryTimes,
+                                  fileConcurrency,
+                                  strategy,
+                                  queueType,
+                                  segment,
+                                  striped);
     }
 
     public BufferSettings properties(BufferProperties properties) {
@@ -212,7 +296,10 @@ public class BufferSettings {
                                   properties.getParallelism(),
                                   properties.getMaxRetryTimes(),
                                   properties.getFileConcurrency(),
-                                  properties.getStrategy()
+                                  properties.getStrategy(),
+                                  properties.getQueueType(),
+                                  properties.getSegment(),
+                                  properties.isStriped()
                                   );
     }
 
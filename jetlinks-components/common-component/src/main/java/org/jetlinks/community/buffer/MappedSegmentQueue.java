@@ -0,0 +1,575 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
+import lombok.SneakyThrows;
+import org.jetlinks.core.cache.FileQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 基于内存映射分段文件的队列.
+ * <p>
+ * 数据以追加的方式写入固定大小的分段文件中,按写入顺序读取,当一个分段中的数据全部被消费后直接删除整个分段文件.
+ * 刷盘操作按批次执行,并通过checkpoint文件记录消费进度,重启时只需顺序扫描分段文件即可恢复.
+ * <p>
+ * 单条记录格式: [int 数据长度][int crc32][数据]. 长度为0或者校验失败表示分段结束.
+ *
+ * @param <T> 数据类型
+ * @author zhouhao
+ * @since 2.11
+ */
+class MappedSegmentQueue<T> extends AbstractQueue<T> implements FileQueue<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedSegmentQueue.class);
+
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    static final String CHECKPOINT_FILE = "checkpoint";
+
+    private static final int HEADER_SIZE = 8;
+
+    private final Path directory;
+
+    private final Codec<T> codec;
+
+    private final int segmentSize;
+
+    private final long syncInterval;
+
+    private final int syncBatch;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+    private final CRC32 crc32 = new CRC32();
+
+    private final FileChannel checkpoint;
+
+    private long nextSegmentId;
+
+    private long size;
+
+    //未刷盘的写入数量
+    private int unsynced;
+
+    private long lastSyncTime = System.currentTimeMillis();
+
+    private boolean closed;
+
+    @SneakyThrows
+    MappedSegmentQueue(Path directory, SegmentQueueSpec spec, Codec<T> codec) {
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE - HEADER_SIZE, spec.getSegmentSize().toBytes());
+        this.syncInterval = spec.getSyncInterval().toMillis();
+        this.syncBatch = Math.max(1, spec.getSyncBatch());
+        Files.createDirectories(directory);
+        this.checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                                           StandardOpenOption.CREATE,
+                                           StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        long headId = -1;
+        int headReadIndex = 0;
+        if (checkpoint.size() >= 12) {
+            ByteBuffer buf = ByteBuffer.allocate(12);
+            checkpoint.read(buf, 0);
+            buf.flip();
+            headId = buf.getLong();
+            headReadIndex = buf.getInt();
+        }
+        File[] files = directory
+            .toFile()
+            .listFiles(file -> file.isFile() && file.getName().endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(MappedSegmentQueue::parseSegmentId));
+        long startWith = System.currentTimeMillis();
+        for (File file : files) {
+            long id = parseSegmentId(file);
+            if (id < 0) {
+                continue;
+            }
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            //已经消费完的分段
+            if (id < headId) {
+                Files.deleteIfExists(file.toPath());
+                continue;
+            }
+            Segment segment = Segment.open(file.toPath(), id, (int) Math.max(segmentSize, file.length()));
+            segment.scan(crc32);
+            if (id == headId) {
+                segment.readIndex = Math.min(headReadIndex, segment.count);
+            }
+            size += segment.remaining();
+            segments.addLast(segment);
+        }
+        log.debug("recover segment queue {} size:{},segments:{},use time:{}ms",
+                  directory, size, segments.size(), System.currentTimeMillis() - startWith);
+    }
+
+    private static long parseSegmentId(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Segment createSegment(int dataSize) throws IOException {
+        long id = nextSegmentId++;
+        Path file = directory.resolve(String.format("%019d%s", id, SEGMENT_SUFFIX));
+        return Segment.open(file, id, Math.max(segmentSize, dataSize + HEADER_SIZE));
+    }
+
+    private ByteBuf encode(T value) {
+        ByteBuf buf = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            codec.encode(value, buf);
+            return buf;
+        } catch (Throwable e) {
+            ReferenceCountUtil.safeRelease(buf);
+            throw e;
+        }
+    }
+
+    private boolean append(ByteBuf data) {
+        if (closed || data.readableBytes() == 0) {
+            return false;
+        }
+        int len = data.readableBytes();
+        Segment tail = segments.peekLast();
+        if (tail == null || !tail.writable(len)) {
+            try {
+                tail = createSegment(len);
+            } catch (IOException e) {
+                log.warn("create segment file error {}", directory, e);
+                return false;
+            }
+            segments.addLast(tail);
+        }
+        tail.append(data, crc32);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean offer(T value) {
+        ByteBuf buf = encode(value);
+        try {
+            synchronized (this) {
+                boolean success = append(buf);
+                trySync(1);
+                return success;
+            }
+        } finally {
+            ReferenceCountUtil.safeRelease(buf);
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> values) {
+        if (values.isEmpty()) {
+            return false;
+        }
+        //先在锁外完成序列化,再批量追加到文件
+        List<ByteBuf> encoded = new ArrayList<>(values.size());
+        try {
+            for (T value : values) {
+                encoded.add(encode(value));
+            }
+            boolean changed = false;
+            synchronized (this) {
+                for (ByteBuf buf : encoded) {
+                    changed |= append(buf);
+                }
+                trySync(encoded.size());
+            }
+            return changed;
+        } finally {
+            for (ByteBuf buf : encoded) {
+                ReferenceCountUtil.safeRelease(buf);
+            }
+        }
+    }
+
+    @Override
+    public synchronized T poll() {
+        Segment head;
+        while ((head = segments.peekFirst()) != null) {
+            if (head.readIndex < head.count) {
+                T value = head.read(head.offsets[head.readIndex++], codec);
+                size--;
+                //整个分段已经消费完成,直接删除文件
+                if (head.readIndex == head.count && head != segments.peekLast()) {
+                    release(segments.pollFirst());
+                }
+                trySync(0);
+                return value;
+            }
+            if (head == segments.peekLast()) {
+                return null;
+            }
+            release(segments.pollFirst());
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized T peek() {
+        for (Segment segment : segments) {
+            if (segment.readIndex < segment.count) {
+                return segment.read(segment.offsets[segment.readIndex], codec);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public T removeFirst() {
+        return poll();
+    }
+
+    @Override
+    public synchronized T removeLast() {
+        Segment tail;
+        while ((tail = segments.peekLast()) != null) {
+            if (tail.count > tail.readIndex) {
+                int offset = tail.offsets[--tail.count];
+                T value = tail.read(offset, codec);
+                tail.truncate(offset);
+                size--;
+                return value;
+            }
+            if (tail == segments.peekFirst()) {
+                return null;
+            }
+            release(segments.pollLast());
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized int size() {
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Segment segment;
+        while ((segment = segments.pollFirst()) != null) {
+            release(segment);
+        }
+        size = 0;
+        sync();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        //迭代时使用快照,不影响读写
+        List<Segment.Range> ranges = new ArrayList<>();
+        synchronized (this) {
+            for (Segment segment : segments) {
+                if (segment.readIndex < segment.count) {
+                    ranges.add(segment.range());
+                }
+            }
+        }
+        return new Iterator<T>() {
+            final Iterator<Segment.Range> iterator = ranges.iterator();
+            Segment.Range current;
+            int index;
+
+            @Override
+            public boolean hasNext() {
+                synchronized (MappedSegmentQueue.this) {
+                    //分段可能在迭代期间被消费释放或者从尾部移除
+                    while (current == null
+                        || current.segment.released
+                        || index >= Math.min(current.to, current.segment.count)) {
+                        if (!iterator.hasNext()) {
+                            return false;
+                        }
+                        current = iterator.next();
+                        index = current.from;
+                    }
+                    return true;
+                }
+            }
+
+            @Override
+            public T next() {
+                //在锁内读取,避免读取已经释放的内存映射
+                synchronized (MappedSegmentQueue.this) {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.segment.read(current.offsets[index++], codec);
+                }
+            }
+        };
+    }
+
+    private void trySync(int written) {
+        if (closed) {
+            return;
+        }
+        unsynced += written;
+        if (unsynced >= syncBatch || System.currentTimeMillis() - lastSyncTime >= syncInterval) {
+            sync();
+        }
+    }
+
+    private void sync() {
+        //只有尾部的分段会被写入
+        Iterator<Segment> iterator = segments.descendingIterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (!segment.dirty) {
+                break;
+            }
+            segment.force();
+        }
+        writeCheckpoint();
+        unsynced = 0;
+        lastSyncTime = System.currentTimeMillis();
+    }
+
+    private void writeCheckpoint() {
+        Segment head = segments.peekFirst();
+        ByteBuffer buf = ByteBuffer.allocate(12);
+        buf.putLong(head == null ? nextSegmentId : head.id);
+        buf.putInt(head == null ? 0 : head.readIndex);
+        buf.flip();
+        try {
+            checkpoint.write(buf, 0);
+            checkpoint.force(false);
+        } catch (IOException e) {
+            log.warn("write segment queue checkpoint error {}", directory, e);
+        }
+    }
+
+    private void release(Segment segment) {
+        //先释放内存映射再删除文件,否则文件占用的磁盘空间要等到映射被GC回收后才会释放
+        segment.unmap();
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            log.warn("delete segment file {} error", segment.file, e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        sync();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        sync();
+        closed = true;
+        Segment segment;
+        while ((segment = segments.pollFirst()) != null) {
+            segment.unmap();
+        }
+        try {
+            checkpoint.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    interface Codec<T> {
+
+        void encode(T value, ByteBuf output);
+
+        T decode(ByteBuf input);
+    }
+
+    static class Segment {
+        private final long id;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+
+        //每条记录在文件中的偏移量
+        private int[] offsets = new int[1024];
+        //已写入的记录数
+        private int count;
+        //已读取的记录数
+        private int readIndex;
+        //下一次写入的位置
+        private int position;
+
+        private boolean dirty;
+
+        //内存映射已释放,不能再读写
+        private boolean released;
+
+        private Segment(long id, Path file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path file, long id, int capacity) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                if (raf.length() < capacity) {
+                    raf.setLength(capacity);
+                }
+                //关闭文件后映射依然有效
+                return new Segment(id, file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+            }
+        }
+
+        int remaining() {
+            return count - readIndex;
+        }
+
+        boolean writable(int len) {
+            return (long) position + HEADER_SIZE + len <= buffer.capacity();
+        }
+
+        void scan(CRC32 crc) {
+            int pos = 0;
+            int capacity = buffer.capacity();
+            while (pos + HEADER_SIZE <= capacity) {
+                int len = buffer.getInt(pos);
+                if (len <= 0 || (long) pos + HEADER_SIZE + len > capacity) {
+                    break;
+                }
+                crc.reset();
+                crc.update(data(pos + HEADER_SIZE, len));
+                if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                    break;
+                }
+                addOffset(pos);
+                pos += HEADER_SIZE + len;
+            }
+            position = pos;
+            //丢弃写入不完整的数据
+            if (pos + 4 <= capacity && buffer.getInt(pos) != 0) {
+                buffer.putInt(pos, 0);
+                dirty = true;
+            }
+        }
+
+        void append(ByteBuf data, CRC32 crc) {
+            int len = data.readableBytes();
+            int dataStart = position + HEADER_SIZE;
+            data.getBytes(data.readerIndex(), data(dataStart, len));
+            crc.reset();
+            crc.update(data(dataStart, len));
+            buffer.putInt(position + 4, (int) crc.getValue());
+            //最后写入长度,长度有值表示写入完成
+            buffer.putInt(position, len);
+            addOffset(position);
+            position = dataStart + len;
+            dirty = true;
+        }
+
+        <V> V read(int offset, Codec<V> codec) {
+            return codec.decode(Unpooled.wrappedBuffer(data(offset + HEADER_SIZE, buffer.getInt(offset))));
+        }
+
+        void truncate(int offset) {
+            buffer.putInt(offset, 0);
+            position = offset;
+            dirty = true;
+        }
+
+        void force() {
+            buffer.force();
+            dirty = false;
+        }
+
+        //立即释放内存映射,不等待GC
+        void unmap() {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                PlatformDependent.freeDirectBuffer(buffer);
+            } catch (Throwable error) {
+                log.warn("unmap segment file {} error", file, error);
+            }
+        }
+
+        Range range() {
+            return new Range(this, offsets, readIndex, count);
+        }
+
+        private ByteBuffer data(int offset, int len) {
+            ByteBuffer data = buffer.duplicate();
+            data.limit(offset + len);
+            data.position(offset);
+            return data.slice();
+        }
+
+        private void addOffset(int offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+        }
+
+        static class Range {
+            final Segment segment;
+            final int[] offsets;
+            final int from;
+            final int to;
+
+            Range(Segment segment, int[] offsets, int from, int to) {
+                this.segment = segment;
+                this.offsets = offsets;
+                this.from = from;
+                this.to = to;
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import lombok.SneakyThrows;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.h2.mvstore.WriteBuffer;
 import org.h2.mvstore.type.BasicDataType;
+import org.jctools.queues.MpscArrayQueue;
 import org.jetlinks.core.cache.FileQueue;
 import org.jetlinks.core.cache.FileQueueProxy;
 import org.jetlinks.core.utils.SerializeUtils;
@@ -37,6 +38,7 @@ import reactor.core.Disposable;
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
 import reactor.core.publisher.SignalType;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
@@ -54,6 +56,7 @@ import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -128,8 +131,8 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
     //缓冲数据处理器,实际处理缓冲数据的逻辑,比如写入数据库.
     private final BiFunction<Collection<Buffered<T>>, FlushContext<T>, Mono<Boolean>> handler;
 
-    //缓冲区大小,超过此大小将执行 handler 处理逻辑
-    private BufferSettings settings;
+    //缓冲区大小,超过此大小将执行 handler 处理逻辑,支持运行时调整
+    private volatile BufferSettings settings;
     //缓冲区
     private volatile Collection<Buf<T>> buffer;
 
@@ -154,6 +157,17 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
     //独立的读写调度器
     private Scheduler writer, reader;
 
+    //线程探针,按线程首次写入的顺序分配,避免少量事件循环线程按线程ID取模后集中在同一个分片
+    private static final AtomicInteger PROBE_SEQUENCE = new AtomicInteger();
+    private static final ThreadLocal<Integer> PROBE =
+        ThreadLocal.withInitial(() -> PROBE_SEQUENCE.getAndIncrement() & Integer.MAX_VALUE);
+
+    //分片写入队列,启用striped时有效
+    private Stripe<T>[] stripes;
+
+    //分片写入队列持久化调度器
+    private Scheduler flusher;
+
     private Throwable lastError;
 
     private volatile Boolean disposed = false;
@@ -242,6 +256,9 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
         };
     }
 
+    //分段文件队列的目录后缀
+    static final String SEGMENT_DIR_SUFFIX = ".segments";
+
     private static String getSafeFileName(String fileName) {
         return fileName.replaceAll("[\\s\\\\/:*?\"<>|]", "_");
     }
@@ -251,26 +268,39 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
         String fileName = getSafeFileName(settings.getFileName());
         Path path = Paths.get(filePath);
 
-        BufDataType dataType = new BufDataType();
+        if (settings.getQueueType() == BufferQueueType.segment) {
+            BufCodec codec = new BufCodec();
+            //数据队列
+            this.queue = wrap(new MappedSegmentQueue<>(path.resolve(fileName + SEGMENT_DIR_SUFFIX),
+                                                       settings.getSegment(),
+                                                       codec));
+            //死队列,用于存放失败的数据
+            this.deadQueue = wrap(new MappedSegmentQueue<>(path.resolve(fileName + ".dead" + SEGMENT_DIR_SUFFIX),
+                                                           settings.getSegment(),
+                                                           codec));
+        } else {
+            BufDataType dataType = new BufDataType();
 
-        //数据队列
-        this.queue = wrap(FileQueue
-                              .<Buf<T>>builder()
-                              .name(fileName)
-                              .path(path)
-                              .option("valueType", dataType)
-                              .option("concurrency", settings.getFileConcurrency())
-                              .build());
-        this.remainder = queue.size();
-        //死队列,用于存放失败的数据
-        this.deadQueue = wrap(FileQueue
+            //数据队列
+            this.queue = wrap(FileQueue
                                   .<Buf<T>>builder()
-                                  .name(fileName + ".dead")
+                                  .name(fileName)
                                   .path(path)
                                   .option("valueType", dataType)
+                                  .option("concurrency", settings.getFileConcurrency())
                                   .build());
+            //死队列,用于存放失败的数据
+            this.deadQueue = wrap(FileQueue
+                                      .<Buf<T>>builder()
+                                      .name(fileName + ".dead")
+                                      .path(path)
+                                      .option("valueType", dataType)
+                                      .build());
+        }
+        this.remainder = queue.size();
         this.deadSize = this.deadQueue.size();
         this.buffer = newBuffer();
+        this.stripes = settings.isStriped() ? newStripes() : null;
         initScheduler();
         registerMbean();
     }
@@ -282,6 +312,10 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
             : Schedulers.newSingle(name + "-writer");
 
         this.reader = Schedulers.newSingle(name + "-reader");
+
+        if (stripes != null) {
+            this.flusher = Schedulers.newParallel(name + "-flusher", stripes.length);
+        }
     }
 
     private void shutdownScheduler() {
@@ -291,6 +325,9 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
         if (this.reader != null) {
             this.reader.dispose();
         }
+        if (this.flusher != null) {
+            this.flusher.dispose();
+        }
     }
 
     public synchronized void start() {
@@ -382,6 +419,9 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
         if (isDisposed()) {
             return Mono.fromRunnable(() -> write(data));
         }
+        if (stripes != null) {
+            return writeStripe(Collections.singletonList(new Buf<>(data, instanceBuilder)));
+        }
         return Mono
             .fromRunnable(() -> write(data))
             .subscribeOn(writer)
@@ -393,9 +433,19 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
 
     //异步写入数据到buffer
     public Mono<Void> writeAsync(Collection<T> data) {
+        if (data.isEmpty()) {
+            return Mono.empty();
+        }
         if (isDisposed()) {
             return Mono.fromRunnable(() -> data.forEach(this::write));
         }
+        if (stripes != null) {
+            List<Buf<T>> bufs = new ArrayList<>(data.size());
+            for (T t : data) {
+                bufs.add(new Buf<>(t, instanceBuilder));
+            }
+            return writeStripe(bufs);
+        }
         return Mono
             .fromRunnable(() -> data.forEach(this::write))
             .subscribeOn(writer)
@@ -449,6 +499,12 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
             if (wip > 0) {
                 logger.warn("wait buffer flushing timeout...wip:{}", wip);
             }
+            //等待分片中的数据写入文件队列
+            if (stripes != null) {
+                for (Stripe<T> stripe : stripes) {
+                    disposeStripe(stripe);
+                }
+            }
             @SuppressWarnings("all")
             Collection<Buf<T>> remainders = BUFFER.getAndSet(this, newBuffer());
             //写出内存中的数据
@@ -468,7 +524,7 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
     }
 
     public long size() {
-        return queue == null || disposed ? 0 : queue.size() + buffer().size();
+        return queue == null || disposed ? 0 : queue.size() + buffer().size() + stripeSize();
     }
 
     public long size(BufferType type) {
@@ -502,6 +558,9 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
     }
 
     private void intervalFlush() {
+        if (stripes != null && started) {
+            intervalFlushStripes();
+        }
         if (System.currentTimeMillis() - lastFlushTime >= settings.getBufferTimeout().toMillis()
             && WIP.get(this) <= settings.getParallelism()
             && started) {
@@ -701,6 +760,212 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private Stripe<T>[] newStripes() {
+        int size = Math.max(1, settings.getParallelism());
+        Stripe<T>[] stripes = new Stripe[size];
+        int capacity = Math.max(1024, settings.getBufferSize() * 4);
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe<>(capacity, newBuffer());
+        }
+        return stripes;
+    }
+
+    private long stripeSize() {
+        Stripe<T>[] stripes = this.stripes;
+        if (stripes == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Stripe<T> stripe : stripes) {
+            size += stripe.queue.size() + stripe.buffer.size();
+        }
+        return size;
+    }
+
+    private Mono<Void> writeStripe(List<Buf<T>> bufs) {
+        return Mono
+            .<Void>create(sink -> {
+                Stripe<T>[] stripes = this.stripes;
+                Pending<T> pending = new Pending<>(bufs, sink);
+                //按线程探针选择分片,分片已满时依次尝试其他分片
+                int probe = PROBE.get();
+                for (int i = 0; i < stripes.length; i++) {
+                    Stripe<T> stripe = stripes[(probe + i) % stripes.length];
+                    if (stripe.queue.offer(pending)) {
+                        scheduleStripe(stripe);
+                        return;
+                    }
+                }
+                //所有分片都已满,直接写入文件队列
+                writer.schedule(() -> {
+                    try {
+                        bufs.forEach(this::write);
+                        sink.success();
+                    } catch (Throwable error) {
+                        sink.error(error);
+                    }
+                });
+            })
+            // 切换到parallel线程池,避免在持久化线程中执行后续操作
+            .publishOn(Schedulers.parallel());
+    }
+
+    private void scheduleStripe(Stripe<T> stripe) {
+        if (!Stripe.SCHEDULED.compareAndSet(stripe, 0, 1)) {
+            return;
+        }
+        try {
+            flusher.schedule(() -> runStripe(stripe));
+        } catch (Throwable error) {
+            //调度器已经停止
+            runStripe(stripe);
+        }
+    }
+
+    private void runStripe(Stripe<T> stripe) {
+        Stripe.SCHEDULED.set(stripe, 0);
+        consumeStripe(stripe);
+        //处理完自身分片后,窃取其他分片中还在等待调度的数据,避免多个分片的任务排队在同一个线程上
+        for (Stripe<T> other : stripes) {
+            if (other != stripe && !other.queue.isEmpty()) {
+                consumeStripe(other);
+            }
+        }
+    }
+
+    //获取消费权后将分片中的数据写入文件队列,并由分片自身刷新.获取失败说明其他线程正在处理此分片
+    private void consumeStripe(Stripe<T> stripe) {
+        List<Pending<T>> batch = new ArrayList<>();
+        while (Stripe.CONSUMING.compareAndSet(stripe, 0, 1)) {
+            try {
+                persistStripe(stripe, batch);
+                fillStripe(stripe);
+            } finally {
+                Stripe.CONSUMING.set(stripe, 0);
+            }
+            //释放消费权后可能有新的数据写入
+            if (stripe.queue.isEmpty()) {
+                break;
+            }
+        }
+    }
+
+    //将分片中的数据批量写入文件队列,写入成功后才通知写入完成,需要先获取消费权
+    private void persistStripe(Stripe<T> stripe, List<Pending<T>> batch) {
+        while (stripe.drainTo(batch, settings.getBufferSize()) > 0) {
+            persist(batch);
+            batch.clear();
+        }
+    }
+
+    private void persist(List<Pending<T>> batch) {
+        List<Buf<T>> bufs = new ArrayList<>(batch.size());
+        for (Pending<T> pending : batch) {
+            bufs.addAll(pending.bufs);
+        }
+        try {
+            FileQueue<Buf<T>> queue = this.queue;
+            if (queue == null || isDisposed()) {
+                bufs.forEach(this::write);
+            } else {
+                queue.addAll(bufs);
+                for (int i = 0; i < bufs.size(); i++) {
+                    monitor.in();
+                }
+            }
+        } catch (Throwable error) {
+            for (Pending<T> pending : batch) {
+                pending.sink.error(error);
+            }
+            return;
+        }
+        for (Pending<T> pending : batch) {
+            pending.sink.success();
+        }
+        if (!isDisposed()) {
+            //尝试执行淘汰策略
+            settings.getEviction().tryEviction(this);
+        }
+    }
+
+    //从文件队列中取出数据放入分片自身的缓冲区,缓冲区满了直接刷新,不经过共享的缓冲区.需要先获取消费权
+    private void fillStripe(Stripe<T> stripe) {
+        int size = settings.getBufferSize();
+        for (int i = 0; i < size && started && !isDisposed(); i++) {
+            //刷新中的操作已达到并行度,剩余数据由刷新完成后的drain处理
+            if (WIP.get(this) >= settings.getParallelism()) {
+                return;
+            }
+            Buf<T> poll = settings.getStrategy() == ConsumeStrategy.LIFO
+                ? queue.removeLast()
+                : queue.poll();
+            if (poll == null) {
+                return;
+            }
+            stripe.buffer.add(poll);
+            if (stripe.buffer.size() >= size) {
+                flushStripe(stripe);
+            }
+        }
+    }
+
+    //刷新分片自身的缓冲区,需要先获取消费权
+    private void flushStripe(Stripe<T> stripe) {
+        Collection<Buf<T>> c = stripe.buffer;
+        if (c.isEmpty()) {
+            return;
+        }
+        stripe.buffer = newBuffer();
+        stripe.lastFlushTime = System.currentTimeMillis();
+        flush(c);
+    }
+
+    //定时刷新超时未满的分片缓冲区
+    private void intervalFlushStripes() {
+        long timeout = settings.getBufferTimeout().toMillis();
+        for (Stripe<T> stripe : stripes) {
+            if (System.currentTimeMillis() - stripe.lastFlushTime < timeout
+                || WIP.get(this) > settings.getParallelism()
+                || !Stripe.CONSUMING.compareAndSet(stripe, 0, 1)) {
+                continue;
+            }
+            try {
+                flushStripe(stripe);
+            } finally {
+                Stripe.CONSUMING.set(stripe, 0);
+            }
+            if (!stripe.queue.isEmpty()) {
+                scheduleStripe(stripe);
+            }
+        }
+    }
+
+    //停止时获取消费权,将剩余的数据写入文件队列
+    private void disposeStripe(Stripe<T> stripe) {
+        for (int i = 0; !Stripe.CONSUMING.compareAndSet(stripe, 0, 1); i++) {
+            if (i >= 500) {
+                logger.warn("wait buffer stripe persisting timeout,remainder:{}", stripe.queue.size());
+                return;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        try {
+            persistStripe(stripe, new ArrayList<>());
+            //分片缓冲区中的数据已从文件队列中取出,需要重新写回
+            Collection<Buf<T>> remainders = stripe.buffer;
+            stripe.buffer = newBuffer();
+            queue.addAll(remainders);
+        } finally {
+            Stripe.CONSUMING.set(stripe, 0);
+        }
+    }
+
     private void onNext(@Nonnull Buf<T> value) {
 
         Collection<Buf<T>> c;
@@ -708,7 +973,8 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
 
         synchronized (this) {
             c = buffer();
-            if (c.size() == settings.getBufferSize() - 1) {
+            //缓冲区大小可能在运行时被调小
+            if (c.size() >= settings.getBufferSize() - 1) {
                 BUFFER.compareAndSet(this, c, newBuffer());
                 flush = true;
             }
@@ -725,6 +991,58 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
         return BUFFER.get(this);
     }
 
+    /**
+     * 分片写入队列,多生产者单消费者的无锁环形队列.
+     * 写入的数据由持久化线程批量写入文件队列后才通知写入完成,消费时需要先获取消费权.
+     * 获取消费权的线程同时负责从文件队列取出数据到分片自身的缓冲区并刷新,空闲的持久化线程可以窃取其他分片的消费权.
+     */
+    static class Stripe<T> {
+        @SuppressWarnings("all")
+        private final static AtomicIntegerFieldUpdater<Stripe> CONSUMING =
+            AtomicIntegerFieldUpdater.newUpdater(Stripe.class, "consuming");
+
+        @SuppressWarnings("all")
+        private final static AtomicIntegerFieldUpdater<Stripe> SCHEDULED =
+            AtomicIntegerFieldUpdater.newUpdater(Stripe.class, "scheduled");
+
+        final MpscArrayQueue<Pending<T>> queue;
+
+        //分片自身的刷新缓冲区,持有消费权时才能修改
+        private volatile Collection<Buf<T>> buffer;
+
+        private volatile long lastFlushTime;
+
+        private volatile int consuming;
+
+        private volatile int scheduled;
+
+        Stripe(int capacity, Collection<Buf<T>> buffer) {
+            this.queue = new MpscArrayQueue<>(capacity);
+            this.buffer = buffer;
+        }
+
+        //获取消费权后调用,limit为数据条数,返回取出的写入请求数量
+        int drainTo(Collection<Pending<T>> target, int limit) {
+            int size = 0, count = 0;
+            while (size < limit) {
+                Pending<T> pending = queue.relaxedPoll();
+                if (pending == null) {
+                    break;
+                }
+                target.add(pending);
+                size += pending.bufs.size();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    @AllArgsConstructor
+    static class Pending<T> {
+        private final List<Buf<T>> bufs;
+        private final MonoSink<Void> sink;
+    }
+
     @SneakyThrows
     protected ObjectInput createInput(ByteBuf buffer) {
         return Serializers.getDefault().createInput(new ByteBufInputStream(buffer, true));
@@ -816,22 +1134,32 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
             return 0;
         }
         if (Objects.equals(fileName, settings.getFileName()) ||
-            Objects.equals(fileName, settings.getFileName() + ".dead")) {
+            Objects.equals(fileName, settings.getFileName() + ".dead") ||
+            Objects.equals(fileName, getSafeFileName(settings.getFileName()) + SEGMENT_DIR_SUFFIX) ||
+            Objects.equals(fileName, getSafeFileName(settings.getFileName()) + ".dead" + SEGMENT_DIR_SUFFIX)) {
             return 0;
         }
         File file = new File(settings.getFilePath(), fileName);
-        if (!file.isFile() || !file.exists()) {
+        if (!file.exists()) {
+            return 0;
+        }
+        FileQueue<Buf<T>> _queue;
+        if (file.isDirectory() && fileName.endsWith(SEGMENT_DIR_SUFFIX)) {
+            //分段文件队列
+            _queue = wrap(new MappedSegmentQueue<>(file.toPath(), settings.getSegment(), new BufCodec()));
+        } else if (file.isFile()) {
+            BufDataType dataType = newType();
+            //数据队列
+            _queue = wrap(
+                FileQueue
+                    .<Buf<T>>builder()
+                    .name(fileName)
+                    .path(Paths.get(settings.getFilePath()))
+                    .option("valueType", dataType)
+                    .build());
+        } else {
             return 0;
         }
-        BufDataType dataType = newType();
-        //数据队列
-        FileQueue<Buf<T>> _queue = wrap(
-            FileQueue
-                .<Buf<T>>builder()
-                .name(fileName)
-                .path(Paths.get(settings.getFilePath()))
-                .option("valueType", dataType)
-                .build());
         try {
             long size = _queue.size();
             if (dead) {
@@ -929,6 +1257,28 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
         }
     }
 
+    class BufCodec implements MappedSegmentQueue.Codec<Buf<T>> {
+
+        @Override
+        @SneakyThrows
+        public void encode(Buf<T> value, ByteBuf output) {
+            try (ObjectOutput out = createOutput(output)) {
+                value.writeExternal(out);
+                out.flush();
+            }
+        }
+
+        @Override
+        @SneakyThrows
+        public Buf<T> decode(ByteBuf input) {
+            Buf<T> data = new Buf<>(instanceBuilder);
+            try (ObjectInput in = createInput(input)) {
+                data.readExternal(in);
+            }
+            return data;
+        }
+    }
+
     private ObjectName objectName;
 
     void registerMbean() {
@@ -1091,12 +1441,16 @@ public class PersistenceBuffer<T extends Serializable> implements EvictionContex
                                      ",bufferTimeout: %s" +
                                      ",parallelism: %s" +
                                      ",maxRetryTimes: %s" +
-                                     ",fileConcurrency: %s" + "\nEviction:%s ",
+                                     ",fileConcurrency: %s" +
+                                     ",queueType: %s" +
+                                     ",striped: %s" + "\nEviction:%s ",
                                  buffer.settings.getBufferSize(),
                                  buffer.settings.getBufferTimeout(),
                                  buffer.settings.getParallelism(),
                                  buffer.settings.getMaxRetryTimes(),
                                  buffer.settings.getFileConcurrency(),
+                                 buffer.settings.getQueueType(),
+                                 buffer.settings.isStriped(),
                                  buffer.settings.getEviction());
         }
 
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.buffer;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 分段文件队列配置,在{@link BufferQueueType#segment}时生效.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@Getter
+@Setter
+public class SegmentQueueSpec {
+
+    //默认配置,不可修改
+    public static final SegmentQueueSpec DEFAULT = new ReadOnly();
+
+    //单个分段文件大小
+    private DataSize segmentSize = DataSize.ofMegabytes(32);
+
+    //刷盘间隔
+    private Duration syncInterval = Duration.ofMillis(200);
+
+    //写入多少条数据后刷盘
+    private int syncBatch = 4096;
+
+    private static final class ReadOnly extends SegmentQueueSpec {
+
+        @Override
+        public void setSegmentSize(DataSize segmentSize) {
+            throw new UnsupportedOperationException("default segment queue spec is read-only");
+        }
+
+        @Override
+        public void setSyncInterval(Duration syncInterval) {
+            throw new UnsupportedOperationException("default segment queue spec is read-only");
+        }
+
+        @Override
+        public void setSyncBatch(int syncBatch) {
+            throw new UnsupportedOperationException("default segment queue spec is read-only");
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedTimerSchedulerTest {
+
+    //每秒执行
+    static final String EVERY_SECOND = "0/1 * * * * ?";
+
+    private final SharedTimerScheduler scheduler = new SharedTimerScheduler(Schedulers.parallel());
+
+    @Test
+    void testShareSameSpec() throws Exception {
+        Flux<Long> first = scheduler.flux(TimerSpec.cron(EVERY_SECOND));
+        Flux<Long> second = scheduler.flux(TimerSpec.cron(EVERY_SECOND));
+
+        List<Long> firstValues = new CopyOnWriteArrayList<>();
+        List<Long> secondValues = new CopyOnWriteArrayList<>();
+        Disposable firstDisposable = first.subscribe(firstValues::add);
+        Disposable secondDisposable = second.subscribe(secondValues::add);
+        try {
+            //相同的定时规则只有一个定时
+            assertEquals(1, scheduler.size());
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while ((firstValues.size() < 2 || secondValues.size() < 2)
+                && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            //每个订阅者的次数单独计算,从0开始
+            assertEquals(List.of(0L, 1L), firstValues.subList(0, 2));
+            assertEquals(List.of(0L, 1L), secondValues.subList(0, 2));
+        } finally {
+            firstDisposable.dispose();
+            secondDisposable.dispose();
+        }
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void testDifferentSpec() {
+        Disposable first = scheduler.flux(TimerSpec.cron(EVERY_SECOND)).subscribe();
+        Disposable second = scheduler.flux(TimerSpec.cron("0/2 * * * * ?")).subscribe();
+        assertEquals(2, scheduler.size());
+
+        first.dispose();
+        assertEquals(1, scheduler.size());
+        second.dispose();
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void testKeepTimerForOtherSubscribers() {
+        Disposable remaining = scheduler.flux(TimerSpec.cron(EVERY_SECOND)).subscribe();
+        try {
+            //其中一个订阅者结束后定时依然有效
+            StepVerifier
+                .create(scheduler.flux(TimerSpec.cron(EVERY_SECOND)).take(1))
+                .expectNext(0L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+            assertEquals(1, scheduler.size());
+
+            StepVerifier
+                .create(scheduler.flux(TimerSpec.cron(EVERY_SECOND)).take(2))
+                .expectNext(0L, 1L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+            assertEquals(1, scheduler.size());
+        } finally {
+            remaining.dispose();
+        }
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void testCompleteWithoutNextTime() {
+        //执行时间已经过去
+        StepVerifier
+            .create(scheduler.flux(TimerSpec.cron("0 0 0 1 1 ? 2000")))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+        assertEquals(0, scheduler.size());
+    }
+}
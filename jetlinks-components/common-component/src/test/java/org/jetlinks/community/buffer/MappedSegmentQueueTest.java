@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.buffer;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSegmentQueueTest {
+
+    //单条记录: [长度][crc32]["v0"]
+    static final int RECORD_SIZE = 8 + 2;
+
+    static final MappedSegmentQueue.Codec<String> CODEC = new MappedSegmentQueue.Codec<String>() {
+        @Override
+        public void encode(String value, ByteBuf output) {
+            output.writeCharSequence(value, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(ByteBuf input) {
+            return input.toString(StandardCharsets.UTF_8);
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    private MappedSegmentQueue<String> open(int segmentSize) {
+        SegmentQueueSpec spec = new SegmentQueueSpec();
+        spec.setSegmentSize(DataSize.ofBytes(segmentSize));
+        spec.setSyncBatch(1);
+        return new MappedSegmentQueue<>(dir, spec, CODEC);
+    }
+
+    private List<String> drain(MappedSegmentQueue<String> queue) {
+        List<String> values = new ArrayList<>();
+        String value;
+        while ((value = queue.poll()) != null) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    private File[] segmentFiles() {
+        File[] files = dir.toFile().listFiles(file -> file.getName().endsWith(MappedSegmentQueue.SEGMENT_SUFFIX));
+        assertNotNull(files);
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void write(int count) {
+        MappedSegmentQueue<String> queue = open(1024);
+        for (int i = 0; i < count; i++) {
+            assertTrue(queue.offer("v" + i));
+        }
+        queue.close();
+    }
+
+    @Test
+    void testRecover() {
+        MappedSegmentQueue<String> queue = open(1024);
+        for (int i = 0; i < 10; i++) {
+            queue.offer("v" + i);
+        }
+        assertEquals("v0", queue.poll());
+        assertEquals("v1", queue.poll());
+        queue.close();
+
+        //从checkpoint恢复消费进度
+        queue = open(1024);
+        assertEquals(8, queue.size());
+        assertEquals("v2", queue.peek());
+        assertEquals("v9", queue.removeLast());
+        queue.close();
+
+        queue = open(1024);
+        assertEquals(Arrays.asList("v2", "v3", "v4", "v5", "v6", "v7", "v8"), drain(queue));
+        queue.close();
+    }
+
+    @Test
+    void testCorruptedRecord() throws IOException {
+        write(10);
+        //最后一条记录的校验码错误
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles()[0], "rw")) {
+            file.seek(RECORD_SIZE * 9 + 4);
+            file.writeInt(0);
+        }
+        MappedSegmentQueue<String> queue = open(1024);
+        assertEquals(9, queue.size());
+        //从损坏的位置继续写入
+        queue.offer("new");
+        queue.close();
+
+        queue = open(1024);
+        List<String> values = drain(queue);
+        assertEquals(10, values.size());
+        assertEquals("v8", values.get(8));
+        assertEquals("new", values.get(9));
+        queue.close();
+    }
+
+    @Test
+    void testTornHeader() throws IOException {
+        write(10);
+        //只写入了长度,数据和校验码未写入
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles()[0], "rw")) {
+            file.seek(RECORD_SIZE * 10);
+            file.writeInt(100);
+        }
+        MappedSegmentQueue<String> queue = open(1024);
+        assertEquals(10, queue.size());
+        queue.offer("new");
+        queue.close();
+
+        queue = open(1024);
+        List<String> values = drain(queue);
+        assertEquals(11, values.size());
+        assertEquals("new", values.get(10));
+        queue.close();
+    }
+
+    @Test
+    void testTruncatedSegment() throws IOException {
+        write(10);
+        //文件在最后一条记录中间被截断
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles()[0], "rw")) {
+            file.setLength(RECORD_SIZE * 9 + 5);
+        }
+        MappedSegmentQueue<String> queue = open(1024);
+        assertEquals(9, queue.size());
+        assertEquals("v0", queue.peek());
+        queue.close();
+    }
+
+    @Test
+    void testSegmentRollover() {
+        //每个分段最多保存10条记录
+        MappedSegmentQueue<String> queue = open(RECORD_SIZE * 10);
+        for (int i = 0; i < 35; i++) {
+            queue.offer("v" + (i % 10));
+        }
+        assertEquals(4, segmentFiles().length);
+        assertEquals(35, queue.size());
+
+        List<String> iterated = new ArrayList<>();
+        queue.iterator().forEachRemaining(iterated::add);
+        assertEquals(35, iterated.size());
+
+        for (int i = 0; i < 25; i++) {
+            assertNotNull(queue.poll());
+        }
+        //消费完的分段文件已删除
+        assertEquals(2, segmentFiles().length);
+        queue.close();
+
+        queue = open(RECORD_SIZE * 10);
+        assertEquals(10, queue.size());
+        assertEquals(10, drain(queue).size());
+        queue.close();
+    }
+
+    @Test
+    void testIteratorAfterRelease() {
+        MappedSegmentQueue<String> queue = open(RECORD_SIZE * 10);
+        for (int i = 0; i < 20; i++) {
+            queue.offer("v" + (i % 10));
+        }
+        var iterator = queue.iterator();
+        assertEquals("v0", iterator.next());
+        //第一个分段被消费并释放后,迭代器跳过该分段
+        for (int i = 0; i < 10; i++) {
+            queue.poll();
+        }
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        assertEquals(10, count);
+        queue.close();
+    }
+
+    @Test
+    void testDefaultSpecReadOnly() {
+        assertThrows(UnsupportedOperationException.class, () -> SegmentQueueSpec.DEFAULT.setSyncBatch(1));
+        assertThrows(UnsupportedOperationException.class,
+                     () -> SegmentQueueSpec.DEFAULT.setSegmentSize(DataSize.ofBytes(1)));
+        assertEquals(4096, SegmentQueueSpec.DEFAULT.getSyncBatch());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.buffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceBufferTest {
+
+    @TempDir
+    Path dir;
+
+    private PersistenceBuffer<String> buffer;
+
+    private final Set<String> handled = ConcurrentHashMap.newKeySet();
+
+    private PersistenceBuffer<String> striped() {
+        buffer = new PersistenceBuffer<String>(
+            BufferSettings
+                .create(dir.toString(), "test.queue")
+                .bufferSize(100)
+                .bufferTimeout(Duration.ofMillis(100))
+                .parallelism(4)
+                .striped(true),
+            String::new,
+            flux -> flux
+                .doOnNext(handled::add)
+                .then(Mono.just(false)))
+            .name("test");
+        buffer.start();
+        return buffer;
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (buffer != null) {
+            buffer.dispose();
+        }
+    }
+
+    @Test
+    void testWriteEmptyCollection() {
+        PersistenceBuffer<String> buffer = striped();
+
+        buffer.writeAsync(Collections.emptyList()).block(Duration.ofSeconds(5));
+        //空写入之后的写入也能正常完成
+        buffer.writeAsync(Arrays.asList("a", "b")).block(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testStripedWriteConcurrently() throws InterruptedException {
+        PersistenceBuffer<String> buffer = striped();
+
+        int threads = 16, count = 500;
+        Flux.range(0, threads)
+            .flatMap(thread -> Flux
+                .range(0, count)
+                .concatMap(i -> buffer.writeAsync(thread + "-" + i))
+                .subscribeOn(Schedulers.parallel()), threads)
+            .then()
+            .block(Duration.ofSeconds(30));
+
+        for (int i = 0; i < 100 && handled.size() < threads * count; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(threads * count, handled.size());
+    }
+
+    @Test
+    void testDrainToReturnsPendingCount() {
+        PersistenceBuffer.Stripe<String> stripe = new PersistenceBuffer.Stripe<>(16, new ArrayList<>());
+        stripe.queue.offer(new PersistenceBuffer.Pending<String>(Collections.emptyList(), null));
+        stripe.queue.offer(new PersistenceBuffer.Pending<String>(
+            Collections.singletonList(new PersistenceBuffer.Buf<>("a", null)), null));
+
+        List<PersistenceBuffer.Pending<String>> batch = new ArrayList<>();
+        assertEquals(2, stripe.drainTo(batch, 100));
+        assertEquals(2, batch.size());
+        assertEquals(0, stripe.drainTo(batch, 100));
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.configure.cluster;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.scalecube.cluster.transport.api.Message;
+import io.scalecube.cluster.transport.api.MessageCodec;
+import org.jetlinks.core.message.CommonDeviceMessage;
+import org.jetlinks.core.message.CommonDeviceMessageReply;
+import org.jetlinks.core.message.DeviceMessage;
+import org.jetlinks.core.message.DeviceOfflineMessage;
+import org.jetlinks.core.message.DeviceOnlineMessage;
+import org.jetlinks.core.message.event.EventMessage;
+import org.jetlinks.core.message.function.FunctionInvokeMessage;
+import org.jetlinks.core.message.function.FunctionInvokeMessageReply;
+import org.jetlinks.core.message.function.FunctionParameter;
+import org.jetlinks.core.message.property.ReportPropertyMessage;
+import org.jetlinks.core.utils.SerializeUtils;
+import org.nustaq.serialization.FSTConfiguration;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 集群消息二进制编解码器.
+ * <p>
+ * 对常用的设备消息(属性上报,事件,上线,离线,功能调用及回复)使用类型标记加手写字段编码,
+ * 直接写入池化的{@link ByteBuf},不再为每条消息创建FST对象流.
+ * 其他类型的数据以及消息中无法识别的值,使用FST序列化后按长度写入.
+ * <p>
+ * 格式: [版本][头数量][头...][数据类型][数据]
+ * <p>
+ * 注意: 集群中所有节点需要使用相同的编解码器.
+ *
+ * @author zhouhao
+ * @see FSTMessageCodec
+ * @see ClusterProperties#getCodec()
+ * @since 2.11
+ */
+public class BinaryMessageCodec implements MessageCodec {
+
+    static final byte VERSION = 1;
+
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_GENERIC = 1;
+    static final byte TYPE_BYTES = 2;
+    static final byte TYPE_STRING = 3;
+    static final byte TYPE_REPORT_PROPERTY = 10;
+    static final byte TYPE_EVENT = 11;
+    static final byte TYPE_ONLINE = 12;
+    static final byte TYPE_OFFLINE = 13;
+    static final byte TYPE_FUNCTION_INVOKE = 14;
+    static final byte TYPE_FUNCTION_REPLY = 15;
+
+    private final FastThreadLocal<FSTConfiguration> configuration;
+
+    public BinaryMessageCodec(Supplier<FSTConfiguration> supplier) {
+        this.configuration = new FastThreadLocal<FSTConfiguration>() {
+            @Override
+            protected FSTConfiguration initialValue() {
+                return supplier.get();
+            }
+        };
+    }
+
+    @Override
+    public Message deserialize(InputStream stream) throws Exception {
+        try (Input input = new Input(stream, configuration.get())) {
+            byte version = input.readByte();
+            if (version != VERSION) {
+                throw new IOException("unsupported cluster message version:" + version);
+            }
+            int size = input.readInt();
+            Map<String, String> headers = new HashMap<>(Math.max(4, (int) (size / 0.75f) + 1));
+            for (int i = 0; i < size; i++) {
+                headers.put(input.readUTF(), SerializeUtils.readNullableUTF(input));
+            }
+            return Message
+                .builder()
+                .headers(headers)
+                .data(readData(input))
+                .build();
+        }
+    }
+
+    @Override
+    public void serialize(Message message, OutputStream stream) throws Exception {
+        //scalecube传入的是ByteBufOutputStream,直接写入目标缓冲区
+        if (stream instanceof ByteBufOutputStream) {
+            serialize(message, ((ByteBufOutputStream) stream).buffer());
+            return;
+        }
+        ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(256);
+        try {
+            serialize(message, buf);
+            buf.readBytes(stream, buf.readableBytes());
+        } finally {
+            ReferenceCountUtil.safeRelease(buf);
+        }
+    }
+
+    /**
+     * 将消息编码到ByteBuf中
+     *
+     * @param message 消息
+     * @param buf     ByteBuf
+     */
+    public void serialize(Message message, ByteBuf buf) throws IOException {
+        try (Output output = new Output(buf, configuration.get())) {
+            output.writeByte(VERSION);
+            Map<String, String> headers = message.headers();
+            output.writeInt(headers.size());
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                output.writeUTF(entry.getKey());
+                SerializeUtils.writeNullableUTF(entry.getValue(), output);
+            }
+            writeData(message.data(), output);
+        }
+    }
+
+    static void writeData(Object data, ObjectOutput output) throws IOException {
+        if (data == null) {
+            output.writeByte(TYPE_NULL);
+            return;
+        }
+        //只处理确定的类型,子类可能有额外的字段,使用通用方式序列化
+        Class<?> type = data.getClass();
+        if (type == ReportPropertyMessage.class) {
+            ReportPropertyMessage msg = (ReportPropertyMessage) data;
+            output.writeByte(TYPE_REPORT_PROPERTY);
+            writeCommon(msg, output);
+            SerializeUtils.writeObject(msg.getProperties(), output);
+            SerializeUtils.writeObject(msg.getPropertySourceTimes(), output);
+            SerializeUtils.writeObject(msg.getPropertyStates(), output);
+        } else if (type == EventMessage.class) {
+            EventMessage msg = (EventMessage) data;
+            output.writeByte(TYPE_EVENT);
+            writeCommon(msg, output);
+            SerializeUtils.writeNullableUTF(msg.getEvent(), output);
+            SerializeUtils.writeObject(msg.getData(), output);
+        } else if (type == DeviceOnlineMessage.class) {
+            output.writeByte(TYPE_ONLINE);
+            writeCommon((DeviceOnlineMessage) data, output);
+        } else if (type == DeviceOfflineMessage.class) {
+            output.writeByte(TYPE_OFFLINE);
+            writeCommon((DeviceOfflineMessage) data, output);
+        } else if (type == FunctionInvokeMessage.class) {
+            FunctionInvokeMessage msg = (FunctionInvokeMessage) data;
+            output.writeByte(TYPE_FUNCTION_INVOKE);
+            writeCommon(msg, output);
+            SerializeUtils.writeNullableUTF(msg.getFunctionId(), output);
+            List<FunctionParameter> inputs = msg.getInputs();
+            int size = inputs == null ? 0 : inputs.size();
+            output.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                FunctionParameter parameter = inputs.get(i);
+                SerializeUtils.writeNullableUTF(parameter.getName(), output);
+                SerializeUtils.writeObject(parameter.getValue(), output);
+            }
+        } else if (type == FunctionInvokeMessageReply.class) {
+            FunctionInvokeMessageReply msg = (FunctionInvokeMessageReply) data;
+            output.writeByte(TYPE_FUNCTION_REPLY);
+            writeCommon(msg, output);
+            output.writeBoolean(msg.isSuccess());
+            SerializeUtils.writeNullableUTF(msg.getCode(), output);
+            SerializeUtils.writeNullableUTF(msg.getMessage(), output);
+            SerializeUtils.writeNullableUTF(msg.getFunctionId(), output);
+            SerializeUtils.writeObject(msg.getOutput(), output);
+        } else if (type == byte[].class) {
+            byte[] bytes = (byte[]) data;
+            output.writeByte(TYPE_BYTES);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else if (type == String.class) {
+            output.writeByte(TYPE_STRING);
+            SerializeUtils.writeNullableUTF((String) data, output);
+        } else {
+            output.writeByte(TYPE_GENERIC);
+            output.writeObject(data);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Object readData(ObjectInput input) throws IOException, ClassNotFoundException {
+        byte type = input.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_REPORT_PROPERTY: {
+                ReportPropertyMessage msg = readCommon(new ReportPropertyMessage(), input);
+                msg.setProperties((Map<String, Object>) SerializeUtils.readObject(input));
+                msg.setPropertySourceTimes((Map<String, Long>) SerializeUtils.readObject(input));
+                msg.setPropertyStates((Map<String, String>) SerializeUtils.readObject(input));
+                return msg;
+            }
+            case TYPE_EVENT: {
+                EventMessage msg = readCommon(new EventMessage(), input);
+                msg.setEvent(SerializeUtils.readNullableUTF(input));
+                msg.setData(SerializeUtils.readObject(input));
+                return msg;
+            }
+            case TYPE_ONLINE:
+                return readCommon(new DeviceOnlineMessage(), input);
+            case TYPE_OFFLINE:
+                return readCommon(new DeviceOfflineMessage(), input);
+            case TYPE_FUNCTION_INVOKE: {
+                FunctionInvokeMessage msg = readCommon(new FunctionInvokeMessage(), input);
+                msg.setFunctionId(SerializeUtils.readNullableUTF(input));
+                int size = input.readInt();
+                List<FunctionParameter> inputs = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    inputs.add(new FunctionParameter(
+                        SerializeUtils.readNullableUTF(input),
+                        SerializeUtils.readObject(input)));
+                }
+                msg.setInputs(inputs);
+                return msg;
+            }
+            case TYPE_FUNCTION_REPLY: {
+                FunctionInvokeMessageReply msg = readCommon(new FunctionInvokeMessageReply(), input);
+                msg.setSuccess(input.readBoolean());
+                msg.setCode(SerializeUtils.readNullableUTF(input));
+                msg.setMessage(SerializeUtils.readNullableUTF(input));
+                msg.setFunctionId(SerializeUtils.readNullableUTF(input));
+                msg.setOutput(SerializeUtils.readObject(input));
+                return msg;
+            }
+            case TYPE_BYTES: {
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                return bytes;
+            }
+            case TYPE_STRING:
+                return SerializeUtils.readNullableUTF(input);
+            case TYPE_GENERIC:
+                return input.readObject();
+            default:
+                throw new IOException("unsupported cluster message data type:" + type);
+        }
+    }
+
+    private static void writeCommon(CommonDeviceMessage<?> msg, ObjectOutput output) throws IOException {
+        SerializeUtils.writeNullableUTF(msg.getMessageId(), output);
+        SerializeUtils.writeNullableUTF(msg.getDeviceId(), output);
+        output.writeLong(msg.getTimestamp());
+        SerializeUtils.writeObject(msg.getHeaders(), output);
+    }
+
+    private static void writeCommon(CommonDeviceMessageReply<?> msg, ObjectOutput output) throws IOException {
+        SerializeUtils.writeNullableUTF(msg.getMessageId(), output);
+        SerializeUtils.writeNullableUTF(msg.getDeviceId(), output);
+        output.writeLong(msg.getTimestamp());
+        SerializeUtils.writeObject(msg.getHeaders(), output);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends DeviceMessage> T readCommon(T msg, ObjectInput input)
+        throws IOException, ClassNotFoundException {
+        String messageId = SerializeUtils.readNullableUTF(input);
+        String deviceId = SerializeUtils.readNullableUTF(input);
+        long timestamp = input.readLong();
+        Map<String, Object> headers = (Map<String, Object>) SerializeUtils.readObject(input);
+        if (msg instanceof CommonDeviceMessage<?> common) {
+            common.setMessageId(messageId);
+            common.setDeviceId(deviceId);
+            common.setTimestamp(timestamp);
+        } else if (msg instanceof CommonDeviceMessageReply<?> reply) {
+            reply.setMessageId(messageId);
+            reply.setDeviceId(deviceId);
+            reply.setTimestamp(timestamp);
+        }
+        if (headers != null) {
+            headers.forEach(msg::addHeader);
+        }
+        return msg;
+    }
+
+    /**
+     * 写入到ByteBuf的ObjectOutput,无法识别的对象使用FST序列化并按长度写入
+     */
+    static class Output extends ByteBufOutputStream implements ObjectOutput {
+        private final FSTConfiguration fst;
+
+        Output(ByteBuf buffer, FSTConfiguration fst) {
+            super(buffer);
+            this.fst = fst;
+        }
+
+        @Override
+        public void writeObject(Object obj) throws IOException {
+            byte[] bytes = fst.asByteArray(obj);
+            writeInt(bytes.length);
+            write(bytes);
+        }
+    }
+
+    /**
+     * 与{@link Output}对应的ObjectInput
+     */
+    static class Input extends DataInputStream implements ObjectInput {
+        private final FSTConfiguration fst;
+
+        Input(InputStream stream, FSTConfiguration fst) {
+            super(stream);
+            this.fst = fst;
+        }
+
+        @Override
+        public Object readObject() throws IOException {
+            byte[] bytes = new byte[readInt()];
+            readFully(bytes);
+            return fst.asObject(bytes);
+        }
+    }
+}
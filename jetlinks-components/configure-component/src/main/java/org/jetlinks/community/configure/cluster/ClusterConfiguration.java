@@ -16,6 +16,7 @@
 package org.jetlinks.community.configure.cluster;
 
 import io.scalecube.cluster.ClusterConfig;
+import io.scalecube.cluster.transport.api.MessageCodec;
 import io.scalecube.net.Address;
 import io.scalecube.services.transport.rsocket.RSocketClientTransportFactory;
 import io.scalecube.services.transport.rsocket.RSocketServerTransportFactory;
@@ -37,6 +38,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Configuration(proxyBeanMethods = false)
@@ -47,14 +49,17 @@ public class ClusterConfiguration {
     @Bean
     public ExtendedClusterImpl cluster(ClusterProperties properties, ResourceLoader resourceLoader) {
 
-        FSTMessageCodec codec = new FSTMessageCodec(() -> {
+        Supplier<FSTConfiguration> fst = () -> {
             FSTConfiguration configuration = FSTConfiguration
                 .createDefaultConfiguration()
                 .setForceSerializable(true);
 
             configuration.setClassLoader(resourceLoader.getClassLoader());
             return configuration;
-        });
+        };
+        MessageCodec codec = properties.getCodec() == ClusterProperties.CodecType.binary
+            ? new BinaryMessageCodec(fst)
+            : new FSTMessageCodec(fst);
 
         ExtendedClusterImpl impl = new ExtendedClusterImpl(
             new ClusterConfig()
@@ -55,6 +55,14 @@ public class ClusterProperties {
 
     private List<String> seeds = new ArrayList<>();
 
+    /**
+     * 集群消息编解码方式,集群中所有节点需要保持一致.
+     * 默认使用与旧版本兼容的{@link CodecType#fst},所有节点升级后可配置<code>jetlinks.cluster.codec=binary</code>启用二进制编码.
+     *
+     * @since 2.11
+     */
+    private CodecType codec = CodecType.fst;
+
     public void setId(String id) {
         this.id = id;
         Cluster.setup(id, id, Collections.emptyMap());
@@ -70,5 +78,10 @@ public class ClusterProperties {
         return NAME;
     }
 
-
+    public enum CodecType {
+        //二进制编码,常用设备消息使用手写字段编码,与旧版本节点不兼容
+        binary,
+        //FST序列化
+        fst
+    }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.configure.cluster;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.scalecube.cluster.transport.api.Message;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.jetlinks.core.message.DeviceOfflineMessage;
+import org.jetlinks.core.message.DeviceOnlineMessage;
+import org.jetlinks.core.message.event.EventMessage;
+import org.jetlinks.core.message.function.FunctionInvokeMessage;
+import org.jetlinks.core.message.function.FunctionInvokeMessageReply;
+import org.jetlinks.core.message.function.FunctionParameter;
+import org.jetlinks.core.message.property.ReportPropertyMessage;
+import org.junit.jupiter.api.Test;
+import org.nustaq.serialization.FSTConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryMessageCodecTest {
+
+    private final BinaryMessageCodec codec = new BinaryMessageCodec(
+        () -> FSTConfiguration
+            .createDefaultConfiguration()
+            .setForceSerializable(true));
+
+    private static Map<String, String> createHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("q", "/device/test/message");
+        headers.put("cid", "1");
+        headers.put("nullable", null);
+        return headers;
+    }
+
+    //分别使用ByteBuf和普通流编解码,两种方式的结果应当一致
+    @SuppressWarnings("unchecked")
+    private <T> T roundTrip(Object data) throws Exception {
+        Map<String, String> headers = createHeaders();
+        Message message = Message.builder().headers(headers).data(data).build();
+
+        ByteBuf buf = ByteBufAllocator.DEFAULT.buffer();
+        Message fromBuf;
+        try {
+            codec.serialize(message, new ByteBufOutputStream(buf));
+            fromBuf = codec.deserialize(new ByteBufInputStream(buf));
+            assertEquals(0, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        codec.serialize(message, stream);
+        Message fromStream = codec.deserialize(new ByteArrayInputStream(stream.toByteArray()));
+
+        assertEquals(message.headers(), fromBuf.headers());
+        assertEquals(message.headers(), fromStream.headers());
+        if (data == null) {
+            assertNull(fromBuf.data());
+            assertNull(fromStream.data());
+        } else {
+            assertSame(data.getClass(), fromBuf.data().getClass());
+            assertSame(data.getClass(), fromStream.data().getClass());
+            if (!(data instanceof byte[])) {
+                assertEquals(fromBuf.data().toString(), fromStream.data().toString());
+            }
+        }
+        return (T) fromBuf.data();
+    }
+
+    @Test
+    void testReportProperty() throws Exception {
+        ReportPropertyMessage msg = new ReportPropertyMessage();
+        msg.setMessageId("msg-1");
+        msg.setDeviceId("device-1");
+        msg.setTimestamp(1700000000000L);
+        msg.addHeader("productId", "test");
+        msg.addHeader("keepOnline", true);
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("temp", 36.5D);
+        properties.put("count", 10L);
+        properties.put("name", "test");
+        properties.put("empty", null);
+        msg.setProperties(properties);
+        msg.setPropertySourceTimes(Collections.singletonMap("temp", 1699999999000L));
+        msg.setPropertyStates(Collections.singletonMap("temp", "normal"));
+
+        ReportPropertyMessage decoded = roundTrip(msg);
+        assertEquals("msg-1", decoded.getMessageId());
+        assertEquals("device-1", decoded.getDeviceId());
+        assertEquals(1700000000000L, decoded.getTimestamp());
+        assertEquals(msg.getHeaders(), decoded.getHeaders());
+        assertEquals(properties, decoded.getProperties());
+        assertEquals(msg.getPropertySourceTimes(), decoded.getPropertySourceTimes());
+        assertEquals(msg.getPropertyStates(), decoded.getPropertyStates());
+    }
+
+    @Test
+    void testReportPropertyNullFields() throws Exception {
+        ReportPropertyMessage msg = new ReportPropertyMessage();
+        msg.setTimestamp(1700000000000L);
+
+        ReportPropertyMessage decoded = roundTrip(msg);
+        assertEquals(msg.getMessageId(), decoded.getMessageId());
+        assertNull(decoded.getDeviceId());
+        assertEquals(1700000000000L, decoded.getTimestamp());
+        assertNull(decoded.getProperties());
+        assertNull(decoded.getPropertySourceTimes());
+        assertNull(decoded.getPropertyStates());
+        assertTrue(decoded.getHeaders() == null || decoded.getHeaders().isEmpty());
+    }
+
+    @Test
+    void testEvent() throws Exception {
+        EventMessage msg = new EventMessage();
+        msg.setMessageId("msg-2");
+        msg.setDeviceId("device-1");
+        msg.setTimestamp(1700000000000L);
+        msg.setEvent("fire_alarm");
+        msg.addHeader("productId", "test");
+        Map<String, Object> data = new HashMap<>();
+        data.put("level", 3);
+        data.put("points", Arrays.asList(1, 2, 3));
+        msg.setData(data);
+
+        EventMessage decoded = roundTrip(msg);
+        assertEquals("msg-2", decoded.getMessageId());
+        assertEquals("device-1", decoded.getDeviceId());
+        assertEquals("fire_alarm", decoded.getEvent());
+        assertEquals(data, decoded.getData());
+        assertEquals(msg.getHeaders(), decoded.getHeaders());
+
+        EventMessage empty = roundTrip(new EventMessage());
+        assertNull(empty.getEvent());
+        assertNull(empty.getData());
+    }
+
+    @Test
+    void testOnlineAndOffline() throws Exception {
+        DeviceOnlineMessage online = new DeviceOnlineMessage();
+        online.setDeviceId("device-1");
+        online.setTimestamp(1700000000000L);
+        online.addHeader("connectServerId", "node-1");
+
+        DeviceOnlineMessage decodedOnline = roundTrip(online);
+        assertEquals("device-1", decodedOnline.getDeviceId());
+        assertEquals(1700000000000L, decodedOnline.getTimestamp());
+        assertEquals(online.getHeaders(), decodedOnline.getHeaders());
+
+        DeviceOfflineMessage offline = new DeviceOfflineMessage();
+        offline.setDeviceId("device-1");
+        offline.setTimestamp(1700000001000L);
+
+        DeviceOfflineMessage decodedOffline = roundTrip(offline);
+        assertEquals("device-1", decodedOffline.getDeviceId());
+        assertEquals(1700000001000L, decodedOffline.getTimestamp());
+        assertEquals(offline.getMessageId(), decodedOffline.getMessageId());
+    }
+
+    @Test
+    void testFunctionInvoke() throws Exception {
+        FunctionInvokeMessage msg = new FunctionInvokeMessage();
+        msg.setMessageId("msg-3");
+        msg.setDeviceId("device-1");
+        msg.setTimestamp(1700000000000L);
+        msg.setFunctionId("reboot");
+        msg.addHeader("async", true);
+        msg.addInput(new FunctionParameter("delay", 10));
+        msg.addInput(new FunctionParameter("reason", null));
+
+        FunctionInvokeMessage decoded = roundTrip(msg);
+        assertEquals("msg-3", decoded.getMessageId());
+        assertEquals("reboot", decoded.getFunctionId());
+        assertEquals(msg.getHeaders(), decoded.getHeaders());
+        assertEquals(2, decoded.getInputs().size());
+        assertEquals("delay", decoded.getInputs().get(0).getName());
+        assertEquals(10, decoded.getInputs().get(0).getValue());
+        assertEquals("reason", decoded.getInputs().get(1).getName());
+        assertNull(decoded.getInputs().get(1).getValue());
+
+        //未设置参数时解码为空列表
+        FunctionInvokeMessage empty = new FunctionInvokeMessage();
+        empty.setInputs(null);
+        FunctionInvokeMessage decodedEmpty = roundTrip(empty);
+        assertNull(decodedEmpty.getFunctionId());
+        assertTrue(decodedEmpty.getInputs().isEmpty());
+    }
+
+    @Test
+    void testFunctionReply() throws Exception {
+        FunctionInvokeMessageReply msg = new FunctionInvokeMessageReply();
+        msg.setMessageId("msg-3");
+        msg.setDeviceId("device-1");
+        msg.setTimestamp(1700000000000L);
+        msg.setFunctionId("reboot");
+        msg.setSuccess(false);
+        msg.setCode("timeout");
+        msg.setMessage("device timeout");
+        msg.setOutput(Collections.singletonMap("retry", 3));
+        msg.addHeader("productId", "test");
+
+        FunctionInvokeMessageReply decoded = roundTrip(msg);
+        assertEquals("msg-3", decoded.getMessageId());
+        assertEquals("device-1", decoded.getDeviceId());
+        assertEquals("reboot", decoded.getFunctionId());
+        assertFalse(decoded.isSuccess());
+        assertEquals("timeout", decoded.getCode());
+        assertEquals("device timeout", decoded.getMessage());
+        assertEquals(msg.getOutput(), decoded.getOutput());
+        assertEquals(msg.getHeaders(), decoded.getHeaders());
+
+        FunctionInvokeMessageReply success = new FunctionInvokeMessageReply();
+        success.setSuccess(true);
+        FunctionInvokeMessageReply decodedSuccess = roundTrip(success);
+        assertTrue(decodedSuccess.isSuccess());
+        assertNull(decodedSuccess.getCode());
+        assertNull(decodedSuccess.getMessage());
+        assertNull(decodedSuccess.getOutput());
+    }
+
+    @Test
+    void testSimpleData() throws Exception {
+        assertNull(roundTrip(null));
+        assertEquals("hello", roundTrip("hello"));
+        assertArrayEquals(new byte[]{1, 2, 3}, roundTrip(new byte[]{1, 2, 3}));
+        assertArrayEquals(new byte[0], roundTrip(new byte[0]));
+    }
+
+    @Test
+    void testFstFallback() throws Exception {
+        //未标记的类型
+        CustomData data = new CustomData();
+        data.setName("test");
+        data.setValues(Arrays.asList(1, 2));
+        CustomData decoded = roundTrip(data);
+        assertEquals(data, decoded);
+
+        //集合等通用类型
+        Map<String, Object> map = new HashMap<>();
+        map.put("key", "value");
+        assertEquals(map, roundTrip(new HashMap<>(map)));
+
+        //子类可能有额外的字段,不能按父类编码
+        CustomReportPropertyMessage sub = new CustomReportPropertyMessage();
+        sub.setDeviceId("device-1");
+        sub.setExtra("extra");
+        sub.setProperties(Collections.singletonMap("temp", 1));
+        CustomReportPropertyMessage decodedSub = roundTrip(sub);
+        assertEquals("device-1", decodedSub.getDeviceId());
+        assertEquals("extra", decodedSub.getExtra());
+        assertEquals(sub.getProperties(), decodedSub.getProperties());
+
+        //消息中无法识别的值
+        ReportPropertyMessage msg = new ReportPropertyMessage();
+        msg.setDeviceId("device-1");
+        msg.setProperties(Collections.singletonMap("custom", data));
+        ReportPropertyMessage decodedMsg = roundTrip(msg);
+        assertEquals(data, decodedMsg.getProperties().get("custom"));
+    }
+
+    @Test
+    void testUnsupportedVersion() {
+        byte[] bytes = {BinaryMessageCodec.VERSION + 1, 0, 0, 0, 0, BinaryMessageCodec.TYPE_NULL};
+        assertThrows(Exception.class, () -> codec.deserialize(new ByteArrayInputStream(bytes)));
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    @EqualsAndHashCode
+    public static class CustomData implements Serializable {
+        private String name;
+        private List<Integer> values;
+    }
+
+    @Getter
+    @Setter
+    public static class CustomReportPropertyMessage extends ReportPropertyMessage {
+        private String extra;
+    }
+}
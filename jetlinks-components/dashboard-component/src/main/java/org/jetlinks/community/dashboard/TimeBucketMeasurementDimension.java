@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.dashboard;
+
+import org.jetlinks.community.Interval;
+
+import java.util.Date;
+
+/**
+ * 按时间周期聚合的指标维度,如: 最近24小时每小时的平均温度.
+ * <p>
+ * 实现此接口后,缓存会将查询拆分为已结束的周期和当前未结束的周期,
+ * 已结束的周期结果不再变化可按分段长期缓存,每次只需要重新计算当前周期.
+ * {@link #getValue(MeasurementParameter)}需要支持通过参数<code>from</code>,<code>to</code>指定时间范围,
+ * 通过参数<code>limit</code>指定返回的周期数量,并返回带有周期时间戳的{@link MeasurementValue}.
+ * 缓存合并各分段的结果后按{@link MeasurementValue}的默认排序(时间大的在前)取前{@link #getLimit(MeasurementParameter)}个.
+ *
+ * @author zhouhao
+ * @see org.jetlinks.community.dashboard.supports.MeasurementValueCache
+ * @since 2.11
+ */
+public interface TimeBucketMeasurementDimension extends MeasurementDimension {
+
+    /**
+     * 获取聚合周期,返回<code>null</code>时不拆分查询
+     *
+     * @param parameter 参数
+     * @return 聚合周期
+     */
+    Interval getInterval(MeasurementParameter parameter);
+
+    /**
+     * @param parameter 参数
+     * @return 时间从
+     */
+    Date getFrom(MeasurementParameter parameter);
+
+    /**
+     * @param parameter 参数
+     * @return 时间止
+     */
+    Date getTo(MeasurementParameter parameter);
+
+    /**
+     * @param parameter 参数
+     * @return 最大返回周期数量
+     */
+    int getLimit(MeasurementParameter parameter);
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.dashboard.supports;
+
+import lombok.AllArgsConstructor;
+import org.jetlinks.community.dashboard.*;
+import org.jetlinks.core.metadata.ConfigMetadata;
+import org.jetlinks.core.metadata.DataType;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 使用{@link MeasurementValueCache}缓存非实时指标维度查询结果的仪表盘.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@AllArgsConstructor
+class CachedDashboard implements Dashboard {
+
+    private final Dashboard dashboard;
+
+    private final MeasurementValueCache cache;
+
+    @Override
+    public DashboardDefinition getDefinition() {
+        return dashboard.getDefinition();
+    }
+
+    @Override
+    public Flux<DashboardObject> getObjects() {
+        return dashboard
+            .getObjects()
+            .map(this::wrap);
+    }
+
+    @Override
+    public Mono<DashboardObject> getObject(String id) {
+        return dashboard
+            .getObject(id)
+            .map(this::wrap);
+    }
+
+    private DashboardObject wrap(DashboardObject object) {
+        return new CachedDashboardObject(
+            object,
+            getDefinition().getId() + "/" + object.getDefinition().getId());
+    }
+
+    @AllArgsConstructor
+    private class CachedDashboardObject implements DashboardObject {
+        private final DashboardObject object;
+        private final String prefix;
+
+        @Override
+        public ObjectDefinition getDefinition() {
+            return object.getDefinition();
+        }
+
+        @Override
+        public Flux<Measurement> getMeasurements() {
+            return object
+                .getMeasurements()
+                .map(this::wrap);
+        }
+
+        @Override
+        public Mono<Measurement> getMeasurement(String id) {
+            return object
+                .getMeasurement(id)
+                .map(this::wrap);
+        }
+
+        private Measurement wrap(Measurement measurement) {
+            return new CachedMeasurement(
+                measurement,
+                prefix + "/" + measurement.getDefinition().getId());
+        }
+    }
+
+    @AllArgsConstructor
+    private class CachedMeasurement implements Measurement {
+        private final Measurement measurement;
+        private final String prefix;
+
+        @Override
+        public MeasurementDefinition getDefinition() {
+            return measurement.getDefinition();
+        }
+
+        @Override
+        public Flux<MeasurementDimension> getDimensions() {
+            return measurement
+                .getDimensions()
+                .map(this::wrap);
+        }
+
+        @Override
+        public Mono<MeasurementDimension> getDimension(String id) {
+            return measurement
+                .getDimension(id)
+                .map(this::wrap);
+        }
+
+        private MeasurementDimension wrap(MeasurementDimension dimension) {
+            //实时数据不缓存
+            if (dimension.isRealTime()) {
+                return dimension;
+            }
+            return new CachedMeasurementDimension(
+                dimension,
+                prefix + "/" + dimension.getDefinition().getId() + ":");
+        }
+    }
+
+    @AllArgsConstructor
+    private class CachedMeasurementDimension implements MeasurementDimension {
+        private final MeasurementDimension dimension;
+        private final String prefix;
+
+        @Override
+        public DimensionDefinition getDefinition() {
+            return dimension.getDefinition();
+        }
+
+        @Override
+        public DataType getValueType() {
+            return dimension.getValueType();
+        }
+
+        @Override
+        public ConfigMetadata getParams() {
+            return dimension.getParams();
+        }
+
+        @Override
+        public boolean isRealTime() {
+            return false;
+        }
+
+        @Override
+        public Publisher<?> getValue(MeasurementParameter parameter) {
+            return cache.getValue(prefix, dimension, parameter);
+        }
+    }
+}
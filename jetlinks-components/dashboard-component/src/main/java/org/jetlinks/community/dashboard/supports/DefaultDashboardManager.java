@@ -15,6 +15,7 @@
  */
 package org.jetlinks.community.dashboard.supports;
 
+import io.micrometer.core.instrument.Metrics;
 import org.jetlinks.community.dashboard.Dashboard;
 import org.jetlinks.community.dashboard.DashboardDefinition;
 import org.jetlinks.community.dashboard.DashboardManager;
@@ -32,14 +33,30 @@ public class DefaultDashboardManager implements DashboardManager, BeanPostProces
 
     private Map<String, CompositeDashboard> dashboards = new ConcurrentHashMap<>();
 
+    //所有仪表盘共享的查询结果缓存
+    private final MeasurementValueCache cache = new MeasurementValueCache();
+
+    public DefaultDashboardManager() {
+        cache.bindTo(Metrics.globalRegistry);
+    }
+
     @Override
     public Flux<Dashboard> getDashboards() {
-        return Flux.fromIterable(dashboards.values());
+        return Flux.fromIterable(dashboards.values())
+                   .map(this::wrap);
     }
 
     @Override
     public Mono<Dashboard> getDashboard(String id) {
-        return Mono.justOrEmpty(dashboards.get(id));
+        return Mono.justOrEmpty(dashboards.get(id))
+                   .map(this::wrap);
+    }
+
+    private Dashboard wrap(Dashboard dashboard) {
+        if (!MeasurementValueCache.ENABLED) {
+            return dashboard;
+        }
+        return new CachedDashboard(dashboard, cache);
     }
 
 
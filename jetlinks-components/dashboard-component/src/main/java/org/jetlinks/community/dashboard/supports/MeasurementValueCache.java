@@ -0,0 +1,344 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.dashboard.supports;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import org.jetlinks.community.Interval;
+import org.jetlinks.community.dashboard.MeasurementDimension;
+import org.jetlinks.community.dashboard.MeasurementParameter;
+import org.jetlinks.community.dashboard.MeasurementValue;
+import org.jetlinks.community.dashboard.TimeBucketMeasurementDimension;
+import org.jetlinks.community.utils.TimeUtils;
+import org.reactivestreams.Publisher;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 仪表盘指标查询结果缓存,所有仪表盘共享.
+ * <p>
+ * 缓存key由指标维度和排序后的参数组成,相同参数的查询共享同一份结果,并发的相同查询只会执行一次.
+ * <ul>
+ *     <li>{@link TimeBucketMeasurementDimension}: 已结束的周期按对齐的分段分别查询,
+ *     完整的分段key与查询的时间范围无关,时间窗口滑动时可复用,长期缓存(一段时间未访问后过期);
+ *     首尾不完整的分段以及当前周期缓存{@link #OPEN_TTL}.</li>
+ *     <li>其他维度: 参数<code>to</code>为过去的固定时间时长期缓存,否则缓存{@link #OPEN_TTL}.</li>
+ * </ul>
+ * 可通过<code>-Djetlinks.dashboard.cache.enabled=false</code>关闭缓存.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+public class MeasurementValueCache {
+
+    static final boolean ENABLED = Boolean.parseBoolean(
+        System.getProperty("jetlinks.dashboard.cache.enabled", "true"));
+
+    //未结束的时间范围缓存时间
+    static final Duration OPEN_TTL = TimeUtils.parse(
+        System.getProperty("jetlinks.dashboard.cache.open-ttl", "5s"));
+
+    //已结束的时间范围多久未访问后过期
+    static final Duration CLOSED_TTL = TimeUtils.parse(
+        System.getProperty("jetlinks.dashboard.cache.closed-ttl", "1h"));
+
+    //最大缓存数据条数
+    static final long MAX_VALUES = Long.getLong("jetlinks.dashboard.cache.max-values", 100_000);
+
+    //已结束的周期期望拆分的分段数量,分段大小为2的幂个周期,保证不同时间范围的查询对齐到相同的分段
+    static final int SEGMENTS = Integer.getInteger("jetlinks.dashboard.cache.segments", 16);
+
+    //并行查询分段的数量
+    static final int CONCURRENCY = 4;
+
+    private static final Set<String> RANGE_PARAMS = new HashSet<>(Arrays.asList("from", "to", "limit"));
+
+    private static final Set<String> FROM_PARAMS = Collections.singleton("from");
+
+    private final Cache<String, CachedValues> cache;
+
+    //正在执行的查询,用于合并并发的相同查询
+    private final Map<String, Mono<List<Object>>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public MeasurementValueCache() {
+        this(MAX_VALUES);
+    }
+
+    public MeasurementValueCache(long maxValues) {
+        this(maxValues, OPEN_TTL, CLOSED_TTL);
+    }
+
+    MeasurementValueCache(long maxValues, Duration openTtl, Duration closedTtl) {
+        long open = openTtl.toNanos(), closed = closedTtl.toNanos();
+        this.cache = Caffeine
+            .newBuilder()
+            .maximumWeight(maxValues)
+            .weigher((String key, CachedValues value) -> Math.max(1, value.values.size()))
+            .expireAfter(new Expiry<String, CachedValues>() {
+                @Override
+                public long expireAfterCreate(String key, CachedValues value, long currentTime) {
+                    return value.closed ? closed : open;
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, CachedValues value, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, value, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, CachedValues value, long currentTime, long currentDuration) {
+                    //已结束的时间范围在访问后重新计算过期时间
+                    return value.closed ? closed : currentDuration;
+                }
+            })
+            .build();
+    }
+
+    /**
+     * 获取指标维度的数据
+     *
+     * @param prefix    缓存key前缀,用于区分不同的指标维度
+     * @param dimension 指标维度
+     * @param parameter 参数
+     * @return 数据
+     */
+    public Flux<Object> getValue(String prefix,
+                                 MeasurementDimension dimension,
+                                 MeasurementParameter parameter) {
+        return Flux.defer(() -> {
+            Map<String, Object> params = parameter.getParams() == null
+                ? Collections.emptyMap()
+                : parameter.getParams();
+            if (dimension instanceof TimeBucketMeasurementDimension) {
+                Flux<Object> values = getTimeBucketValue(prefix, (TimeBucketMeasurementDimension) dimension, parameter, params);
+                if (values != null) {
+                    return values;
+                }
+            }
+            return load(prefix + normalize(params, Collections.emptySet()),
+                        isClosed(parameter, System.currentTimeMillis()),
+                        () -> dimension.getValue(parameter));
+        });
+    }
+
+    private Flux<Object> getTimeBucketValue(String prefix,
+                                            TimeBucketMeasurementDimension dimension,
+                                            MeasurementParameter parameter,
+                                            Map<String, Object> params) {
+        long step = getBucketMillis(dimension.getInterval(parameter));
+        if (step <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long from = align(dimension.getFrom(parameter).getTime(), step);
+        long to = dimension.getTo(parameter).getTime();
+        //当前周期的开始时间
+        long openFrom = align(now, step);
+        //已结束周期的截止时间(不包含)
+        long closedTo = Math.min(align(to, step) + step, openFrom);
+
+        List<Flux<Object>> segments = new ArrayList<>();
+        String rangeKey = prefix + normalize(params, RANGE_PARAMS);
+        if (from < closedTo) {
+            long span = step * getSegmentBuckets((closedTo - from) / step);
+            for (long start = from; start < closedTo; ) {
+                long segmentFrom = start;
+                long boundary = align(start, span) + span;
+                long segmentTo = Math.min(boundary, closedTo);
+                //完整的分段key只和分段的开始时间有关,窗口滑动时复用.
+                boolean complete = segmentFrom == align(segmentFrom, span) && segmentTo == boundary;
+                segments.add(load(rangeKey + "@" + segmentFrom + "~" + segmentTo,
+                                  complete,
+                                  () -> dimension.getValue(withRange(params, segmentFrom, segmentTo - 1, step))));
+                start = segmentTo;
+            }
+        }
+        if (to >= openFrom) {
+            long _from = Math.max(from, openFrom);
+            segments.add(load(prefix + normalize(params, FROM_PARAMS) + "@" + _from,
+                              false,
+                              () -> dimension.getValue(withRange(params, _from, to, step))));
+        }
+        //各分段的结果合并后重新排序,不依赖分段的返回顺序
+        return Flux
+            .fromIterable(segments)
+            .flatMap(Function.identity(), CONCURRENCY)
+            .sort(MeasurementValueCache::compareTime)
+            .take(dimension.getLimit(parameter));
+    }
+
+    //分段包含的周期数量,取2的幂
+    static long getSegmentBuckets(long buckets) {
+        return Math.max(1, Long.highestOneBit(buckets / Math.max(1, SEGMENTS)));
+    }
+
+    //按时间倒序,与MeasurementValue的默认排序一致
+    static int compareTime(Object left, Object right) {
+        return Long.compare(getTimestamp(right), getTimestamp(left));
+    }
+
+    private static long getTimestamp(Object value) {
+        return value instanceof MeasurementValue ? ((MeasurementValue) value).getTimestamp() : 0;
+    }
+
+    private Flux<Object> load(String key, boolean closed, Supplier<Publisher<?>> loader) {
+        //订阅时才执行,避免未订阅的查询一直占用合并查询
+        return Flux.defer(() -> {
+            CachedValues cached = cache.getIfPresent(key);
+            if (cached != null) {
+                hits.increment();
+                return Flux.fromIterable(cached.values);
+            }
+            boolean[] created = new boolean[1];
+            Mono<List<Object>> values = loading.computeIfAbsent(key, _key -> {
+                created[0] = true;
+                return Flux
+                    .from(loader.get())
+                    .cast(Object.class)
+                    .collectList()
+                    .doOnNext(list -> cache.put(_key, new CachedValues(list, closed)))
+                    //查询结束后移除,失败时不缓存,下一次查询重新执行
+                    .doFinally(ignore -> loading.remove(_key))
+                    .cache();
+            });
+            if (created[0]) {
+                misses.increment();
+            } else {
+                shared.increment();
+            }
+            return values.flatMapIterable(Function.identity());
+        });
+    }
+
+    //参数to为过去的固定时间时,结果不会再变化
+    private static boolean isClosed(MeasurementParameter parameter, long now) {
+        Object to = parameter.get("to").orElse(null);
+        if (to == null || (to instanceof String && ((String) to).contains("now"))) {
+            return false;
+        }
+        try {
+            return parameter
+                .getDate("to")
+                .map(date -> date.getTime() < now)
+                .orElse(false);
+        } catch (Throwable ignore) {
+            return false;
+        }
+    }
+
+    //只对固定时长的周期进行拆分,月,季度等周期长度不固定
+    private static long getBucketMillis(Interval interval) {
+        if (interval == null) {
+            return -1;
+        }
+        switch (interval.getUnit()) {
+            case SECONDS:
+            case MINUTES:
+            case HOURS:
+            case DAYS:
+                return interval.toMillis();
+            default:
+                return -1;
+        }
+    }
+
+    //按当前时区对齐到周期的开始时间
+    static long align(long timestamp, long step) {
+        int offset = TimeZone.getDefault().getOffset(timestamp);
+        return timestamp - Math.floorMod(timestamp + offset, step);
+    }
+
+    private static MeasurementParameter withRange(Map<String, Object> params, long from, long to, long step) {
+        Map<String, Object> copy = new HashMap<>(params);
+        copy.put("from", new Date(from));
+        copy.put("to", new Date(to));
+        //分段内所有的周期
+        copy.put("limit", (int) Math.min(Integer.MAX_VALUE, (to - from) / step + 1));
+        return MeasurementParameter.of(copy);
+    }
+
+    //按参数名排序,忽略空值
+    static String normalize(Map<String, Object> params, Set<String> excludes) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        new TreeMap<>(params).forEach((key, value) -> {
+            if (value == null || excludes.contains(key)) {
+                return;
+            }
+            String str = value instanceof Date
+                ? String.valueOf(((Date) value).getTime())
+                : String.valueOf(value);
+            if (StringUtils.hasText(str)) {
+                joiner.add(key + "=" + str);
+            }
+        });
+        return joiner.toString();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public double getHitRatio() {
+        double hit = hits.sum() + shared.sum();
+        double total = hit + misses.sum();
+        return total == 0 ? 0 : hit / total;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jetlinks_dashboard_cache_hit", hits, LongAdder::sum)
+                       .description("仪表盘查询缓存命中次数")
+                       .register(registry);
+        FunctionCounter.builder("jetlinks_dashboard_cache_miss", misses, LongAdder::sum)
+                       .description("仪表盘查询缓存未命中次数")
+                       .register(registry);
+        FunctionCounter.builder("jetlinks_dashboard_cache_shared", shared, LongAdder::sum)
+                       .description("仪表盘合并并发查询次数")
+                       .register(registry);
+        Gauge.builder("jetlinks_dashboard_cache_hit_ratio", this, MeasurementValueCache::getHitRatio)
+             .description("仪表盘查询缓存命中率")
+             .register(registry);
+        Gauge.builder("jetlinks_dashboard_cache_size", this, MeasurementValueCache::size)
+             .description("仪表盘查询缓存数量")
+             .register(registry);
+    }
+
+    @AllArgsConstructor
+    private static class CachedValues {
+        private final List<Object> values;
+        private final boolean closed;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.dashboard.supports;
+
+import org.jetlinks.community.Interval;
+import org.jetlinks.community.dashboard.*;
+import org.jetlinks.core.metadata.ConfigMetadata;
+import org.jetlinks.core.metadata.DataType;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MeasurementValueCacheTest {
+
+    static final long STEP = Duration.ofHours(1).toMillis();
+
+    static final String PREFIX = "test:";
+
+    private final FakeDimension dimension = new FakeDimension();
+
+    private final MeasurementValueCache cache = new MeasurementValueCache(
+        10_000, Duration.ofMillis(100), Duration.ofHours(1));
+
+    //按小时聚合,返回范围内每个周期的值,时间小的在前
+    static class FakeDimension implements TimeBucketMeasurementDimension {
+
+        //每次查询的时间范围
+        private final List<long[]> loads = new CopyOnWriteArrayList<>();
+
+        //查询失败的次数
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Sinks.Empty<Void> gate;
+
+        @Override
+        public Interval getInterval(MeasurementParameter parameter) {
+            return Interval.ofHours(1);
+        }
+
+        @Override
+        public Date getFrom(MeasurementParameter parameter) {
+            return parameter.getDate("from").orElseThrow(IllegalArgumentException::new);
+        }
+
+        @Override
+        public Date getTo(MeasurementParameter parameter) {
+            return parameter.getDate("to").orElseThrow(IllegalArgumentException::new);
+        }
+
+        @Override
+        public int getLimit(MeasurementParameter parameter) {
+            return parameter.getInt("limit", Integer.MAX_VALUE);
+        }
+
+        @Override
+        public Flux<MeasurementValue> getValue(MeasurementParameter parameter) {
+            long from = getFrom(parameter).getTime();
+            long to = getTo(parameter).getTime();
+            loads.add(new long[]{from, to});
+            if (failures.getAndDecrement() > 0) {
+                return Flux.error(new IllegalStateException("query failed"));
+            }
+            Flux<MeasurementValue> values = Flux.fromIterable(buckets(from, to));
+            return gate == null ? values : values.delaySubscription(gate.asMono());
+        }
+
+        @Override
+        public DimensionDefinition getDefinition() {
+            return null;
+        }
+
+        @Override
+        public DataType getValueType() {
+            return null;
+        }
+
+        @Override
+        public ConfigMetadata getParams() {
+            return null;
+        }
+
+        @Override
+        public boolean isRealTime() {
+            return false;
+        }
+    }
+
+    static List<MeasurementValue> buckets(long from, long to) {
+        List<MeasurementValue> values = new ArrayList<>();
+        for (long time = MeasurementValueCache.align(from, STEP); time <= to; time += STEP) {
+            values.add(SimpleMeasurementValue.of(time / STEP, time));
+        }
+        return values;
+    }
+
+    //不使用缓存时的查询结果
+    static List<Long> uncached(long from, long to, int limit) {
+        return buckets(from, to)
+            .stream()
+            .sorted()
+            .limit(limit)
+            .map(MeasurementValue::getTimestamp)
+            .collect(Collectors.toList());
+    }
+
+    static MeasurementParameter parameter(long from, long to, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("property", "temp");
+        params.put("from", new Date(from));
+        params.put("to", new Date(to));
+        params.put("limit", limit);
+        return MeasurementParameter.of(params);
+    }
+
+    private List<Long> query(long from, long to, int limit) {
+        return cache
+            .getValue(PREFIX, dimension, parameter(from, to, limit))
+            .cast(MeasurementValue.class)
+            .map(MeasurementValue::getTimestamp)
+            .collectList()
+            .block(Duration.ofSeconds(10));
+    }
+
+    //过去的时间,按2个周期对齐
+    private static long past() {
+        return MeasurementValueCache.align(System.currentTimeMillis() - Duration.ofDays(10).toMillis(), 2 * STEP);
+    }
+
+    @Test
+    void testSlideWindow() {
+        long base = past();
+
+        //32个周期,每个分段2个周期
+        assertEquals(2, MeasurementValueCache.getSegmentBuckets(32));
+        assertEquals(uncached(base, base + 32 * STEP - 1, 32), query(base, base + 32 * STEP - 1, 32));
+        assertEquals(16, dimension.loads.size());
+
+        //窗口滑动一个分段,只查询新的分段
+        long from = base + 2 * STEP, to = base + 34 * STEP - 1;
+        assertEquals(uncached(from, to, 32), query(from, to, 32));
+        assertEquals(17, dimension.loads.size());
+        assertArrayEquals(new long[]{base + 32 * STEP, to}, dimension.loads.get(16));
+
+        //相同的窗口全部命中缓存
+        assertEquals(uncached(from, to, 32), query(from, to, 32));
+        assertEquals(17, dimension.loads.size());
+    }
+
+    @Test
+    void testReloadOpenBucket() throws Exception {
+        long openFrom = MeasurementValueCache.align(System.currentTimeMillis(), STEP);
+        long from = openFrom - 4 * STEP;
+
+        query(from, System.currentTimeMillis(), 100);
+        //4个已结束的周期以及当前周期
+        assertEquals(5, dimension.loads.size());
+        assertEquals(openFrom, dimension.loads.get(4)[0]);
+
+        Thread.sleep(200);
+        long to = System.currentTimeMillis();
+        List<Long> values = query(from, to, 100);
+        //跨过周期边界时已结束的周期发生变化
+        assumeTrue(openFrom == MeasurementValueCache.align(to, STEP));
+
+        //只重新查询当前周期
+        assertEquals(6, dimension.loads.size());
+        assertEquals(openFrom, dimension.loads.get(5)[0]);
+        assertEquals(uncached(from, to, 100), values);
+    }
+
+    @Test
+    void testShareConcurrentLoad() {
+        long base = past();
+        long to = base + 4 * STEP - 1;
+        dimension.gate = Sinks.empty();
+
+        CompletableFuture<List<Object>> first = cache
+            .getValue(PREFIX, dimension, parameter(base, to, 4))
+            .collectList()
+            .toFuture();
+        CompletableFuture<List<Object>> second = cache
+            .getValue(PREFIX, dimension, parameter(base, to, 4))
+            .collectList()
+            .toFuture();
+
+        //4个分段,每个分段只查询一次
+        assertEquals(4, dimension.loads.size());
+        assertFalse(first.isDone());
+
+        dimension.gate.tryEmitEmpty();
+        List<Object> values = first.join();
+        assertEquals(4, values.size());
+        assertEquals(values, second.join());
+        assertEquals(4, dimension.loads.size());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    void testNotCacheError() {
+        long base = past();
+        long to = base + STEP - 1;
+        dimension.failures.set(1);
+
+        StepVerifier
+            .create(cache.getValue(PREFIX, dimension, parameter(base, to, 1)))
+            .expectError(IllegalStateException.class)
+            .verify(Duration.ofSeconds(10));
+        assertEquals(1, dimension.loads.size());
+        assertEquals(0, cache.size());
+
+        //失败后重新查询
+        assertEquals(uncached(base, to, 1), query(base, to, 1));
+        assertEquals(2, dimension.loads.size());
+
+        assertEquals(uncached(base, to, 1), query(base, to, 1));
+        assertEquals(2, dimension.loads.size());
+    }
+
+    @Test
+    void testSameAsUncached() {
+        long to = System.currentTimeMillis();
+        long from = to - Duration.ofHours(48).toMillis();
+
+        for (int limit : Arrays.asList(1, 10, 49, 1000)) {
+            assertEquals(uncached(from, to, limit), query(from, to, limit), "limit " + limit);
+        }
+
+        //不对齐的时间范围
+        long base = past() + STEP / 3;
+        for (int limit : Arrays.asList(5, 100)) {
+            assertEquals(uncached(base, base + 40 * STEP + 7, limit),
+                         query(base, base + 40 * STEP + 7, limit),
+                         "limit " + limit);
+        }
+    }
+}
@@ -59,7 +59,8 @@ import java.util.List;
 @Slf4j
 @EnableConfigurationProperties({
     ElasticSearchIndexProperties.class,
-    ElasticSearchBufferProperties.class})
+    ElasticSearchBufferProperties.class,
+    ElasticSearchProperties.class})
 @Generated
 @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
 public class ElasticSearchConfiguration {
@@ -117,8 +118,11 @@ public class ElasticSearchConfiguration {
     @DependsOn("defaultReactiveElasticsearchClient")
     public ReactiveElasticSearchService reactiveElasticSearchService(ReactiveElasticsearchClient elasticsearchClient,
                                                                      ElasticSearchIndexManager indexManager,
-                                                                     ElasticSearchBufferProperties properties) {
-        return new ReactiveElasticSearchService(elasticsearchClient, indexManager, properties);
+                                                                     ElasticSearchBufferProperties properties,
+                                                                     ElasticSearchProperties elasticSearchProperties) {
+        ReactiveElasticSearchService service = new ReactiveElasticSearchService(elasticsearchClient, indexManager, properties);
+        service.setProperties(elasticSearchProperties);
+        return service;
     }
 
     @Bean
@@ -15,7 +15,37 @@
  */
 package org.jetlinks.community.elastic.search.configuration;
 
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elasticsearch")
 public class ElasticSearchProperties {
 
+    /**
+     * 不分页查询时使用的流式查询方式
+     *
+     * @since 2.11
+     */
+    private StreamQueryMode streamQuery = StreamQueryMode.scroll;
+
+    /**
+     * 流式查询时,scroll或者point in time上下文的保持时间.
+     * 使用point in time时,每次查询下一页都会重新计算保持时间.
+     *
+     * @since 2.11
+     */
+    private Duration streamKeepAlive = Duration.ofMinutes(10);
+
+    public enum StreamQueryMode {
+        //使用scroll查询
+        scroll,
+        //使用point in time + search_after查询,需要elasticsearch 7.12及以上版本,低版本使用scroll查询
+        pit
+    }
 
 }
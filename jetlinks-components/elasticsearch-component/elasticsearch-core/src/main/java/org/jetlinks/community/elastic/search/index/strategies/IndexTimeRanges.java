@@ -0,0 +1,242 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.index.strategies;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.jetlinks.community.elastic.search.ElasticSearchSupport;
+import org.jetlinks.community.elastic.search.service.reactive.ReactiveElasticsearchClient;
+import org.jetlinks.community.utils.TimeUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间划分的索引中数据的时间范围,用于查询时跳过不可能包含数据的索引.
+ * <p>
+ * 默认不开启,可通过<code>-Djetlinks.elasticsearch.index.time-range.enabled=true</code>开启.
+ * 只有周期结束超过宽限时间(jetlinks.elasticsearch.index.time-range.grace)的索引才会被跳过,
+ * 这些索引在被查询时从elasticsearch中聚合数据的最小和最大时间,加载的结果在刷新间隔(jetlinks.elasticsearch.index.time-range.refresh)后过期,
+ * 过期后重新加载,以包含其他节点延迟写入(如离线设备补传)的数据.
+ * 时间范围未知(未加载,加载失败,已过期或者加载时没有数据)的索引不会被跳过.
+ *
+ * @author zhouhao
+ * @see TimebaseElasticSearchIndexStrategy
+ * @since 2.11
+ */
+@Slf4j
+class IndexTimeRanges {
+
+    static final boolean ENABLED = Boolean.getBoolean("jetlinks.elasticsearch.index.time-range.enabled");
+
+    //索引周期结束后多久才允许跳过,在此期间可能还有延迟的数据写入
+    static final Duration GRACE = TimeUtils.parse(
+        System.getProperty("jetlinks.elasticsearch.index.time-range.grace", "1d"));
+
+    //两次加载的最小间隔,避免加载失败时频繁请求
+    static final Duration LOAD_INTERVAL = TimeUtils.parse(
+        System.getProperty("jetlinks.elasticsearch.index.time-range.load-interval", "1m"));
+
+    //加载的时间范围的有效期,过期后重新加载
+    static final Duration REFRESH = TimeUtils.parse(
+        System.getProperty("jetlinks.elasticsearch.index.time-range.refresh", "10m"));
+
+    //单次加载的最大索引数量
+    static final int MAX_INDEX_SIZE = 100;
+
+    private final ReactiveElasticsearchClient client;
+
+    //原始索引名 -> 实际索引的时间范围
+    private final Map<String, IndexRanges> ranges = new ConcurrentHashMap<>();
+
+    IndexTimeRanges(ReactiveElasticsearchClient client) {
+        this.client = client;
+    }
+
+    /**
+     * 写入数据时更新索引的时间范围
+     *
+     * @param baseIndex 原始索引名
+     * @param index     实际写入的索引名
+     * @param timestamp 数据时间
+     */
+    void update(String baseIndex, String index, long timestamp) {
+        ranges
+            .computeIfAbsent(baseIndex, ignore -> new IndexRanges())
+            .indexes
+            .computeIfAbsent(index, ignore -> new Range())
+            .update(timestamp);
+    }
+
+    /**
+     * 获取索引的时间范围
+     *
+     * @param baseIndex 原始索引名
+     * @return 时间范围
+     */
+    IndexRanges get(String baseIndex) {
+        return ranges.computeIfAbsent(baseIndex, ignore -> new IndexRanges());
+    }
+
+    /**
+     * 在后台加载{@link IndexRanges#mayContain(String, long, long, long, long)}时记录的时间范围未知的索引
+     *
+     * @param indexRanges 时间范围
+     * @param timestamp   时间字段
+     */
+    void loadPending(IndexRanges indexRanges, String timestamp) {
+        if (indexRanges.pending.isEmpty()
+            || System.currentTimeMillis() - indexRanges.loadTime < LOAD_INTERVAL.toMillis()
+            || !indexRanges.loading.compareAndSet(false, true)) {
+            return;
+        }
+        long loadTime = System.currentTimeMillis();
+        indexRanges.loadTime = loadTime;
+        List<String> indexes = new ArrayList<>(MAX_INDEX_SIZE);
+        for (String index : indexRanges.pending) {
+            if (indexes.size() >= MAX_INDEX_SIZE) {
+                break;
+            }
+            indexes.add(index);
+        }
+        String searchIndex = String.join(",", indexes);
+        client
+            .execute(c -> c
+                .search(search -> search
+                            .index(indexes)
+                            .size(0)
+                            .ignoreUnavailable(true)
+                            .allowNoIndices(true)
+                            .aggregations("index", agg -> agg
+                                .terms(terms -> terms.field("_index").size(indexes.size()))
+                                .aggregations("min", min -> min.min(m -> m.field(timestamp)))
+                                .aggregations("max", max -> max.max(m -> m.field(timestamp)))),
+                        Void.class)
+                .aggregations())
+            .doFinally(ignore -> indexRanges.loading.set(false))
+            .subscribe(
+                aggregations -> {
+                    Aggregate aggregate = aggregations.get("index");
+                    if (aggregate == null || !aggregate.isSterms()) {
+                        return;
+                    }
+                    for (StringTermsBucket bucket : aggregate.sterms().buckets().array()) {
+                        String index = String.valueOf(ElasticSearchSupport.current().getBucketKey(bucket));
+                        double min = bucket.aggregations().get("min").min().value();
+                        double max = bucket.aggregations().get("max").max().value();
+                        if (Double.isFinite(min) && Double.isFinite(max)) {
+                            indexRanges.update(index, (long) min, (long) max);
+                        }
+                    }
+                    //没有聚合结果的索引不存在或者没有数据
+                    for (String index : indexes) {
+                        indexRanges.loaded(index, loadTime);
+                    }
+                    log.debug("load elasticsearch index [{}] time range", searchIndex);
+                },
+                err -> log.warn("load elasticsearch index [{}] time range error", searchIndex, err));
+    }
+
+    static class IndexRanges {
+        private final Map<String, Range> indexes = new ConcurrentHashMap<>();
+
+        //等待加载时间范围的索引
+        private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+        //最近一次加载的时间
+        private volatile long loadTime;
+
+        private final AtomicBoolean loading = new AtomicBoolean();
+
+        /**
+         * 判断索引是否可能包含指定时间范围内的数据
+         *
+         * @param index    实际索引名
+         * @param period   索引对应周期的时间
+         * @param interval 周期毫秒数
+         * @param from     时间从
+         * @param to       时间止
+         * @return 是否可能包含数据
+         */
+        boolean mayContain(String index, long period, long interval, long from, long to) {
+            return mayContain(index, period, interval, from, to, System.currentTimeMillis());
+        }
+
+        boolean mayContain(String index, long period, long interval, long from, long to, long now) {
+            //周期结束未超过宽限时间的索引,可能还有数据写入
+            if (period + interval + GRACE.toMillis() >= now) {
+                return true;
+            }
+            Range range = indexes.get(index);
+            //时间范围未知或者已过期,等待加载
+            if (range == null || now - range.loadTime >= REFRESH.toMillis()) {
+                pending.add(index);
+                return true;
+            }
+            //加载时没有数据,之后可能有其他节点写入了数据,过期后重新加载
+            if (range.isEmpty()) {
+                return true;
+            }
+            return range.intersects(from, to);
+        }
+
+        //合并加载到的时间范围,数据只会增加,因此不需要重置已有的范围
+        void update(String index, long min, long max) {
+            Range range = indexes.computeIfAbsent(index, ignore -> new Range());
+            range.update(min);
+            range.update(max);
+        }
+
+        //标记索引的时间范围已经加载
+        void loaded(String index, long loadTime) {
+            indexes.computeIfAbsent(index, ignore -> new Range()).loadTime = loadTime;
+            pending.remove(index);
+        }
+    }
+
+    static class Range {
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        //最近一次从elasticsearch中加载的时间,为0时表示未加载.本节点写入的时间范围不包含其他节点写入的数据
+        private volatile long loadTime;
+
+        void update(long timestamp) {
+            //大部分情况下时间都在范围内,避免每次写入都进行CAS
+            if (timestamp < min.get()) {
+                min.accumulateAndGet(timestamp, Math::min);
+            }
+            if (timestamp > max.get()) {
+                max.accumulateAndGet(timestamp, Math::max);
+            }
+        }
+
+        boolean isEmpty() {
+            return min.get() > max.get();
+        }
+
+        boolean intersects(long from, long to) {
+            return min.get() <= to && max.get() >= from;
+        }
+    }
+}
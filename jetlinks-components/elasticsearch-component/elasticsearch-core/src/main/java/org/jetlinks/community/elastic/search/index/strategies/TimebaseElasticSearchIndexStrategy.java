@@ -34,8 +34,16 @@ import java.util.List;
 import java.util.Map;
 
 public abstract class TimebaseElasticSearchIndexStrategy extends TemplateElasticSearchIndexStrategy {
+
+    //不存在的索引后缀,时间分片的索引名称不会以此结尾
+    static final String NONEXISTENT_SUFFIX = "_nonexistent";
+
+    //索引中数据的时间范围,用于查询时跳过不包含数据的索引
+    private final IndexTimeRanges timeRanges;
+
     public TimebaseElasticSearchIndexStrategy(String id, ReactiveElasticsearchClient client, ElasticSearchIndexProperties properties) {
         super(id, client, properties);
+        this.timeRanges = new IndexTimeRanges(client);
     }
 
     protected abstract String getIndexForSave(String index, LocalDateTime time);
@@ -52,11 +60,16 @@ public abstract class TimebaseElasticSearchIndexStrategy extends TemplateElastic
         if (tsMaybe == null) {
             return super.getIndexForSave(index, data);
         }
+        long timestamp = tsMaybe.longValue();
         LocalDateTime dateTime = LocalDateTime.ofInstant(
-            Instant.ofEpochMilli(tsMaybe.longValue()),
+            Instant.ofEpochMilli(timestamp),
             ZoneId.systemDefault());
 
-        return getIndexForSave(index.getIndex(), dateTime);
+        String indexForSave = getIndexForSave(index.getIndex(), dateTime);
+        if (IndexTimeRanges.ENABLED) {
+            timeRanges.update(index.getIndex(), indexForSave, timestamp);
+        }
+        return indexForSave;
     }
 
     @Override
@@ -73,10 +86,27 @@ public abstract class TimebaseElasticSearchIndexStrategy extends TemplateElastic
         long startWith = range.get(0);
         long endWith = range.get(1);
         String baseIndex = index.getIndex();
+        IndexTimeRanges.IndexRanges ranges = IndexTimeRanges.ENABLED ? timeRanges.get(baseIndex) : null;
+        long interval = getInterval().toMillis();
         List<String> list = new ArrayList<>();
+        boolean skipped = false;
         for (long time : getInterval().iterate(startWith, endWith)) {
             LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
-            list.add(getIndexForSave(baseIndex, dateTime));
+            String indexForSearch = getIndexForSave(baseIndex, dateTime);
+            //跳过不可能包含数据的索引
+            if (ranges == null || ranges.mayContain(indexForSearch, time, interval, startWith, endWith)) {
+                list.add(indexForSearch);
+            } else {
+                skipped = true;
+            }
+        }
+        if (ranges != null) {
+            timeRanges.loadPending(ranges, prop.getId());
+        }
+        //所有索引都被跳过时使用不存在的索引,查询时忽略不存在的索引,结果为空.
+        //不能使用空的索引列表,否则会查询所有索引.
+        if (list.isEmpty() && skipped) {
+            list.add(baseIndex + NONEXISTENT_SUFFIX);
         }
         return list;
     }
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.service.reactive;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.client.ResponseException;
+import org.jetlinks.community.buffer.PersistenceBuffer;
+import org.jetlinks.community.utils.ErrorUtils;
+
+import java.net.SocketTimeoutException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * ElasticSearch写入缓冲自适应控制器.
+ * <p>
+ * 参考AIMD(加性增,乘性减)拥塞控制,根据每次bulk写入的耗时,被拒绝(429)的数量以及请求体大小,
+ * 在运行时调整{@link PersistenceBuffer}的批量大小和并行度:
+ * <ul>
+ *     <li>写入被拒绝或超时: 批量大小和并行度按比例减小</li>
+ *     <li>耗时超过目标耗时: 批量大小按比例减小</li>
+ *     <li>请求体超过限制: 按比例缩小批量大小,仅在开启流式写入时可获取请求体大小</li>
+ *     <li>批次已满(存在积压)且耗时低于目标: 批量大小增加固定步长,达到上限后增加并行度</li>
+ * </ul>
+ * 同一个调整窗口内开始的写入只会触发一次减小,避免并发写入同时返回时重复减小.
+ *
+ * @author zhouhao
+ * @see ElasticSearchBufferProperties.Adaptive
+ * @since 2.11
+ */
+@Slf4j
+class AdaptiveBulkController {
+
+    enum Reason {
+        //写入被拒绝
+        rejected,
+        //写入耗时过长
+        latency,
+        //请求体过大
+        payload,
+        //存在积压
+        backlog
+    }
+
+    private final PersistenceBuffer<?> writer;
+
+    private final ElasticSearchBufferProperties.Adaptive spec;
+
+    private volatile int bufferSize;
+
+    private volatile int parallelism;
+
+    //System.nanoTime
+    private final LongSupplier clock;
+
+    //最后一次减小的时间,此时间之前开始的写入不再触发减小
+    private long lastDecreaseTime;
+
+    private final Map<Reason, LongAdder> increases = new EnumMap<>(Reason.class);
+    private final Map<Reason, LongAdder> decreases = new EnumMap<>(Reason.class);
+
+    AdaptiveBulkController(PersistenceBuffer<?> writer,
+                           ElasticSearchBufferProperties properties) {
+        this(writer, properties, System::nanoTime);
+    }
+
+    AdaptiveBulkController(PersistenceBuffer<?> writer,
+                           ElasticSearchBufferProperties properties,
+                           LongSupplier clock) {
+        this.writer = writer;
+        this.clock = clock;
+        this.lastDecreaseTime = clock.getAsLong();
+        this.spec = properties.getAdaptive();
+        this.bufferSize = clamp(properties.getSize(), spec.getMinSize(), spec.getMaxSize());
+        this.parallelism = clamp(properties.getParallelism(), spec.getMinParallelism(), spec.getMaxParallelism());
+        for (Reason reason : Reason.values()) {
+            increases.put(reason, new LongAdder());
+            decreases.put(reason, new LongAdder());
+        }
+        apply();
+    }
+
+    /**
+     * 开始一次写入采样
+     *
+     * @param size 写入数据量
+     * @return 采样
+     */
+    Sample start(int size) {
+        return new Sample(this, size);
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 绑定监控指标
+     *
+     * @param registry MeterRegistry
+     */
+    void bindTo(MeterRegistry registry) {
+        Gauge.builder("jetlinks_elasticsearch_bulk_size", this, AdaptiveBulkController::getBufferSize)
+             .description("当前ElasticSearch写入批量大小")
+             .register(registry);
+        Gauge.builder("jetlinks_elasticsearch_bulk_parallelism", this, AdaptiveBulkController::getParallelism)
+             .description("当前ElasticSearch写入并行度")
+             .register(registry);
+        for (Reason reason : Reason.values()) {
+            FunctionCounter
+                .builder("jetlinks_elasticsearch_bulk_increase", increases.get(reason), LongAdder::sum)
+                .description("ElasticSearch写入批量扩大次数")
+                .tag("reason", reason.name())
+                .register(registry);
+            FunctionCounter
+                .builder("jetlinks_elasticsearch_bulk_decrease", decreases.get(reason), LongAdder::sum)
+                .description("ElasticSearch写入批量缩小次数")
+                .tag("reason", reason.name())
+                .register(registry);
+        }
+    }
+
+    private synchronized void onComplete(Sample sample, long latency, Throwable error) {
+        long targetLatency = spec.getTargetLatency().toMillis();
+        //被拒绝或者超时,批量大小和并行度同时减小
+        if (sample.rejected > 0 || (error != null && isOverload(error))) {
+            decrease(sample, Reason.rejected, true);
+            return;
+        }
+        if (error != null) {
+            return;
+        }
+        //请求体过大,按比例缩小
+        long maxPayload = spec.getMaxPayloadSize() == null ? 0 : spec.getMaxPayloadSize().toBytes();
+        if (maxPayload > 0 && sample.bytes > maxPayload && sample.size > 0) {
+            int size = clamp((int) (sample.size * maxPayload / sample.bytes), spec.getMinSize(), spec.getMaxSize());
+            if (size < bufferSize) {
+                bufferSize = size;
+                decreases.get(Reason.payload).increment();
+                changed(Reason.payload);
+            }
+            return;
+        }
+        //耗时过长,减小批量大小
+        if (latency > targetLatency) {
+            decrease(sample, Reason.latency, false);
+            return;
+        }
+        //批次未满,说明没有积压,无需扩大
+        if (sample.size < bufferSize) {
+            return;
+        }
+        if (bufferSize < spec.getMaxSize()) {
+            bufferSize = Math.min(spec.getMaxSize(), bufferSize + spec.getStep());
+        } else if (parallelism < spec.getMaxParallelism() && latency < targetLatency / 2) {
+            //批量已达上限并且耗时较低,增加并行度
+            parallelism++;
+        } else {
+            return;
+        }
+        increases.get(Reason.backlog).increment();
+        changed(Reason.backlog);
+    }
+
+    private void decrease(Sample sample, Reason reason, boolean withParallelism) {
+        //同一个窗口内只减小一次,nanoTime可能溢出,只能比较差值
+        if (sample.startTime - lastDecreaseTime < 0) {
+            return;
+        }
+        double factor = spec.getDecreaseFactor();
+        int size = clamp((int) (bufferSize * factor), spec.getMinSize(), spec.getMaxSize());
+        int parallelism = withParallelism
+            ? clamp((int) (this.parallelism * factor), spec.getMinParallelism(), spec.getMaxParallelism())
+            : this.parallelism;
+        if (size == bufferSize && parallelism == this.parallelism) {
+            return;
+        }
+        lastDecreaseTime = clock.getAsLong();
+        this.bufferSize = size;
+        this.parallelism = parallelism;
+        decreases.get(reason).increment();
+        changed(reason);
+    }
+
+    private void changed(Reason reason) {
+        log.debug("adjust elasticsearch buffer by {}: size={},parallelism={}", reason, bufferSize, parallelism);
+        apply();
+    }
+
+    private void apply() {
+        int size = bufferSize, parallelism = this.parallelism;
+        writer.settings(settings -> settings.bufferSize(size).parallelism(parallelism));
+    }
+
+    static boolean isOverload(Throwable error) {
+        if (ErrorUtils.hasException(error, TimeoutException.class, SocketTimeoutException.class)) {
+            return true;
+        }
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof ElasticsearchException ex && isOverload(ex.status())) {
+                return true;
+            }
+            if (e instanceof ResponseException ex && isOverload(ex.getResponse().getStatusLine().getStatusCode())) {
+                return true;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    static boolean isOverload(int status) {
+        //429 Too Many Requests,503 Service Unavailable
+        return status == 429 || status == 503;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 单次写入的采样信息
+     */
+    static class Sample {
+        //未开启自适应时使用
+        static final Sample NOOP = new Sample(null, 0);
+
+        private final AdaptiveBulkController controller;
+        private final int size;
+        private final long startTime;
+        private int rejected;
+        private long bytes;
+
+        private Sample(AdaptiveBulkController controller, int size) {
+            this.controller = controller;
+            this.size = size;
+            this.startTime = controller == null ? 0 : controller.clock.getAsLong();
+        }
+
+        /**
+         * 记录单条数据的写入状态
+         *
+         * @param status 响应状态码
+         */
+        void status(int status) {
+            if (controller != null && isOverload(status)) {
+                rejected++;
+            }
+        }
+
+        /**
+         * 记录请求体大小,未记录时不按请求体大小调整
+         *
+         * @param bytes 字节数
+         */
+        void bytes(long bytes) {
+            if (controller != null) {
+                this.bytes = bytes;
+            }
+        }
+
+        void complete() {
+            if (controller != null) {
+                controller.onComplete(this, elapsed(), null);
+            }
+        }
+
+        void error(Throwable error) {
+            if (controller != null) {
+                controller.onComplete(this, elapsed(), error);
+            }
+        }
+
+        private long elapsed() {
+            return TimeUnit.NANOSECONDS.toMillis(controller.clock.getAsLong() - startTime);
+        }
+    }
+}
@@ -17,9 +17,13 @@ package org.jetlinks.community.elastic.search.service.reactive;
 
 import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.Version;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.client.RestClient;
 import org.jetlinks.core.lang.SharedPathString;
 import org.jetlinks.core.trace.MonoTracer;
 import org.jetlinks.core.trace.TraceHolder;
@@ -58,6 +62,22 @@ public class DefaultReactiveElasticsearchClient implements ReactiveElasticsearch
 
     }
 
+    @Override
+    public RestClient lowLevelClient() {
+        if (client._transport() instanceof RestClientTransport transport) {
+            return transport.restClient();
+        }
+        return null;
+    }
+
+    @Override
+    public ObjectMapper objectMapper() {
+        if (client._transport().jsonpMapper() instanceof JacksonJsonpMapper mapper) {
+            return mapper.objectMapper();
+        }
+        return ReactiveElasticsearchClient.super.objectMapper();
+    }
+
     @Override
     public <T> Mono<T> executeAsync(ElasticsearchAsyncClientCallback<T> callback) {
         return Mono
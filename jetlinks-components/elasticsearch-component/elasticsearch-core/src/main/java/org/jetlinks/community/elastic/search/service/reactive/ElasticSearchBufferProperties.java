@@ -19,6 +19,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.jetlinks.community.buffer.BufferProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 @Getter
 @Setter
@@ -33,4 +36,51 @@ public class ElasticSearchBufferProperties extends BufferProperties {
     private boolean refreshWhenWrite = false;
 
     private boolean ignoreDocId = false;
+
+    /**
+     * 使用流式编码bulk请求,直接将数据编码为NDJSON并通过低级别RestClient发送
+     *
+     * @see StreamingBulkWriter
+     * @since 2.11
+     */
+    private boolean streamingBulk = false;
+
+    /**
+     * 自适应调整批量大小和并行度
+     *
+     * @see AdaptiveBulkController
+     * @since 2.11
+     */
+    private Adaptive adaptive = new Adaptive();
+
+    @Getter
+    @Setter
+    public static class Adaptive {
+        //是否开启,开启后size和parallelism作为初始值
+        private boolean enabled = false;
+
+        //最小批量大小
+        private int minSize = 200;
+
+        //最大批量大小
+        private int maxSize = 10000;
+
+        //批量大小每次增加的数量
+        private int step = 200;
+
+        //最小并行度
+        private int minParallelism = 1;
+
+        //最大并行度
+        private int maxParallelism = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+        //目标耗时,超过此耗时将减小批量大小
+        private Duration targetLatency = Duration.ofSeconds(1);
+
+        //单次请求体最大大小,仅在开启streamingBulk时生效,默认的bulk写入由客户端编码,无法获取请求体大小
+        private DataSize maxPayloadSize = DataSize.ofMegabytes(10);
+
+        //减小时的比例
+        private double decreaseFactor = 0.5;
+    }
 }
\ No newline at end of file
@@ -18,6 +18,8 @@ package org.jetlinks.community.elastic.search.service.reactive;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.ErrorResponse;
 import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.Time;
 import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
@@ -30,16 +32,19 @@ import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
 import co.elastic.clients.elasticsearch.core.search.TrackHits;
+import co.elastic.clients.transport.Version;
 import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.Metrics;
 import io.opentelemetry.api.common.AttributeKey;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.elasticsearch.client.RestClient;
 import org.hswebframework.ezorm.core.param.QueryParam;
 import org.hswebframework.utils.StringUtils;
 import org.hswebframework.web.api.crud.entity.PagerResult;
@@ -47,6 +52,7 @@ import org.hswebframework.web.api.crud.entity.QueryParamEntity;
 import org.hswebframework.web.bean.FastBeanCopier;
 import org.hswebframework.web.exception.BusinessException;
 import org.jetlinks.community.configure.cluster.Cluster;
+import org.jetlinks.community.elastic.search.configuration.ElasticSearchProperties;
 import org.jetlinks.community.elastic.search.index.ElasticSearchIndex;
 import org.jetlinks.community.elastic.search.utils.ElasticSearchConverter;
 import org.jetlinks.core.metadata.Jsonable;
@@ -97,10 +103,20 @@ public class ReactiveElasticSearchService implements ElasticSearchService, Comma
 
     private PersistenceBuffer<Buffer> writer;
 
+    //流式bulk写入,未开启时为null
+    private StreamingBulkWriter bulkWriter;
+
+    //自适应调整批量大小和并行度,未开启时为null
+    private AdaptiveBulkController adaptive;
+
     @Getter
     @Setter
     private ElasticSearchBufferProperties buffer;
 
+    @Getter
+    @Setter
+    private ElasticSearchProperties properties = new ElasticSearchProperties();
+
     public ReactiveElasticSearchService(ReactiveElasticsearchClient restClient,
                                         ElasticSearchIndexManager indexManager) {
         this(restClient, indexManager, new ElasticSearchBufferProperties());
@@ -203,28 +219,66 @@ public class ReactiveElasticSearchService implements ElasticSearchService, Comma
     private <T> Flux<T> doScrollQuery(String[] index,
                                       QueryParam queryParam,
                                       Function<Map<String, Object>, T> mapper) {
-        Time time = Time.of(t -> t.time("10m"));
+        Time time = Time.of(t -> t.time(properties.getStreamKeepAlive().toMillis() + "ms"));
 
         return indexManager
             .getIndexes(index)
             .filter(CollectionUtils::isNotEmpty)
             .flatMapMany(metadataList -> this
                 .createSearchRequest(queryParam.clone().noPaging(), metadataList)
-                .flatMapMany(search -> new ScrollingFlux<T>(
-                    mapper,
-                    restClient,
-                    time,
-                    builder -> {
-                        builder.index(search.index());
-                        builder.query(search.query());
-                        builder.sort(search.sort());
-                        builder.size(getNoPagingPageSize(queryParam));
-                        builder.ignoreUnavailable(search.ignoreUnavailable());
-                        builder.allowNoIndices(search.allowNoIndices());
-                    }))
+                .flatMapMany(search -> {
+                    if (isSearchAfterEnabled()) {
+                        return doSearchAfterQuery(search, time, getNoPagingPageSize(queryParam), mapper);
+                    }
+                    return new ScrollingFlux<T>(
+                        mapper,
+                        restClient,
+                        time,
+                        builder -> {
+                            builder.index(search.index());
+                            builder.query(search.query());
+                            builder.sort(search.sort());
+                            builder.size(getNoPagingPageSize(queryParam));
+                            builder.ignoreUnavailable(search.ignoreUnavailable());
+                            builder.allowNoIndices(search.allowNoIndices());
+                        });
+                })
             );
     }
 
+    private boolean isSearchAfterEnabled() {
+        if (properties.getStreamQuery() != ElasticSearchProperties.StreamQueryMode.pit) {
+            return false;
+        }
+        //point in time 需要7.10及以上版本,没有排序时使用的_shard_doc需要7.12及以上版本
+        Version version = restClient.serverVersion();
+        return version == null
+            || version.major() > 7
+            || (version.major() == 7 && version.minor() >= 12);
+    }
+
+    private <T> Flux<T> doSearchAfterQuery(SearchRequest search,
+                                           Time keepAlive,
+                                           int pageSize,
+                                           Function<Map<String, Object>, T> mapper) {
+        List<SortOptions> sorts = new ArrayList<>(search.sort());
+        if (sorts.isEmpty()) {
+            //search_after需要排序,没有排序时按分片中的文档顺序
+            sorts.add(SortOptions.of(sort -> sort.field(field -> field.field("_shard_doc").order(SortOrder.Asc))));
+        }
+        return new SearchAfterFlux<>(
+            mapper,
+            restClient,
+            search.index(),
+            Boolean.TRUE.equals(search.ignoreUnavailable()),
+            keepAlive,
+            pageSize,
+            builder -> {
+                builder.query(search.query());
+                builder.sort(sorts);
+            });
+    }
+
     private int getNoPagingPageSize(QueryParam param) {
         return Math.max(10000, param.getPageSize());
     }
@@ -320,9 +374,13 @@ public class ReactiveElasticSearchService implements ElasticSearchService, Comma
 
     public void startup() {
         //spring 启动后更新配置信息
-        writer
-            .settings(bufferSettings -> bufferSettings.properties(buffer))
-            .start();
+        writer.settings(bufferSettings -> bufferSettings.properties(buffer));
+
+        if (buffer.getAdaptive().isEnabled()) {
+            adaptive = new AdaptiveBulkController(writer, buffer);
+            adaptive.bindTo(Metrics.globalRegistry);
+        }
+        writer.start();
 
         //最后 shutdown
         SpringApplication
@@ -349,6 +407,10 @@ public class ReactiveElasticSearchService implements ElasticSearchService, Comma
 
         writer.init();
 
+        RestClient lowLevelClient = restClient.lowLevelClient();
+        if (buffer.isStreamingBulk() && lowLevelClient != null) {
+            bulkWriter = new StreamingBulkWriter(lowLevelClient, restClient.objectMapper(), buffer.isIgnoreDocId());
+        }
     }
 
     public Mono<Boolean> doSaveBuffer(Collection<Buffered<Buffer>> bufferFlux,
@@ -356,13 +418,28 @@ public class ReactiveElasticSearchService implements ElasticSearchService, Comma
         List<Buffered<Buffer>> list = bufferFlux instanceof List
             ? ((List<Buffered<Buffer>>) bufferFlux)
             : new ArrayList<>(bufferFlux);
+        AdaptiveBulkController.Sample sample = adaptive == null
+            ? AdaptiveBulkController.Sample.NOOP
+            : adaptive.start(list.size());
+        Mono<Boolean> result = bulkWriter != null
+            ? doStreamingSaveBuffer(list, context, sample)
+            : doBulkSaveBuffer(list, context, sample);
+        return result
+            .doOnSuccess(ignore -> sample.complete())
+            .doOnError(sample::error);
+    }
+
+    //请求体由客户端编码,不记录请求体大小,自适应控制不会按请求体大小调整
+    private Mono<Boolean> doBulkSaveBuffer(List<Buffered<Buffer>> list,
+                                           PersistenceBuffer.FlushContext<Buffer> context,
+                                           AdaptiveBulkController.Sample sample) {
         int size = list.size();
         return this
             .doSave0(Collections2.transform(list, Buffered::getData))
             .map(response -> {
                 boolean hasError = false;
                 List<BulkResponseItem> arr = response.items();
-                Set<String> errors = null;
+                Set<String> errors = new HashSet<>();
                 int responseSize = arr.size();
                 //响应数量不一致?
                 if (responseSize != size) {
@@ -374,41 +451,9 @@ public class ReactiveElasticSearchService implements ElasticSearchService, Comma
                 for (int i = 0; i < responseSize; i++) {
                     BulkResponseItem item = arr.get(i);
                     Buffered<Buffer> buffered = size > i ? list.get(i) : null;
-                    HttpStatus status = HttpStatus.resolve(item.status());
-                    if ((status == null || !status.is2xxSuccessful())) {
-                        hasError = true;
-                        if (null != item.error()) {
-                            context.error(new BusinessException.NoStackTrace(item.error().reason()));
-                        } else {
-                            context.error(new BusinessException.NoStackTrace(item.toString()));
-                        }
-                        if (log.isInfoEnabled()) {
-                            String msg = item.error().reason();
-                            if (errors == null) {
-                                errors = new HashSet<>();
-                            }
-                            if (msg == null || errors.add(msg)) {
-                                log.info("write elasticsearch data [{}] failed: {}",
-                                         buffered,
-                                         item);
-                            }
-                        }
-                        //失败
-                        if (buffered != null) {
-                            if (isDead(buffered, item)) {
-                                //标记dead
-                                buffered.dead();
-                            } else {
-                                //标记重试
-                                buffered.retry(true);
-                            }
-                        }
-                        continue;
-                    }
-                    //成功,标记此条数据不重试.
-                    if (buffered != null) {
-                        buffered.retry(false);
-                    }
+                    String reason = item.error() == null ? null : item.error().reason();
+                    sample.status(item.status());
+                    hasError |= handleBulkItem(buffered, item.status(), reason, item, context, errors);
                 }
                 //有任何错误,则触发重试
                 return hasError;
@@ -416,12 +461,99 @@ public class ReactiveElasticSearchService implements ElasticSearchService, Comma
 
     }
 
+    //使用流式bulk写入,响应结果按数据在请求中的位置回调
+    private Mono<Boolean> doStreamingSaveBuffer(List<Buffered<Buffer>> list,
+                                                PersistenceBuffer.FlushContext<Buffer> context,
+                                                AdaptiveBulkController.Sample sample) {
+        int size = list.size();
+        List<Buffer> buffers = Lists.transform(list, Buffered::getData);
+        Set<String> indexes = new HashSet<>();
+        for (Buffer buffer : buffers) {
+            indexes.add(buffer.getIndex());
+        }
+        return Flux
+            .fromIterable(indexes)
+            .flatMap(index -> this
+                .getIndexForSave(index)
+                .map(realIndex -> Tuples.of(index, realIndex)))
+            .collectMap(Tuple2::getT1, Tuple2::getT2)
+            .flatMap(mapping -> {
+                boolean[] hasError = new boolean[1];
+                Set<String> errors = new HashSet<>();
+                return bulkWriter
+                    .write(buffers, mapping, (index, status, reason) -> {
+                        Buffered<Buffer> buffered = index >= 0 && index < size ? list.get(index) : null;
+                        sample.status(status);
+                        hasError[0] |= handleBulkItem(buffered, status, reason, reason, context, errors);
+                    })
+                    .map(result -> {
+                        sample.bytes(result.getBytes());
+                        //响应数量不一致,没有响应结果的数据需要重试
+                        if (result.getItems() != size) {
+                            log.warn("ElasticSearch response item size not equals to buffer size," +
+                                         " response size:{}, buffer size:{}",
+                                     result.getItems(),
+                                     size);
+                            return true;
+                        }
+                        return hasError[0];
+                    });
+            })
+            .as(MonoTracer.create(
+                "/_elasticsearch/save-buffer",
+                builder -> builder.setAttribute(BUFFER_SIZE, (long) list.size())));
+    }
+
+    /**
+     * 处理bulk响应中的单条结果
+     *
+     * @return 是否失败
+     */
+    private boolean handleBulkItem(Buffered<Buffer> buffered,
+                                   int statusCode,
+                                   String reason,
+                                   Object item,
+                                   PersistenceBuffer.FlushContext<Buffer> context,
+                                   Set<String> errors) {
+        HttpStatus status = HttpStatus.resolve(statusCode);
+        if ((status == null || !status.is2xxSuccessful())) {
+            if (null != reason) {
+                context.error(new BusinessException.NoStackTrace(reason));
+            } else {
+                context.error(new BusinessException.NoStackTrace(String.valueOf(item)));
+            }
+            if (log.isInfoEnabled()) {
+                if (reason == null || errors.add(reason)) {
+                    log.info("write elasticsearch data [{}] failed: {}",
+                             buffered,
+                             item);
+                }
+            }
+            //失败
+            if (buffered != null) {
+                if (isDead(buffered, statusCode)) {
+                    //标记dead
+                    buffered.dead();
+                } else {
+                    //标记重试
+                    buffered.retry(true);
+                }
+            }
+            return true;
+        }
+        //成功,标记此条数据不重试.
+        if (buffered != null) {
+            buffered.retry(false);
+        }
+        return false;
+    }
+
     private static final Set<Integer> deadStatus = Sets.newHashSet(403, 400, 401, 404, 405);
 
-    private boolean isDead(Buffered<Buffer> buffered, BulkResponseItem response) {
+    private boolean isDead(Buffered<Buffer> buffered, int status) {
         return buffer.isExceededRetryCount(buffered.getRetryTimes()) ||
             //快速失败,不再重试
-            deadStatus.contains(response.status());
+            deadStatus.contains(status);
     }
 
     @Getter
@@ -18,7 +18,10 @@ package org.jetlinks.community.elastic.search.service.reactive;
 import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.transport.Version;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
+import org.elasticsearch.client.RestClient;
+import org.jetlinks.community.utils.ObjectMappers;
 import reactor.core.publisher.Mono;
 
 import java.util.concurrent.CompletableFuture;
@@ -32,6 +35,26 @@ public interface ReactiveElasticsearchClient {
 
     <T> Mono<T> executeAsync(ElasticsearchAsyncClientCallback<T> callback);
 
+    /**
+     * 获取底层的RestClient,用于直接发送请求,不支持时返回<code>null</code>
+     *
+     * @return RestClient
+     * @since 2.11
+     */
+    default RestClient lowLevelClient() {
+        return null;
+    }
+
+    /**
+     * 获取客户端序列化文档时使用的ObjectMapper
+     *
+     * @return ObjectMapper
+     * @since 2.11
+     */
+    default ObjectMapper objectMapper() {
+        return ObjectMappers.JSON_MAPPER;
+    }
+
 
     interface ElasticsearchAsyncClientCallback<T> extends Function<ElasticsearchAsyncClient, CompletableFuture<T>> {
 
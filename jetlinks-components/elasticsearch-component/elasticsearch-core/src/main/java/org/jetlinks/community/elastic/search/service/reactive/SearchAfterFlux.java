@@ -0,0 +1,331 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.service.reactive;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import lombok.extern.slf4j.Slf4j;
+import org.jetlinks.community.elastic.search.configuration.ElasticSearchProperties;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 基于point in time(PIT)和search_after的流式查询.
+ * <p>
+ * 与{@link ScrollingFlux}在数据节点上保持scroll上下文直到超时不同,PIT只保持索引的快照,
+ * 每一页根据上一页最后一条数据的排序值(search_after)查询,查询完成,出错或者取消订阅时会立即关闭PIT.
+ * <p>
+ * 根据下游的请求拉取数据,缓冲的数据少于半页并且下游还有请求时,预先查询下一页.
+ *
+ * @author zhouhao
+ * @see ElasticSearchProperties.StreamQueryMode#pit
+ * @since 2.11
+ */
+@Slf4j
+public class SearchAfterFlux<T> extends Flux<T> {
+
+    final Function<Map<String, Object>, T> mapper;
+    final ReactiveElasticsearchClient client;
+    final List<String> index;
+    final boolean ignoreUnavailable;
+    final Time keepAlive;
+    final int pageSize;
+    final Consumer<SearchRequest.Builder> request;
+
+    /**
+     * @param mapper            数据转换
+     * @param client            客户端
+     * @param index             索引
+     * @param ignoreUnavailable 是否忽略不可用的索引
+     * @param keepAlive         PIT保持时间
+     * @param pageSize          每页数量
+     * @param request           查询条件和排序,不能设置索引
+     */
+    public SearchAfterFlux(Function<Map<String, Object>, T> mapper,
+                           ReactiveElasticsearchClient client,
+                           List<String> index,
+                           boolean ignoreUnavailable,
+                           Time keepAlive,
+                           int pageSize,
+                           Consumer<SearchRequest.Builder> request) {
+        this.mapper = mapper;
+        this.client = client;
+        this.index = index;
+        this.ignoreUnavailable = ignoreUnavailable;
+        this.keepAlive = keepAlive;
+        this.pageSize = pageSize;
+        this.request = request;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super T> actual) {
+        actual.onSubscribe(new SearchAfterSubscriber<>(this, actual));
+    }
+
+    static class SearchAfterSubscriber<T> implements Subscription {
+
+        final SearchAfterFlux<T> parent;
+        final CoreSubscriber<? super T> actual;
+        final Queue<T> queue = Queues.<T>unboundedMultiproducer().get();
+        final Disposable.Swap fetching = Disposables.swap();
+
+        @SuppressWarnings("all")
+        static final AtomicIntegerFieldUpdater<SearchAfterSubscriber> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(SearchAfterSubscriber.class, "wip");
+        volatile int wip;
+
+        @SuppressWarnings("all")
+        static final AtomicLongFieldUpdater<SearchAfterSubscriber> REQUESTED =
+            AtomicLongFieldUpdater.newUpdater(SearchAfterSubscriber.class, "requested");
+        volatile long requested;
+
+        //缓冲的数据数量
+        @SuppressWarnings("all")
+        static final AtomicIntegerFieldUpdater<SearchAfterSubscriber> BUFFERED =
+            AtomicIntegerFieldUpdater.newUpdater(SearchAfterSubscriber.class, "buffered");
+        volatile int buffered;
+
+        @SuppressWarnings("all")
+        static final AtomicReferenceFieldUpdater<SearchAfterSubscriber, String> PIT_ID =
+            AtomicReferenceFieldUpdater.newUpdater(SearchAfterSubscriber.class, String.class, "pitId");
+        volatile String pitId;
+
+        //上一页最后一条数据的排序值
+        volatile List<FieldValue> searchAfter;
+
+        //是否正在查询
+        volatile boolean loading;
+
+        //没有更多数据
+        volatile boolean done;
+
+        volatile Throwable error;
+
+        volatile boolean cancelled;
+
+        SearchAfterSubscriber(SearchAfterFlux<T> parent, CoreSubscriber<? super T> actual) {
+            this.parent = parent;
+            this.actual = actual;
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.addCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            fetching.dispose();
+            closePit();
+            if (WIP.getAndIncrement(this) == 0) {
+                clear();
+            }
+        }
+
+        void fetch() {
+            Mono<SearchResponse<Map>> search = pitId == null
+                ? openPit().flatMap(this::search)
+                : search(pitId);
+            fetching.update(search.subscribe(this::handleResponse, this::handleError));
+        }
+
+        Mono<String> openPit() {
+            return parent
+                .client
+                .execute(elastic -> elastic
+                    .openPointInTime(open -> open
+                        .index(parent.index)
+                        .ignoreUnavailable(parent.ignoreUnavailable)
+                        .keepAlive(parent.keepAlive))
+                    .id())
+                .doOnNext(id -> {
+                    pitId = id;
+                    //打开期间已经取消
+                    if (cancelled) {
+                        closePit();
+                    }
+                });
+        }
+
+        @SuppressWarnings("all")
+        Mono<SearchResponse<Map>> search(String id) {
+            List<FieldValue> searchAfter = this.searchAfter;
+            return parent
+                .client
+                .execute(elastic -> elastic
+                    .search(search -> {
+                        parent.request.accept(search);
+                        search.pit(pit -> pit.id(id).keepAlive(parent.keepAlive))
+                              .size(parent.pageSize)
+                              .trackTotalHits(track -> track.enabled(false));
+                        if (searchAfter != null) {
+                            search.searchAfter(searchAfter);
+                        }
+                        return search;
+                    }, Map.class));
+        }
+
+        @SuppressWarnings("all")
+        void handleResponse(SearchResponse<Map> response) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                //每次查询都可能返回新的PIT id
+                if (response.pitId() != null) {
+                    pitId = response.pitId();
+                    //保存期间已经取消,cancel()可能已经关闭了旧的PIT
+                    if (cancelled) {
+                        closePit();
+                        return;
+                    }
+                }
+                List<Hit<Map>> hits = response.hits().hits();
+                for (Hit<Map> hit : hits) {
+                    Map<String, Object> map = hit.source();
+                    if (map == null) {
+                        continue;
+                    }
+                    if (map.get("id") == null) {
+                        map.put("id", hit.id());
+                    }
+                    T res = parent.mapper.apply(map);
+                    if (res != null) {
+                        queue.offer(res);
+                        BUFFERED.incrementAndGet(this);
+                    }
+                }
+                if (hits.size() < parent.pageSize) {
+                    done = true;
+                } else {
+                    searchAfter = hits.get(hits.size() - 1).sort();
+                }
+            } catch (Throwable err) {
+                error = err;
+                done = true;
+            }
+            loading = false;
+            drain();
+        }
+
+        void handleError(Throwable err) {
+            error = err;
+            done = true;
+            loading = false;
+            drain();
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long r = requested;
+                long e = 0;
+                while (e != r) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+                    boolean d = done;
+                    T data = queue.poll();
+                    if (data == null) {
+                        if (d && !loading) {
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+                    BUFFERED.decrementAndGet(this);
+                    actual.onNext(data);
+                    e++;
+                }
+                if (cancelled) {
+                    clear();
+                    return;
+                }
+                if (e == r && done && !loading && queue.isEmpty()) {
+                    terminate();
+                    return;
+                }
+                if (e != 0 && r != Long.MAX_VALUE) {
+                    Operators.produced(REQUESTED, this, e);
+                }
+                //下游还有请求并且缓冲的数据不足半页时,查询下一页
+                if (!done && !loading && requested > 0 && buffered <= parent.pageSize / 2) {
+                    loading = true;
+                    fetch();
+                }
+                missed = WIP.addAndGet(this, -missed);
+            } while (missed != 0);
+        }
+
+        void terminate() {
+            closePit();
+            Throwable error = this.error;
+            if (error != null) {
+                actual.onError(error);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        void clear() {
+            Operators.onDiscardQueueWithClear(queue, actual.currentContext(), null);
+        }
+
+        void closePit() {
+            String id = PIT_ID.getAndSet(this, null);
+            if (id == null) {
+                return;
+            }
+            parent
+                .client
+                .execute(elastic -> elastic
+                    .closePointInTime(close -> close.id(id))
+                    .succeeded())
+                .subscribe(ignore -> {
+                           },
+                           err -> log.warn("close elasticsearch point in time error", err));
+        }
+    }
+}
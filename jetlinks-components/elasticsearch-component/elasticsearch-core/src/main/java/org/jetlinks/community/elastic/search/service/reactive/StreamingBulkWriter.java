@@ -0,0 +1,284 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.service.reactive;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.util.ReferenceCountUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+import org.jetlinks.community.elastic.search.index.ElasticSearchIndex;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式ElasticSearch批量写入器.
+ * <p>
+ * 直接将bulk请求的action行和文档行以NDJSON格式编码到池化的{@link ByteBuf}中,
+ * 并通过低级别{@link RestClient}发送,无需为每条数据构造<code>BulkOperation</code>等对象.
+ * 响应结果按顺序流式解析,通过{@link ItemHandler}回调每一条数据的写入结果.
+ *
+ * @author zhouhao
+ * @see ReactiveElasticSearchService
+ * @since 2.11
+ */
+@Slf4j
+class StreamingBulkWriter {
+
+    static final ContentType NDJSON = ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
+
+    private static final byte[] ACTION_INDEX = ascii("{\"index\":{\"_index\":\"");
+    private static final byte[] ACTION_ID = ascii("\",\"_id\":\"");
+    private static final byte[] ACTION_END = ascii("\"}}\n");
+
+    private final RestClient client;
+
+    private final ObjectMapper mapper;
+
+    private final ObjectWriter writer;
+
+    private final boolean ignoreDocId;
+
+    StreamingBulkWriter(RestClient client, ObjectMapper mapper, boolean ignoreDocId) {
+        this.client = client;
+        this.mapper = mapper;
+        this.writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.ignoreDocId = ignoreDocId;
+    }
+
+    /**
+     * 处理单条数据的写入结果
+     */
+    interface ItemHandler {
+        /**
+         * @param index  数据在请求中的索引
+         * @param status 响应状态码
+         * @param error  错误原因,成功时为<code>null</code>
+         */
+        void handle(int index, int status, String error);
+    }
+
+    /**
+     * bulk写入结果
+     */
+    @Getter
+    @AllArgsConstructor
+    static class Result {
+        static final Result EMPTY = new Result(0, 0);
+
+        //请求体字节数
+        private final int bytes;
+
+        //响应中解析到的结果数量,与请求中的数据数量不一致时说明响应异常
+        private final int items;
+    }
+
+    /**
+     * 执行bulk写入,索引不存在的数据不会写入,对应位置的结果也不会回调.
+     *
+     * @param buffers 数据
+     * @param indexes 索引名称对应的索引信息
+     * @param handler 结果处理器
+     * @return 写入结果
+     */
+    Mono<Result> write(List<ReactiveElasticSearchService.Buffer> buffers,
+                        Map<String, ElasticSearchIndex> indexes,
+                        ItemHandler handler) {
+        return Mono.defer(() -> {
+            int[] positions = new int[buffers.size()];
+            ByteBuf body = ByteBufAllocator.DEFAULT.heapBuffer(buffers.size() * 256);
+            int count;
+            try {
+                count = encode(buffers, indexes, body, positions);
+            } catch (Throwable e) {
+                ReferenceCountUtil.safeRelease(body);
+                return Mono.error(e);
+            }
+            if (count == 0) {
+                ReferenceCountUtil.safeRelease(body);
+                return Mono.just(Result.EMPTY);
+            }
+            int size = body.readableBytes();
+            return this
+                .execute(body)
+                .map(response -> {
+                    int items = parseResponse(response, (idx, status, error) -> {
+                        if (idx < count) {
+                            handler.handle(positions[idx], status, error);
+                        }
+                    });
+                    return new Result(size, items);
+                });
+        });
+    }
+
+    private int encode(List<ReactiveElasticSearchService.Buffer> buffers,
+                       Map<String, ElasticSearchIndex> indexes,
+                       ByteBuf body,
+                       int[] positions) throws IOException {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        int count = 0;
+        try (ByteBufOutputStream out = new ByteBufOutputStream(body)) {
+            for (int i = 0, size = buffers.size(); i < size; i++) {
+                ReactiveElasticSearchService.Buffer buffer = buffers.get(i);
+                ElasticSearchIndex index = indexes.get(buffer.getIndex());
+                if (index == null) {
+                    continue;
+                }
+                //{"index":{"_index":"...","_id":"..."}}
+                body.writeBytes(ACTION_INDEX);
+                body.writeBytes(encoder.quoteAsUTF8(index.getForSave(buffer.getPayload())));
+                if (buffer.getId() != null && !ignoreDocId) {
+                    body.writeBytes(ACTION_ID);
+                    body.writeBytes(encoder.quoteAsUTF8(buffer.getId()));
+                }
+                body.writeBytes(ACTION_END);
+                //文档
+                writer.writeValue(out, buffer.getPayload());
+                body.writeByte('\n');
+                positions[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    //请求体直接引用池化的内存,只能在客户端回调结果后释放.
+    //取消订阅时客户端可能仍在发送请求体,取消后客户端也会回调onFailure,因此不在doFinally中释放.
+    private Mono<Response> execute(ByteBuf body) {
+        return Mono
+            .<Response>create(sink -> {
+                Request request = new Request("POST", "/_bulk");
+                request.addParameter("refresh", "true");
+                request.setEntity(new ByteArrayEntity(
+                    body.array(),
+                    body.arrayOffset() + body.readerIndex(),
+                    body.readableBytes(),
+                    NDJSON));
+                Cancellable cancellable;
+                try {
+                    cancellable = client.performRequestAsync(request, new ResponseListener() {
+                        @Override
+                        public void onSuccess(Response response) {
+                            ReferenceCountUtil.safeRelease(body);
+                            sink.success(response);
+                        }
+
+                        @Override
+                        public void onFailure(Exception exception) {
+                            ReferenceCountUtil.safeRelease(body);
+                            sink.error(exception);
+                        }
+                    });
+                } catch (Throwable error) {
+                    ReferenceCountUtil.safeRelease(body);
+                    sink.error(error);
+                    return;
+                }
+                sink.onCancel(cancellable::cancel);
+            });
+    }
+
+    //{"took":1,"errors":false,"items":[{"index":{"_index":"..","status":201,"error":{"reason":".."}}}]}
+    private int parseResponse(Response response, ItemHandler handler) {
+        try (InputStream in = response.getEntity().getContent();
+             JsonParser parser = mapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("unexpected bulk response");
+            }
+            int items = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("items".equals(field)) {
+                    items = parseItems(parser, handler);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return items;
+        } catch (IOException e) {
+            throw new IllegalStateException("parse elasticsearch bulk response error", e);
+        }
+    }
+
+    private int parseItems(JsonParser parser, ItemHandler handler) throws IOException {
+        int index = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int status = 0;
+            String error = null;
+            //操作类型 index,create...
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken token = parser.nextToken();
+                    if ("status".equals(field)) {
+                        status = parser.getIntValue();
+                    } else if ("error".equals(field)) {
+                        error = token == JsonToken.START_OBJECT ? parseReason(parser) : parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            handler.handle(index++, status, error);
+        }
+        return index;
+    }
+
+    private String parseReason(JsonParser parser) throws IOException {
+        String reason = null, type = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("reason".equals(field)) {
+                reason = parser.getText();
+            } else if ("type".equals(field)) {
+                type = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return reason == null ? String.valueOf(type) : reason;
+    }
+
+    private static byte[] ascii(String str) {
+        return str.getBytes(StandardCharsets.US_ASCII);
+    }
+}
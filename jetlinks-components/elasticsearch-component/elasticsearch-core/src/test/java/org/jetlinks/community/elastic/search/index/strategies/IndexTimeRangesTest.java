@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.index.strategies;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexTimeRangesTest {
+
+    static final String INDEX = "test_2020-01";
+
+    static final long PERIOD = 0, INTERVAL = 1000;
+
+    //周期已经结束并超过宽限时间
+    final long now = PERIOD + INTERVAL + IndexTimeRanges.GRACE.toMillis() + 1;
+
+    @Test
+    void testUnknown() {
+        IndexTimeRanges.IndexRanges ranges = new IndexTimeRanges.IndexRanges();
+
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 5000, 6000, now));
+
+        //只有本节点写入的时间范围,不包含其他节点写入的数据
+        ranges.update(INDEX, 100, 200);
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 5000, 6000, now));
+    }
+
+    @Test
+    void testInGracePeriod() {
+        IndexTimeRanges.IndexRanges ranges = new IndexTimeRanges.IndexRanges();
+        ranges.update(INDEX, 100, 200);
+        ranges.loaded(INDEX, now);
+
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 5000, 6000, now - 2));
+    }
+
+    @Test
+    void testLoaded() {
+        IndexTimeRanges.IndexRanges ranges = new IndexTimeRanges.IndexRanges();
+        ranges.update(INDEX, 100, 200);
+        ranges.loaded(INDEX, now);
+
+        assertFalse(ranges.mayContain(INDEX, PERIOD, INTERVAL, 300, 400, now));
+        assertFalse(ranges.mayContain(INDEX, PERIOD, INTERVAL, 0, 99, now));
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 150, 400, now));
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 0, 100, now));
+    }
+
+    @Test
+    void testLoadedEmpty() {
+        IndexTimeRanges.IndexRanges ranges = new IndexTimeRanges.IndexRanges();
+        ranges.loaded(INDEX, now);
+
+        //加载时没有数据,其他节点之后可能写入数据
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 300, 400, now));
+    }
+
+    @Test
+    void testExpired() {
+        IndexTimeRanges.IndexRanges ranges = new IndexTimeRanges.IndexRanges();
+        ranges.update(INDEX, 100, 200);
+        ranges.loaded(INDEX, now);
+
+        long expired = now + IndexTimeRanges.REFRESH.toMillis();
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 300, 400, expired));
+
+        //重新加载到其他节点补传的数据
+        ranges.update(INDEX, 350, 350);
+        ranges.loaded(INDEX, expired);
+        assertTrue(ranges.mayContain(INDEX, PERIOD, INTERVAL, 300, 400, expired));
+        assertFalse(ranges.mayContain(INDEX, PERIOD, INTERVAL, 500, 600, expired));
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.service.reactive;
+
+import org.jetlinks.community.buffer.PersistenceBuffer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBulkControllerTest {
+
+    //模拟System.nanoTime
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveBulkController create(int size, int parallelism) {
+        ElasticSearchBufferProperties properties = new ElasticSearchBufferProperties();
+        properties.setSize(size);
+        properties.setParallelism(parallelism);
+        ElasticSearchBufferProperties.Adaptive adaptive = properties.getAdaptive();
+        adaptive.setEnabled(true);
+        adaptive.setMinSize(100);
+        adaptive.setMaxSize(2000);
+        adaptive.setStep(100);
+        adaptive.setMinParallelism(1);
+        adaptive.setMaxParallelism(8);
+        adaptive.setTargetLatency(Duration.ofSeconds(1));
+        adaptive.setMaxPayloadSize(DataSize.ofMegabytes(1));
+        adaptive.setDecreaseFactor(0.5);
+        return new AdaptiveBulkController(Mockito.mock(PersistenceBuffer.class), properties, clock::get);
+    }
+
+    private void elapse(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private void assertSettings(AdaptiveBulkController controller, int size, int parallelism) {
+        assertEquals(size, controller.getBufferSize());
+        assertEquals(parallelism, controller.getParallelism());
+    }
+
+    @Test
+    void testRejected() {
+        AdaptiveBulkController controller = create(1000, 4);
+
+        AdaptiveBulkController.Sample sample = controller.start(1000);
+        sample.status(201);
+        sample.status(429);
+        elapse(10);
+        sample.complete();
+        //批量大小和并行度同时减半
+        assertSettings(controller, 500, 2);
+
+        sample = controller.start(500);
+        elapse(10);
+        sample.error(new TimeoutException());
+        assertSettings(controller, 250, 1);
+
+        //已达下限
+        sample = controller.start(250);
+        sample.status(503);
+        elapse(10);
+        sample.complete();
+        assertSettings(controller, 125, 1);
+    }
+
+    @Test
+    void testOtherErrorNotChange() {
+        AdaptiveBulkController controller = create(1000, 4);
+
+        AdaptiveBulkController.Sample sample = controller.start(1000);
+        elapse(2000);
+        sample.error(new IllegalStateException());
+        assertSettings(controller, 1000, 4);
+    }
+
+    @Test
+    void testDecreaseOncePerWindow() {
+        AdaptiveBulkController controller = create(1000, 4);
+
+        //并发的写入同时被拒绝
+        AdaptiveBulkController.Sample first = controller.start(1000);
+        AdaptiveBulkController.Sample second = controller.start(1000);
+        elapse(10);
+        first.status(429);
+        first.complete();
+        second.status(429);
+        second.complete();
+        assertSettings(controller, 500, 2);
+
+        //减小后开始的写入可以再次减小
+        elapse(1);
+        AdaptiveBulkController.Sample third = controller.start(500);
+        third.status(429);
+        elapse(10);
+        third.complete();
+        assertSettings(controller, 250, 1);
+    }
+
+    @Test
+    void testDecreaseOncePerWindowWhenClockOverflow() {
+        clock.set(Long.MAX_VALUE - TimeUnit.MILLISECONDS.toNanos(10));
+        AdaptiveBulkController controller = create(1000, 4);
+
+        AdaptiveBulkController.Sample first = controller.start(1000);
+        AdaptiveBulkController.Sample second = controller.start(1000);
+        //nanoTime溢出为负数
+        elapse(20);
+        assertTrue(clock.get() < 0);
+        first.status(429);
+        first.complete();
+        second.status(429);
+        second.complete();
+        assertSettings(controller, 500, 2);
+
+        AdaptiveBulkController.Sample third = controller.start(500);
+        third.status(429);
+        elapse(10);
+        third.complete();
+        assertSettings(controller, 250, 1);
+    }
+
+    @Test
+    void testLatency() {
+        AdaptiveBulkController controller = create(1000, 4);
+
+        AdaptiveBulkController.Sample sample = controller.start(1000);
+        elapse(2000);
+        sample.complete();
+        //只减小批量大小
+        assertSettings(controller, 500, 4);
+
+        //同一窗口内开始的写入不再减小
+        sample = controller.start(500);
+        AdaptiveBulkController.Sample slow = controller.start(500);
+        elapse(1500);
+        sample.complete();
+        slow.complete();
+        assertSettings(controller, 250, 4);
+    }
+
+    @Test
+    void testPayload() {
+        AdaptiveBulkController controller = create(1000, 4);
+
+        AdaptiveBulkController.Sample sample = controller.start(1000);
+        sample.bytes(DataSize.ofMegabytes(4).toBytes());
+        elapse(10);
+        sample.complete();
+        //按请求体大小等比缩小
+        assertSettings(controller, 250, 4);
+
+        //未超过限制时正常增加
+        sample = controller.start(250);
+        sample.bytes(DataSize.ofKilobytes(512).toBytes());
+        elapse(10);
+        sample.complete();
+        assertSettings(controller, 350, 4);
+    }
+
+    @Test
+    void testIncreaseWhenFull() {
+        AdaptiveBulkController controller = create(1000, 4);
+
+        //批次未满,不增加
+        AdaptiveBulkController.Sample sample = controller.start(999);
+        elapse(10);
+        sample.complete();
+        assertSettings(controller, 1000, 4);
+
+        //批次已满,增加固定步长
+        sample = controller.start(1000);
+        elapse(10);
+        sample.complete();
+        assertSettings(controller, 1100, 4);
+
+        //耗时未超过目标耗时,仍然增加
+        sample = controller.start(1100);
+        elapse(900);
+        sample.complete();
+        assertSettings(controller, 1200, 4);
+    }
+
+    @Test
+    void testIncreaseParallelism() {
+        AdaptiveBulkController controller = create(2000, 4);
+
+        //批量已达上限并且耗时较低,增加并行度
+        AdaptiveBulkController.Sample sample = controller.start(2000);
+        elapse(100);
+        sample.complete();
+        assertSettings(controller, 2000, 5);
+
+        //耗时超过目标耗时的一半,不增加
+        sample = controller.start(2000);
+        elapse(600);
+        sample.complete();
+        assertSettings(controller, 2000, 5);
+    }
+}
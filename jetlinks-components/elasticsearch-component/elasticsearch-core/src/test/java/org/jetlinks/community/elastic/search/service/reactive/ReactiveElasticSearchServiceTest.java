@@ -0,0 +1,181 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.service.reactive;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.elasticsearch.client.*;
+import org.jetlinks.community.buffer.Buffered;
+import org.jetlinks.community.buffer.PersistenceBuffer;
+import org.jetlinks.community.elastic.search.index.ElasticSearchIndex;
+import org.jetlinks.community.elastic.search.index.ElasticSearchIndexManager;
+import org.jetlinks.community.utils.ObjectMappers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class ReactiveElasticSearchServiceTest {
+
+    @TempDir
+    Path dir;
+
+    //bulk响应中的状态码
+    private List<Integer> statuses = Collections.emptyList();
+
+    private ReactiveElasticSearchService service;
+
+    private final List<Throwable> errors = new ArrayList<>();
+
+    private final PersistenceBuffer.FlushContext<ReactiveElasticSearchService.Buffer> context = errors::add;
+
+    static class TestBuffered implements Buffered<ReactiveElasticSearchService.Buffer> {
+        private final ReactiveElasticSearchService.Buffer data;
+        private Boolean retry;
+        private boolean dead;
+
+        TestBuffered(ReactiveElasticSearchService.Buffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public ReactiveElasticSearchService.Buffer getData() {
+            return data;
+        }
+
+        @Override
+        public int getRetryTimes() {
+            return 0;
+        }
+
+        @Override
+        public void retry(boolean retry) {
+            this.retry = retry;
+        }
+
+        @Override
+        public void dead() {
+            dead = true;
+        }
+    }
+
+    @BeforeEach
+    void init() throws Exception {
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getEntity()).thenAnswer(invocation -> new StringEntity(
+            "{\"took\":1,\"errors\":false,\"items\":["
+                + statuses
+                .stream()
+                .map(status -> "{\"index\":{\"_index\":\"test\",\"status\":" + status + "}}")
+                .collect(Collectors.joining(","))
+                + "]}",
+            ContentType.APPLICATION_JSON));
+
+        RestClient restClient = Mockito.mock(RestClient.class);
+        Mockito
+            .when(restClient.performRequestAsync(any(Request.class), any(ResponseListener.class)))
+            .thenAnswer(invocation -> {
+                invocation.<ResponseListener>getArgument(1).onSuccess(response);
+                return Mockito.mock(Cancellable.class);
+            });
+
+        ReactiveElasticsearchClient client = Mockito.mock(ReactiveElasticsearchClient.class);
+        Mockito.when(client.lowLevelClient()).thenReturn(restClient);
+        Mockito.when(client.objectMapper()).thenReturn(ObjectMappers.JSON_MAPPER);
+
+        ElasticSearchIndex index = Mockito.mock(ElasticSearchIndex.class);
+        Mockito.when(index.getForSave(any())).thenReturn("test");
+        ElasticSearchIndexManager indexManager = Mockito.mock(ElasticSearchIndexManager.class);
+        Mockito.when(indexManager.getIndex("test")).thenReturn(Mono.just(index));
+
+        ElasticSearchBufferProperties properties = new ElasticSearchBufferProperties();
+        properties.setFilePath(dir.toString());
+        properties.setStreamingBulk(true);
+        service = new ReactiveElasticSearchService(client, indexManager, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown0();
+    }
+
+    private static List<TestBuffered> createBuffers(int size) {
+        List<TestBuffered> buffers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("id", "data-" + i);
+            data.put("value", i);
+            buffers.add(new TestBuffered(ReactiveElasticSearchService.Buffer.of("test", data)));
+        }
+        return buffers;
+    }
+
+    private Boolean save(List<TestBuffered> buffers) {
+        return service
+            .doSaveBuffer(new ArrayList<>(buffers), context)
+            .block();
+    }
+
+    @Test
+    void testStreamingSave() {
+        statuses = Arrays.asList(201, 201, 429);
+        List<TestBuffered> buffers = createBuffers(3);
+
+        assertEquals(Boolean.TRUE, save(buffers));
+        assertEquals(Boolean.FALSE, buffers.get(0).retry);
+        assertEquals(Boolean.FALSE, buffers.get(1).retry);
+        assertEquals(Boolean.TRUE, buffers.get(2).retry);
+        assertEquals(1, errors.size());
+
+        statuses = Arrays.asList(201, 201, 201);
+        assertEquals(Boolean.FALSE, save(createBuffers(3)));
+    }
+
+    @Test
+    void testShortResponse() {
+        statuses = Arrays.asList(201, 201);
+        List<TestBuffered> buffers = createBuffers(3);
+
+        //响应数量少于请求数量,没有响应结果的数据重试
+        assertEquals(Boolean.TRUE, save(buffers));
+        assertEquals(Boolean.FALSE, buffers.get(0).retry);
+        assertEquals(Boolean.FALSE, buffers.get(1).retry);
+        assertNull(buffers.get(2).retry);
+        assertFalse(buffers.get(2).dead);
+    }
+
+    @Test
+    void testLongResponse() {
+        statuses = Arrays.asList(201, 201, 201, 400);
+        List<TestBuffered> buffers = createBuffers(3);
+
+        //响应数量多于请求数量,多余的结果不对应任何数据
+        assertEquals(Boolean.TRUE, save(buffers));
+        for (TestBuffered buffer : buffers) {
+            assertEquals(Boolean.FALSE, buffer.retry);
+            assertFalse(buffer.dead);
+        }
+    }
+}
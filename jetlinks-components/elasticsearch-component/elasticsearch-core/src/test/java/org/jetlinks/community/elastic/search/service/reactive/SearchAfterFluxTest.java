@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.elastic.search.service.reactive;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch.core.*;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import co.elastic.clients.transport.Version;
+import co.elastic.clients.util.ObjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchAfterFluxTest {
+
+    static final int PAGE_SIZE = 10;
+
+    private ElasticsearchClient elastic;
+
+    private ReactiveElasticsearchClient client;
+
+    //每次查询返回的数据数量
+    private final Queue<Integer> pages = new LinkedList<>();
+
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("all")
+    void init() throws Exception {
+        elastic = Mockito.mock(ElasticsearchClient.class);
+
+        OpenPointInTimeResponse open = Mockito.mock(OpenPointInTimeResponse.class);
+        Mockito.when(open.id()).thenReturn("pit-1");
+        Mockito.when(elastic.openPointInTime(Mockito.<Function<OpenPointInTimeRequest.Builder, ObjectBuilder<OpenPointInTimeRequest>>>any()))
+               .thenReturn(open);
+
+        ClosePointInTimeResponse close = Mockito.mock(ClosePointInTimeResponse.class);
+        Mockito.when(close.succeeded()).thenReturn(true);
+        Mockito.when(elastic.closePointInTime(Mockito.<Function<ClosePointInTimeRequest.Builder, ObjectBuilder<ClosePointInTimeRequest>>>any()))
+               .thenReturn(close);
+
+        Mockito.when(elastic.search(Mockito.<Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>>>any(), Mockito.eq(Map.class)))
+               .thenAnswer(invocation -> createResponse(pages.poll()));
+
+        client = new ReactiveElasticsearchClient() {
+            @Override
+            public Version serverVersion() {
+                return null;
+            }
+
+            @Override
+            public <T> Mono<T> execute(ElasticsearchClientCallback<T> callback) {
+                return Mono.fromCallable(() -> callback.apply(elastic));
+            }
+
+            @Override
+            public <T> Mono<T> executeAsync(ElasticsearchAsyncClientCallback<T> callback) {
+                return Mono.error(new UnsupportedOperationException());
+            }
+        };
+    }
+
+    @SuppressWarnings("all")
+    private SearchResponse<Map> createResponse(Integer size) {
+        List<Hit<Map>> hits = new ArrayList<>();
+        for (int i = 0, len = size == null ? 0 : size; i < len; i++) {
+            int id = offset.getAndIncrement();
+            Hit<Map> hit = Mockito.mock(Hit.class);
+            Mockito.when(hit.source()).thenReturn(new HashMap<>(Collections.singletonMap("id", id)));
+            Mockito.when(hit.sort()).thenReturn(Collections.singletonList(FieldValue.of(id)));
+            hits.add(hit);
+        }
+        HitsMetadata<Map> metadata = Mockito.mock(HitsMetadata.class);
+        Mockito.when(metadata.hits()).thenReturn(hits);
+        SearchResponse<Map> response = Mockito.mock(SearchResponse.class);
+        Mockito.when(response.hits()).thenReturn(metadata);
+        Mockito.when(response.pitId()).thenReturn("pit-1");
+        return response;
+    }
+
+    private SearchAfterFlux<Object> createFlux() {
+        return new SearchAfterFlux<>(
+            map -> map.get("id"),
+            client,
+            Collections.singletonList("test"),
+            true,
+            Time.of(t -> t.time("1m")),
+            PAGE_SIZE,
+            builder -> {
+            });
+    }
+
+    @SuppressWarnings("all")
+    private List<String> closedPits() throws Exception {
+        ArgumentCaptor<Function<ClosePointInTimeRequest.Builder, ObjectBuilder<ClosePointInTimeRequest>>> captor =
+            ArgumentCaptor.forClass(Function.class);
+        Mockito.verify(elastic, Mockito.atLeast(0)).closePointInTime(captor.capture());
+        List<String> ids = new ArrayList<>();
+        for (Function<ClosePointInTimeRequest.Builder, ObjectBuilder<ClosePointInTimeRequest>> fn : captor.getAllValues()) {
+            ids.add(fn.apply(new ClosePointInTimeRequest.Builder()).build().id());
+        }
+        return ids;
+    }
+
+    @SuppressWarnings("all")
+    private int searchTimes() throws Exception {
+        return (int) Mockito
+            .mockingDetails(elastic)
+            .getInvocations()
+            .stream()
+            .filter(invocation -> invocation.getMethod().getName().equals("search"))
+            .count();
+    }
+
+    @Test
+    void testComplete() throws Exception {
+        pages.addAll(Arrays.asList(PAGE_SIZE, PAGE_SIZE, 5));
+
+        createFlux()
+            .as(StepVerifier::create)
+            .expectNextCount(PAGE_SIZE * 2 + 5)
+            .verifyComplete();
+
+        assertEquals(3, searchTimes());
+        assertEquals(Collections.singletonList("pit-1"), closedPits());
+    }
+
+    @Test
+    void testCancel() throws Exception {
+        pages.addAll(Arrays.asList(PAGE_SIZE, PAGE_SIZE, PAGE_SIZE));
+
+        createFlux()
+            .take(5)
+            .as(StepVerifier::create)
+            .expectNext(0, 1, 2, 3, 4)
+            .verifyComplete();
+
+        assertEquals(1, searchTimes());
+        assertEquals(Collections.singletonList("pit-1"), closedPits());
+    }
+
+    @Test
+    void testPrefetchThreshold() throws Exception {
+        pages.addAll(Arrays.asList(PAGE_SIZE, PAGE_SIZE, PAGE_SIZE));
+
+        createFlux()
+            .as(flux -> StepVerifier.create(flux, 0))
+            .thenRequest(4)
+            .expectNextCount(4)
+            //缓冲的数据多于半页,不查询下一页
+            .then(() -> assertDoesNotThrow(() -> assertEquals(1, searchTimes())))
+            .thenRequest(1)
+            .expectNextCount(1)
+            //缓冲的数据不足半页,但是下游没有请求,不查询下一页
+            .then(() -> assertDoesNotThrow(() -> assertEquals(1, searchTimes())))
+            .thenRequest(6)
+            .expectNextCount(6)
+            //缓冲的数据不足半页并且下游还有请求,查询下一页
+            .then(() -> assertDoesNotThrow(() -> assertEquals(2, searchTimes())))
+            .thenCancel()
+            .verify();
+
+        assertEquals(Collections.singletonList("pit-1"), closedPits());
+    }
+
+    @Test
+    @SuppressWarnings("all")
+    void testCancelWhileStoringPitId() throws Exception {
+        BaseSubscriber<Object> subscriber = new BaseSubscriber<Object>() {
+            @Override
+            protected void hookOnSubscribe(org.reactivestreams.Subscription subscription) {
+            }
+        };
+        //获取新的PIT id时取消订阅,模拟cancel()与handleResponse()并发
+        SearchResponse<Map> response = createResponse(PAGE_SIZE);
+        AtomicInteger times = new AtomicInteger();
+        Mockito.when(response.pitId()).thenAnswer(invocation -> {
+            if (times.getAndIncrement() == 0) {
+                subscriber.cancel();
+            }
+            return "pit-2";
+        });
+        Mockito.when(elastic.search(Mockito.<Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>>>any(), Mockito.eq(Map.class)))
+               .thenReturn(response);
+
+        createFlux().subscribe(subscriber);
+        subscriber.request(1);
+
+        assertEquals(Arrays.asList("pit-1", "pit-2"), closedPits());
+    }
+}
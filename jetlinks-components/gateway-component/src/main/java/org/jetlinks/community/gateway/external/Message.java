@@ -15,6 +15,8 @@
  */
 package org.jetlinks.community.gateway.external;
 
+import java.util.List;
+
 public interface Message {
 
     String getRequestId();
@@ -46,6 +48,19 @@ public interface Message {
         return new SimpleMessage(id, topic, payload, Type.result, null);
     }
 
+    /**
+     * 批量模式下,合并多个结果为一个消息
+     *
+     * @param id       订阅ID
+     * @param topic    订阅topic
+     * @param payloads 结果数据
+     * @return 消息
+     * @since 2.11
+     */
+    static Message batch(String id, String topic, List<Object> payloads) {
+        return new SimpleMessage(id, topic, payloads, Type.batch, null);
+    }
+
     static Message complete(String id) {
         return new SimpleMessage(id, null, null, Type.complete, null);
     }
@@ -57,6 +72,8 @@ public interface Message {
     enum Type {
         authError,
         result,
+        //批量结果,payload为结果数组
+        batch,
         error,
         complete,
         ping,
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.gateway.external;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * 订阅数据按key合并(最新值).
+ * <p>
+ * 订阅时通过参数<code>conflate</code>指定推送周期(如: 1s,500ms)后开启,
+ * 每个key只保留一个槽位,新的数据会覆盖(或合并)旧的数据,并在每个周期推送一次,
+ * 推送的数据量只与key的数量有关,与消息的速率无关. 适用于只关心最新值的实时数据展示场景.
+ * <pre>{@code
+ * {
+ *     "type":"sub",
+ *     "topic":"/device/demo-product/device-1/message/property/report",
+ *     "parameter":{"conflate":"1s"}
+ * }
+ * }</pre>
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+public class SubscriptionConflation {
+
+    public static final String PARAMETER = "conflate";
+
+    /**
+     * 根据订阅参数对数据流进行合并,未开启时返回原始数据流
+     *
+     * @param request 订阅请求
+     * @param source  数据流
+     * @param key     获取数据key的函数
+     * @param merger  合并函数,参数为(旧数据,新数据)
+     * @param <T>     数据类型
+     * @return 数据流
+     */
+    public static <T> Flux<T> conflate(SubscribeRequest request,
+                                       Flux<T> source,
+                                       Function<T, Object> key,
+                                       BinaryOperator<T> merger) {
+        Duration interval = request.getDuration(PARAMETER).orElse(null);
+        if (interval == null || interval.isZero() || interval.isNegative()) {
+            return source;
+        }
+        return conflate(source, interval, key, merger);
+    }
+
+    /**
+     * 根据订阅参数对数据流进行合并,新数据直接覆盖旧数据
+     *
+     * @see SubscriptionConflation#conflate(SubscribeRequest, Flux, Function, BinaryOperator)
+     */
+    public static <T> Flux<T> conflate(SubscribeRequest request,
+                                       Flux<T> source,
+                                       Function<T, Object> key) {
+        return conflate(request, source, key, latest());
+    }
+
+    /**
+     * 按key合并数据,并按指定的周期推送.数据流结束时会推送剩余的数据.
+     *
+     * @param source   数据流
+     * @param interval 推送周期
+     * @param key      获取数据key的函数
+     * @param merger   合并函数,参数为(旧数据,新数据)
+     * @param <T>      数据类型
+     * @return 数据流
+     */
+    public static <T> Flux<T> conflate(Flux<T> source,
+                                       Duration interval,
+                                       Function<T, Object> key,
+                                       BinaryOperator<T> merger) {
+        return Flux.create(sink -> {
+            Slots<T> slots = new Slots<>(key, merger);
+            Disposable tick = Flux
+                .interval(interval)
+                .subscribe(ignore -> slots.drain(sink));
+            Disposable upstream = source
+                .contextWrite(sink.contextView())
+                .subscribe(
+                    slots::put,
+                    err -> {
+                        tick.dispose();
+                        slots.terminate(sink, err);
+                    },
+                    () -> {
+                        tick.dispose();
+                        slots.terminate(sink, null);
+                    });
+            sink.onDispose(Disposables.composite(tick, upstream));
+        });
+    }
+
+    private static <T> BinaryOperator<T> latest() {
+        return (older, newer) -> newer;
+    }
+
+    static class Slots<T> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Slots> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(Slots.class, "wip");
+
+        private final Function<T, Object> key;
+        private final BinaryOperator<T> merger;
+        private Map<Object, T> slots = new LinkedHashMap<>();
+
+        //定时推送和结束时的推送可能在不同的线程中执行,同一时刻只允许一个线程推送,保证顺序
+        private volatile int wip;
+        private volatile boolean done;
+        private Throwable error;
+
+        Slots(Function<T, Object> key, BinaryOperator<T> merger) {
+            this.key = key;
+            this.merger = merger;
+        }
+
+        synchronized void put(T value) {
+            slots.merge(key.apply(value), value, merger);
+        }
+
+        //推送剩余的数据后结束
+        void terminate(FluxSink<T> sink, Throwable error) {
+            this.error = error;
+            this.done = true;
+            drain(sink);
+        }
+
+        void drain(FluxSink<T> sink) {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (; ; ) {
+                boolean done = this.done;
+                Map<Object, T> slots = null;
+                synchronized (this) {
+                    if (!this.slots.isEmpty()) {
+                        slots = this.slots;
+                        this.slots = new LinkedHashMap<>();
+                    }
+                }
+                if (slots != null) {
+                    for (T value : slots.values()) {
+                        sink.next(value);
+                    }
+                }
+                if (done) {
+                    if (error != null) {
+                        sink.error(error);
+                    } else {
+                        sink.complete();
+                    }
+                    return;
+                }
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.jetlinks.community.dashboard.DashboardManager;
 import org.jetlinks.community.dashboard.MeasurementParameter;
 import org.jetlinks.community.gateway.external.Message;
 import org.jetlinks.community.gateway.external.SubscribeRequest;
+import org.jetlinks.community.gateway.external.SubscriptionConflation;
 import org.jetlinks.community.gateway.external.SubscriptionProvider;
 import org.jetlinks.core.utils.TopicUtils;
 import org.springframework.stereotype.Component;
@@ -56,12 +57,14 @@ public class DashBoardSubscriptionProvider implements SubscriptionProvider {
             try {
                 Map<String, String> variables = TopicUtils.getPathVariables(
                     "/dashboard/{dashboard}/{object}/{measurement}/{dimension}", request.getTopic());
-                return dashboardManager.getDashboard(variables.get("dashboard"))
+                Flux<Message> messages = dashboardManager.getDashboard(variables.get("dashboard"))
                     .flatMap(dashboard -> dashboard.getObject(variables.get("object")))
                     .flatMap(object -> object.getMeasurement(variables.get("measurement")))
                     .flatMap(measurement -> measurement.getDimension(variables.get("dimension")))
                     .flatMapMany(dimension -> dimension.getValue(MeasurementParameter.of(request.getParameter())))
                     .map(val -> Message.success(request.getId(), request.getTopic(), val));
+                //开启合并时只推送最新值,适用于实时数据维度
+                return SubscriptionConflation.conflate(request, messages, Message::getTopic);
             } catch (Exception e) {
                 return Flux.error(new IllegalArgumentException("topic格式错误,正确格式:/dashboard/{dashboard}/{object}/{measurement}/{dimension}", e));
             }
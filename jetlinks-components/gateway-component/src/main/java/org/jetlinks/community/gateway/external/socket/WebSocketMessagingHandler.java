@@ -16,7 +16,9 @@
 package org.jetlinks.community.gateway.external.socket;
 
 import com.alibaba.fastjson.JSON;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.hswebframework.web.authorization.Authentication;
 import org.hswebframework.web.authorization.ReactiveAuthenticationManager;
@@ -32,7 +34,9 @@ import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.context.Context;
 
@@ -41,8 +45,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-@AllArgsConstructor
 @Slf4j
 public class WebSocketMessagingHandler implements WebSocketHandler {
 
@@ -52,6 +57,44 @@ public class WebSocketMessagingHandler implements WebSocketHandler {
 
     private final ReactiveAuthenticationManager authenticationManager;
 
+    private final WebSocketMessagingProperties properties;
+
+    private final Metrics metrics = new Metrics();
+
+    public WebSocketMessagingHandler(MessagingManager messagingManager,
+                                     UserTokenManager userTokenManager,
+                                     ReactiveAuthenticationManager authenticationManager) {
+        this(messagingManager, userTokenManager, authenticationManager, new WebSocketMessagingProperties());
+    }
+
+    public WebSocketMessagingHandler(MessagingManager messagingManager,
+                                     UserTokenManager userTokenManager,
+                                     ReactiveAuthenticationManager authenticationManager,
+                                     WebSocketMessagingProperties properties) {
+        this.messagingManager = messagingManager;
+        this.userTokenManager = userTokenManager;
+        this.authenticationManager = authenticationManager;
+        this.properties = properties;
+    }
+
+    /**
+     * 绑定批量模式的监控指标
+     *
+     * @param registry MeterRegistry
+     * @since 2.11
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jetlinks_websocket_messaging_queue_depth", metrics.depth, AtomicLong::get)
+             .description("WebSocket出站队列中等待发送的帧数量")
+             .register(registry);
+        FunctionCounter.builder("jetlinks_websocket_messaging_dropped", metrics.dropped, LongAdder::sum)
+                       .description("WebSocket出站队列已满时丢弃的帧数量")
+                       .register(registry);
+        FunctionCounter.builder("jetlinks_websocket_messaging_coalesced", metrics.coalesced, LongAdder::sum)
+                       .description("WebSocket批量模式下合并发送的消息数量")
+                       .register(registry);
+    }
+
     // /messaging/{token}
     @Override
     @Nonnull
@@ -64,6 +107,12 @@ public class WebSocketMessagingHandler implements WebSocketHandler {
             )))).then(session.close(CloseStatus.BAD_DATA));
         }
         String token = path[path.length - 1];
+        //ws://host/messaging/{token}?batch=true 开启批量模式
+        boolean batch = Boolean.parseBoolean(UriComponentsBuilder
+                                                 .fromUri(session.getHandshakeInfo().getUri())
+                                                 .build()
+                                                 .getQueryParams()
+                                                 .getFirst("batch"));
 
         Map<String, Disposable> subs = new ConcurrentHashMap<>();
 
@@ -76,89 +125,141 @@ public class WebSocketMessagingHandler implements WebSocketHandler {
                 ))))
                 .then(session.close(CloseStatus.BAD_DATA))
                 .then(Mono.empty()))
-            .flatMap(auth -> session
-                .receive()
-                .doOnNext(message -> {
-                    try {
-                        if (message.getType() == WebSocketMessage.Type.PONG) {
-                            return;
-                        }
-                        if (message.getType() == WebSocketMessage.Type.PING) {
-                            session
-                                .send(Mono.just(session.pongMessage(DataBufferFactory::allocateBuffer)))
-                                .subscribe();
-                            return;
-                        }
-                        MessagingRequest request = JSON.parseObject(message.getPayloadAsText(), MessagingRequest.class);
-                        if (request == null) {
-                            return;
-                        }
-                        if (request.getType() == MessagingRequest.Type.ping) {
-                            session
-                                .send(Mono.just(session.textMessage(JSON.toJSONString(
-                                    Message.pong(request.getId())
-                                ))))
-                                .subscribe();
-                            return;
-                        }
-                        if (StringUtils.isEmpty(request.getId())) {
-                            session
-                                .send(Mono.just(session.textMessage(JSON.toJSONString(
-                                    Message.error(request.getType().name(), null, "id不能为空")
-                                )))).subscribe();
-                            return;
-                        }
-                        if (request.getType() == MessagingRequest.Type.sub) {
-                            //重复订阅
-                            Disposable old = subs.get(request.getId());
-                            if (old != null && !old.isDisposed()) {
+            .flatMap(auth -> {
+                WebSocketOutbound outbound = batch ? new WebSocketOutbound(session, properties, metrics) : null;
+                Mono<Void> receive = session
+                    .receive()
+                    .doOnNext(message -> {
+                        try {
+                            if (message.getType() == WebSocketMessage.Type.PONG) {
+                                return;
+                            }
+                            if (message.getType() == WebSocketMessage.Type.PING) {
+                                session
+                                    .send(Mono.just(session.pongMessage(DataBufferFactory::allocateBuffer)))
+                                    .subscribe();
                                 return;
                             }
-                            Map<String, String> context = new HashMap<>();
-                            context.put("userId", auth.getUser().getId());
-                            context.put("userName", auth.getUser().getName());
-                            Disposable sub = messagingManager
-                                .subscribe(SubscribeRequest.of(request, auth))
-                                .doOnEach(ReactiveLogger.onError(err -> log.error("{}", err.getMessage(), err)))
-                                .onErrorResume(err -> Mono.just(Message.error(request.getId(), request.getTopic(), err)))
-                                .map(msg -> session.textMessage(JSON.toJSONString(msg)))
-                                .doOnComplete(() -> {
-                                    log.debug("complete subscription:{}", request.getTopic());
-                                    subs.remove(request.getId());
-                                    Mono.just(session.textMessage(JSON.toJSONString(Message.complete(request.getId()))))
-                                        .as(session::send)
-                                        .subscribe();
-                                })
-                                .doOnCancel(() -> {
-                                    log.debug("cancel subscription:{}", request.getTopic());
-                                    subs.remove(request.getId());
-                                })
-                                .transform(session::send)
-                                .contextWrite(Context.of(Authentication.class, auth))
-                                .subscribe();
-                            if (!sub.isDisposed()) {
-                                subs.put(request.getId(), sub);
+                            MessagingRequest request = JSON.parseObject(message.getPayloadAsText(), MessagingRequest.class);
+                            if (request == null) {
+                                return;
                             }
-                        } else if (request.getType() == MessagingRequest.Type.unsub) {
-                            Optional.ofNullable(subs.remove(request.getId()))
-                                    .ifPresent(Disposable::dispose);
-                        } else {
+                            if (request.getType() == MessagingRequest.Type.ping) {
+                                session
+                                    .send(Mono.just(session.textMessage(JSON.toJSONString(
+                                        Message.pong(request.getId())
+                                    ))))
+                                    .subscribe();
+                                return;
+                            }
+                            if (StringUtils.isEmpty(request.getId())) {
+                                session
+                                    .send(Mono.just(session.textMessage(JSON.toJSONString(
+                                        Message.error(request.getType().name(), null, "id不能为空")
+                                    )))).subscribe();
+                                return;
+                            }
+                            if (request.getType() == MessagingRequest.Type.sub) {
+                                //重复订阅
+                                Disposable old = subs.get(request.getId());
+                                if (old != null && !old.isDisposed()) {
+                                    return;
+                                }
+                                Map<String, String> context = new HashMap<>();
+                                context.put("userId", auth.getUser().getId());
+                                context.put("userName", auth.getUser().getName());
+                                SubscribeRequest subscribeRequest = SubscribeRequest.of(request, auth);
+                                Flux<Message> messages = messagingManager
+                                    .subscribe(subscribeRequest)
+                                    .doOnEach(ReactiveLogger.onError(err -> log.error("{}", err.getMessage(), err)))
+                                    .onErrorResume(err -> Mono.just(Message.error(request.getId(), request.getTopic(), err)));
+                                //批量模式下合并后通过会话出站队列发送
+                                Mono<Void> sending = outbound == null
+                                    ? messages
+                                    .map(msg -> session.textMessage(JSON.toJSONString(msg)))
+                                    .as(session::send)
+                                    : outbound.send(subscribeRequest, messages);
+                                Disposable sub = sending
+                                    .doOnSuccess(ignore -> {
+                                        log.debug("complete subscription:{}", request.getTopic());
+                                        subs.remove(request.getId());
+                                        if (outbound == null) {
+                                            Mono.just(session.textMessage(JSON.toJSONString(Message.complete(request.getId()))))
+                                                .as(session::send)
+                                                .subscribe();
+                                        } else {
+                                            outbound.send(Message.complete(request.getId()));
+                                        }
+                                    })
+                                    .doOnCancel(() -> {
+                                        log.debug("cancel subscription:{}", request.getTopic());
+                                        subs.remove(request.getId());
+                                    })
+                                    .contextWrite(Context.of(Authentication.class, auth))
+                                    .subscribe();
+                                if (!sub.isDisposed()) {
+                                    subs.put(request.getId(), sub);
+                                }
+                            } else if (request.getType() == MessagingRequest.Type.unsub) {
+                                Optional.ofNullable(subs.remove(request.getId()))
+                                        .ifPresent(Disposable::dispose);
+                            } else {
+                                session.send(Mono.just(session.textMessage(JSON.toJSONString(
+                                    Message.error(request.getId(), request.getTopic(), "不支持的类型:" + request.getType())
+                                )))).subscribe();
+                            }
+                        } catch (Exception e) {
+                            log.warn(e.getMessage(), e);
                             session.send(Mono.just(session.textMessage(JSON.toJSONString(
-                                Message.error(request.getId(), request.getTopic(), "不支持的类型:" + request.getType())
+                                Message.error("illegal_argument", null, "消息格式错误")
                             )))).subscribe();
                         }
-                    } catch (Exception e) {
-                        log.warn(e.getMessage(), e);
-                        session.send(Mono.just(session.textMessage(JSON.toJSONString(
-                            Message.error("illegal_argument", null, "消息格式错误")
-                        )))).subscribe();
-                    }
-                })
-                .then())
+                    })
+                    .then();
+                if (outbound == null) {
+                    return receive;
+                }
+                return Mono.when(outbound.start(), receive.doFinally(ignore -> outbound.dispose()));
+            })
             .doFinally(r -> {
                 subs.values().forEach(Disposable::dispose);
                 subs.clear();
             });
 
     }
+
+    static class Metrics {
+        //所有会话出站队列中的帧数量
+        private final AtomicLong depth = new AtomicLong();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+
+        void enqueued(int size) {
+            depth.addAndGet(size);
+        }
+
+        void dequeued(int size) {
+            depth.addAndGet(-size);
+        }
+
+        void dropped(int size) {
+            dropped.add(size);
+        }
+
+        void coalesced(int size) {
+            coalesced.add(size);
+        }
+
+        long getDepth() {
+            return depth.get();
+        }
+
+        long getDropped() {
+            return dropped.sum();
+        }
+
+        long getCoalesced() {
+            return coalesced.sum();
+        }
+    }
 }
@@ -15,10 +15,12 @@
  */
 package org.jetlinks.community.gateway.external.socket;
 
+import io.micrometer.core.instrument.Metrics;
 import org.hswebframework.web.authorization.ReactiveAuthenticationManager;
 import org.hswebframework.web.authorization.token.UserTokenManager;
 import org.jetlinks.community.gateway.external.MessagingManager;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -31,6 +33,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(WebSocketMessagingProperties.class)
 //@ConditionalOnBean({
 //    ReactiveAuthenticationManager.class,
 //    UserTokenManager.class
@@ -41,14 +44,17 @@ public class WebSocketMessagingHandlerConfiguration {
     @Bean
     public HandlerMapping webSocketMessagingHandlerMapping(MessagingManager messagingManager,
                                            UserTokenManager userTokenManager,
-                                           ReactiveAuthenticationManager authenticationManager) {
+                                           ReactiveAuthenticationManager authenticationManager,
+                                           WebSocketMessagingProperties properties) {
 
 
         WebSocketMessagingHandler messagingHandler=new WebSocketMessagingHandler(
             messagingManager,
             userTokenManager,
-            authenticationManager
+            authenticationManager,
+            properties
         );
+        messagingHandler.bindTo(Metrics.globalRegistry);
         final Map<String, WebSocketHandler> map = new HashMap<>(1);
         map.put("/messaging/**", messagingHandler);
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.gateway.external.socket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * WebSocket消息推送配置,客户端连接时通过参数<code>batch=true</code>开启批量模式后生效.
+ * <pre>{@code
+ *  ws://host/messaging/{token}?batch=true
+ * }</pre>
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jetlinks.messaging.websocket")
+public class WebSocketMessagingProperties {
+
+    //合并推送的时间窗口
+    private Duration batchWindow = Duration.ofMillis(200);
+
+    //合并推送的最大数量
+    private int batchSize = 200;
+
+    //每个会话出站队列的最大帧数量,超过时丢弃最旧的数据
+    private int queueSize = 1024;
+}
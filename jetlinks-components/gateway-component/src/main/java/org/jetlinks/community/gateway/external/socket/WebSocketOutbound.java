@@ -0,0 +1,220 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.gateway.external.socket;
+
+import com.alibaba.fastjson.JSON;
+import org.jetlinks.community.gateway.external.Message;
+import org.jetlinks.community.gateway.external.SubscribeRequest;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket会话出站队列,批量模式下使用.
+ * <p>
+ * 会话的所有订阅通过同一个有界队列发送,队列满时丢弃最旧的数据帧,避免慢消费者占用过多内存.
+ * 每个订阅的结果按时间窗口或者数量合并为一个{@link Message.Type#batch}数据帧发送.
+ * 在{@link #start()}订阅之前发送的数据帧会先缓存,开始发送后按顺序发送,同样受队列大小限制.
+ *
+ * @author zhouhao
+ * @see WebSocketMessagingHandler
+ * @since 2.11
+ */
+class WebSocketOutbound implements Disposable {
+
+    private final WebSocketSession session;
+
+    private final WebSocketMessagingProperties properties;
+
+    private final WebSocketMessagingHandler.Metrics metrics;
+
+    //当前会话队列中的帧数量
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final Flux<String> frames;
+
+    //开始发送前的数据帧
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+
+    private volatile FluxSink<String> sink;
+
+    private volatile boolean disposed;
+
+    WebSocketOutbound(WebSocketSession session,
+                      WebSocketMessagingProperties properties,
+                      WebSocketMessagingHandler.Metrics metrics) {
+        this.session = session;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.frames = Flux
+            .<String>create(this::init)
+            .onBackpressureBuffer(
+                properties.getQueueSize(),
+                dropped -> {
+                    depth.decrementAndGet();
+                    metrics.dequeued(1);
+                    metrics.dropped(1);
+                },
+                BufferOverflowStrategy.DROP_OLDEST)
+            .doOnNext(ignore -> {
+                depth.decrementAndGet();
+                metrics.dequeued(1);
+            })
+            .doFinally(ignore -> metrics.dequeued(depth.getAndSet(0)));
+    }
+
+    private void init(FluxSink<String> sink) {
+        synchronized (pending) {
+            //先发送缓存的数据帧,再设置sink,保证顺序
+            for (String frame; (frame = pending.poll()) != null; ) {
+                sink.next(frame);
+            }
+            this.sink = sink;
+        }
+        if (disposed) {
+            sink.complete();
+        }
+    }
+
+    /**
+     * 开始发送数据帧,在会话关闭前不会结束
+     *
+     * @return void
+     */
+    Mono<Void> start() {
+        return session.send(frames.map(session::textMessage));
+    }
+
+    /**
+     * 发送单个消息
+     *
+     * @param message 消息
+     */
+    void send(Message message) {
+        emit(JSON.toJSONString(message));
+    }
+
+    /**
+     * 合并发送订阅的消息,可通过订阅参数<code>batchWindow</code>和<code>batchSize</code>指定合并的时间窗口和数量.
+     *
+     * @param request  订阅请求
+     * @param messages 消息流
+     * @return void
+     */
+    Mono<Void> send(SubscribeRequest request, Flux<Message> messages) {
+        Duration window = request.getDuration("batchWindow", properties.getBatchWindow());
+        int size = Math.max(1, request.getInt("batchSize", properties.getBatchSize()));
+        return messages
+            .bufferTimeout(size, window)
+            .doOnNext(batch -> sendBatch(request, batch))
+            .then();
+    }
+
+    private void sendBatch(SubscribeRequest request, List<Message> batch) {
+        if (batch.size() == 1) {
+            send(batch.get(0));
+            return;
+        }
+        List<Object> payloads = new ArrayList<>(batch.size());
+        for (Message message : batch) {
+            //只合并结果,其他消息按顺序单独发送
+            if (message.getType() == Message.Type.result) {
+                payloads.add(message.getPayload());
+                continue;
+            }
+            flush(request, payloads);
+            send(message);
+        }
+        flush(request, payloads);
+    }
+
+    private void flush(SubscribeRequest request, List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        metrics.coalesced(payloads.size());
+        send(Message.batch(request.getId(), request.getTopic(), new ArrayList<>(payloads)));
+        payloads.clear();
+    }
+
+    private void emit(String frame) {
+        FluxSink<String> sink = this.sink;
+        if (sink == null) {
+            synchronized (pending) {
+                sink = this.sink;
+                if (sink == null) {
+                    enqueue(frame);
+                    return;
+                }
+            }
+        }
+        if (disposed || sink.isCancelled()) {
+            metrics.dropped(1);
+            return;
+        }
+        depth.incrementAndGet();
+        metrics.enqueued(1);
+        sink.next(frame);
+    }
+
+    //未开始发送时缓存,超过队列大小时丢弃最旧的数据帧
+    private void enqueue(String frame) {
+        if (disposed) {
+            metrics.dropped(1);
+            return;
+        }
+        if (pending.size() >= properties.getQueueSize()) {
+            pending.poll();
+            depth.decrementAndGet();
+            metrics.dequeued(1);
+            metrics.dropped(1);
+        }
+        pending.add(frame);
+        depth.incrementAndGet();
+        metrics.enqueued(1);
+    }
+
+    @Override
+    public void dispose() {
+        FluxSink<String> sink;
+        synchronized (pending) {
+            disposed = true;
+            sink = this.sink;
+            //未开始发送,丢弃缓存的数据帧
+            int size = pending.size();
+            pending.clear();
+            depth.addAndGet(-size);
+            metrics.dequeued(size);
+        }
+        if (sink != null) {
+            sink.complete();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
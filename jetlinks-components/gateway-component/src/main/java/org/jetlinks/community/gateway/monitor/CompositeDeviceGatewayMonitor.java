@@ -69,4 +69,14 @@ class CompositeDeviceGatewayMonitor implements DeviceGatewayMonitor {
     public void sentMessage() {
         doWith(DeviceGatewayMonitor::sentMessage);
     }
+
+    @Override
+    public void inflightMessage(long total) {
+        doWith(monitor -> monitor.inflightMessage(total));
+    }
+
+    @Override
+    public void paused() {
+        doWith(DeviceGatewayMonitor::paused);
+    }
 }
@@ -52,4 +52,23 @@ public interface DeviceGatewayMonitor {
      */
     void sentMessage();
 
+    /**
+     * 上报处理中(已接收但未处理完成)的消息数量
+     *
+     * @param total 处理中的消息数量
+     * @since 2.11
+     */
+    default void inflightMessage(long total) {
+
+    }
+
+    /**
+     * 处理中的消息过多,暂停接收消息
+     *
+     * @since 2.11
+     */
+    default void paused() {
+
+    }
+
 }
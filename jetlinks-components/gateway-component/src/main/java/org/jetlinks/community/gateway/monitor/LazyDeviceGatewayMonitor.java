@@ -64,4 +64,14 @@ class LazyDeviceGatewayMonitor implements DeviceGatewayMonitor {
     public void sentMessage() {
         getTarget().sentMessage();
     }
+
+    @Override
+    public void inflightMessage(long total) {
+        getTarget().inflightMessage(total);
+    }
+
+    @Override
+    public void paused() {
+        getTarget().paused();
+    }
 }
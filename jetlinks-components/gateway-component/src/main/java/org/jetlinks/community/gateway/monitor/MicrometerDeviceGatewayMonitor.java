@@ -19,6 +19,7 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 class MicrometerDeviceGatewayMonitor implements DeviceGatewayMonitor {
@@ -28,6 +29,8 @@ class MicrometerDeviceGatewayMonitor implements DeviceGatewayMonitor {
 
     private AtomicReference<Long> totalRef = new AtomicReference<>(0L);
 
+    private final AtomicLong inflightRef = new AtomicLong();
+
     public MicrometerDeviceGatewayMonitor(MeterRegistry registry, String id, String[] tags) {
         this.registry = registry;
         this.id = id;
@@ -37,12 +40,18 @@ class MicrometerDeviceGatewayMonitor implements DeviceGatewayMonitor {
             .tags(tags)
             .tag("target", "connection")
             .register(registry);
+        Gauge
+            .builder(id, inflightRef, AtomicLong::get)
+            .tags(tags)
+            .tag("target", "inflight")
+            .register(registry);
 
         this.connected = getCounter("connected");
         this.rejected = getCounter("rejected");
         this.disconnected = getCounter("disconnected");
         this.sentMessage = getCounter("sent_message");
         this.receivedMessage = getCounter("received_message");
+        this.paused = getCounter("paused");
     }
 
     final Counter connected;
@@ -50,6 +59,7 @@ class MicrometerDeviceGatewayMonitor implements DeviceGatewayMonitor {
     final Counter disconnected;
     final Counter receivedMessage;
     final Counter sentMessage;
+    final Counter paused;
 
 
     private Counter getCounter(String target) {
@@ -89,4 +99,14 @@ class MicrometerDeviceGatewayMonitor implements DeviceGatewayMonitor {
     public void sentMessage() {
         sentMessage.increment();
     }
+
+    @Override
+    public void inflightMessage(long total) {
+        inflightRef.set(Math.max(0, total));
+    }
+
+    @Override
+    public void paused() {
+        paused.increment();
+    }
 }
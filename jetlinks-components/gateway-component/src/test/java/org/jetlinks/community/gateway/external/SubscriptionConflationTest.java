@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.gateway.external;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionConflationTest {
+
+    @Test
+    void testKeepLatest() {
+        Flux<Integer> source = Flux.range(0, 10);
+
+        StepVerifier
+            .create(SubscriptionConflation.conflate(source, Duration.ofHours(1), v -> v % 3, (older, newer) -> newer))
+            //周期未到,结束时推送剩余的数据
+            .expectNext(9, 7, 8)
+            .verifyComplete();
+    }
+
+    @Test
+    void testMerge() {
+        Flux<Integer> source = Flux.range(1, 4);
+
+        StepVerifier
+            .create(SubscriptionConflation.conflate(source, Duration.ofHours(1), v -> "sum", Integer::sum))
+            .expectNext(10)
+            .verifyComplete();
+    }
+
+    @Test
+    void testErrorAfterDrain() {
+        Flux<Integer> source = Flux
+            .range(0, 3)
+            .concatWith(Flux.error(new IllegalStateException()));
+
+        StepVerifier
+            .create(SubscriptionConflation.conflate(source, Duration.ofHours(1), v -> v, (older, newer) -> newer))
+            .expectNext(0, 1, 2)
+            .verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    void testEmitOnTick() {
+        StepVerifier
+            .withVirtualTime(() -> SubscriptionConflation
+                .conflate(Flux.interval(Duration.ofMillis(100)).take(9),
+                          Duration.ofMillis(250),
+                          v -> "latest",
+                          (older, newer) -> newer))
+            .thenAwait(Duration.ofMillis(250))
+            .expectNext(1L)
+            .thenAwait(Duration.ofMillis(250))
+            .expectNext(4L)
+            .thenAwait(Duration.ofSeconds(1))
+            .expectNext(6L, 8L)
+            .verifyComplete();
+    }
+
+    //定时推送与结束推送在不同线程中执行,每个key的数据不能乱序,结束前需要推送所有数据
+    @Test
+    void testConcurrentDrain() {
+        int keys = 4;
+        int size = 2000;
+        for (int round = 0; round < 200; round++) {
+            Flux<Integer> source = Flux
+                .range(0, size)
+                .publishOn(Schedulers.boundedElastic(), 16);
+
+            List<Integer> values = SubscriptionConflation
+                .conflate(source, Duration.ofMillis(1), v -> v % keys, (older, newer) -> newer)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+            assertNotNull(values);
+            Map<Integer, Integer> latest = new HashMap<>();
+            for (Integer value : values) {
+                Integer last = latest.put(value % keys, value);
+                assertTrue(last == null || last < value, "round " + round + ": " + last + " before " + value);
+            }
+            for (int i = size - keys; i < size; i++) {
+                assertEquals(i, latest.get(i % keys), "round " + round);
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.gateway.external.socket;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.jetlinks.community.gateway.external.Message;
+import org.jetlinks.community.gateway.external.SubscribeRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+class WebSocketOutboundTest {
+
+    private final WebSocketMessagingProperties properties = new WebSocketMessagingProperties();
+
+    private final WebSocketMessagingHandler.Metrics metrics = new WebSocketMessagingHandler.Metrics();
+
+    private final Receiver receiver = new Receiver();
+
+    private WebSocketOutbound outbound;
+
+    //模拟客户端接收数据帧,initial为0时不请求数据
+    static class Receiver extends BaseSubscriber<WebSocketMessage> {
+        private final List<JSONObject> frames = new CopyOnWriteArrayList<>();
+        private long initial = Long.MAX_VALUE;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initial > 0) {
+                request(initial);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(WebSocketMessage message) {
+            frames.add(JSON.parseObject(message.getPayloadAsText()));
+        }
+    }
+
+    private WebSocketOutbound create() {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito
+            .when(session.textMessage(anyString()))
+            .thenAnswer(invocation -> new WebSocketMessage(
+                WebSocketMessage.Type.TEXT,
+                DefaultDataBufferFactory.sharedInstance.wrap(
+                    invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8))));
+        Mockito
+            .when(session.send(any()))
+            .thenAnswer(invocation -> Mono.fromRunnable(
+                () -> Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0)).subscribe(receiver)));
+        return outbound = new WebSocketOutbound(session, properties, metrics);
+    }
+
+    @AfterEach
+    void shutdown() {
+        receiver.dispose();
+        if (outbound != null) {
+            outbound.dispose();
+        }
+    }
+
+    private static SubscribeRequest createRequest(Map<String, Object> parameter) {
+        return SubscribeRequest
+            .builder()
+            .id("sub-1")
+            .topic("/test")
+            .parameter(parameter)
+            .build();
+    }
+
+    private static Message result(int value) {
+        return Message.success("sub-1", "/test", value);
+    }
+
+    private List<String> types() {
+        return receiver.frames
+            .stream()
+            .map(frame -> frame.getString("type"))
+            .collect(Collectors.toList());
+    }
+
+    private List<Object> payloads() {
+        return receiver.frames
+            .stream()
+            .map(frame -> frame.get("payload"))
+            .collect(Collectors.toList());
+    }
+
+    private void awaitFrames(int size) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (receiver.frames.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, receiver.frames.size());
+    }
+
+    @Test
+    void testCoalesceBySize() {
+        properties.setBatchSize(3);
+        properties.setBatchWindow(Duration.ofSeconds(10));
+        create().start().subscribe();
+
+        outbound
+            .send(createRequest(Collections.emptyMap()), Flux.range(1, 5).map(WebSocketOutboundTest::result))
+            .block(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList("batch", "batch"), types());
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5)), payloads());
+        assertEquals(5, metrics.getCoalesced());
+        assertEquals(0, metrics.getDepth());
+    }
+
+    @Test
+    void testCoalesceByWindow() throws Exception {
+        create().start().subscribe();
+
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("batchWindow", "100ms");
+        parameter.put("batchSize", 100);
+        Sinks.Many<Message> messages = Sinks.many().unicast().onBackpressureBuffer();
+        outbound.send(createRequest(parameter), messages.asFlux()).subscribe();
+
+        messages.tryEmitNext(result(1));
+        messages.tryEmitNext(result(2));
+        //时间窗口结束后合并发送
+        awaitFrames(1);
+        assertEquals(Collections.singletonList("batch"), types());
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), payloads());
+
+        messages.tryEmitNext(result(3));
+        awaitFrames(2);
+        //窗口内只有一条消息时不合并
+        assertEquals(Arrays.asList("batch", "result"), types());
+        assertEquals(2, metrics.getCoalesced());
+    }
+
+    @Test
+    void testKeepOrder() {
+        properties.setBatchSize(10);
+        create().start().subscribe();
+
+        outbound
+            .send(createRequest(Collections.emptyMap()),
+                  Flux.just(result(1), result(2), Message.error("sub-1", "/test", "error"), result(3)))
+            .block(Duration.ofSeconds(5));
+        outbound.send(Message.complete("sub-1"));
+
+        //非结果消息不合并,并保持与结果的顺序
+        assertEquals(Arrays.asList("batch", "error", "batch", "complete"), types());
+        assertEquals(Arrays.asList(1, 2), payloads().get(0));
+        assertEquals(Collections.singletonList(3), payloads().get(2));
+        assertEquals(3, metrics.getCoalesced());
+    }
+
+    @Test
+    void testDropOldest() {
+        properties.setQueueSize(4);
+        receiver.initial = 0;
+        create().start().subscribe();
+
+        for (int i = 0; i < 10; i++) {
+            outbound.send(result(i));
+        }
+        assertTrue(receiver.frames.isEmpty());
+        assertEquals(4, metrics.getDepth());
+        assertEquals(6, metrics.getDropped());
+
+        receiver.request(10);
+        //只保留最新的数据帧
+        assertEquals(Arrays.asList(6, 7, 8, 9), payloads());
+        assertEquals(0, metrics.getDepth());
+        assertEquals(6, metrics.getDropped());
+    }
+
+    @Test
+    void testBufferBeforeStart() {
+        create();
+        for (int i = 0; i < 3; i++) {
+            outbound.send(result(i));
+        }
+        assertEquals(3, metrics.getDepth());
+
+        outbound.start().subscribe();
+        outbound.send(result(3));
+
+        //开始发送前的数据帧不丢失,并保持顺序
+        assertEquals(Arrays.asList(0, 1, 2, 3), payloads());
+        assertEquals(0, metrics.getDepth());
+        assertEquals(0, metrics.getDropped());
+    }
+
+    @Test
+    void testBufferOverflowBeforeStart() {
+        properties.setQueueSize(2);
+        create();
+        for (int i = 0; i < 3; i++) {
+            outbound.send(result(i));
+        }
+        assertEquals(2, metrics.getDepth());
+        assertEquals(1, metrics.getDropped());
+
+        outbound.start().subscribe();
+        assertEquals(Arrays.asList(1, 2), payloads());
+        assertEquals(0, metrics.getDepth());
+    }
+
+    @Test
+    void testDisposeBeforeStart() {
+        create();
+        outbound.send(result(1));
+        outbound.dispose();
+        assertEquals(0, metrics.getDepth());
+
+        outbound.send(result(2));
+        assertEquals(1, metrics.getDropped());
+        assertEquals(0, metrics.getDepth());
+
+        outbound.start().subscribe();
+        assertTrue(receiver.frames.isEmpty());
+        assertTrue(receiver.isDisposed());
+    }
+}
@@ -25,6 +25,7 @@ import org.jetlinks.community.gateway.AbstractDeviceGateway;
 import org.jetlinks.community.gateway.DeviceGatewayHelper;
 import org.jetlinks.community.network.mqtt.gateway.device.session.MqttConnectionSession;
 import org.jetlinks.community.network.mqtt.server.MqttConnection;
+import org.jetlinks.community.network.mqtt.server.MqttInflightListener;
 import org.jetlinks.community.network.mqtt.server.MqttPublishing;
 import org.jetlinks.community.network.mqtt.server.MqttServer;
 import org.jetlinks.community.utils.ObjectMappers;
@@ -41,7 +42,7 @@ import org.jetlinks.core.trace.MonoTracer;
 import org.jetlinks.supports.server.DecodedClientMessageHandler;
 import org.springframework.util.StringUtils;
 import reactor.core.Disposable;
-import reactor.core.publisher.Flux;
+import reactor.core.Disposables;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
@@ -63,7 +64,7 @@ import static org.jetlinks.core.trace.DeviceTracer.SpanName;
  *     2. 使用{@link MqttConnection#getClientId()}作为设备ID,从设备注册中心中获取设备.
  *     3. 使用设备对应的协议{@link DeviceOperator#getProtocol()}来进行认证{@link ProtocolSupport#authenticate(AuthenticationRequest, DeviceOperator)}
  *     4. 认证通过后应答mqtt,注册会话{@link DeviceSessionManager#compute(String, Function)}.
- *     5. 监听mqtt消息推送,{@link MqttConnection#handleMessage()}
+ *     5. 监听mqtt消息推送,{@link MqttConnection#handleMessage(Function)}
  *     6. 当收到消息时,调用对应设备使用的协议{@link ProtocolSupport#getMessageCodec(Transport)}进行解码{@link DeviceMessageCodec#decode(MessageDecodeContext)}
  * </pre>
  *
@@ -128,7 +129,7 @@ class MqttServerDeviceGateway extends AbstractDeviceGateway {
         if (disposable != null) {
             disposable.dispose();
         }
-        disposable = mqttServer
+        Disposable connections = mqttServer
             //监听连接,mqtt网关可以复用网络网络组件,多个网关不能收到相同的连接信息
             .handleConnection("device-gateway")
             .filter(conn -> {
@@ -152,6 +153,19 @@ class MqttServerDeviceGateway extends AbstractDeviceGateway {
                      Integer.MAX_VALUE)
             .subscribe();
 
+        //监控处理中的消息数量以及暂停读取的次数
+        Disposable inflight = mqttServer.onInflight(new MqttInflightListener() {
+            @Override
+            public void inflight(long total) {
+                monitor.inflightMessage(total);
+            }
+
+            @Override
+            public void paused(MqttConnection connection) {
+                monitor.paused();
+            }
+        });
+        disposable = Disposables.composite(connections, inflight);
     }
 
     //处理连接，并进行认证
@@ -299,12 +313,10 @@ class MqttServerDeviceGateway extends AbstractDeviceGateway {
 
         return this
             .handleClientConnect(connection, operator)
-            .thenMany(Flux.usingWhen(Mono.just(connection),
-                                     MqttConnection::handleMessage,
-                                     MqttConnection::close))
-            //解码收到的mqtt报文
-            .concatMap(
-                publishing -> {
+            .then(Mono.usingWhen(
+                Mono.just(connection),
+                //解码收到的mqtt报文,精简连接模式下消息直接分发到此处理器
+                conn -> conn.handleMessage(publishing -> {
                     if (!isStarted()) {
                         return Mono.empty();
                     }
@@ -313,20 +325,19 @@ class MqttServerDeviceGateway extends AbstractDeviceGateway {
                         .as(MonoTracer
                                 .create(SpanName.upstream0(connection.getClientId()),
                                         (span) -> span.setAttributeLazy(SpanKey.message, publishing::print)));
-                },
-                0
-            )
-            .as(flux -> {
+                }),
+                MqttConnection::close))
+            .as(mono -> {
                 MqttMessage will = connection.getWillMessage().orElse(null);
                 if (will != null) {
                     //合并遗言消息
-                    return flux.mergeWith(
+                    return Mono.when(
+                        mono,
                         this.decodeAndHandleMessage(operator, session, will, connection)
                     );
                 }
-                return flux;
-            })
-            .then();
+                return mono;
+            });
     }
 
     //解码消息并处理
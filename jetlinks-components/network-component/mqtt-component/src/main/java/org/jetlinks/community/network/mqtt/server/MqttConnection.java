@@ -26,6 +26,7 @@ import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * MQTT连接信息,一个MQTT连接就是一个MQTT客户端.
@@ -89,6 +90,21 @@ public interface MqttConnection extends ClientConnection {
      */
     Flux<MqttPublishing> handleMessage();
 
+    /**
+     * 使用处理器处理客户端推送的消息,消息按顺序处理,上一条消息处理完成后才会处理下一条消息.
+     * <p>
+     * 精简连接模式下消息直接分发给处理器,不会为每个连接创建消息流.
+     *
+     * @param handler 消息处理器
+     * @return 连接断开后完成
+     * @since 2.11
+     */
+    default Mono<Void> handleMessage(Function<MqttPublishing, Mono<Void>> handler) {
+        return handleMessage()
+            .concatMap(handler, 0)
+            .then();
+    }
+
     /**
      * 推送消息到客户端
      *
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.mqtt.server;
+
+/**
+ * MQTT消息处理窗口监听器,用于监控处理中的消息数量以及连接暂停读取的情况.
+ *
+ * @author zhouhao
+ * @see MqttServer#onInflight(MqttInflightListener)
+ * @since 2.11
+ */
+public interface MqttInflightListener {
+
+    /**
+     * 处理中(已接收但未处理完成)的消息数量发生变化
+     *
+     * @param total 处理中的消息数量
+     */
+    void inflight(long total);
+
+    /**
+     * 由于处理窗口已满,暂停读取连接的数据
+     *
+     * @param connection 连接
+     */
+    void paused(MqttConnection connection);
+}
@@ -16,6 +16,8 @@
 package org.jetlinks.community.network.mqtt.server;
 
 import org.jetlinks.community.network.ServerNetwork;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 
 /**
@@ -36,4 +38,15 @@ public interface MqttServer extends ServerNetwork {
 
     Flux<MqttConnection> handleConnection(String holder);
 
+    /**
+     * 监听消息处理窗口,用于监控处理中的消息数量以及连接暂停读取的情况
+     *
+     * @param listener 监听器
+     * @return 用于取消监听
+     * @since 2.11
+     */
+    default Disposable onInflight(MqttInflightListener listener) {
+        return Disposables.disposed();
+    }
+
 }
@@ -82,6 +82,18 @@ public class DefaultVertxMqttServerProvider implements NetworkProvider<VertxMqtt
                     instances.add(mqttServer);
                 }
                 server.setBind(new InetSocketAddress(options.getHost(), options.getPort()));
+                //限制处理中的消息数量时,使用精简连接模式分发消息
+                if (properties.isCompactConnection()
+                    || properties.getMaxInflightPerConnection() > 0
+                    || properties.getMaxInflight() > 0) {
+                    //暂停读取后已经读取到的消息依然会放入队列,队列需要大于处理窗口
+                    server.setInboundQueueSize(Math.max(Math.max(1, properties.getMaxInboundQueueSize()),
+                                                        properties.getMaxInflightPerConnection() * 2));
+                } else {
+                    server.setInboundQueueSize(0);
+                }
+                server.setMaxInflightPerConnection(properties.getMaxInflightPerConnection());
+                server.setMaxInflight(properties.getMaxInflight());
                 server.setMqttServer(instances);
                 for (MqttServer instance : instances) {
                    vertx.nettyEventLoopGroup()
@@ -121,7 +133,11 @@ public class DefaultVertxMqttServerProvider implements NetworkProvider<VertxMqtt
             .add("publicPort", "公网端口", "", new IntType())
             .add("certId", "证书id", "", new StringType())
             .add("secure", "开启TSL", "", new BooleanType())
-            .add("maxMessageSize", "最大消息长度", "", new StringType());
+            .add("maxMessageSize", "最大消息长度", "", new StringType())
+            .add("compactConnection", "精简连接模式", "", new BooleanType())
+            .add("maxInboundQueueSize", "最大等待处理消息数量", "", new IntType())
+            .add("maxInflightPerConnection", "单个连接最大处理中消息数量", "", new IntType())
+            .add("maxInflight", "最大处理中消息数量", "", new IntType());
     }
 
     @Nonnull
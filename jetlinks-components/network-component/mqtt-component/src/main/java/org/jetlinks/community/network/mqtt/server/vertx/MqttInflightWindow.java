@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.mqtt.server.vertx;
+
+import org.jetlinks.community.network.mqtt.server.MqttConnection;
+import org.jetlinks.community.network.mqtt.server.MqttInflightListener;
+import reactor.core.Disposable;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MQTT服务的消息处理窗口,统计所有连接处理中的消息数量.
+ * <p>
+ * 达到最大数量时,暂停读取收到新消息的连接,当处理中的消息数量降低到一半时恢复读取所有暂停的连接.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+class MqttInflightWindow {
+
+    private final AtomicLong inflight = new AtomicLong();
+
+    private final Queue<VertxMqttConnection> paused = new ConcurrentLinkedQueue<>();
+
+    private final List<MqttInflightListener> listeners = new CopyOnWriteArrayList<>();
+
+    //最大处理中的消息数量,小于等于0时不限制
+    private volatile int max;
+
+    void setMax(int max) {
+        this.max = max;
+        if (max <= 0) {
+            resumeAll();
+        }
+    }
+
+    /**
+     * 获取处理窗口
+     *
+     * @return 窗口是否已满
+     */
+    boolean acquire() {
+        long total = inflight.incrementAndGet();
+        fireInflight(total);
+        int max = this.max;
+        return max > 0 && total >= max;
+    }
+
+    void release(int count) {
+        if (count <= 0) {
+            return;
+        }
+        long total = inflight.addAndGet(-count);
+        fireInflight(total);
+        if (!paused.isEmpty() && total <= max / 2) {
+            resumeAll();
+        }
+    }
+
+    //窗口已满,暂停读取连接的数据
+    void pause(VertxMqttConnection connection) {
+        //先暂停再放入队列,否则并发恢复时可能在暂停之前就从队列中取出了连接,导致连接一直处于暂停状态
+        connection.pauseRead(VertxMqttConnection.PAUSED_BY_SERVER);
+        paused.add(connection);
+        //并发释放时,可能已经低于恢复阈值
+        if (inflight.get() <= max / 2) {
+            resumeAll();
+        }
+    }
+
+    void remove(VertxMqttConnection connection) {
+        paused.remove(connection);
+    }
+
+    private void resumeAll() {
+        VertxMqttConnection connection;
+        while ((connection = paused.poll()) != null) {
+            connection.resumeRead(VertxMqttConnection.PAUSED_BY_SERVER);
+        }
+    }
+
+    long getInflight() {
+        return inflight.get();
+    }
+
+    Disposable addListener(MqttInflightListener listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    void firePaused(MqttConnection connection) {
+        for (MqttInflightListener listener : listeners) {
+            listener.paused(connection);
+        }
+    }
+
+    private void fireInflight(long total) {
+        for (MqttInflightListener listener : listeners) {
+            listener.inflight(total);
+        }
+    }
+}
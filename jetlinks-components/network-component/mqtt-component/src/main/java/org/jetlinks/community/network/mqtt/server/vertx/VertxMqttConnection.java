@@ -22,7 +22,9 @@ import io.netty.handler.codec.mqtt.MqttConnectReturnCode;
 import io.netty.handler.codec.mqtt.MqttProperties;
 import io.netty.handler.codec.mqtt.MqttQoS;
 import io.netty.util.ReferenceCountUtil;
+import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
 import io.vertx.core.net.SocketAddress;
 import io.vertx.mqtt.MqttEndpoint;
 import io.vertx.mqtt.MqttTopicSubscription;
@@ -44,10 +46,14 @@ import org.jetlinks.core.utils.Reactors;
 import reactor.core.publisher.*;
 
 import javax.annotation.Nonnull;
+import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -73,25 +79,69 @@ class VertxMqttConnection implements MqttConnection {
             return "";
         }
     };
-    private final Sinks.Many<MqttPublishing> messageProcessor = Reactors.createMany(Integer.MAX_VALUE, false);
-    private final Sinks.Many<MqttSubscription> subscription = Reactors.createMany(Integer.MAX_VALUE, false);
-    private final Sinks.Many<MqttUnSubscription> unsubscription = Reactors.createMany(Integer.MAX_VALUE, false);
+    private static final Handler<Throwable> exceptionHandler = error -> {
+        if (error instanceof DecoderException) {
+            if (error.getMessage().contains("too large message")) {
+                log.error("MQTT消息过大,请在网络组件中设置[最大消息长度].", error);
+                return;
+            }
+        }
+        log.error(error.getMessage(), error);
+    };
+
+    //消息流在订阅时才创建
+    private volatile Sinks.Many<MqttPublishing> messageProcessor;
+    private volatile Sinks.Many<MqttSubscription> subscription;
+    private volatile Sinks.Many<MqttUnSubscription> unsubscription;
+
+    //精简连接模式下等待处理的最大消息数量,小于等于0时不启用精简连接模式
+    private final int inboundQueueSize;
+
+    //精简连接模式: 消息处理器,收到消息后直接调用
+    private volatile Function<MqttPublishing, Mono<Void>> messageHandler;
+    private MonoSink<Void> messageHandlerSink;
+
+    //精简连接模式: 等待处理的消息
+    private ArrayDeque<VertxMqttPublishing> inbound;
+    private boolean processing;
 
+    static final int PAUSED_BY_CONNECTION = 1, PAUSED_BY_SERVER = 1 << 1;
+
+    //MqttEndpoint未提供暂停读取的方法,通过底层连接暂停读取
+    private static final Map<Class<?>, Optional<Field>> socketFields = new ConcurrentHashMap<>();
+
+    //连接处理中的最大消息数量,小于等于0时不限制
+    private final int inflightWindow;
+
+    //服务处理窗口
+    private final MqttInflightWindow serverWindow;
+
+    //处理中(处理中以及等待处理)的消息数量
+    private int inflight;
+
+    //暂停读取的原因
+    private int pausedFlags;
 
     public VertxMqttConnection(MqttEndpoint endpoint) {
-        this.endpoint = endpoint;
-        this.keepAliveTimeoutMs = (endpoint.keepAliveTimeSeconds() + 10) * 1000L;
+        this(endpoint, 0);
     }
 
-    private final Consumer<MqttConnection> defaultListener = mqttConnection -> {
-        VertxMqttConnection.log.debug("mqtt client [{}] disconnected", getClientId());
-        subscription.tryEmitComplete();
-        unsubscription.tryEmitComplete();
-        messageProcessor.tryEmitComplete();
+    public VertxMqttConnection(MqttEndpoint endpoint, int inboundQueueSize) {
+        this(endpoint, inboundQueueSize, 0, null);
+    }
 
-    };
+    public VertxMqttConnection(MqttEndpoint endpoint,
+                               int inboundQueueSize,
+                               int inflightWindow,
+                               MqttInflightWindow serverWindow) {
+        this.endpoint = endpoint;
+        this.inboundQueueSize = inboundQueueSize;
+        this.inflightWindow = inflightWindow;
+        this.serverWindow = serverWindow;
+        this.keepAliveTimeoutMs = (endpoint.keepAliveTimeSeconds() + 10) * 1000L;
+    }
 
-    private Consumer<MqttConnection> disconnectConsumer = defaultListener;
+    private Consumer<MqttConnection> disconnectConsumer;
 
     @Override
     public Duration getKeepAliveTimeout() {
@@ -100,7 +150,7 @@ class VertxMqttConnection implements MqttConnection {
 
     @Override
     public void onClose(Consumer<MqttConnection> listener) {
-        disconnectConsumer = disconnectConsumer.andThen(listener);
+        disconnectConsumer = disconnectConsumer == null ? listener : disconnectConsumer.andThen(listener);
     }
 
     @Override
@@ -146,7 +196,16 @@ class VertxMqttConnection implements MqttConnection {
         accepted = true;
         try {
             if (!endpoint.isConnected()) {
-                endpoint.accept();
+                if (inboundQueueSize > 0 && endpoint.protocolVersion() == 5) {
+                    //MQTT5 通过Receive Maximum限制客户端未确认的QoS1,QoS2消息数量
+                    MqttProperties properties = new MqttProperties();
+                    properties.add(new MqttProperties.IntegerProperty(
+                        MqttProperties.MqttPropertyType.RECEIVE_MAXIMUM.value(),
+                        Math.min(inboundQueueSize, 65535)));
+                    endpoint.accept(false, properties);
+                } else {
+                    endpoint.accept();
+                }
             }
         } catch (Exception e) {
             close().subscribe();
@@ -167,18 +226,11 @@ class VertxMqttConnection implements MqttConnection {
     }
 
     void init() {
+        Handler<Void> closeHandler = ignore -> this.complete();
         this.endpoint
-            .disconnectHandler(ignore -> this.complete())
-            .closeHandler(ignore -> this.complete())
-            .exceptionHandler(error -> {
-                if (error instanceof DecoderException) {
-                    if (error.getMessage().contains("too large message")) {
-                        log.error("MQTT消息过大,请在网络组件中设置[最大消息长度].", error);
-                        return;
-                    }
-                }
-                log.error(error.getMessage(), error);
-            })
+            .disconnectHandler(closeHandler)
+            .closeHandler(closeHandler)
+            .exceptionHandler(exceptionHandler)
             .pingHandler(ignore -> {
                 this.ping();
                 if (!endpoint.isAutoKeepAlive()) {
@@ -187,14 +239,7 @@ class VertxMqttConnection implements MqttConnection {
             })
             .publishHandler(msg -> {
                 ping();
-                VertxMqttPublishing publishing = new VertxMqttPublishing(msg, false);
-                boolean hasDownstream = this.messageProcessor.currentSubscriberCount() > 0;
-                if (autoAckMsg && hasDownstream) {
-                    publishing.acknowledge();
-                }
-                if (hasDownstream) {
-                    this.messageProcessor.emitNext(publishing, Reactors.emitFailureHandler());
-                }
+                handlePublish(new VertxMqttPublishing(msg, false));
             })
             //QoS 1 PUBACK
             .publishAcknowledgeHandler(messageId -> {
@@ -221,27 +266,216 @@ class VertxMqttConnection implements MqttConnection {
             .subscribeHandler(msg -> {
                 ping();
                 VertxMqttSubscription subscription = new VertxMqttSubscription(msg, false);
-                boolean hasDownstream = this.subscription.currentSubscriberCount() > 0;
+                Sinks.Many<MqttSubscription> sink = this.subscription;
+                boolean hasDownstream = sink != null && sink.currentSubscriberCount() > 0;
                 if (autoAckSub || !hasDownstream) {
                     subscription.acknowledge();
                 }
                 if (hasDownstream) {
-                    this.subscription.emitNext(subscription, Reactors.emitFailureHandler());
+                    sink.emitNext(subscription, Reactors.emitFailureHandler());
                 }
             })
             .unsubscribeHandler(msg -> {
                 ping();
                 VertxMqttMqttUnSubscription unSubscription = new VertxMqttMqttUnSubscription(msg, false);
-                boolean hasDownstream = this.unsubscription.currentSubscriberCount() > 0;
+                Sinks.Many<MqttUnSubscription> sink = this.unsubscription;
+                boolean hasDownstream = sink != null && sink.currentSubscriberCount() > 0;
                 if (autoAckUnSub || !hasDownstream) {
                     unSubscription.acknowledge();
                 }
                 if (hasDownstream) {
-                    this.unsubscription.emitNext(unSubscription, Reactors.emitFailureHandler());
+                    sink.emitNext(unSubscription, Reactors.emitFailureHandler());
                 }
             });
     }
 
+    private void handlePublish(VertxMqttPublishing publishing) {
+        Sinks.Many<MqttPublishing> sink = this.messageProcessor;
+        boolean hasDownstream = sink != null && sink.currentSubscriberCount() > 0;
+        if (messageHandler != null) {
+            if (hasDownstream) {
+                sink.emitNext(publishing, Reactors.emitFailureHandler());
+            }
+            dispatch(publishing);
+            return;
+        }
+        if (autoAckMsg && hasDownstream) {
+            publishing.acknowledge();
+        }
+        if (hasDownstream) {
+            sink.emitNext(publishing, Reactors.emitFailureHandler());
+        }
+    }
+
+    //精简连接模式: 分发消息到处理器,正在处理消息时放入队列中等待
+    private void dispatch(VertxMqttPublishing publishing) {
+        boolean process, full;
+        synchronized (this) {
+            if (processing) {
+                if (inbound == null) {
+                    inbound = new ArrayDeque<>();
+                }
+                //队列已满时已经暂停了读取,暂停生效前读取到的消息依然放入队列.
+                //超出队列大小的QoS0消息允许丢弃,QoS1,QoS2消息未应答不能丢弃,否则客户端不会重发
+                if (inbound.size() >= inboundQueueSize
+                    && publishing.getQosLevel() == 0
+                    && (pausedFlags & PAUSED_BY_CONNECTION) != 0) {
+                    log.warn("mqtt client [{}] inbound queue is full, drop message [{}] QoS0",
+                             getClientId(),
+                             publishing.getTopic());
+                    return;
+                }
+                inbound.add(publishing);
+                process = false;
+            } else {
+                processing = true;
+                process = true;
+            }
+            inflight++;
+            full = (inflightWindow > 0 && inflight >= inflightWindow)
+                || (inbound != null && inbound.size() >= inboundQueueSize);
+        }
+        //处理窗口或者等待队列已满时暂停读取,已经读取到的消息依然会放入队列中
+        if (full) {
+            pauseRead(PAUSED_BY_CONNECTION);
+        }
+        if (serverWindow != null && serverWindow.acquire() && !isPaused(PAUSED_BY_SERVER)) {
+            serverWindow.pause(this);
+        }
+        if (process) {
+            process(publishing);
+        }
+    }
+
+    private void process(VertxMqttPublishing publishing) {
+        Function<MqttPublishing, Mono<Void>> handler = this.messageHandler;
+        Mono<Void> task;
+        try {
+            task = handler == null ? Mono.empty() : handler.apply(publishing);
+        } catch (Throwable error) {
+            task = Mono.error(error);
+        }
+        task.subscribe(
+            null,
+            error -> {
+                log.warn("handle mqtt client [{}] message error", getClientId(), error);
+                processNext();
+            },
+            this::processNext);
+    }
+
+    private void processNext() {
+        VertxMqttPublishing next;
+        boolean resume;
+        synchronized (this) {
+            if (closed) {
+                //连接关闭时已经释放了处理窗口
+                processing = false;
+                return;
+            }
+            inflight--;
+            next = inbound == null ? null : inbound.poll();
+            //处理窗口和等待队列都降到一半以下时恢复读取
+            resume = (pausedFlags & PAUSED_BY_CONNECTION) != 0
+                && (inflightWindow <= 0 || inflight <= inflightWindow / 2)
+                && (inbound == null || inbound.size() <= inboundQueueSize / 2);
+            if (next == null) {
+                processing = false;
+            }
+        }
+        if (serverWindow != null) {
+            serverWindow.release(1);
+        }
+        if (resume) {
+            resumeRead(PAUSED_BY_CONNECTION);
+        }
+        if (next != null) {
+            process(next);
+        }
+    }
+
+    //清空等待处理的消息,返回清空的数量
+    private int clearInbound() {
+        int size = inbound == null ? 0 : inbound.size();
+        inbound = null;
+        inflight -= size;
+        return size;
+    }
+
+    synchronized boolean isPaused(int flag) {
+        return (pausedFlags & flag) != 0;
+    }
+
+    void pauseRead(int flag) {
+        synchronized (this) {
+            if (closed || (pausedFlags & flag) != 0) {
+                return;
+            }
+            boolean pause = pausedFlags == 0;
+            pausedFlags |= flag;
+            //在锁内执行,避免与恢复读取的顺序错乱
+            if (pause) {
+                NetSocket socket = getSocket(endpoint);
+                if (socket == null) {
+                    return;
+                }
+                log.debug("pause mqtt client [{}] read, inflight: {}", getClientId(), inflight);
+                socket.pause();
+            }
+        }
+        if (serverWindow != null) {
+            serverWindow.firePaused(this);
+        }
+    }
+
+    void resumeRead(int flag) {
+        synchronized (this) {
+            if ((pausedFlags & flag) == 0) {
+                return;
+            }
+            pausedFlags &= ~flag;
+            if (pausedFlags == 0 && !closed) {
+                NetSocket socket = getSocket(endpoint);
+                if (socket != null) {
+                    log.debug("resume mqtt client [{}] read, inflight: {}", getClientId(), inflight);
+                    socket.resume();
+                }
+            }
+        }
+    }
+
+    static NetSocket getSocket(MqttEndpoint endpoint) {
+        Field field = socketFields
+            .computeIfAbsent(endpoint.getClass(), VertxMqttConnection::lookupSocketField)
+            .orElse(null);
+        if (field == null) {
+            return null;
+        }
+        try {
+            return (NetSocket) field.get(endpoint);
+        } catch (Throwable error) {
+            return null;
+        }
+    }
+
+    private static Optional<Field> lookupSocketField(Class<?> type) {
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (NetSocket.class.isAssignableFrom(field.getType())) {
+                    try {
+                        field.setAccessible(true);
+                        return Optional.of(field);
+                    } catch (Throwable error) {
+                        log.warn("can not access mqtt endpoint socket [{}],read will not be paused", type, error);
+                        return Optional.empty();
+                    }
+                }
+            }
+        }
+        log.warn("can not find mqtt endpoint socket [{}],read will not be paused", type);
+        return Optional.empty();
+    }
+
     @Override
     public void setKeepAliveTimeout(Duration duration) {
         keepAliveTimeoutMs = duration.toMillis();
@@ -271,7 +505,54 @@ class VertxMqttConnection implements MqttConnection {
 
     @Override
     public Flux<MqttPublishing> handleMessage() {
-        return messageProcessor.asFlux();
+        Sinks.Many<MqttPublishing> sink = this.messageProcessor;
+        if (sink == null) {
+            synchronized (this) {
+                if (closed) {
+                    return Flux.empty();
+                }
+                if ((sink = this.messageProcessor) == null) {
+                    this.messageProcessor = sink = Reactors.createMany(Integer.MAX_VALUE, false);
+                }
+            }
+        }
+        return sink.asFlux();
+    }
+
+    @Override
+    public Mono<Void> handleMessage(Function<MqttPublishing, Mono<Void>> handler) {
+        if (inboundQueueSize <= 0) {
+            return MqttConnection.super.handleMessage(handler);
+        }
+        return Mono.create(sink -> {
+            synchronized (this) {
+                if (closed) {
+                    sink.success();
+                    return;
+                }
+                if (messageHandler != null) {
+                    sink.error(new IllegalStateException("mqtt message handler already exists"));
+                    return;
+                }
+                messageHandler = handler;
+                messageHandlerSink = sink;
+            }
+            sink.onDispose(() -> {
+                int released = 0;
+                synchronized (this) {
+                    if (messageHandlerSink == sink) {
+                        messageHandler = null;
+                        messageHandlerSink = null;
+                        released = clearInbound();
+                    }
+                }
+                if (serverWindow != null) {
+                    serverWindow.release(released);
+                }
+                //不再处理消息,恢复读取
+                resumeRead(PAUSED_BY_CONNECTION);
+            });
+        });
     }
 
     @Override
@@ -306,13 +587,35 @@ class VertxMqttConnection implements MqttConnection {
     public Flux<MqttSubscription> handleSubscribe(boolean autoAck) {
 
         autoAckSub = autoAck;
-        return subscription.asFlux();
+        Sinks.Many<MqttSubscription> sink = this.subscription;
+        if (sink == null) {
+            synchronized (this) {
+                if (closed) {
+                    return Flux.empty();
+                }
+                if ((sink = this.subscription) == null) {
+                    this.subscription = sink = Reactors.createMany(Integer.MAX_VALUE, false);
+                }
+            }
+        }
+        return sink.asFlux();
     }
 
     @Override
     public Flux<MqttUnSubscription> handleUnSubscribe(boolean autoAck) {
         autoAckUnSub = autoAck;
-        return unsubscription.asFlux();
+        Sinks.Many<MqttUnSubscription> sink = this.unsubscription;
+        if (sink == null) {
+            synchronized (this) {
+                if (closed) {
+                    return Flux.empty();
+                }
+                if ((sink = this.unsubscription) == null) {
+                    this.unsubscription = sink = Reactors.createMany(Integer.MAX_VALUE, false);
+                }
+            }
+        }
+        return sink.asFlux();
     }
 
     @Override
@@ -363,11 +666,41 @@ class VertxMqttConnection implements MqttConnection {
     }
 
     private void complete() {
-        if (closed) {
-            return;
+        MonoSink<Void> handlerSink;
+        int released;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            handlerSink = messageHandlerSink;
+            messageHandler = null;
+            messageHandlerSink = null;
+            inbound = null;
+            //释放处理中以及等待处理的消息占用的窗口
+            released = inflight;
+            inflight = 0;
+        }
+        if (serverWindow != null) {
+            serverWindow.remove(this);
+            serverWindow.release(released);
+        }
+        log.debug("mqtt client [{}] disconnected", getClientId());
+        if (subscription != null) {
+            subscription.tryEmitComplete();
+        }
+        if (unsubscription != null) {
+            unsubscription.tryEmitComplete();
+        }
+        if (messageProcessor != null) {
+            messageProcessor.tryEmitComplete();
+        }
+        if (handlerSink != null) {
+            handlerSink.success();
+        }
+        if (disconnectConsumer != null) {
+            disconnectConsumer.accept(this);
         }
-        closed = true;
-        disconnectConsumer.accept(this);
     }
 
 
@@ -22,10 +22,12 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.jctools.maps.NonBlockingHashMap;
 import org.jetlinks.community.network.mqtt.server.MqttConnection;
+import org.jetlinks.community.network.mqtt.server.MqttInflightListener;
 import org.jetlinks.community.network.mqtt.server.MqttServer;
 import org.jetlinks.core.utils.Reactors;
 import org.jetlinks.community.network.DefaultNetworkType;
 import org.jetlinks.community.network.NetworkType;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 import reactor.util.concurrent.Queues;
@@ -56,6 +58,16 @@ public class VertxMqttServer implements MqttServer {
     @Setter(AccessLevel.PACKAGE)
     private InetSocketAddress bind;
 
+    //精简连接模式下每个连接等待处理的最大消息数量,小于等于0时不启用精简连接模式
+    @Setter
+    private int inboundQueueSize;
+
+    //每个连接处理中的最大消息数量,小于等于0时不限制
+    @Setter
+    private int maxInflightPerConnection;
+
+    private final MqttInflightWindow inflightWindow = new MqttInflightWindow();
+
     public VertxMqttServer(String id) {
         this.id = id;
     }
@@ -71,7 +83,10 @@ public class VertxMqttServer implements MqttServer {
                     log.error(error.getMessage(), error);
                 })
                 .endpointHandler(endpoint -> {
-                    handleConnection(new VertxMqttConnection(endpoint));
+                    handleConnection(new VertxMqttConnection(endpoint,
+                                                             inboundQueueSize,
+                                                             maxInflightPerConnection,
+                                                             inflightWindow));
                 });
         }
     }
@@ -104,6 +119,20 @@ public class VertxMqttServer implements MqttServer {
         }
     }
 
+    /**
+     * 设置所有连接处理中的最大消息数量,达到后暂停读取收到新消息的连接,小于等于0时不限制
+     *
+     * @param maxInflight 最大处理中的消息数量
+     */
+    public void setMaxInflight(int maxInflight) {
+        inflightWindow.setMax(maxInflight);
+    }
+
+    @Override
+    public Disposable onInflight(MqttInflightListener listener) {
+        return inflightWindow.addListener(listener);
+    }
+
     @Override
     public Flux<MqttConnection> handleConnection() {
         return sink.asFlux();
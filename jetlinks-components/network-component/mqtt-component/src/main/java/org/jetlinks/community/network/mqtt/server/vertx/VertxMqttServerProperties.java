@@ -32,6 +32,18 @@ public class VertxMqttServerProperties extends AbstractServerNetworkConfig {
     //最大消息长度
     private int maxMessageSize = 8096;
 
+    //精简连接模式,消息直接分发给设备网关处理,不再为每个连接创建消息流,适用于连接数量较多的场景
+    private boolean compactConnection = false;
+
+    //精简连接模式下,每个连接等待处理的最大消息数量,达到后暂停读取此连接的数据
+    private int maxInboundQueueSize = 32;
+
+    //每个连接处理中的最大消息数量,达到后暂停读取此连接的数据,小于等于0时不限制
+    private int maxInflightPerConnection = 0;
+
+    //所有连接处理中的最大消息数量,达到后暂停读取收到新消息的连接,小于等于0时不限制
+    private int maxInflight = 0;
+
     @Override
     public NetworkTransport getTransport() {
         return NetworkTransport.TCP;
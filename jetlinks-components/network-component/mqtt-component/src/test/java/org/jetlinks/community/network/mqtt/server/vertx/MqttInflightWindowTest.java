@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.mqtt.server.vertx;
+
+import io.vertx.mqtt.MqttEndpoint;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MqttInflightWindowTest {
+
+    static VertxMqttConnection connection() {
+        return new VertxMqttConnection(Mockito.mock(MqttEndpoint.class, Mockito.RETURNS_SELF));
+    }
+
+    @Test
+    void testPauseAndResume() {
+        MqttInflightWindow window = new MqttInflightWindow();
+        window.setMax(4);
+        VertxMqttConnection connection = connection();
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(window.acquire());
+        }
+        assertTrue(window.acquire());
+        window.pause(connection);
+        assertTrue(connection.isPaused(VertxMqttConnection.PAUSED_BY_SERVER));
+
+        //未降低到一半时不恢复
+        window.release(1);
+        assertTrue(connection.isPaused(VertxMqttConnection.PAUSED_BY_SERVER));
+
+        window.release(1);
+        assertFalse(connection.isPaused(VertxMqttConnection.PAUSED_BY_SERVER));
+        assertEquals(2, window.getInflight());
+    }
+
+    @Test
+    void testConcurrentPauseAndRelease() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 5000; i++) {
+                MqttInflightWindow window = new MqttInflightWindow();
+                window.setMax(2);
+                VertxMqttConnection connection = connection();
+                window.acquire();
+
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> pause = executor.submit(() -> {
+                    barrier.await();
+                    if (window.acquire()) {
+                        window.pause(connection);
+                    }
+                    return null;
+                });
+                Future<?> release = executor.submit(() -> {
+                    barrier.await();
+                    window.release(1);
+                    return null;
+                });
+                pause.get(5, TimeUnit.SECONDS);
+                release.get(5, TimeUnit.SECONDS);
+
+                //处理中的消息数量已经低于恢复阈值,连接不能一直处于暂停状态
+                assertEquals(1, window.getInflight());
+                assertFalse(connection.isPaused(VertxMqttConnection.PAUSED_BY_SERVER), "round " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.mqtt.server.vertx;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.Handler;
+import io.vertx.mqtt.MqttEndpoint;
+import io.vertx.mqtt.messages.MqttPublishMessage;
+import org.jetlinks.community.network.mqtt.server.MqttPublishing;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VertxMqttConnectionTest {
+
+    private final MqttEndpoint endpoint = Mockito.mock(MqttEndpoint.class, Mockito.RETURNS_SELF);
+
+    private Handler<MqttPublishMessage> publishHandler;
+
+    //处理中的消息,完成后处理下一条
+    private final List<Sinks.Empty<Void>> pending = new ArrayList<>();
+
+    private final List<MqttPublishing> handled = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private VertxMqttConnection accept(int inboundQueueSize, MqttInflightWindow window) {
+        VertxMqttConnection connection = new VertxMqttConnection(endpoint, inboundQueueSize, 0, window);
+        connection.accept();
+        ArgumentCaptor<Handler<MqttPublishMessage>> captor = ArgumentCaptor.forClass(Handler.class);
+        Mockito.verify(endpoint).publishHandler(captor.capture());
+        publishHandler = captor.getValue();
+        return connection;
+    }
+
+    private Mono<Void> handle(MqttPublishing publishing) {
+        handled.add(publishing);
+        Sinks.Empty<Void> sink = Sinks.empty();
+        pending.add(sink);
+        return sink.asMono();
+    }
+
+    private void publish(MqttQoS qos) {
+        MqttPublishMessage message = Mockito.mock(MqttPublishMessage.class);
+        Mockito.when(message.qosLevel()).thenReturn(qos);
+        Mockito.when(message.topicName()).thenReturn("/test");
+        publishHandler.handle(message);
+    }
+
+    private void completeNext() {
+        pending.remove(0).tryEmitEmpty();
+    }
+
+    @Test
+    void testQueueAndPauseRead() {
+        VertxMqttConnection connection = accept(2, null);
+        connection.handleMessage(this::handle).subscribe();
+
+        for (int i = 0; i < 3; i++) {
+            publish(MqttQoS.AT_LEAST_ONCE);
+        }
+        //同一时间只处理一条消息,等待队列已满时暂停读取
+        assertEquals(1, handled.size());
+        assertTrue(connection.isPaused(VertxMqttConnection.PAUSED_BY_CONNECTION));
+
+        //等待队列降到一半时恢复读取
+        completeNext();
+        assertEquals(2, handled.size());
+        assertFalse(connection.isPaused(VertxMqttConnection.PAUSED_BY_CONNECTION));
+
+        completeNext();
+        completeNext();
+        assertEquals(3, handled.size());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void testDropQoS0WhenQueueFull() {
+        VertxMqttConnection connection = accept(1, null);
+        connection.handleMessage(this::handle).subscribe();
+
+        publish(MqttQoS.AT_LEAST_ONCE);
+        publish(MqttQoS.AT_LEAST_ONCE);
+        assertTrue(connection.isPaused(VertxMqttConnection.PAUSED_BY_CONNECTION));
+
+        //暂停生效前读取到的QoS0消息可以丢弃,QoS1消息不能丢弃
+        publish(MqttQoS.AT_MOST_ONCE);
+        publish(MqttQoS.AT_LEAST_ONCE);
+
+        while (!pending.isEmpty()) {
+            completeNext();
+        }
+        assertEquals(3, handled.size());
+        for (MqttPublishing publishing : handled) {
+            assertEquals(1, publishing.getQosLevel());
+        }
+    }
+
+    @Test
+    void testCloseReleasesServerWindow() {
+        MqttInflightWindow window = new MqttInflightWindow();
+        window.setMax(100);
+        VertxMqttConnection connection = accept(4, window);
+
+        AtomicBoolean completed = new AtomicBoolean();
+        connection
+            .handleMessage(this::handle)
+            .doOnSuccess(ignore -> completed.set(true))
+            .subscribe();
+
+        for (int i = 0; i < 3; i++) {
+            publish(MqttQoS.AT_LEAST_ONCE);
+        }
+        assertEquals(3, window.getInflight());
+
+        //连接断开时释放处理中以及等待处理的消息占用的窗口
+        connection.disconnect();
+        assertEquals(0, window.getInflight());
+        assertTrue(completed.get());
+
+        //断开后处理完成的消息不会重复释放窗口
+        completeNext();
+        assertEquals(0, window.getInflight());
+        assertEquals(1, handled.size());
+    }
+}
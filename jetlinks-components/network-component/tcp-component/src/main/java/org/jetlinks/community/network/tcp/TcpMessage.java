@@ -17,7 +17,7 @@ package org.jetlinks.community.network.tcp;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
-import lombok.AllArgsConstructor;
+import io.netty.util.ReferenceCountUtil;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -35,16 +35,61 @@ import java.nio.charset.StandardCharsets;
  **/
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 public class TcpMessage implements EncodedMessage {
 
     private ByteBuf payload;
 
+    /**
+     * 是否为零拷贝模式下从socket直接读取的池化数据,池化数据需要在处理完成后释放.
+     *
+     * @since 2.11
+     */
+    private transient boolean pooled;
+
+    public TcpMessage(ByteBuf payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * 创建零拷贝模式下的池化消息
+     *
+     * @param payload 池化的数据
+     * @return TcpMessage
+     * @since 2.11
+     */
+    public static TcpMessage pooled(ByteBuf payload) {
+        TcpMessage message = new TcpMessage(payload);
+        message.pooled = true;
+        return message;
+    }
+
+    /**
+     * 释放数据,已经释放时忽略.
+     *
+     * @since 2.11
+     */
+    public void release() {
+        ByteBuf payload = this.payload;
+        if (payload != null && payload.refCnt() > 0) {
+            ReferenceCountUtil.safeRelease(payload);
+        }
+    }
+
+    /**
+     * 只释放零拷贝模式下的池化数据.非池化数据(如vertx的Buffer)可能在解码完成后仍被协议包持有,不释放.
+     *
+     * @since 2.11
+     */
+    public void releasePooled() {
+        if (pooled) {
+            release();
+        }
+    }
 
     @Override
     public String toString() {
-        if (payload == null || !payload.isReadable()) {
+        if (payload == null || payload.refCnt() <= 0 || !payload.isReadable()) {
             return "<released>";
         }
         return ByteBufUtil.prettyHexDump(payload);
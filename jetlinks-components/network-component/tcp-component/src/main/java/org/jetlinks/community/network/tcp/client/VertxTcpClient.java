@@ -16,11 +16,13 @@
 package org.jetlinks.community.network.tcp.client;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.util.ReferenceCountUtil;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.NetSocket;
 import io.vertx.core.net.SocketAddress;
+import io.vertx.core.net.impl.NetSocketInternal;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -65,6 +67,15 @@ public class VertxTcpClient implements TcpClient {
 
     private final boolean serverClient;
 
+    /**
+     * 零拷贝模式,开启后直接使用socket读取的{@link ByteBuf}进行解析,
+     * 输出的{@link TcpMessage#getPayload()}为池化的数据,订阅者处理完成后需要调用{@link TcpMessage#release()}释放.
+     *
+     * @since 2.11
+     */
+    @Setter
+    private boolean zeroCopy;
+
     @Override
     public void keepAlive() {
         lastKeepAliveTime = System.currentTimeMillis();
@@ -138,7 +149,15 @@ public class VertxTcpClient implements TcpClient {
     }
 
     protected void received(TcpMessage message) {
-        sink.emitNext(message,Reactors.RETRY_NON_SERIALIZED);
+        //没有订阅者时缓冲在sink中,订阅者可能在连接建立后异步订阅(如网关获取协议后),不能丢弃登录等首包
+        Sinks.EmitResult result;
+        while ((result = sink.tryEmitNext(message)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        //已关闭等情况无法缓冲,释放数据
+        if (result.isFailure() && zeroCopy) {
+            message.release();
+        }
     }
 
     @Override
@@ -194,6 +213,19 @@ public class VertxTcpClient implements TcpClient {
         disconnectListener.clear();
         if (serverClient) {
             sink.tryEmitComplete();
+            releaseBuffered();
+        }
+    }
+
+    /**
+     * 零拷贝模式下,连接关闭时仍没有订阅者,则释放缓冲在sink中的数据.
+     * sink已完成,此时订阅会先收到缓冲的数据再收到完成信号.
+     */
+    private void releaseBuffered() {
+        if (zeroCopy && sink.currentSubscriberCount() == 0) {
+            sink.asFlux()
+                .subscribe(TcpMessage::release,
+                           err -> log.warn("release tcp client [{}] buffer error", getId(), err));
         }
     }
 
@@ -211,9 +243,15 @@ public class VertxTcpClient implements TcpClient {
                 this.payloadParser.close();
             }
             this.payloadParser = payloadParser;
-            this.payloadParser
-                .handlePayload()
-                .subscribe(buffer -> received(new TcpMessage(buffer.getByteBuf())));
+            if (zeroCopy) {
+                this.payloadParser
+                    .handleByteBufPayload()
+                    .subscribe(buffer -> received(TcpMessage.pooled(buffer)));
+            } else {
+                this.payloadParser
+                    .handlePayload()
+                    .subscribe(buffer -> received(new TcpMessage(buffer.getByteBuf())));
+            }
         }
     }
 
@@ -223,9 +261,18 @@ public class VertxTcpClient implements TcpClient {
             if (this.socket != null && this.socket != socket) {
                 this.socket.close();
             }
-            this.socket = socket
-                .closeHandler(v -> shutdown())
-                .handler(buffer -> {
+            this.socket = socket.closeHandler(v -> shutdown());
+            if (zeroCopy && socket instanceof NetSocketInternal) {
+                //直接处理socket读取的ByteBuf,不再拷贝为Buffer
+                ((NetSocketInternal) socket).messageHandler(msg -> {
+                    if (msg instanceof ByteBuf) {
+                        handleByteBuf(socket, (ByteBuf) msg);
+                    } else {
+                        ReferenceCountUtil.safeRelease(msg);
+                    }
+                });
+            } else {
+                socket.handler(buffer -> {
                     if (log.isDebugEnabled()) {
                         log.debug("handle tcp client[{}] payload:[{}]",
                                   socket.remoteAddress(),
@@ -233,11 +280,33 @@ public class VertxTcpClient implements TcpClient {
                     }
                     keepAlive();
                     payloadParser.handle(buffer);
-                    if (this.socket != null && this.socket != socket) {
-                        log.warn("tcp client [{}] memory leak ", socket.remoteAddress());
-                        socket.close();
-                    }
+                    checkSocket(socket);
                 });
+            }
+        }
+    }
+
+    private void handleByteBuf(NetSocket socket, ByteBuf buffer) {
+        PayloadParser parser = this.payloadParser;
+        if (parser == null) {
+            ReferenceCountUtil.safeRelease(buffer);
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("handle tcp client[{}] payload:[{}]",
+                      socket.remoteAddress(),
+                      ByteBufUtil.hexDump(buffer));
+        }
+        keepAlive();
+        //由解析器负责释放
+        parser.handleByteBuf(buffer);
+        checkSocket(socket);
+    }
+
+    private void checkSocket(NetSocket socket) {
+        if (this.socket != null && this.socket != socket) {
+            log.warn("tcp client [{}] memory leak ", socket.remoteAddress());
+            socket.close();
         }
     }
 
@@ -149,6 +149,8 @@ class TcpServerDeviceGateway extends AbstractDeviceGateway implements DeviceGate
                         .subscribe()
                         .filter(tcp -> started.get())
                         .concatMap(this::handleTcpMessage)
+                        //未处理的零拷贝数据(网关停止,连接断开)也需要释放
+                        .doOnDiscard(TcpMessage.class, TcpMessage::releasePooled)
                         .onErrorResume((err) -> {
                             log.error(err.getMessage(), err);
                             client.shutdown();
@@ -178,6 +180,8 @@ class TcpServerDeviceGateway extends AbstractDeviceGateway implements DeviceGate
                     return Mono.fromRunnable(client::reset);
                 })
                 .subscribeOn(Schedulers.parallel())
+                //解码完成后释放零拷贝模式下的池化数据,非零拷贝模式保持原有行为,不释放
+                .doFinally(ignore -> message.releasePooled())
                 .then();
         }
 
@@ -19,6 +19,7 @@ import org.jetlinks.community.ValueObject;
 import org.jetlinks.community.network.tcp.parser.strateies.DelimitedPayloadParserBuilder;
 import org.jetlinks.community.network.tcp.parser.strateies.DirectPayloadParserBuilder;
 import org.jetlinks.community.network.tcp.parser.strateies.FixLengthPayloadParserBuilder;
+import org.jetlinks.community.network.tcp.parser.strateies.FramePayloadParserBuilder;
 import org.jetlinks.community.network.tcp.parser.strateies.ScriptPayloadParserBuilder;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
@@ -41,6 +42,7 @@ public class DefaultPayloadParserBuilder implements PayloadParserBuilder, BeanPo
         register(new ScriptPayloadParserBuilder());
         register(new DirectPayloadParserBuilder());
         register(new LengthFieldPayloadParserBuilder());
+        register(new FramePayloadParserBuilder());
     }
     @Override
     public Supplier<PayloadParser> build(PayloadParserType type, ValueObject configuration) {
@@ -15,6 +15,9 @@
  */
 package org.jetlinks.community.network.tcp.parser;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCountUtil;
 import io.vertx.core.buffer.Buffer;
 import org.jetlinks.community.network.tcp.parser.strateies.DelimitedPayloadParserBuilder;
 import org.jetlinks.community.network.tcp.parser.strateies.FixLengthPayloadParserBuilder;
@@ -46,6 +49,35 @@ public interface PayloadParser {
      */
     Flux<Buffer> handlePayload();
 
+    /**
+     * 处理一个{@link ByteBuf}数据包,调用后数据包的所有权转移给解析器,由解析器负责释放.
+     * <p>
+     * 默认将数据拷贝为{@link Buffer}后调用{@link #handle(Buffer)},支持零拷贝的解析器应重写此方法.
+     *
+     * @param buffer 数据包
+     * @see #handleByteBufPayload()
+     * @since 2.11
+     */
+    default void handleByteBuf(ByteBuf buffer) {
+        try {
+            handle(Buffer.buffer(ByteBufUtil.getBytes(buffer)));
+        } finally {
+            ReferenceCountUtil.safeRelease(buffer);
+        }
+    }
+
+    /**
+     * 订阅完整的{@link ByteBuf}数据包流,订阅者获得数据包的所有权,使用完成后需要释放.
+     * <p>
+     * 与{@link #handlePayload()}只能订阅其中一个.
+     *
+     * @return 完整数据包流
+     * @since 2.11
+     */
+    default Flux<ByteBuf> handleByteBufPayload() {
+        return handlePayload().map(Buffer::getByteBuf);
+    }
+
     /**
      * 关闭以释放相关资源
      */
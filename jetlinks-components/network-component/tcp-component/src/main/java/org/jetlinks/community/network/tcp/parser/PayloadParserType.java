@@ -19,6 +19,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.hswebframework.web.dict.Dict;
 import org.hswebframework.web.dict.EnumDict;
+import org.jetlinks.community.network.tcp.parser.strateies.FramePayloadParserBuilder;
+import org.jetlinks.community.network.tcp.parser.strateies.FrameSpec;
 import org.jetlinks.community.network.tcp.parser.strateies.PipePayloadParser;
 import org.jetlinks.community.network.tcp.parser.strateies.ScriptPayloadParserBuilder;
 
@@ -39,6 +41,12 @@ public enum PayloadParserType implements EnumDict<String> {
      */
     SCRIPT("自定义脚本"),
     LENGTH_FIELD("长度字段"),
+
+    /**
+     * @see FramePayloadParserBuilder
+     * @see FrameSpec
+     */
+    FRAME("帧规则"),
     ;
 
     private final String text;
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.tcp.parser.strateies;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.vertx.core.buffer.Buffer;
+import lombok.extern.slf4j.Slf4j;
+import org.jetlinks.community.network.tcp.parser.PayloadParser;
+import org.jetlinks.core.utils.Reactors;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 根据{@link FrameSpec}进行粘拆包处理的解析器.
+ * <p>
+ * 未读取完整的数据保存在{@link ByteBuf}中累积,每个阶段只记录读取的位置,不会对数据进行拷贝,
+ * 分隔符查找会从上一次查找结束的位置继续,避免重复扫描.
+ * <p>
+ * 通过{@link #handleByteBufPayload()}订阅时,输出的数据帧为累积数据的{@link ByteBuf#retainedSlice(int, int)},
+ * 不会拷贝数据,订阅者使用完成后需要释放.
+ * <p>
+ * 同一个连接的数据需要在同一个线程中处理,解析器本身不是线程安全的.
+ *
+ * @author zhouhao
+ * @see FramePayloadParserBuilder
+ * @since 2.11
+ */
+@Slf4j
+public class FramePayloadParser implements PayloadParser {
+
+    private final FrameSpec spec;
+
+    private final ByteBufAllocator alloc;
+
+    private final Sinks.Many<ByteBuf> sink = Reactors.createMany();
+
+    //累积的数据,readerIndex为当前数据帧的开始位置
+    private ByteBuf cumulation;
+
+    //当前阶段
+    private int stage;
+
+    //当前数据帧已读取的长度
+    private int offset;
+
+    //lengthField阶段: 需要读取的长度,-1表示还未读取到长度字段
+    private long need = -1;
+
+    //delimited阶段: 下一次查找分隔符的开始位置(相对于数据帧开始位置)
+    private int scanFrom;
+
+    public FramePayloadParser(FrameSpec spec) {
+        this(spec, ByteBufAllocator.DEFAULT);
+    }
+
+    public FramePayloadParser(FrameSpec spec, ByteBufAllocator alloc) {
+        this.spec = spec;
+        this.alloc = alloc;
+    }
+
+    @Override
+    public void handle(Buffer buffer) {
+        decode(buffer.getByteBuf());
+    }
+
+    @Override
+    public void handleByteBuf(ByteBuf buffer) {
+        try {
+            decode(buffer);
+        } finally {
+            ReferenceCountUtil.safeRelease(buffer);
+        }
+    }
+
+    /**
+     * 处理数据,不会释放传入的数据,输出的数据帧可能会引用传入的数据
+     *
+     * @param in 数据
+     */
+    void decode(ByteBuf in) {
+        if (!in.isReadable()) {
+            return;
+        }
+        if (cumulation != null) {
+            if (cumulation.refCnt() > 1 && cumulation.writableBytes() < in.readableBytes()) {
+                //数据帧还在引用累积的数据,扩容时使用新的缓冲区,避免重新分配正在被读取的内存
+                ByteBuf old = cumulation;
+                cumulation = alloc.buffer(old.readableBytes() + in.readableBytes());
+                cumulation.writeBytes(old, old.readerIndex(), old.readableBytes());
+                old.release();
+            }
+            cumulation.writeBytes(in, in.readerIndex(), in.readableBytes());
+            if (tryDecode(cumulation)) {
+                if (!cumulation.isReadable()) {
+                    releaseCumulation();
+                } else if (cumulation.refCnt() == 1) {
+                    cumulation.discardSomeReadBytes();
+                }
+            }
+            return;
+        }
+        //没有累积的数据时直接在传入的数据上解析,剩余的数据再拷贝
+        int readerIndex = in.readerIndex();
+        try {
+            if (tryDecode(in) && in.isReadable()) {
+                cumulation = alloc.buffer(Math.max(in.readableBytes(), 256));
+                cumulation.writeBytes(in, in.readerIndex(), in.readableBytes());
+            }
+        } finally {
+            in.readerIndex(readerIndex);
+        }
+    }
+
+    private boolean tryDecode(ByteBuf buf) {
+        try {
+            decodeFrames(buf);
+            return true;
+        } catch (Throwable error) {
+            log.warn("decode tcp frame error", error);
+            discard();
+            return false;
+        }
+    }
+
+    private void decodeFrames(ByteBuf buf) {
+        FrameSpec.Stage[] stages = spec.stages;
+        int start = buf.readerIndex();
+        while (true) {
+            int available = buf.writerIndex() - start;
+            FrameSpec.Stage current = stages[stage];
+            int stripLength = 0;
+            switch (current.type) {
+                case fixed:
+                    if (available - offset < current.length) {
+                        checkFrameLength(available);
+                        return;
+                    }
+                    offset += current.length;
+                    break;
+                case lengthField:
+                    if (need < 0) {
+                        int header = current.headerLength();
+                        if (available - offset < header) {
+                            checkFrameLength(available);
+                            return;
+                        }
+                        need = header + current.readLength(buf, start + offset) + current.adjust;
+                        if (need < header || offset + need > spec.maxFrameLength) {
+                            throw new IllegalStateException("illegal frame length:" + (offset + need));
+                        }
+                    }
+                    if (available - offset < need) {
+                        checkFrameLength(available);
+                        return;
+                    }
+                    offset += (int) need;
+                    need = -1;
+                    break;
+                default: {
+                    int from = start + Math.max(offset, scanFrom);
+                    int idx = current.indexOf(buf, from, buf.writerIndex());
+                    if (idx < 0) {
+                        //下次从可能匹配分隔符的位置继续查找
+                        scanFrom = Math.max(offset, available - current.delimiter.length + 1);
+                        checkFrameLength(available);
+                        return;
+                    }
+                    offset = idx - start + current.delimiter.length;
+                    scanFrom = 0;
+                    if (current.strip) {
+                        stripLength = current.delimiter.length;
+                    }
+                }
+            }
+            if (offset > spec.maxFrameLength) {
+                throw new IllegalStateException("frame length exceeds " + spec.maxFrameLength);
+            }
+            if (++stage < stages.length) {
+                continue;
+            }
+            //所有阶段读取完成
+            emit(buf, start, offset - stripLength);
+            start += offset;
+            buf.readerIndex(start);
+            stage = 0;
+            offset = 0;
+        }
+    }
+
+    private void checkFrameLength(int available) {
+        if (available > spec.maxFrameLength) {
+            throw new IllegalStateException("frame length exceeds " + spec.maxFrameLength);
+        }
+    }
+
+    private void emit(ByteBuf buf, int index, int length) {
+        ByteBuf frame = buf.retainedSlice(index, length);
+        if (sink.tryEmitNext(frame).isFailure()) {
+            frame.release();
+        }
+    }
+
+    //丢弃全部未处理的数据
+    private void discard() {
+        releaseCumulation();
+        stage = 0;
+        offset = 0;
+        need = -1;
+        scanFrom = 0;
+    }
+
+    private void releaseCumulation() {
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    @Override
+    public Flux<Buffer> handlePayload() {
+        return sink
+            .asFlux()
+            .map(frame -> {
+                try {
+                    return Buffer.buffer(ByteBufUtil.getBytes(frame));
+                } finally {
+                    frame.release();
+                }
+            });
+    }
+
+    @Override
+    public Flux<ByteBuf> handleByteBufPayload() {
+        return sink.asFlux();
+    }
+
+    @Override
+    public void reset() {
+        discard();
+    }
+
+    @Override
+    public void close() {
+        discard();
+        sink.tryEmitComplete();
+    }
+}
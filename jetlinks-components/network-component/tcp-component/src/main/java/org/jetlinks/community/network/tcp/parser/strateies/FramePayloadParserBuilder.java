@@ -0,0 +1,44 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.tcp.parser.strateies;
+
+import org.jetlinks.community.ValueObject;
+import org.jetlinks.community.network.tcp.parser.PayloadParser;
+import org.jetlinks.community.network.tcp.parser.PayloadParserBuilderStrategy;
+import org.jetlinks.community.network.tcp.parser.PayloadParserType;
+
+import java.util.function.Supplier;
+
+/**
+ * 声明式帧规则解析器构造器,规则只在构造时编译一次,每个连接创建一个{@link FramePayloadParser}.
+ *
+ * @author zhouhao
+ * @see FrameSpec
+ * @since 2.11
+ */
+public class FramePayloadParserBuilder implements PayloadParserBuilderStrategy {
+
+    @Override
+    public PayloadParserType getType() {
+        return PayloadParserType.FRAME;
+    }
+
+    @Override
+    public Supplier<PayloadParser> buildLazy(ValueObject config) {
+        FrameSpec spec = FrameSpec.compile(config);
+        return () -> new FramePayloadParser(spec);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.tcp.parser.strateies;
+
+import com.alibaba.fastjson.JSON;
+import io.netty.buffer.ByteBuf;
+import lombok.SneakyThrows;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.text.StringEscapeUtils;
+import org.jetlinks.community.ValueObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 声明式帧规则,由多个阶段组成,按顺序读取每个阶段的数据,所有阶段读取完成后输出一个完整的数据帧.
+ * <p>
+ * 规则在创建网络组件时编译一次,每个连接只维护读取状态,不再需要执行脚本.
+ *
+ * <pre>{@code
+ * {
+ *   "maxFrameLength": 65536,
+ *   "stages": [
+ *     {"type": "fixed", "length": 2},
+ *     {"type": "lengthField", "offset": 0, "length": 2, "little": false, "adjust": 0},
+ *     {"type": "delimited", "delimiter": "0x0D0A"}
+ *   ]
+ * }
+ * }</pre>
+ *
+ * <ul>
+ *     <li>fixed: 读取固定长度</li>
+ *     <li>delimited: 读取到分隔符为止,最后一个阶段时默认不输出分隔符(strip)</li>
+ *     <li>lengthField: 读取offset+length字节的头,解析长度字段后再读取(长度+adjust)字节</li>
+ * </ul>
+ *
+ * @author zhouhao
+ * @see FramePayloadParser
+ * @since 2.11
+ */
+public class FrameSpec {
+
+    static final int DEFAULT_MAX_FRAME_LENGTH = 1024 * 1024;
+
+    enum StageType {
+        fixed,
+        delimited,
+        lengthField
+    }
+
+    final Stage[] stages;
+
+    final int maxFrameLength;
+
+    private FrameSpec(Stage[] stages, int maxFrameLength) {
+        this.stages = stages;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * 根据配置编译规则
+     *
+     * @param config 配置
+     * @return 规则
+     */
+    public static FrameSpec compile(ValueObject config) {
+        List<ValueObject> stageConfigs = parseStages(config.get("stages").orElse(null));
+        if (stageConfigs.isEmpty()) {
+            throw new IllegalArgumentException("stages can not be empty");
+        }
+        Stage[] stages = new Stage[stageConfigs.size()];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = Stage.of(stageConfigs.get(i), i == stages.length - 1);
+        }
+        int maxFrameLength = config.getInt("maxFrameLength", DEFAULT_MAX_FRAME_LENGTH);
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("illegal maxFrameLength:" + maxFrameLength);
+        }
+        return new FrameSpec(stages, maxFrameLength);
+    }
+
+    @SuppressWarnings("all")
+    private static List<ValueObject> parseStages(Object value) {
+        if (value instanceof String) {
+            value = JSON.parseArray((String) value);
+        }
+        List<ValueObject> stages = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object stage : ((Collection<?>) value)) {
+                if (stage instanceof Map) {
+                    stages.add(ValueObject.of((Map<String, ?>) stage));
+                } else {
+                    throw new IllegalArgumentException("illegal stage:" + stage);
+                }
+            }
+        }
+        return stages;
+    }
+
+    static class Stage {
+        final StageType type;
+
+        //fixed: 长度, lengthField: 长度字段字节数
+        final int length;
+
+        //lengthField
+        final int offset;
+        final boolean little;
+        final int adjust;
+
+        //delimited
+        final byte[] delimiter;
+        final boolean strip;
+
+        private Stage(StageType type,
+                      int length,
+                      int offset,
+                      boolean little,
+                      int adjust,
+                      byte[] delimiter,
+                      boolean strip) {
+            this.type = type;
+            this.length = length;
+            this.offset = offset;
+            this.little = little;
+            this.adjust = adjust;
+            this.delimiter = delimiter;
+            this.strip = strip;
+        }
+
+        static Stage of(ValueObject config, boolean last) {
+            StageType type = config
+                .getString("type")
+                .map(StageType::valueOf)
+                .orElseThrow(() -> new IllegalArgumentException("stage type can not be null"));
+            switch (type) {
+                case fixed: {
+                    int length = config
+                        .getInt("length")
+                        .orElseThrow(() -> new IllegalArgumentException("fixed length can not be null"));
+                    if (length <= 0) {
+                        throw new IllegalArgumentException("illegal fixed length:" + length);
+                    }
+                    return new Stage(type, length, 0, false, 0, null, false);
+                }
+                case delimited: {
+                    byte[] delimiter = parseDelimiter(
+                        config.getString("delimiter")
+                              .orElseThrow(() -> new IllegalArgumentException("delimiter can not be null")));
+                    //只有最后一个阶段才能去掉分隔符,否则数据帧不连续
+                    boolean strip = last && config.getBoolean("strip", true);
+                    return new Stage(type, 0, 0, false, 0, delimiter, strip);
+                }
+                default: {
+                    int length = config.getInt("length", 4);
+                    switch (length) {
+                        case 1:
+                        case 2:
+                        case 3:
+                        case 4:
+                        case 8:
+                            break;
+                        default:
+                            throw new IllegalArgumentException("illegal length:" + length);
+                    }
+                    int offset = config.getInt("offset", 0);
+                    if (offset < 0) {
+                        throw new IllegalArgumentException("illegal offset:" + offset);
+                    }
+                    return new Stage(type,
+                                     length,
+                                     offset,
+                                     config.getBoolean("little", false),
+                                     config.getInt("adjust", 0),
+                                     null,
+                                     false);
+                }
+            }
+        }
+
+        @SneakyThrows
+        private static byte[] parseDelimiter(String delimiter) {
+            delimiter = delimiter.trim();
+            byte[] bytes = delimiter.startsWith("0x")
+                ? Hex.decodeHex(delimiter.substring(2))
+                : StringEscapeUtils.unescapeJava(delimiter).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException("delimiter can not be empty");
+            }
+            return bytes;
+        }
+
+        //lengthField: 头部长度
+        int headerLength() {
+            return offset + length;
+        }
+
+        //lengthField: 读取长度字段
+        long readLength(ByteBuf buf, int index) {
+            index += offset;
+            switch (length) {
+                case 1:
+                    return buf.getUnsignedByte(index);
+                case 2:
+                    return little ? buf.getUnsignedShortLE(index) : buf.getUnsignedShort(index);
+                case 3:
+                    return little ? buf.getUnsignedMediumLE(index) : buf.getUnsignedMedium(index);
+                case 4:
+                    return little ? buf.getUnsignedIntLE(index) : buf.getUnsignedInt(index);
+                default:
+                    return little ? buf.getLongLE(index) : buf.getLong(index);
+            }
+        }
+
+        //delimited: 从指定位置查找分隔符,返回分隔符的位置,未找到返回-1
+        int indexOf(ByteBuf buf, int from, int to) {
+            byte first = delimiter[0];
+            int last = to - delimiter.length;
+            while (from <= last) {
+                int idx = buf.indexOf(from, last + 1, first);
+                if (idx < 0) {
+                    return -1;
+                }
+                if (matches(buf, idx)) {
+                    return idx;
+                }
+                from = idx + 1;
+            }
+            return -1;
+        }
+
+        private boolean matches(ByteBuf buf, int index) {
+            for (int i = 1; i < delimiter.length; i++) {
+                if (buf.getByte(index + i) != delimiter[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -143,9 +143,19 @@ public class PipePayloadParser implements PayloadParser {
             firstInit.accept(recordParser);
         }
         if (!this.result.isEmpty()) {
-            Buffer buffer = Buffer.buffer();
-            for (Buffer buf : this.result) {
-                buffer.appendBuffer(buf);
+            Buffer buffer;
+            if (this.result.size() == 1) {
+                //只有一个结果时直接输出,不再拷贝
+                buffer = this.result.get(0);
+            } else {
+                int length = 0;
+                for (Buffer buf : this.result) {
+                    length += buf.length();
+                }
+                buffer = Buffer.buffer(length);
+                for (Buffer buf : this.result) {
+                    buffer.appendBuffer(buf);
+                }
             }
             this.result.clear();
             sink.emitNext(buffer, Reactors.emitFailureHandler());
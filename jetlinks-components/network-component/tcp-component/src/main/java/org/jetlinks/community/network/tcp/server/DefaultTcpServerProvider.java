@@ -98,6 +98,7 @@ public class DefaultTcpServerProvider implements NetworkProvider<TcpServerProper
                 parserSupplier.get();
 
                 tcpServer.setParserSupplier(parserSupplier);
+                tcpServer.setZeroCopy(properties.isZeroCopy());
                 tcpServer.setServer(instances);
                 tcpServer.setKeepAliveTimeout(properties.getLong("keepAliveTimeout", Duration
                     .ofMinutes(10)
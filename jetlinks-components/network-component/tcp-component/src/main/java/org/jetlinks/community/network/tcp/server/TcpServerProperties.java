@@ -46,6 +46,9 @@ public class TcpServerProperties extends AbstractServerNetworkConfig implements
 
     private boolean tcpKeepAlive = false;
 
+    //零拷贝模式,数据包由设备网关解码后释放,用于高吞吐量的二进制协议
+    private boolean zeroCopy = false;
+
     //服务实例数量(线程数)
     private int instance = Runtime.getRuntime().availableProcessors();
 
@@ -49,6 +49,12 @@ public class VertxTcpServer implements TcpServer {
     @Setter
     private long keepAliveTimeout = Duration.ofMinutes(10).toMillis();
 
+    /**
+     * @see VertxTcpClient#setZeroCopy(boolean)
+     */
+    @Setter
+    private boolean zeroCopy;
+
     @Getter
     private final String id;
 
@@ -108,6 +114,7 @@ public class VertxTcpServer implements TcpServer {
         }
         VertxTcpClient client = new VertxTcpClient(id + "_" + socket.remoteAddress());
         client.setKeepAliveTimeoutMs(keepAliveTimeout);
+        client.setZeroCopy(zeroCopy);
         try {
             socket.exceptionHandler(err -> {
                 log.error("tcp server client [{}] error", socket.remoteAddress(), err);
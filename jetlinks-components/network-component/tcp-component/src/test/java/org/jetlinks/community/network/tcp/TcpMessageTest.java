@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+class TcpMessageTest {
+
+    @Test
+    void testReleasePooled() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer().writeByte(1);
+        TcpMessage message = TcpMessage.pooled(buf);
+        Assert.assertTrue(message.isPooled());
+
+        message.releasePooled();
+        Assert.assertEquals(0, buf.refCnt());
+        //重复释放时忽略
+        message.releasePooled();
+    }
+
+    @Test
+    void testNotReleaseUnpooled() {
+        //非零拷贝模式下使用vertx Buffer中的数据,解码完成后仍可能被协议包持有
+        Buffer buffer = Buffer.buffer("hello");
+        TcpMessage message = new TcpMessage(buffer.getByteBuf());
+        Assert.assertFalse(message.isPooled());
+
+        message.releasePooled();
+        Assert.assertEquals("hello", buffer.toString());
+        Assert.assertTrue(message.getPayload().refCnt() > 0);
+    }
+}
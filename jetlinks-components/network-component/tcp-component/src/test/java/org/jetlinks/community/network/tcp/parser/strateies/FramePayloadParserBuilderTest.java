@@ -0,0 +1,212 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.tcp.parser.strateies;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+import org.jetlinks.community.ValueObject;
+import org.jetlinks.community.network.tcp.parser.PayloadParser;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+class FramePayloadParserBuilderTest {
+
+    private PayloadParser build(int maxFrameLength, Map<String, Object>... stages) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("stages", Arrays.asList(stages));
+        config.put("maxFrameLength", maxFrameLength);
+        return new FramePayloadParserBuilder().build(ValueObject.of(config));
+    }
+
+    private static Map<String, Object> stage(Object... kv) {
+        Map<String, Object> stage = new HashMap<>();
+        for (int i = 0; i < kv.length; i += 2) {
+            stage.put(String.valueOf(kv[i]), kv[i + 1]);
+        }
+        return stage;
+    }
+
+    private static List<String> collect(PayloadParser parser) {
+        List<String> arr = new ArrayList<>();
+        parser.handlePayload()
+              .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+              .subscribe(arr::add);
+        return arr;
+    }
+
+    @Test
+    void testFixedAndLengthField() {
+        PayloadParser parser = build(1024,
+                                     stage("type", "fixed", "length", 2),
+                                     stage("type", "lengthField", "length", 1));
+        List<String> arr = collect(parser);
+
+        parser.handle(Buffer.buffer("AB").appendByte((byte) 3).appendString("1"));
+        parser.handle(Buffer.buffer("23CD").appendByte((byte) 2));
+        parser.handle(Buffer.buffer("45"));
+
+        Assert.assertArrayEquals(arr.toArray(), new Object[]{
+            "AB\u0003123", "CD\u000245"
+        });
+    }
+
+    @Test
+    void testLengthFieldAdjust() {
+        //2字节头 + 2字节小端长度,长度包含头
+        PayloadParser parser = build(1024,
+                                     stage("type", "lengthField",
+                                           "offset", 2, "length", 2, "little", true, "adjust", -4));
+        List<String> arr = collect(parser);
+
+        parser.handle(Buffer.buffer("HH").appendShortLE((short) 7).appendString("12"));
+        parser.handle(Buffer.buffer("3"));
+
+        Assert.assertEquals(1, arr.size());
+        Assert.assertTrue(arr.get(0).endsWith("123"));
+    }
+
+    @Test
+    void testDelimited() {
+        PayloadParser parser = build(1024, stage("type", "delimited", "delimiter", "\\r\\n"));
+        List<String> arr = collect(parser);
+
+        parser.handle(Buffer.buffer("123\r"));
+        parser.handle(Buffer.buffer("\n45"));
+        parser.handle(Buffer.buffer("6\r\n789\r\n"));
+
+        Assert.assertArrayEquals(arr.toArray(), new Object[]{
+            "123", "456", "789"
+        });
+    }
+
+    @Test
+    void testComposite() {
+        PayloadParser parser = build(1024,
+                                     stage("type", "fixed", "length", 1),
+                                     stage("type", "delimited", "delimiter", "0x2323", "strip", false));
+        List<String> arr = collect(parser);
+
+        parser.handle(Buffer.buffer("#ab#"));
+        parser.handle(Buffer.buffer("#@cd##"));
+
+        Assert.assertArrayEquals(arr.toArray(), new Object[]{
+            "#ab##", "@cd##"
+        });
+    }
+
+    @Test
+    void testMaxFrameLength() {
+        PayloadParser parser = build(4, stage("type", "delimited", "delimiter", "@"));
+        List<String> arr = collect(parser);
+
+        parser.handle(Buffer.buffer("12345"));
+        parser.handle(Buffer.buffer("ab@"));
+
+        Assert.assertArrayEquals(arr.toArray(), new Object[]{
+            "ab"
+        });
+    }
+
+    @Test
+    void testByteBufRelease() {
+        List<ByteBuf> allocated = new ArrayList<>();
+        UnpooledByteBufAllocator alloc = new UnpooledByteBufAllocator(false) {
+            @Override
+            protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+                ByteBuf buf = super.newHeapBuffer(initialCapacity, maxCapacity);
+                allocated.add(buf);
+                return buf;
+            }
+        };
+        Map<String, Object> config = new HashMap<>();
+        config.put("stages", Collections.singletonList(stage("type", "lengthField", "length", 2)));
+        FramePayloadParser parser = new FramePayloadParser(FrameSpec.compile(ValueObject.of(config)), alloc);
+
+        //数据帧在处理后续数据时不释放
+        List<ByteBuf> frames = new ArrayList<>();
+        parser.handleByteBufPayload().subscribe(frames::add);
+
+        byte[] large = new byte[400];
+        Arrays.fill(large, (byte) 'x');
+        List<ByteBuf> inputs = Arrays.asList(
+            Unpooled.buffer().writeShort(1).writeByte('a').writeShort(5).writeByte('b'),
+            Unpooled.buffer().writeBytes("cdef".getBytes()).writeShort(large.length).writeBytes(large, 0, 100),
+            //累积的数据被数据帧引用时扩容
+            Unpooled.buffer().writeBytes(large, 100, 300).writeShort(1).writeByte('z')
+        );
+        for (ByteBuf input : inputs) {
+            parser.handleByteBuf(input);
+        }
+
+        Assert.assertEquals(4, frames.size());
+        Assert.assertArrayEquals(
+            frames.stream().map(ByteBufUtil::hexDump).toArray(),
+            new Object[]{
+                "000161",
+                "00056263646566",
+                "0190" + ByteBufUtil.hexDump(large),
+                "00017a"
+            });
+
+        for (ByteBuf frame : frames) {
+            frame.release();
+        }
+        parser.close();
+
+        Assert.assertEquals(Collections.emptyList(),
+                            inputs.stream().filter(buf -> buf.refCnt() > 0).collect(Collectors.toList()));
+        Assert.assertFalse(allocated.isEmpty());
+        Assert.assertEquals(Collections.emptyList(),
+                            allocated.stream().filter(buf -> buf.refCnt() > 0).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testByteBufReleaseOnDiscard() {
+        List<ByteBuf> allocated = new ArrayList<>();
+        UnpooledByteBufAllocator alloc = new UnpooledByteBufAllocator(false) {
+            @Override
+            protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+                ByteBuf buf = super.newHeapBuffer(initialCapacity, maxCapacity);
+                allocated.add(buf);
+                return buf;
+            }
+        };
+        Map<String, Object> config = new HashMap<>();
+        config.put("stages", Collections.singletonList(stage("type", "delimited", "delimiter", "@")));
+        FramePayloadParser parser = new FramePayloadParser(FrameSpec.compile(ValueObject.of(config)), alloc);
+        List<String> arr = collect(parser);
+
+        ByteBuf first = Unpooled.copiedBuffer("12@34", StandardCharsets.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer("56", StandardCharsets.UTF_8);
+        parser.handleByteBuf(first);
+        parser.handleByteBuf(second);
+        //未完成的数据在关闭时释放
+        parser.close();
+
+        Assert.assertArrayEquals(arr.toArray(), new Object[]{"12"});
+        Assert.assertEquals(0, first.refCnt());
+        Assert.assertEquals(0, second.refCnt());
+        Assert.assertEquals(1, allocated.size());
+        Assert.assertEquals(0, allocated.get(0).refCnt());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.network.tcp.server;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+import org.jetlinks.community.ValueObject;
+import org.jetlinks.community.network.tcp.TcpMessage;
+import org.jetlinks.community.network.tcp.client.TcpClient;
+import org.jetlinks.community.network.tcp.parser.strateies.FramePayloadParserBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class VertxTcpServerTest {
+
+    @Test
+    void testZeroCopyRelease() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            Map<String, Object> stage = new HashMap<>();
+            stage.put("type", "delimited");
+            stage.put("delimiter", "\\n");
+            Map<String, Object> config = new HashMap<>();
+            config.put("stages", Collections.singletonList(stage));
+
+            VertxTcpServer server = new VertxTcpServer("test");
+            server.setZeroCopy(true);
+            server.setParserSupplier(new FramePayloadParserBuilder().buildLazy(ValueObject.of(config)));
+            NetServer netServer = vertx.createNetServer();
+            server.setServer(Collections.singletonList(netServer));
+            int port = netServer
+                .listen(0, "127.0.0.1")
+                .toCompletionStage()
+                .toCompletableFuture()
+                .get(10, TimeUnit.SECONDS)
+                .actualPort();
+
+            List<ByteBuf> payloads = Collections.synchronizedList(new ArrayList<>());
+            //处理完成后释放
+            CompletableFuture<List<String>> result = server
+                .handleConnection()
+                .flatMap(TcpClient::subscribe)
+                .take(3)
+                .map(msg -> {
+                    payloads.add(msg.getPayload());
+                    String str = msg.getPayload().toString(StandardCharsets.UTF_8);
+                    msg.release();
+                    return str;
+                })
+                .collectList()
+                .timeout(Duration.ofSeconds(10))
+                .toFuture();
+
+            NetSocket socket = vertx
+                .createNetClient()
+                .connect(port, "127.0.0.1")
+                .toCompletionStage()
+                .toCompletableFuture()
+                .get(10, TimeUnit.SECONDS);
+            socket.write(Buffer.buffer("hello\nwor"));
+            socket.write(Buffer.buffer("ld\n"));
+            socket.write(Buffer.buffer("jetlinks\n"));
+
+            Assert.assertEquals(Arrays.asList("hello", "world", "jetlinks"), result.get(10, TimeUnit.SECONDS));
+            socket.close();
+            server.shutdown();
+
+            Assert.assertEquals(3, payloads.size());
+            for (ByteBuf payload : payloads) {
+                Assert.assertEquals(0, payload.refCnt());
+            }
+            Assert.assertEquals("<released>", new TcpMessage(payloads.get(0)).toString());
+        } finally {
+            vertx.close();
+        }
+    }
+
+    @Test
+    void testZeroCopyLateSubscribe() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            Map<String, Object> stage = new HashMap<>();
+            stage.put("type", "delimited");
+            stage.put("delimiter", "\\n");
+            Map<String, Object> config = new HashMap<>();
+            config.put("stages", Collections.singletonList(stage));
+
+            VertxTcpServer server = new VertxTcpServer("test");
+            server.setZeroCopy(true);
+            server.setParserSupplier(new FramePayloadParserBuilder().buildLazy(ValueObject.of(config)));
+            NetServer netServer = vertx.createNetServer();
+            server.setServer(Collections.singletonList(netServer));
+            int port = netServer
+                .listen(0, "127.0.0.1")
+                .toCompletionStage()
+                .toCompletableFuture()
+                .get(10, TimeUnit.SECONDS)
+                .actualPort();
+
+            //模拟网关异步获取协议后才订阅,订阅前到达的首包不能丢失
+            CompletableFuture<List<String>> result = server
+                .handleConnection()
+                .flatMap(client -> Mono
+                    .delay(Duration.ofMillis(500))
+                    .thenMany(client.subscribe()))
+                .take(2)
+                .map(msg -> {
+                    String str = msg.getPayload().toString(StandardCharsets.UTF_8);
+                    msg.release();
+                    return str;
+                })
+                .collectList()
+                .timeout(Duration.ofSeconds(10))
+                .toFuture();
+
+            NetSocket socket = vertx
+                .createNetClient()
+                .connect(port, "127.0.0.1")
+                .toCompletionStage()
+                .toCompletableFuture()
+                .get(10, TimeUnit.SECONDS);
+            socket.write(Buffer.buffer("login\n"));
+            socket.write(Buffer.buffer("report\n"));
+
+            Assert.assertEquals(Arrays.asList("login", "report"), result.get(10, TimeUnit.SECONDS));
+            socket.close();
+            server.shutdown();
+        } finally {
+            vertx.close();
+        }
+    }
+}
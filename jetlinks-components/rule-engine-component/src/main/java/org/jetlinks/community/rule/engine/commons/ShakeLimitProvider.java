@@ -58,6 +58,29 @@ public interface ShakeLimitProvider {
     }
 
 
+    /**
+     * 对数据源按指定的分组进行防抖,并输出满足条件的数据.
+     * <p>
+     * 默认使用{@link Flux#groupBy(Function, int)}进行分组,实现类可以直接按分组key处理以避免为每个分组创建订阅.
+     *
+     * @param sourceKey 数据源唯一标识
+     * @param source    数据源
+     * @param grouping  获取分组key的函数
+     * @param limit     防抖条件
+     * @param <T>       数据类型
+     * @return 防抖结果
+     * @since 2.11
+     */
+    default <T> Flux<ShakeLimitResult<T>> shakeLimit(
+        String sourceKey,
+        Flux<T> source,
+        Function<T, String> grouping,
+        ShakeLimit limit) {
+        return shakeLimit(sourceKey,
+                          source.groupBy(grouping, Integer.MAX_VALUE),
+                          limit);
+    }
+
     /**
      * 对指定分组数据源进行防抖,并输出满足条件的数据.
      *
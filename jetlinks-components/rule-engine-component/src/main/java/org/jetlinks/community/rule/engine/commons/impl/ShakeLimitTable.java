@@ -0,0 +1,583 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.rule.engine.commons.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetlinks.community.rule.engine.commons.ShakeLimit;
+import org.jetlinks.community.rule.engine.commons.ShakeLimitFlux;
+import org.jetlinks.community.rule.engine.commons.ShakeLimitResult;
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于分层时间轮的防抖状态表.
+ * <p>
+ * 每个分组key的状态保存在数组的一个槽位中(计数,首次时间,首条/末条数据等),通过开放寻址的索引查找槽位,
+ * 窗口定时使用分层时间轮(每层64个桶)管理,桶内使用数组实现的双向链表,添加和删除定时都是O(1)且不产生额外的对象.
+ * 所有状态表由同一个定时任务驱动,不再为每个分组key创建定时任务.
+ * <p>
+ * 防抖的逻辑与{@link ShakeLimitFlux}保持一致,分组在2倍窗口时间内没有数据时释放槽位.
+ * <p>
+ * 触发的结果在锁内按顺序放入输出队列,释放锁后再推送到下游.窗口到期产生的结果由调度器异步推送,
+ * 避免下游处理阻塞共享的定时任务.
+ *
+ * @author zhouhao
+ * @see TimingWheelShakeLimitProvider
+ * @since 2.11
+ */
+@Slf4j
+class ShakeLimitTable<T> implements Disposable {
+
+    //时间轮刻度(毫秒)
+    static final long TICK = Long.getLong("rule.engine.shake-limit.tick", 100);
+
+    private static final int BITS = 6, BUCKETS = 1 << BITS, MASK = BUCKETS - 1, LEVELS = 4;
+
+    //时间轮最大跨度(刻度数),超过时放到最高层,在降级时重新计算.
+    private static final long MAX_SPAN = 1L << (BITS * LEVELS);
+
+    private static final int NONE = -1;
+
+    private static final List<ShakeLimitTable<?>> tables = new CopyOnWriteArrayList<>();
+
+    private static Disposable ticker;
+
+    private final ShakeLimit limit;
+
+    private final FluxSink<ShakeLimitResult<T>> sink;
+
+    //待输出的结果,在锁内写入,在锁外推送
+    private final Queue<ShakeLimitResult<T>> output = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    //窗口时间(毫秒)
+    private final long window;
+
+    //空闲超时时间(毫秒)
+    private final long idleTimeout;
+
+    //开放寻址索引: 槽位+1,0表示空
+    private int[] index;
+
+    //槽位状态
+    private String[] keys;
+    private long[] count;
+    private long[] firstTime;
+    private long[] lastActive;
+    private long[] deadline;
+    private boolean[] paused;
+    private Object[] first;
+    private Object[] last;
+
+    //时间轮链表,未调度时bucket为NONE,空闲槽位使用next组成空闲链表
+    private int[] next;
+    private int[] prev;
+    private int[] bucket;
+
+    private final int[] buckets = new int[BUCKETS * LEVELS];
+
+    private int size;
+    private int used;
+    private int free = NONE;
+
+    private long currentTick;
+
+    //降级过程中到期的定时需要放到当前桶
+    private boolean cascading;
+
+    private volatile boolean disposed;
+
+    ShakeLimitTable(ShakeLimit limit, FluxSink<ShakeLimitResult<T>> sink) {
+        this(limit, sink, 16);
+    }
+
+    ShakeLimitTable(ShakeLimit limit, FluxSink<ShakeLimitResult<T>> sink, int initialCapacity) {
+        this.limit = limit;
+        this.sink = sink;
+        this.window = TimeUnit.SECONDS.toMillis(limit.getTime());
+        this.idleTimeout = window * 2;
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1);
+        this.index = new int[capacity * 2];
+        allocate(capacity);
+        Arrays.fill(buckets, NONE);
+        this.currentTick = System.currentTimeMillis() / TICK;
+        register(this);
+    }
+
+    /**
+     * 处理数据
+     *
+     * @param key   分组key
+     * @param value 数据
+     */
+    void next(String key, T value) {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            int slot = lookup(key, true);
+            lastActive[slot] = now;
+            //开始窗口定时
+            if (bucket[slot] == NONE) {
+                schedule(slot, now + window);
+            }
+            if (first[slot] == null) {
+                first[slot] = value;
+            }
+            if (firstTime[slot] == 0) {
+                firstTime[slot] = now;
+            }
+            last[slot] = value;
+            long count = ++this.count[slot];
+            //尝试立即触发
+            if (limit.isAlarmFirst()) {
+                if (limit.isRolling()) {
+                    handle(slot, count, false, now);
+                } else if (!paused[slot] && handle(slot, count, false, now)) {
+                    paused[slot] = true;
+                }
+            }
+        }
+        drain();
+    }
+
+    /**
+     * 重置分组,仅连续触发时有效
+     *
+     * @param key 分组key
+     */
+    synchronized void reset(String key) {
+        if (disposed || !limit.isContinuous()) {
+            return;
+        }
+        int slot = lookup(key, false);
+        if (slot != NONE) {
+            reset(slot, true, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 分组结束,尝试触发剩余的数据并释放槽位
+     *
+     * @param key 分组key
+     */
+    void complete(String key) {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            int slot = lookup(key, false);
+            if (slot == NONE) {
+                return;
+            }
+            complete(slot, System.currentTimeMillis());
+            release(slot);
+        }
+        drain();
+    }
+
+    /**
+     * 数据源结束,尝试触发所有分组剩余的数据
+     */
+    void completeAll() {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (int slot = 0; slot < used; slot++) {
+                if (keys[slot] != null) {
+                    complete(slot, now);
+                }
+            }
+        }
+        drain();
+        dispose();
+    }
+
+    /**
+     * 推送输出队列中的结果,同一时刻只有一个线程推送,保证结果的顺序.
+     */
+    void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        for (; ; ) {
+            ShakeLimitResult<T> result;
+            while ((result = output.poll()) != null) {
+                sink.next(result);
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void complete(int slot, long now) {
+        if (paused[slot]) {
+            return;
+        }
+        long count = this.count[slot];
+        this.count[slot] = 0;
+        if (count < limit.getThreshold()) {
+            return;
+        }
+        //没在窗口内
+        if (now - firstTime[slot] <= window) {
+            return;
+        }
+        handle(slot, count, true, now);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean handle(int slot, long count, boolean reset, long now) {
+        //未满足条件
+        if (count < limit.getThreshold()) {
+            if (reset) {
+                reset(slot, true, now);
+            }
+            return false;
+        }
+        //take first or last
+        Object val = limit.isOutputFirst() ? first[slot] : last[slot];
+        String key = keys[slot];
+        reset(slot, reset, now);
+        if (val != null) {
+            output.add(new ShakeLimitResult<>(key, count, (T) val));
+            return true;
+        }
+        return false;
+    }
+
+    private void reset(int slot, boolean force, long now) {
+        if (force) {
+            paused[slot] = false;
+            firstTime[slot] = 0;
+        }
+        count[slot] = 0;
+        first[slot] = null;
+        last[slot] = null;
+        //滚动窗口才重置定时
+        if (limit.isRolling()) {
+            unschedule(slot);
+            schedule(slot, now + window);
+        }
+    }
+
+    //窗口到期
+    private void expire(int slot, long now) {
+        long count = this.count[slot];
+        this.count[slot] = 0;
+        boolean paused = this.paused[slot];
+        this.paused[slot] = false;
+        if (!paused) {
+            handle(slot, count, true, now);
+        }
+        //长时间没有数据,释放槽位
+        if (now - lastActive[slot] >= idleTimeout) {
+            release(slot);
+            return;
+        }
+        if (bucket[slot] == NONE) {
+            schedule(slot, limit.isRolling() ? now + window : deadline[slot] * TICK + window);
+        }
+    }
+
+    /* ========== 时间轮 ========== */
+
+    private static synchronized void register(ShakeLimitTable<?> table) {
+        tables.add(table);
+        if (ticker == null) {
+            ticker = Schedulers
+                .parallel()
+                .schedulePeriodically(ShakeLimitTable::tickAll, TICK, TICK, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //没有状态表时停止定时任务
+    private static synchronized void unregister(ShakeLimitTable<?> table) {
+        tables.remove(table);
+        if (tables.isEmpty() && ticker != null) {
+            ticker.dispose();
+            ticker = null;
+        }
+    }
+
+    static synchronized boolean isTicking() {
+        return ticker != null;
+    }
+
+    private static void tickAll() {
+        long now = System.currentTimeMillis();
+        for (ShakeLimitTable<?> table : tables) {
+            try {
+                //到期的结果异步推送,避免阻塞定时任务
+                if (table.advance(now)) {
+                    Schedulers.parallel().schedule(table::drain);
+                }
+            } catch (Throwable error) {
+                log.warn("advance shake limit timing wheel error", error);
+            }
+        }
+    }
+
+    /**
+     * 推进时间轮,到期的结果放入输出队列,需要调用{@link #drain()}推送.
+     *
+     * @param now 当前时间
+     * @return 是否有待推送的结果
+     */
+    synchronized boolean advance(long now) {
+        long target = now / TICK;
+        if (size == 0) {
+            currentTick = Math.max(currentTick, target);
+            return false;
+        }
+        while (currentTick < target && !disposed) {
+            tick(++currentTick, now);
+        }
+        return !output.isEmpty();
+    }
+
+    private void tick(long tick, long now) {
+        //从高层开始降级,降级后的定时可能在同一刻度被继续降级或者触发
+        cascading = true;
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (BITS * level)) - 1)) == 0) {
+                int slot = detach(level * BUCKETS + (int) ((tick >> (BITS * level)) & MASK));
+                while (slot != NONE) {
+                    int nextSlot = next[slot];
+                    insert(slot);
+                    slot = nextSlot;
+                }
+            }
+        }
+        cascading = false;
+
+        int slot = detach((int) (tick & MASK));
+        while (slot != NONE) {
+            int nextSlot = next[slot];
+            if (deadline[slot] <= tick) {
+                expire(slot, now);
+            } else {
+                insert(slot);
+            }
+            slot = nextSlot;
+        }
+    }
+
+    private void schedule(int slot, long deadlineMillis) {
+        //向上取整,避免提前触发
+        deadline[slot] = (deadlineMillis + TICK - 1) / TICK;
+        insert(slot);
+    }
+
+    private void insert(int slot) {
+        long tick = currentTick;
+        long delta = deadline[slot] - tick;
+        int idx;
+        if (delta <= 0) {
+            idx = (int) ((cascading ? tick : tick + 1) & MASK);
+        } else {
+            long target = Math.min(deadline[slot], tick + MAX_SPAN - 1);
+            delta = target - tick;
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+                level++;
+            }
+            idx = level * BUCKETS + (int) ((target >> (BITS * level)) & MASK);
+        }
+        int head = buckets[idx];
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        buckets[idx] = slot;
+        bucket[slot] = idx;
+    }
+
+    private void unschedule(int slot) {
+        int idx = bucket[slot];
+        if (idx == NONE) {
+            return;
+        }
+        int p = prev[slot], n = next[slot];
+        if (p == NONE) {
+            buckets[idx] = n;
+        } else {
+            next[p] = n;
+        }
+        if (n != NONE) {
+            prev[n] = p;
+        }
+        prev[slot] = next[slot] = bucket[slot] = NONE;
+    }
+
+    //取出桶中的全部定时,返回链表头
+    private int detach(int idx) {
+        int head = buckets[idx];
+        buckets[idx] = NONE;
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            bucket[slot] = NONE;
+        }
+        return head;
+    }
+
+    /* ========== 槽位 ========== */
+
+    private void allocate(int capacity) {
+        keys = keys == null ? new String[capacity] : Arrays.copyOf(keys, capacity);
+        count = count == null ? new long[capacity] : Arrays.copyOf(count, capacity);
+        firstTime = firstTime == null ? new long[capacity] : Arrays.copyOf(firstTime, capacity);
+        lastActive = lastActive == null ? new long[capacity] : Arrays.copyOf(lastActive, capacity);
+        deadline = deadline == null ? new long[capacity] : Arrays.copyOf(deadline, capacity);
+        paused = paused == null ? new boolean[capacity] : Arrays.copyOf(paused, capacity);
+        first = first == null ? new Object[capacity] : Arrays.copyOf(first, capacity);
+        last = last == null ? new Object[capacity] : Arrays.copyOf(last, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+        int old = bucket == null ? 0 : bucket.length;
+        bucket = bucket == null ? new int[capacity] : Arrays.copyOf(bucket, capacity);
+        Arrays.fill(bucket, old, capacity, NONE);
+    }
+
+    private int lookup(String key, boolean create) {
+        int mask = index.length - 1;
+        int i = hash(key) & mask;
+        for (int ref; (ref = index[i]) != 0; i = (i + 1) & mask) {
+            if (key.equals(keys[ref - 1])) {
+                return ref - 1;
+            }
+        }
+        if (!create) {
+            return NONE;
+        }
+        int slot;
+        if (free != NONE) {
+            slot = free;
+            free = next[slot];
+            next[slot] = NONE;
+        } else {
+            if (used == keys.length) {
+                allocate(keys.length << 1);
+            }
+            slot = used++;
+        }
+        keys[slot] = key;
+        size++;
+        //负载因子0.5
+        if (size * 2 > index.length) {
+            rehash(index.length << 1);
+        } else {
+            index[i] = slot + 1;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] index = new int[capacity];
+        int mask = capacity - 1;
+        for (int slot = 0; slot < used; slot++) {
+            if (keys[slot] == null) {
+                continue;
+            }
+            int i = hash(keys[slot]) & mask;
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            index[i] = slot + 1;
+        }
+        this.index = index;
+    }
+
+    private void release(int slot) {
+        unschedule(slot);
+        removeIndex(slot);
+        keys[slot] = null;
+        first[slot] = null;
+        last[slot] = null;
+        count[slot] = firstTime[slot] = lastActive[slot] = deadline[slot] = 0;
+        paused[slot] = false;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    //线性探测删除,将后续元素前移,避免使用删除标记
+    private void removeIndex(int slot) {
+        int mask = index.length - 1;
+        int i = hash(keys[slot]) & mask;
+        while (index[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        for (int j = i; ; ) {
+            j = (j + 1) & mask;
+            if (index[j] == 0) {
+                break;
+            }
+            int k = hash(keys[index[j] - 1]) & mask;
+            //k在(i,j]之间时不需要移动
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                continue;
+            }
+            index[i] = index[j];
+            i = j;
+        }
+        index[i] = 0;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        unregister(this);
+        synchronized (this) {
+            Arrays.fill(first, null);
+            Arrays.fill(last, null);
+        }
+        output.clear();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
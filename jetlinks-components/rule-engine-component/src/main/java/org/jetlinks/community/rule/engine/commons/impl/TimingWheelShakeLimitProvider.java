@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.rule.engine.commons.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetlinks.community.rule.engine.commons.ShakeLimit;
+import org.jetlinks.community.rule.engine.commons.ShakeLimitProvider;
+import org.jetlinks.community.rule.engine.commons.ShakeLimitResult;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 基于时间轮的防抖提供商,适用于分组数量较多(如: 按设备防抖)的场景.
+ * <p>
+ * 与{@link SimpleShakeLimitProvider}为每个分组创建一个订阅者和定时任务不同,
+ * 此实现将所有分组的状态保存在同一个{@link ShakeLimitTable}中,窗口定时由共享的时间轮驱动.
+ * 防抖结果与{@link SimpleShakeLimitProvider}一致,未设置时间窗口时使用{@link SimpleShakeLimitProvider}处理.
+ * <p>
+ * 可通过配置<code>rule.scene.trigger.device.shake-limit-provider=timing-wheel</code>启用.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+@Slf4j
+public class TimingWheelShakeLimitProvider implements ShakeLimitProvider {
+
+    public static final ShakeLimitProvider GLOBAL = new TimingWheelShakeLimitProvider();
+
+    public static final String PROVIDER = "timing-wheel";
+
+    @Override
+    public String provider() {
+        return PROVIDER;
+    }
+
+    @Override
+    public <T> Flux<ShakeLimitResult<T>> shakeLimit(String sourceKey,
+                                                    Flux<T> source,
+                                                    Function<T, String> grouping,
+                                                    ShakeLimit limit) {
+        if (limit.getTime() <= 0) {
+            return SimpleShakeLimitProvider.GLOBAL.shakeLimit(sourceKey, source, grouping, limit);
+        }
+        return Flux.create(sink -> {
+            ShakeLimitTable<T> table = new ShakeLimitTable<>(limit, sink);
+            Disposable upstream = source
+                .contextWrite(sink.contextView())
+                .subscribe(
+                    value -> table.next(grouping.apply(value), value),
+                    err -> {
+                        table.dispose();
+                        sink.error(err);
+                    },
+                    () -> {
+                        table.completeAll();
+                        sink.complete();
+                    });
+            sink.onDispose(Disposables.composite(upstream, table));
+        });
+    }
+
+    @Override
+    public <T> Flux<ShakeLimitResult<T>> shakeLimit(String sourceKey,
+                                                    Flux<GroupedFlux<String, T>> grouped,
+                                                    ShakeLimit limit,
+                                                    Function<String, Publisher<?>> resetSignal) {
+        if (limit.getTime() <= 0) {
+            return SimpleShakeLimitProvider.GLOBAL.shakeLimit(sourceKey, grouped, limit, resetSignal);
+        }
+        Duration windowSpan = Duration.ofSeconds(limit.getTime());
+
+        return Flux.create(sink -> {
+            ShakeLimitTable<T> table = new ShakeLimitTable<>(limit, sink);
+            Disposable upstream = grouped
+                .flatMap(group -> {
+                    String groupKey = group.key();
+                    Mono<Void> data = group
+                        //使用timeout,当2倍窗口时间没有收到数据时,则结束分组.释放内存.
+                        .timeout(windowSpan.plus(windowSpan), Mono.empty())
+                        .doOnNext(value -> table.next(groupKey, value))
+                        .then(Mono.fromRunnable(() -> table.complete(groupKey)));
+                    Mono<Void> reset = Flux
+                        .from(resetSignal.apply(groupKey))
+                        .doOnNext(ignore -> table.reset(groupKey))
+                        .onErrorResume(err -> Mono.empty())
+                        .then(Mono.never());
+                    //分组结束时取消重置信号
+                    return Mono
+                        .firstWithSignal(data, reset)
+                        .onErrorResume(err -> {
+                            log.warn("shake limit [{}:{}] error", sourceKey, groupKey, err);
+                            return Mono.empty();
+                        });
+                }, Integer.MAX_VALUE)
+                .contextWrite(sink.contextView())
+                .subscribe(
+                    ignore -> {
+                    },
+                    err -> {
+                        table.dispose();
+                        sink.error(err);
+                    },
+                    () -> {
+                        table.completeAll();
+                        sink.complete();
+                    });
+            sink.onDispose(Disposables.composite(upstream, table));
+        });
+    }
+}
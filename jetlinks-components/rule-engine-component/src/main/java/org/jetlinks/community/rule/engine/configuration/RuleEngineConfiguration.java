@@ -21,6 +21,7 @@ import org.jetlinks.community.configure.device.DeviceClusterConfiguration;
 import org.jetlinks.community.rule.engine.cluster.ClusterSchedulerLoadBalancer;
 import org.jetlinks.community.rule.engine.commons.ShakeLimitProvider;
 import org.jetlinks.community.rule.engine.commons.TermsConditionEvaluator;
+import org.jetlinks.community.rule.engine.commons.impl.TimingWheelShakeLimitProvider;
 import org.jetlinks.community.rule.engine.entity.TaskSnapshotEntity;
 import org.jetlinks.community.rule.engine.executor.DeviceSelectorBuilder;
 import org.jetlinks.community.rule.engine.executor.device.DeviceDataTaskExecutorProvider;
@@ -182,6 +183,11 @@ public class RuleEngineConfiguration {
         return new TimeSeriesRuleEngineLogService(timeSeriesManager);
     }
 
+    @Bean
+    public TimingWheelShakeLimitProvider timingWheelShakeLimitProvider() {
+        return new TimingWheelShakeLimitProvider();
+    }
+
     @Bean
     public SmartInitializingSingleton shakeLimitProviderRegister(ApplicationContext context) {
         return () -> context
@@ -49,6 +49,10 @@ import java.util.function.Supplier;
 @AllArgsConstructor
 public class TimerTaskExecutorProvider implements TaskExecutorProvider {
 
+    //相同的定时规则使用共享的定时任务,设置为false时每个任务使用独立的定时
+    static final boolean SHARED_TIMER =
+        Boolean.parseBoolean(System.getProperty("rule.engine.timer.shared", "true"));
+
     @Override
     public String getExecutor() {
         return "timer";
@@ -79,8 +83,7 @@ public class TimerTaskExecutorProvider implements TaskExecutorProvider {
         }
 
         private Disposable execute() {
-            return spec
-                .flux()
+            return (SHARED_TIMER ? spec.sharedFlux() : spec.flux())
                 .onBackpressureDrop()
                 .concatMap(t -> {
                     Map<String, Object> data = new HashMap<>();
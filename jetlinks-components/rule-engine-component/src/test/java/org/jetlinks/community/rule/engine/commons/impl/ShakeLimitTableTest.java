@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.rule.engine.commons.impl;
+
+import org.jetlinks.community.rule.engine.commons.ShakeLimit;
+import org.jetlinks.community.rule.engine.commons.ShakeLimitResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShakeLimitTableTest {
+
+    private final List<ShakeLimitResult<String>> results = new CopyOnWriteArrayList<>();
+
+    private ShakeLimitTable<String> table;
+
+    private Disposable subscription;
+
+    private ShakeLimitTable<String> create(ShakeLimit limit) {
+        subscription = Flux
+            .<ShakeLimitResult<String>>create(sink -> table = new ShakeLimitTable<>(limit, sink))
+            .subscribe(results::add);
+        return table;
+    }
+
+    private static ShakeLimit limit(int time, int threshold) {
+        ShakeLimit limit = new ShakeLimit();
+        limit.setEnabled(true);
+        limit.setTime(time);
+        limit.setThreshold(threshold);
+        return limit;
+    }
+
+    //模拟时间流逝,推进时间轮并推送结果
+    private void advance(long now) {
+        table.advance(now);
+        table.drain();
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (table != null) {
+            table.dispose();
+        }
+    }
+
+    @Test
+    void testWindowClose() {
+        ShakeLimit limit = limit(10, 3);
+        long window = TimeUnit.SECONDS.toMillis(limit.getTime());
+        create(limit);
+
+        table.next("a", "a1");
+        table.next("a", "a2");
+        table.next("a", "a3");
+        table.next("b", "b1");
+        long now = System.currentTimeMillis();
+        assertTrue(results.isEmpty());
+
+        //窗口未结束
+        advance(now + window - ShakeLimitTable.TICK * 2);
+        assertTrue(results.isEmpty());
+
+        //窗口结束,b未达到阈值
+        advance(now + window + ShakeLimitTable.TICK * 2);
+        assertEquals(1, results.size());
+        assertEquals("a", results.get(0).getGroupKey());
+        assertEquals(3, results.get(0).getTimes());
+        assertEquals("a3", results.get(0).getElement());
+    }
+
+    @Test
+    void testAlarmFirst() {
+        ShakeLimit limit = limit(10, 2);
+        limit.setAlarmFirst(true);
+        limit.setOutputFirst(true);
+        long window = TimeUnit.SECONDS.toMillis(limit.getTime());
+        create(limit);
+
+        table.next("a", "a1");
+        assertTrue(results.isEmpty());
+        table.next("a", "a2");
+        assertEquals(1, results.size());
+        assertEquals(2, results.get(0).getTimes());
+        assertEquals("a1", results.get(0).getElement());
+
+        //同一个窗口内只触发一次
+        table.next("a", "a3");
+        table.next("a", "a4");
+        advance(System.currentTimeMillis() + window + ShakeLimitTable.TICK * 2);
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    void testContinuous() {
+        ShakeLimit limit = limit(10, 3);
+        limit.setContinuous(true);
+        long window = TimeUnit.SECONDS.toMillis(limit.getTime());
+        create(limit);
+
+        table.next("a", "a1");
+        table.next("a", "a2");
+        //中断后重新计数
+        table.reset("a");
+        table.next("a", "a3");
+        table.next("b", "b1");
+        table.next("b", "b2");
+        table.next("b", "b3");
+
+        advance(System.currentTimeMillis() + window + ShakeLimitTable.TICK * 2);
+        assertEquals(1, results.size());
+        assertEquals("b", results.get(0).getGroupKey());
+        assertEquals(3, results.get(0).getTimes());
+    }
+
+    @Test
+    void testResetIgnoredWhenNotContinuous() {
+        ShakeLimit limit = limit(10, 3);
+        long window = TimeUnit.SECONDS.toMillis(limit.getTime());
+        create(limit);
+
+        table.next("a", "a1");
+        table.next("a", "a2");
+        table.reset("a");
+        table.next("a", "a3");
+
+        advance(System.currentTimeMillis() + window + ShakeLimitTable.TICK * 2);
+        assertEquals(1, results.size());
+        assertEquals(3, results.get(0).getTimes());
+    }
+
+    @Test
+    void testRolling() {
+        ShakeLimit limit = limit(10, 2);
+        limit.setAlarmFirst(true);
+        limit.setRolling(true);
+        create(limit);
+
+        //满足条件后重新计时,可以再次触发
+        table.next("a", "a1");
+        table.next("a", "a2");
+        table.next("a", "a3");
+        table.next("a", "a4");
+        assertEquals(2, results.size());
+        assertEquals("a2", results.get(0).getElement());
+        assertEquals("a4", results.get(1).getElement());
+    }
+
+    @Test
+    void testCascade() {
+        //窗口跨度超过第一层时间轮,需要逐层降级后才能到期
+        ShakeLimit limit = limit(600, 1);
+        long window = TimeUnit.SECONDS.toMillis(limit.getTime());
+        create(limit);
+
+        table.next("a", "a1");
+        long now = System.currentTimeMillis();
+
+        advance(now + window / 2);
+        assertTrue(results.isEmpty());
+        advance(now + window - ShakeLimitTable.TICK * 2);
+        assertTrue(results.isEmpty());
+
+        advance(now + window + ShakeLimitTable.TICK * 2);
+        assertEquals(1, results.size());
+        assertEquals("a1", results.get(0).getElement());
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testReleaseIdle() {
+        ShakeLimit limit = limit(10, 1);
+        long window = TimeUnit.SECONDS.toMillis(limit.getTime());
+        create(limit);
+
+        for (int i = 0; i < 100; i++) {
+            table.next("key-" + i, "v" + i);
+        }
+        assertEquals(100, table.size());
+        long now = System.currentTimeMillis();
+
+        advance(now + window + ShakeLimitTable.TICK * 2);
+        assertEquals(100, results.size());
+        assertEquals(100, table.size());
+
+        //2倍窗口时间没有数据,释放槽位
+        advance(now + window * 3 + ShakeLimitTable.TICK * 2);
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void testStopTickerWhenDisposed() {
+        create(limit(10, 1));
+        assertTrue(ShakeLimitTable.isTicking());
+
+        table.dispose();
+        assertFalse(ShakeLimitTable.isTicking());
+
+        create(limit(10, 1));
+        assertTrue(ShakeLimitTable.isTicking());
+    }
+}
@@ -17,13 +17,18 @@ package org.jetlinks.community.tdengine;
 
 import com.google.common.collect.Maps;
 import lombok.*;
+import org.jetlinks.core.utils.SerializeUtils;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Map;
 
 @Getter
 @Setter
-@NoArgsConstructor(access = AccessLevel.PRIVATE)
-public class Point {
+@NoArgsConstructor
+public class Point implements Externalizable {
 
     private String metric;
 
@@ -68,4 +73,22 @@ public class Point {
         this.values.putAll(values);
         return this;
     }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        SerializeUtils.writeNullableUTF(metric, out);
+        SerializeUtils.writeNullableUTF(table, out);
+        SerializeUtils.writeKeyValue(values, out);
+        SerializeUtils.writeKeyValue(tags, out);
+        out.writeLong(timestamp);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        metric = SerializeUtils.readNullableUTF(in);
+        table = SerializeUtils.readNullableUTF(in);
+        values = SerializeUtils.readMap(in, Maps::newLinkedHashMapWithExpectedSize);
+        tags = SerializeUtils.readMap(in, Maps::newLinkedHashMapWithExpectedSize);
+        timestamp = in.readLong();
+    }
 }
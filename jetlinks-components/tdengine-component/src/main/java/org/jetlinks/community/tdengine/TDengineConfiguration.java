@@ -18,6 +18,7 @@ package org.jetlinks.community.tdengine;
 
 import org.jetlinks.community.tdengine.restful.RestfulTDEngineQueryOperations;
 import org.jetlinks.community.tdengine.restful.SchemalessTDEngineDataWriter;
+import org.jetlinks.community.tdengine.restful.SqlBatchTDEngineDataWriter;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -34,9 +35,17 @@ public class TDengineConfiguration {
     @ConditionalOnMissingBean(TDengineOperations.class)
     public TDengineOperations tDengineOperations(TDengineProperties properties) {
         WebClient client = properties.getRestful().createClient();
-        SchemalessTDEngineDataWriter writer = new SchemalessTDEngineDataWriter(client,
-                                                                               properties.getDatabase(),
-                                                                               properties.getBuffer());
+        TDEngineDataWriter writer;
+        if (properties.getWriteMode() == TDengineProperties.WriteMode.sql) {
+            writer = new SqlBatchTDEngineDataWriter(client,
+                                                    properties.getDatabase(),
+                                                    properties.getBuffer(),
+                                                    properties.getChildTableNameTag());
+        } else {
+            writer = new SchemalessTDEngineDataWriter(client,
+                                                      properties.getDatabase(),
+                                                      properties.getBuffer());
+        }
 
         return new DetectTDengineOperations(writer, new RestfulTDEngineQueryOperations(client, properties.getDatabase()));
     }
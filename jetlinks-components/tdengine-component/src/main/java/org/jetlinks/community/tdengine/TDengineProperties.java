@@ -60,6 +60,13 @@ public class TDengineProperties {
 
     private RestfulConnector restful = new RestfulConnector();
 
+    //写入方式
+    private WriteMode writeMode = WriteMode.schemaless;
+
+    //TDengine服务端配置了smlChildTableName时,设置为相同的标签名.
+    //sql写入模式将使用此标签的值作为子表名,与schemaless写入的子表保持一致.
+    private String childTableNameTag;
+
     //缓冲配置
     private Buffer buffer = new Buffer();
 
@@ -67,6 +74,13 @@ public class TDengineProperties {
         restful
     }
 
+    enum WriteMode {
+        //使用influxdb行协议写入,由TDengine自动创建和修改表结构
+        schemaless,
+        //按超级表分组使用多行INSERT语句批量写入,表结构不匹配时降级为schemaless写入
+        sql
+    }
+
     @Getter
     @Setter
     public static class Buffer extends BufferProperties {
@@ -0,0 +1,646 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.tdengine.restful;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.hswebframework.ezorm.rdb.metadata.RDBColumnMetadata;
+import org.hswebframework.ezorm.rdb.metadata.RDBDatabaseMetadata;
+import org.hswebframework.ezorm.rdb.metadata.RDBTableMetadata;
+import org.jetlinks.community.buffer.BufferSettings;
+import org.jetlinks.community.buffer.PersistenceBuffer;
+import org.jetlinks.community.tdengine.*;
+import org.jetlinks.community.tdengine.metadata.TDengineDialect;
+import org.jetlinks.community.tdengine.metadata.TDengineMetadataParser;
+import org.jetlinks.community.tdengine.metadata.TDengineRestfulSqlExecutor;
+import org.jetlinks.community.tdengine.metadata.TDengineSchema;
+import org.jetlinks.community.utils.ErrorUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.JDBCType;
+import java.sql.SQLType;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 基于SQL的TDengine批量写入器.
+ * <p>
+ * 按超级表对数据进行分组,根据已知的超级表结构将数据直接编码到池化的{@link ByteBuf}中,
+ * 每个超级表的数据使用一条多行<code>INSERT</code>语句写入,无需像schemaless写入那样为每条数据构造行协议字符串.
+ * <p>
+ * 超级表不存在,或者数据中包含超级表中不存在的列或标签时,降级使用{@link SchemalessTDEngineDataWriter}写入,
+ * 由TDengine自动创建或修改表结构,并在下次写入时重新加载表结构.
+ *
+ * @author zhouhao
+ * @see TDengineProperties#getWriteMode()
+ * @since 2.11
+ */
+@Slf4j
+public class SqlBatchTDEngineDataWriter implements TDEngineDataWriter, Disposable {
+
+    //单条SQL长度超过此值时拆分为多条SQL,TDengine默认SQL最大长度为1MB
+    static final int SQL_LENGTH_THRESHOLD = 512 * 1024;
+
+    //未开启缓冲时,每批写入的数据量
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
+    static final String COLUMN_TS = "_ts";
+
+    private static final byte[] INSERT_INTO = ascii("INSERT INTO");
+    private static final byte[] USING = ascii(" USING ");
+    private static final byte[] TAGS = ascii(" TAGS (");
+    private static final byte[] VALUES = ascii(") VALUES");
+    private static final byte[] TS_COLUMN = ascii(" (`_ts`");
+    private static final byte[] NULL = ascii("NULL");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] UTC_OFFSET = ascii("+00:00");
+
+    private final WebClient client;
+
+    private final String database;
+
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(ByteBufAllocator.DEFAULT);
+
+    private final TDengineMetadataParser parser;
+
+    private final SchemalessTDEngineDataWriter fallback;
+
+    //超级表结构缓存
+    private final Map<String, SuperTable> tables = new ConcurrentHashMap<>();
+
+    private final PersistenceBuffer<Point> buffer;
+
+    //使用此标签的值作为子表名,与TDengine的smlChildTableName配置一致
+    private final String childTableNameTag;
+
+    public SqlBatchTDEngineDataWriter(WebClient client, String database, TDengineProperties.Buffer buffer) {
+        this(client, database, buffer, null);
+    }
+
+    public SqlBatchTDEngineDataWriter(WebClient client,
+                                      String database,
+                                      TDengineProperties.Buffer buffer,
+                                      String childTableNameTag) {
+        this.client = client;
+        this.database = database;
+        this.childTableNameTag = StringUtils.hasText(childTableNameTag) ? childTableNameTag : null;
+        this.fallback = new SchemalessTDEngineDataWriter(client, database, (PersistenceBuffer<String>) null);
+
+        RDBDatabaseMetadata metadata = new RDBDatabaseMetadata(new TDengineDialect());
+        TDengineSchema schema = new TDengineSchema(database);
+        schema.addFeature(new TDengineRestfulSqlExecutor(client));
+        metadata.addSchema(schema);
+        metadata.setCurrentSchema(schema);
+        this.parser = new TDengineMetadataParser(schema);
+
+        if (buffer.isEnabled()) {
+            this.buffer = new PersistenceBuffer<>(
+                BufferSettings.create("tdengine-sql-writer.queue", buffer),
+                Point::new,
+                points -> points
+                    .collectList()
+                    .flatMap(this::writeNow)
+                    .thenReturn(false))
+                .name("tdengine-sql")
+                .parallelism(buffer.getParallelism())
+                .retryWhenError(e -> ErrorUtils.hasException(e, WebClientException.class)
+                    || ErrorUtils.hasException(e, IOException.class));
+
+            this.buffer.start();
+        } else {
+            this.buffer = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (null != buffer) {
+            buffer.dispose();
+        }
+        fallback.dispose();
+    }
+
+    @Override
+    public Mono<Void> write(Point point) {
+        if (buffer == null) {
+            return writeNow(Collections.singletonList(point));
+        }
+        return buffer.writeAsync(point);
+    }
+
+    @Override
+    public Mono<Void> write(Flux<Point> points) {
+        return points
+            .buffer(DEFAULT_BATCH_SIZE)
+            .concatMap(this::writeNow)
+            .then();
+    }
+
+    private Mono<Void> writeNow(List<Point> points) {
+        if (points.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<String, List<Point>> grouped = new LinkedHashMap<>();
+        for (Point point : points) {
+            grouped
+                .computeIfAbsent(point.getMetric(), ignore -> new ArrayList<>())
+                .add(point);
+        }
+        return Flux
+            .fromIterable(grouped.entrySet())
+            .concatMap(e -> writeStable(e.getKey(), e.getValue()))
+            .then();
+    }
+
+    private Mono<Void> writeStable(String metric, List<Point> points) {
+        SuperTable cached = tables.get(metric);
+        if (cached != null) {
+            return writeStable(cached, points);
+        }
+        return parser
+            .parseByNameReactive(metric)
+            .map(table -> {
+                SuperTable stable = new SuperTable(database, metric, table);
+                tables.put(metric, stable);
+                return writeStable(stable, points);
+            })
+            //超级表不存在,使用schemaless写入自动创建
+            .defaultIfEmpty(Mono.defer(() -> writeFallback(points)))
+            .flatMap(Function.identity());
+    }
+
+    private Mono<Void> writeStable(SuperTable table, List<Point> points) {
+        List<Point> unacceptable = null;
+        Map<Object, ChildTable> children = new LinkedHashMap<>();
+        for (Point point : points) {
+            if (!table.accept(point)) {
+                if (unacceptable == null) {
+                    unacceptable = new ArrayList<>();
+                }
+                unacceptable.add(point);
+                continue;
+            }
+            Object key = StringUtils.hasText(point.getTable()) ? point.getTable() : point.getTags();
+            children
+                .computeIfAbsent(key, ignore -> new ChildTable(table, point, childTableNameTag))
+                .points
+                .add(point);
+        }
+        Mono<Void> fallback = Mono.empty();
+        if (unacceptable != null) {
+            //包含缓存的表结构中不存在的列或者标签,schemaless写入后表结构会发生变化,下次写入时重新加载
+            tables.remove(table.metric, table);
+            fallback = writeFallback(unacceptable);
+        }
+        if (children.isEmpty()) {
+            return fallback;
+        }
+        return Flux
+            .defer(() -> Flux.fromIterable(encode(table, children.values())))
+            .concatMap(statement -> execute(table, statement))
+            .doOnDiscard(Statement.class, Statement::release)
+            .then(fallback);
+    }
+
+    private Mono<Void> writeFallback(List<Point> points) {
+        return fallback.write(Flux.fromIterable(points));
+    }
+
+    private Mono<Void> execute(SuperTable table, Statement statement) {
+        return client
+            .post()
+            .uri("/rest/sql")
+            //请求体写出后由框架释放,statement自身的引用在请求结束后释放
+            .body(Mono.fromSupplier(() -> factory.wrap(statement.sql.retainedDuplicate())), DataBuffer.class)
+            .exchangeToMono(TDEngineUtils::checkExecuteResult)
+            .then()
+            .onErrorResume(SqlBatchTDEngineDataWriter::isSchemaError, err -> {
+                //表结构已发生变化,重新加载表结构并使用schemaless写入
+                log.debug("write tdengine [{}] by sql error, fallback to schemaless: {}", table.metric, err.getMessage());
+                tables.remove(table.metric, table);
+                return writeFallback(statement.points);
+            })
+            .doFinally(ignore -> statement.release());
+    }
+
+    static boolean isSchemaError(Throwable err) {
+        if (!(err instanceof TDengineException)) {
+            return false;
+        }
+        String message = err.getMessage();
+        return message != null
+            && (message.contains("not exist")
+            || message.contains("Invalid column")
+            || message.contains("Invalid tag"));
+    }
+
+    static List<Statement> encode(SuperTable table, Collection<ChildTable> children) {
+        List<Statement> statements = new ArrayList<>();
+        Statement current = null;
+        try {
+            for (ChildTable child : children) {
+                int[] columns = child.columns();
+                List<Point> points = child.points;
+                int index = 0;
+                while (index < points.size()) {
+                    if (current == null) {
+                        current = new Statement(ByteBufAllocator.DEFAULT.buffer(4096));
+                        current.sql.writeBytes(INSERT_INTO);
+                    }
+                    ByteBuf sql = current.sql;
+                    writeHeader(sql, table, child, columns);
+                    do {
+                        Point point = points.get(index++);
+                        writeRow(sql, table, columns, point);
+                        current.points.add(point);
+                    } while (index < points.size() && sql.writerIndex() < SQL_LENGTH_THRESHOLD);
+
+                    if (sql.writerIndex() >= SQL_LENGTH_THRESHOLD) {
+                        statements.add(current);
+                        current = null;
+                    }
+                }
+            }
+            if (current != null) {
+                statements.add(current);
+                current = null;
+            }
+            return statements;
+        } catch (Throwable e) {
+            if (current != null) {
+                current.release();
+            }
+            statements.forEach(Statement::release);
+            throw e;
+        }
+    }
+
+    // `db`.`child` USING `db`.`stable` (`tag`,...) TAGS ('v',...) (`_ts`,`c`,...) VALUES
+    private static void writeHeader(ByteBuf sql, SuperTable table, ChildTable child, int[] columns) {
+        sql.writeByte(' ');
+        sql.writeBytes(child.name);
+        sql.writeBytes(USING);
+        sql.writeBytes(table.name);
+        sql.writeByte(' ');
+        sql.writeByte('(');
+        int idx = 0;
+        for (Column tag : child.tags) {
+            if (idx++ > 0) {
+                sql.writeByte(',');
+            }
+            sql.writeBytes(tag.quoted);
+        }
+        sql.writeBytes(TAGS);
+        idx = 0;
+        for (Column tag : child.tags) {
+            if (idx++ > 0) {
+                sql.writeByte(',');
+            }
+            writeValue(sql, tag, child.tagValues.get(tag.name));
+        }
+        sql.writeByte(')');
+        sql.writeBytes(TS_COLUMN);
+        for (int column : columns) {
+            sql.writeByte(',');
+            sql.writeBytes(table.columns[column].quoted);
+        }
+        sql.writeBytes(VALUES);
+    }
+
+    private static void writeRow(ByteBuf sql, SuperTable table, int[] columns, Point point) {
+        Map<String, Object> values = point.getValues();
+        sql.writeByte(' ');
+        sql.writeByte('(');
+        writeTimestamp(sql, point.getTimestamp());
+        for (int column : columns) {
+            Column col = table.columns[column];
+            sql.writeByte(',');
+            writeValue(sql, col, values.get(col.name));
+        }
+        sql.writeByte(')');
+    }
+
+    static void writeValue(ByteBuf sql, Column column, Object value) {
+        if (value == null) {
+            sql.writeBytes(NULL);
+            return;
+        }
+        if (column.text) {
+            writeString(sql, value instanceof String ? (String) value : String.valueOf(value));
+            return;
+        }
+        if (column.timestamp && (value instanceof Number || value instanceof Date)) {
+            writeTimestamp(sql, value instanceof Date ? ((Date) value).getTime() : ((Number) value).longValue());
+            return;
+        }
+        if (value instanceof Boolean) {
+            sql.writeBytes((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                sql.writeBytes(NULL);
+            } else {
+                ByteBufUtil.writeAscii(sql, Double.toString(number));
+            }
+        } else if (value instanceof Long
+            || value instanceof Integer
+            || value instanceof Short
+            || value instanceof Byte) {
+            writeLong(sql, ((Number) value).longValue());
+        } else if (value instanceof Number) {
+            ByteBufUtil.writeAscii(sql, value.toString());
+        } else if (value instanceof Date) {
+            writeLong(sql, ((Date) value).getTime());
+        } else {
+            writeString(sql, String.valueOf(value));
+        }
+    }
+
+    //写入单引号字符串,转义单引号和反斜杠
+    static void writeString(ByteBuf sql, String value) {
+        sql.writeByte('\'');
+        int start = 0, len = value.length();
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c == '\'' || c == '\\') {
+                if (i > start) {
+                    ByteBufUtil.writeUtf8(sql, value, start, i);
+                }
+                sql.writeByte('\\');
+                sql.writeByte(c);
+                start = i + 1;
+            }
+        }
+        if (start < len) {
+            ByteBufUtil.writeUtf8(sql, value, start, len);
+        }
+        sql.writeByte('\'');
+    }
+
+    /**
+     * 写入带时区的RFC-3339格式时间,如: <code>'2025-01-01T00:00:00.000+00:00'</code>.
+     * <p>
+     * TDengine按数据库精度(ms,us,ns)解析整数时间戳,直接写入毫秒值在非毫秒精度的数据库中会得到错误的时间.
+     * 带时区的时间字符串与数据库精度以及客户端和服务端的时区都无关.
+     *
+     * @param sql       SQL
+     * @param timestamp 毫秒时间戳
+     */
+    static void writeTimestamp(ByteBuf sql, long timestamp) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(timestamp, 1000L),
+                                                         (int) Math.floorMod(timestamp, 1000L) * 1_000_000,
+                                                         ZoneOffset.UTC);
+        sql.writeByte('\'');
+        writePadded(sql, time.getYear(), 4);
+        sql.writeByte('-');
+        writePadded(sql, time.getMonthValue(), 2);
+        sql.writeByte('-');
+        writePadded(sql, time.getDayOfMonth(), 2);
+        sql.writeByte('T');
+        writePadded(sql, time.getHour(), 2);
+        sql.writeByte(':');
+        writePadded(sql, time.getMinute(), 2);
+        sql.writeByte(':');
+        writePadded(sql, time.getSecond(), 2);
+        sql.writeByte('.');
+        writePadded(sql, time.getNano() / 1_000_000, 3);
+        sql.writeBytes(UTC_OFFSET);
+        sql.writeByte('\'');
+    }
+
+    private static void writePadded(ByteBuf sql, int value, int width) {
+        for (int div = (int) Math.pow(10, width - 1); div > 1 && value < div; div /= 10) {
+            sql.writeByte('0');
+        }
+        writeLong(sql, value);
+    }
+
+    static void writeLong(ByteBuf sql, long value) {
+        if (value == Long.MIN_VALUE) {
+            ByteBufUtil.writeAscii(sql, Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            sql.writeByte('-');
+            value = -value;
+        }
+        long div = 1;
+        while (value / div >= 10) {
+            div *= 10;
+        }
+        while (div > 0) {
+            sql.writeByte((int) ('0' + (value / div) % 10));
+            div /= 10;
+        }
+    }
+
+    static byte[] ascii(String str) {
+        return str.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static byte[] quote(String... names) {
+        StringJoiner joiner = new StringJoiner(".");
+        for (String name : names) {
+            joiner.add("`" + name + "`");
+        }
+        return joiner.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static boolean isNumeric(SQLType type) {
+        if (type instanceof JDBCType) {
+            switch ((JDBCType) type) {
+                case BIT:
+                case BOOLEAN:
+                case TINYINT:
+                case SMALLINT:
+                case INTEGER:
+                case BIGINT:
+                case FLOAT:
+                case REAL:
+                case DOUBLE:
+                case DECIMAL:
+                case NUMERIC:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        String name = type.getName().toUpperCase();
+        return name.contains("INT")
+            || name.contains("BOOL")
+            || name.contains("FLOAT")
+            || name.contains("DOUBLE");
+    }
+
+    static class Column {
+        final String name;
+        final byte[] quoted;
+        final int index;
+        //字符类型,值始终使用字符串写入
+        final boolean text;
+        final boolean timestamp;
+
+        Column(RDBColumnMetadata metadata, int index) {
+            this.name = metadata.getName();
+            this.quoted = quote(name);
+            this.index = index;
+            SQLType type = metadata.getSqlType();
+            this.timestamp = type == JDBCType.TIMESTAMP;
+            this.text = type == null || (!timestamp && !isNumeric(type));
+        }
+    }
+
+    static class SuperTable {
+        final String database;
+        final String metric;
+        final byte[] name;
+        //普通列,不包含时间戳列
+        final Column[] columns;
+        final Map<String, Column> columnMapping = new HashMap<>();
+        final Map<String, Column> tagMapping = new LinkedHashMap<>();
+
+        SuperTable(String database, String metric, RDBTableMetadata metadata) {
+            this.database = database;
+            this.metric = metric;
+            this.name = quote(database, metric);
+            List<Column> columns = new ArrayList<>();
+            for (RDBColumnMetadata column : metadata.getColumns()) {
+                if (COLUMN_TS.equals(column.getName())) {
+                    continue;
+                }
+                if (column.getProperty(TDengineConstants.COLUMN_IS_TAG).isTrue()) {
+                    tagMapping.put(column.getName(), new Column(column, tagMapping.size()));
+                } else {
+                    Column col = new Column(column, columns.size());
+                    columns.add(col);
+                    columnMapping.put(col.name, col);
+                }
+            }
+            this.columns = columns.toArray(new Column[0]);
+        }
+
+        //数据中的列和标签是否都已存在于超级表中
+        boolean accept(Point point) {
+            Map<String, Object> tags = point.getTags();
+            if (tags.isEmpty() || !tagMapping.keySet().containsAll(tags.keySet())) {
+                return false;
+            }
+            return columnMapping.keySet().containsAll(point.getValues().keySet());
+        }
+    }
+
+    static class ChildTable {
+        final SuperTable table;
+        final byte[] name;
+        final List<Column> tags;
+        final Map<String, Object> tagValues;
+        final List<Point> points = new ArrayList<>();
+
+        ChildTable(SuperTable table, Point point, String childTableNameTag) {
+            this.table = table;
+            this.tagValues = point.getTags();
+            this.tags = new ArrayList<>(tagValues.size());
+            for (Column tag : table.tagMapping.values()) {
+                if (tagValues.containsKey(tag.name)) {
+                    tags.add(tag);
+                }
+            }
+            this.name = quote(table.database, resolveName(table.metric, point, childTableNameTag));
+        }
+
+        //与schemaless写入时的子表名保持一致,避免切换写入模式或者降级写入后同一个设备的数据写入到不同的子表中
+        static String resolveName(String metric, Point point, String childTableNameTag) {
+            String name = point.getTable();
+            if (StringUtils.hasText(name)) {
+                return name;
+            }
+            if (childTableNameTag != null) {
+                Object value = point.getTags().get(childTableNameTag);
+                if (value != null && StringUtils.hasText(String.valueOf(value))) {
+                    return String.valueOf(value);
+                }
+            }
+            return generateName(metric, point.getTags());
+        }
+
+        /**
+         * 按TDengine schemaless写入自动生成子表名的规则生成子表名:
+         * 将度量名和按标签名排序后的标签拼接为<code>measurement,tag_key1=tag_value1,tag_key2=tag_value2</code>,
+         * 计算MD5后加上固定前缀<code>t_</code>.
+         * <p>
+         * 未配置smlChildTableName时才使用此规则,配置后请同时设置{@link TDengineProperties#getChildTableNameTag()}.
+         */
+        static String generateName(String metric, Map<String, Object> tags) {
+            StringBuilder builder = new StringBuilder(metric);
+            for (Map.Entry<String, Object> entry : new TreeMap<>(tags).entrySet()) {
+                builder.append(',').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            return "t_" + DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        //当前子表数据中出现过的列,按超级表中列的顺序排列
+        int[] columns() {
+            boolean[] used = new boolean[table.columns.length];
+            int count = 0;
+            for (Point point : points) {
+                for (String key : point.getValues().keySet()) {
+                    Column column = table.columnMapping.get(key);
+                    if (column != null && !used[column.index]) {
+                        used[column.index] = true;
+                        count++;
+                    }
+                }
+            }
+            int[] columns = new int[count];
+            for (int i = 0, j = 0; i < used.length; i++) {
+                if (used[i]) {
+                    columns[j++] = i;
+                }
+            }
+            return columns;
+        }
+    }
+
+    static class Statement {
+        final ByteBuf sql;
+        final List<Point> points = new ArrayList<>();
+
+        Statement(ByteBuf sql) {
+            this.sql = sql;
+        }
+
+        void release() {
+            ReferenceCountUtil.safeRelease(sql);
+        }
+    }
+}
@@ -81,4 +81,9 @@ class TDengineColumnModeSaveOperations extends ColumnModeSaveOperationsBase {
     protected Mono<Void> doSave(String metric, Flux<TimeSeriesData> data) {
         return helper.doSave(metric, data, this::isTagValue);
     }
+
+    @Override
+    protected Mono<Void> doSaveRollup(String metric, Flux<TimeSeriesData> data) {
+        return helper.doSaveRollup(metric, data, metricBuilder.getThingIdProperty());
+    }
 }
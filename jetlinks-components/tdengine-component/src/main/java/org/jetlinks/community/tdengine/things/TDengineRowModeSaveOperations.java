@@ -84,6 +84,11 @@ class TDengineRowModeSaveOperations extends RowModeSaveOperationsBase {
         return helper.doSave(metric, data, this::isTagValue);
     }
 
+    @Override
+    protected Mono<Void> doSaveRollup(String metric, Flux<TimeSeriesData> data) {
+        return helper.doSaveRollup(metric, data, metricBuilder.getThingIdProperty());
+    }
+
     @Override
     protected Map<String, Object> createLogData(String templateId, ThingMessage message) {
         Map<String, Object> data = super.createLogData(templateId,message);
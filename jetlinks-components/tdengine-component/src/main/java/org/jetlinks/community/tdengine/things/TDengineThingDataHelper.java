@@ -288,6 +288,25 @@ public class TDengineThingDataHelper implements Disposable {
     }
 
 
+    /**
+     * 保存属性预聚合数据,物ID和属性ID作为tag,数据时间使用_ts存储.
+     *
+     * @param metric          度量名
+     * @param dataFlux        预聚合数据
+     * @param thingIdProperty 物ID字段
+     * @return void
+     */
+    public Mono<Void> doSaveRollup(String metric, Flux<TimeSeriesData> dataFlux, String thingIdProperty) {
+        return doSave(
+            metric,
+            dataFlux.doOnNext(data -> {
+                data.values().remove(ThingsDataConstants.COLUMN_ID);
+                data.values().remove(ThingsDataConstants.COLUMN_TIMESTAMP);
+            }),
+            (_metric, key, value) -> Objects.equals(thingIdProperty, key)
+                || Objects.equals(ThingsDataConstants.COLUMN_PROPERTY_ID, key));
+    }
+
     @Override
     public void dispose() {
         operations.dispose();
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.tdengine.restful;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.jetlinks.community.tdengine.Point;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlBatchTDEngineDataWriterTest {
+
+    private String timestamp(long timestamp) {
+        ByteBuf buf = Unpooled.buffer();
+        SqlBatchTDEngineDataWriter.writeTimestamp(buf, timestamp);
+        return buf.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testWriteTimestamp() {
+        assertEquals("'1970-01-01T00:00:00.000+00:00'", timestamp(0));
+
+        long time = Instant.parse("2025-03-04T05:06:07.089Z").toEpochMilli();
+        assertEquals("'2025-03-04T05:06:07.089+00:00'", timestamp(time));
+
+        assertEquals("'1969-12-31T23:59:59.999+00:00'", timestamp(-1));
+    }
+
+    @Test
+    void testGenerateNameBySchemalessRule() {
+        Point point = Point
+            .of("properties_demo", null)
+            .tag("productId", "demo")
+            .tag("deviceId", "device-1");
+
+        //measurement,tag_key1=tag_value1,tag_key2=tag_value2 按标签名排序
+        String expected = "t_" + DigestUtils.md5DigestAsHex(
+            "properties_demo,deviceId=device-1,productId=demo".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(expected, SqlBatchTDEngineDataWriter.ChildTable.resolveName("properties_demo", point, null));
+    }
+
+    @Test
+    void testResolveNameByTag() {
+        Point point = Point
+            .of("properties_demo", null)
+            .tag("deviceId", "device-1");
+
+        assertEquals("device-1", SqlBatchTDEngineDataWriter.ChildTable.resolveName("properties_demo", point, "deviceId"));
+
+        //没有对应的标签时使用自动生成的名称
+        assertTrue(SqlBatchTDEngineDataWriter.ChildTable
+                       .resolveName("properties_demo", point, "tname")
+                       .startsWith("t_"));
+
+        //指定了表名时使用指定的表名
+        point.setTable("device_1");
+        assertEquals("device_1", SqlBatchTDEngineDataWriter.ChildTable.resolveName("properties_demo", point, "deviceId"));
+    }
+}
@@ -17,6 +17,7 @@ package org.jetlinks.community.things;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.jetlinks.community.things.data.ThingsDataStoreType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import reactor.function.Consumer3;
 
@@ -39,5 +40,8 @@ public class ThingsDataProperties {
     public static class Store {
         //每个属性保存记录最大数量
         private int maxSizeEachProperty = 8;
+
+        //内存缓存存储方式,columnar为堆外列式存储,适用于物实例和属性数量较多的场景
+        private ThingsDataStoreType type = ThingsDataStoreType.heap;
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.jetlinks.community.things.configuration;
 
+import io.micrometer.core.instrument.Metrics;
 import lombok.Generated;
 import org.hswebframework.ezorm.rdb.mapping.ReactiveRepository;
 import org.jetlinks.community.things.ThingsDataProperties;
@@ -44,9 +45,12 @@ public class ThingsConfiguration {
     }
 
     @Bean(destroyMethod = "shutdown")
-    public AutoUpdateThingsDataManager thingsDataManager(EventBus eventBus) {
+    public AutoUpdateThingsDataManager thingsDataManager(EventBus eventBus,
+                                                         ThingsDataProperties properties) {
         String fileName = "./data/things-property/data";
-        return new AutoUpdateThingsDataManager(fileName, eventBus);
+        AutoUpdateThingsDataManager manager = new AutoUpdateThingsDataManager(fileName, eventBus, properties.getStore().getType());
+        manager.bindTo(Metrics.globalRegistry);
+        return manager;
     }
 
     @Bean
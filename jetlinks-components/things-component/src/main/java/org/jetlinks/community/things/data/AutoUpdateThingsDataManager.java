@@ -17,10 +17,15 @@ package org.jetlinks.community.things.data;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import lombok.*;
+import lombok.extern.slf4j.Slf4j;
 import org.jetlinks.community.things.ThingConstants;
+import org.jetlinks.community.utils.TimeUtils;
 import org.jetlinks.core.event.EventBus;
 import org.jetlinks.core.event.Subscription;
 import org.jetlinks.core.message.ThingMessage;
@@ -43,7 +48,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * 按需更新的物数据管理器
  * <p>
  * 如果是首次获取将从事件总线订阅数据并更新.
- * 如果超过10分钟没有获取过数据,则将取消订阅.
+ * 如果超过10分钟(jetlinks.things.data.updater.ttl)没有获取过数据,则将取消订阅.
+ * <p>
+ * 相同物类型的更新器共享同一个事件总线订阅(包含本地和集群其他节点的消息),收到消息后根据物ID分发到对应的更新器,
+ * 订阅数量只与物类型的数量有关,不会随物的数量增长.
+ * <p>
+ * 注意: 共享订阅使用通配符订阅集群消息,存在活跃的更新器时,其他节点中此物类型的所有属性消息都会转发到当前节点,
+ * 再由当前节点丢弃不需要的消息. 可通过指标<code>jetlinks_things_data_updater_subscription_size</code>观察共享订阅的数量.
  * <p>
  * 缓存数据会持久化到指定的文件中.
  * <p>
@@ -52,27 +63,45 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author zhouhao
  * @since 2.0
  */
+@Slf4j
 public class AutoUpdateThingsDataManager extends LocalFileThingsDataManager {
 
-    private final Map<ThingId, Updater> updaters = Caffeine
-        .newBuilder()
-        //10分钟没有任何读取则dispose取消订阅
-        .expireAfterAccess(Duration.ofMinutes(10))
-        .<ThingId, Updater>removalListener((key, value, cause) -> {
-            if (cause == RemovalCause.EXPIRED) {
-                if (value != null) {
-                    value.dispose();
-                }
-            }
-        })
-        .build()
-        .asMap();
+    static final Duration UPDATER_TTL = TimeUtils.parse(
+        System.getProperty("jetlinks.things.data.updater.ttl", "10m"));
+
+    private final Map<ThingId, Updater> updaters;
+
+    //物类型对应的共享订阅
+    private final Map<String, TypeUpdater> typeUpdaters = new ConcurrentHashMap<>();
 
     private final EventBus eventBus;
 
     public AutoUpdateThingsDataManager(String fileName, EventBus eventBus) {
-        super(fileName);
+        this(fileName, eventBus, ThingsDataStoreType.heap);
+    }
+
+    public AutoUpdateThingsDataManager(String fileName, EventBus eventBus, ThingsDataStoreType storeType) {
+        this(fileName, eventBus, storeType, UPDATER_TTL);
+    }
+
+    AutoUpdateThingsDataManager(String fileName, EventBus eventBus, ThingsDataStoreType storeType, Duration ttl) {
+        super(fileName, storeType);
         this.eventBus = eventBus;
+        this.updaters = Caffeine
+            .newBuilder()
+            //10分钟没有任何读取则dispose取消订阅
+            .expireAfterAccess(ttl)
+            //没有读写时也能及时过期
+            .scheduler(Scheduler.systemScheduler())
+            .<ThingId, Updater>removalListener((key, value, cause) -> {
+                if (cause == RemovalCause.EXPIRED) {
+                    if (value != null) {
+                        value.dispose();
+                    }
+                }
+            })
+            .build()
+            .asMap();
     }
 
     @Override
@@ -132,6 +161,43 @@ public class AutoUpdateThingsDataManager extends LocalFileThingsDataManager {
         return new Updater(id.getType(), id.getId());
     }
 
+    private TypeUpdater getTypeUpdater(String thingType) {
+        return typeUpdaters.computeIfAbsent(thingType, TypeUpdater::new);
+    }
+
+    /**
+     * @return 当前活跃的更新器数量
+     */
+    protected int updaterSize() {
+        int size = 0;
+        for (TypeUpdater updater : typeUpdaters.values()) {
+            size += updater.updaters.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return 当前的共享订阅数量
+     */
+    protected int subscriptionSize() {
+        int size = 0;
+        for (TypeUpdater updater : typeUpdaters.values()) {
+            if (updater.isSubscribed()) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        super.bindTo(registry);
+        Gauge.builder("jetlinks_things_data_updater_size", this, AutoUpdateThingsDataManager::updaterSize)
+             .register(registry);
+        Gauge.builder("jetlinks_things_data_updater_subscription_size", this, AutoUpdateThingsDataManager::subscriptionSize)
+             .register(registry);
+    }
+
     @SneakyThrows
     private ByteBuf encodeHistory(PropertyHistory history) {
         ByteBuf buf = Unpooled.buffer();
@@ -154,6 +220,7 @@ public class AutoUpdateThingsDataManager extends LocalFileThingsDataManager {
     public void shutdown() {
         super.shutdown();
         updaters.values().forEach(Disposable::dispose);
+        typeUpdaters.values().forEach(Disposable::dispose);
     }
 
     @Getter
@@ -166,35 +233,105 @@ public class AutoUpdateThingsDataManager extends LocalFileThingsDataManager {
         private String property;
     }
 
-    protected class Updater implements Disposable {
+    /**
+     * 物类型的共享订阅,存在活跃的更新器时订阅,所有更新器都被移除后取消订阅.
+     */
+    private class TypeUpdater implements Disposable {
         private final String thingType;
-        private final String thingId;
-        private final Disposable disposable;
 
-        private final Set<String> include = ConcurrentHashMap.newKeySet();
+        //物ID对应的更新器
+        private final Map<String, Updater> updaters = new ConcurrentHashMap<>();
 
-        private boolean loading;
-        private Mono<Void> loader;
+        private Disposable subscription;
 
-        public Updater(String thingType, String thingId) {
+        private boolean disposed;
+
+        private TypeUpdater(String thingType) {
             this.thingType = thingType;
-            this.thingId = thingId;
+        }
+
+        synchronized void add(Updater updater) {
+            updaters.put(updater.thingId, updater);
+            if (subscription == null && !disposed) {
+                subscription = subscribe();
+            }
+        }
+
+        synchronized void remove(Updater updater) {
+            if (updaters.remove(updater.thingId, updater) && updaters.isEmpty() && subscription != null) {
+                subscription.dispose();
+                subscription = null;
+            }
+        }
+
+        synchronized boolean isSubscribed() {
+            return subscription != null;
+        }
+
+        private Disposable subscribe() {
+            log.debug("subscribe thing [{}] property for update data", thingType);
             //订阅整个集群的消息来更新本地的缓存数据
-            disposable = eventBus
+            return eventBus
                 .subscribe(
                     Subscription.builder()
                                 .subscriberId("thing-data-property-updater")
-                                .topics(ThingConstants.Topics.properties(ThingType.of(thingType), thingId))
+                                .topics(ThingConstants.Topics.properties(ThingType.of(thingType), "*"))
                                 .local()
                                 .broker()
                                 .priority(Integer.MIN_VALUE)
                                 .build(),
                     ThingMessage.class
                 )
-                .doOnNext(this::doUpdate)
+                .doOnNext(this::dispatch)
                 .subscribe();
         }
 
+        private void dispatch(ThingMessage message) {
+            String thingId = message.getThingId();
+            if (thingId == null) {
+                return;
+            }
+            Updater updater = updaters.get(thingId);
+            if (updater != null) {
+                updater.doUpdate(message);
+            }
+        }
+
+        @Override
+        public synchronized void dispose() {
+            disposed = true;
+            updaters.clear();
+            if (subscription != null) {
+                subscription.dispose();
+                subscription = null;
+            }
+        }
+
+        @Override
+        public synchronized boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    protected class Updater implements Disposable {
+        private final String thingType;
+        private final String thingId;
+        private final TypeUpdater typeUpdater;
+
+        private final Set<String> include = ConcurrentHashMap.newKeySet();
+
+        private boolean loading;
+        private Mono<Void> loader;
+
+        private volatile boolean disposed;
+
+        public Updater(String thingType, String thingId) {
+            this.thingType = thingType;
+            this.thingId = thingId;
+            this.typeUpdater = getTypeUpdater(thingType);
+            typeUpdater.add(this);
+        }
+
         private void doUpdate(ThingMessage thingMessage) {
             if (!(thingMessage instanceof PropertyMessage)) {
                 return;
@@ -239,13 +376,14 @@ public class AutoUpdateThingsDataManager extends LocalFileThingsDataManager {
 
         @Override
         public void dispose() {
-            disposable.dispose();
+            disposed = true;
+            typeUpdater.remove(this);
             include.clear();
         }
 
         @Override
         public boolean isDisposed() {
-            return disposable.isDisposed();
+            return disposed;
         }
     }
 
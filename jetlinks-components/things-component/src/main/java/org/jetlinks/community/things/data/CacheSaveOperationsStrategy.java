@@ -16,11 +16,13 @@
 package org.jetlinks.community.things.data;
 
 import org.jetlinks.community.things.data.operations.SaveOperations;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.Disposable;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-public abstract class CacheSaveOperationsStrategy implements ThingsDataRepositoryStrategy {
+public abstract class CacheSaveOperationsStrategy implements ThingsDataRepositoryStrategy, DisposableBean {
 
 
     private final Map<OperationsContext, SaveOperations> caches = new ConcurrentHashMap<>();
@@ -33,4 +35,15 @@ public abstract class CacheSaveOperationsStrategy implements ThingsDataRepositor
 
 
     protected abstract SaveOperations createOpsForSave(OperationsContext context);
+
+    @Override
+    public void destroy() {
+        //停止时写入内存中的数据,如: 属性预聚合
+        for (SaveOperations operations : caches.values()) {
+            if (operations instanceof Disposable) {
+                ((Disposable) operations).dispose();
+            }
+        }
+        caches.clear();
+    }
 }
@@ -0,0 +1,948 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import org.jetlinks.community.things.data.LocalFileThingsDataManager.HistoryReader;
+import org.jetlinks.community.things.data.LocalFileThingsDataManager.Property;
+import org.jetlinks.community.things.data.LocalFileThingsDataManager.PropertyHistory;
+import org.jetlinks.core.things.ThingProperty;
+import org.jetlinks.core.utils.RecyclerUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 堆外列式属性历史存储.
+ * <p>
+ * 以{@link LocalFileThingsDataManager.StoreKey#toTag()}为key,每个key分配一个槽位,
+ * 槽位按页({@link #PAGE_SIZE}个槽位)分配,每页中的时间,值类型,值等数据按列分别保存在堆外内存中.
+ * 数字,布尔值等基本类型直接以原始值存储,其他类型的值和状态才会在堆内保存引用.
+ * <p>
+ * 每个槽位中的数据按时间倒序排列,最多保存{@code depth}条,与{@link PropertyHistory}的行为一致.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+class ColumnarPropertyStore {
+
+    static final int PAGE_SHIFT = 12;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    //槽位状态
+    static final byte
+        USED = 1,          //已使用
+        STORED = 1 << 1,   //已经持久化
+        IDLE = 1 << 2,     //空闲的
+        DIRTY = 1 << 3,    //脏数据,等待和磁盘中的数据合并
+        HAS_FIRST = 1 << 4,//存在首次数据
+        QUEUED = 1 << 5;   //已加入待持久化队列
+
+    //值类型
+    static final byte
+        KIND_NULL = 0,
+        KIND_INT = 1,
+        KIND_LONG = 2,
+        KIND_FLOAT = 3,
+        KIND_DOUBLE = 4,
+        KIND_BOOLEAN = 5,
+        KIND_OBJECT = 6;
+
+    private final int depth;
+
+    private final LongIntMap index = new LongIntMap();
+
+    private volatile Page[] pages = new Page[0];
+
+    //以下字段由this锁保护
+    private int[] freeSlots = new int[64];
+    private int freeSize;
+    private volatile int slotCount;
+
+    //等待持久化的槽位
+    private final Object dirtyLock = new Object();
+    private int[] dirtySlots = new int[1024];
+    private int dirtySize;
+
+    ColumnarPropertyStore(int depth) {
+        this.depth = Math.max(1, Math.min(depth, Byte.MAX_VALUE));
+    }
+
+    /**
+     * @return 缓存的key数量
+     */
+    int size() {
+        return index.size();
+    }
+
+    boolean contains(long tag) {
+        return index.get(tag) >= 0;
+    }
+
+    /**
+     * 判断数据是否已经和磁盘中的数据合并,已合并则可以直接读取内存中的数据.
+     *
+     * @param tag key
+     * @return 是否已合并
+     */
+    boolean isLoaded(long tag) {
+        int slot = index.get(tag);
+        if (slot < 0) {
+            return false;
+        }
+        Page page = pages[slot >>> PAGE_SHIFT];
+        int i = slot & PAGE_MASK;
+        synchronized (page) {
+            return page.owns(i, tag) && (page.flags(i) & DIRTY) == 0;
+        }
+    }
+
+    HistoryReader reader(long tag) {
+        return new SlotReader(tag);
+    }
+
+    /**
+     * 更新属性值
+     */
+    void update(long tag, long time, Object value, String state) {
+        for (; ; ) {
+            int slot = acquire(tag);
+            Page page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            synchronized (page) {
+                //槽位在获取后被回收了,重试
+                if (!page.owns(i, tag)) {
+                    continue;
+                }
+                page.update(i, time, value, state);
+                markModified(page, i, slot);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 合并历史数据
+     *
+     * @param tag     key
+     * @param history 历史数据
+     * @param loaded  是否为从磁盘中加载的数据,为true时将标记为已和磁盘数据合并,否则标记为等待持久化.
+     */
+    void merge(long tag, PropertyHistory history, boolean loaded) {
+        for (; ; ) {
+            int slot = acquire(tag);
+            Page page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            synchronized (page) {
+                if (!page.owns(i, tag)) {
+                    continue;
+                }
+                page.merge(i, history);
+                if (loaded) {
+                    page.setFlags(i, (byte) (page.flags(i) & ~DIRTY));
+                } else {
+                    markModified(page, i, slot);
+                }
+                return;
+            }
+        }
+    }
+
+    void remove(long tag) {
+        synchronized (this) {
+            int slot = index.remove(tag);
+            if (slot < 0) {
+                return;
+            }
+            release(slot);
+        }
+    }
+
+    //页锁内调用,标记为未持久化并加入待持久化队列
+    private void markModified(Page page, int i, int slot) {
+        byte flags = page.flags(i);
+        page.setFlags(i, (byte) ((flags & ~(IDLE | STORED)) | QUEUED));
+        if ((flags & QUEUED) == 0) {
+            synchronized (dirtyLock) {
+                if (dirtySize == dirtySlots.length) {
+                    dirtySlots = Arrays.copyOf(dirtySlots, dirtySize * 2);
+                }
+                dirtySlots[dirtySize++] = slot;
+            }
+        }
+    }
+
+    /**
+     * @return 等待持久化的槽位数量
+     */
+    int dirtySize() {
+        synchronized (dirtyLock) {
+            return dirtySize;
+        }
+    }
+
+    /**
+     * 获取并清空等待持久化的槽位
+     *
+     * @return 槽位
+     */
+    int[] takeDirty() {
+        synchronized (dirtyLock) {
+            int[] slots = Arrays.copyOf(dirtySlots, dirtySize);
+            dirtySize = 0;
+            //避免突发写入后长期占用过多内存
+            if (dirtySlots.length > 1024 && slots.length < dirtySlots.length / 4) {
+                dirtySlots = new int[Math.max(1024, dirtySlots.length / 2)];
+            }
+            return slots;
+        }
+    }
+
+    /**
+     * @return 已分配的槽位数量
+     */
+    int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * 持久化槽位中的数据
+     *
+     * @param slot   槽位
+     * @param writer 写出器
+     * @return 是否执行了写出
+     */
+    boolean store(int slot, Writer writer) {
+        if (slot >= slotCount) {
+            return false;
+        }
+        Page page = pages[slot >>> PAGE_SHIFT];
+        int i = slot & PAGE_MASK;
+        long tag;
+        PropertyHistory snapshot;
+        boolean dirty;
+        synchronized (page) {
+            byte flags = page.flags(i);
+            if ((flags & USED) == 0) {
+                return false;
+            }
+            flags &= ~QUEUED;
+            if ((flags & STORED) != 0) {
+                page.setFlags(i, flags);
+                return false;
+            }
+            tag = page.key(i);
+            snapshot = page.snapshot(i);
+            dirty = (flags & DIRTY) != 0;
+            page.setFlags(i, (byte) (flags | STORED));
+        }
+        write(page, i, tag, snapshot, dirty, writer);
+        return true;
+    }
+
+    /**
+     * 检查槽位是否空闲,回收连续两次检查期间都没有被访问过的槽位,回收前会先持久化未持久化的数据.
+     *
+     * @param slot   槽位
+     * @param writer 写出器
+     * @return 是否执行了写出
+     */
+    boolean sweep(int slot, Writer writer) {
+        if (slot >= slotCount) {
+            return false;
+        }
+        Page page = pages[slot >>> PAGE_SHIFT];
+        int i = slot & PAGE_MASK;
+        long tag;
+        PropertyHistory snapshot = null;
+        boolean dirty = false;
+        synchronized (page) {
+            byte flags = page.flags(i);
+            if ((flags & USED) == 0) {
+                return false;
+            }
+            //标记为空闲
+            if ((flags & IDLE) == 0) {
+                page.setFlags(i, (byte) (flags | IDLE));
+                return false;
+            }
+            tag = page.key(i);
+            if ((flags & STORED) == 0) {
+                snapshot = page.snapshot(i);
+                dirty = (flags & DIRTY) != 0;
+                page.setFlags(i, (byte) ((flags | STORED) & ~QUEUED));
+            }
+        }
+        if (snapshot != null) {
+            write(page, i, tag, snapshot, dirty, writer);
+        }
+        //上一次被标记为空闲,则本次移除
+        evict(tag, slot);
+        return snapshot != null;
+    }
+
+    private void write(Page page, int i, long tag, PropertyHistory snapshot, boolean dirty, Writer writer) {
+        PropertyHistory stored = writer.write(tag, snapshot.setDirty(dirty));
+        //与磁盘中的数据合并后,内存中的数据已经是完整的了
+        if (dirty) {
+            synchronized (page) {
+                if (page.owns(i, tag)) {
+                    page.merge(i, stored);
+                    page.setFlags(i, (byte) (page.flags(i) & ~DIRTY));
+                }
+            }
+        }
+    }
+
+    void dispose() {
+        synchronized (this) {
+            for (Page page : pages) {
+                page.release();
+            }
+            pages = new Page[0];
+            index.clear();
+            slotCount = 0;
+            freeSize = 0;
+        }
+        synchronized (dirtyLock) {
+            dirtySize = 0;
+        }
+    }
+
+    private void evict(long tag, int slot) {
+        synchronized (this) {
+            Page page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            synchronized (page) {
+                byte flags = page.flags(i);
+                if (!page.owns(i, tag) || (flags & IDLE) == 0 || (flags & STORED) == 0) {
+                    return;
+                }
+            }
+            index.remove(tag);
+            release(slot);
+        }
+    }
+
+    //this锁内调用
+    private void release(int slot) {
+        Page page = pages[slot >>> PAGE_SHIFT];
+        synchronized (page) {
+            page.clear(slot & PAGE_MASK);
+        }
+        if (freeSize == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSize * 2);
+        }
+        freeSlots[freeSize++] = slot;
+    }
+
+    private int acquire(long tag) {
+        int slot = index.get(tag);
+        if (slot >= 0) {
+            return slot;
+        }
+        synchronized (this) {
+            slot = index.get(tag);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (freeSize > 0) {
+                slot = freeSlots[--freeSize];
+            } else {
+                slot = slotCount;
+                int pageIndex = slot >>> PAGE_SHIFT;
+                if (pageIndex == pages.length) {
+                    Page[] newPages = Arrays.copyOf(pages, pageIndex + 1);
+                    newPages[pageIndex] = new Page(depth);
+                    pages = newPages;
+                }
+            }
+            Page page = pages[slot >>> PAGE_SHIFT];
+            synchronized (page) {
+                page.init(slot & PAGE_MASK, tag);
+            }
+            index.put(tag, slot);
+            if (slot == slotCount) {
+                slotCount = slot + 1;
+            }
+            return slot;
+        }
+    }
+
+    interface Writer {
+        /**
+         * 写出数据
+         *
+         * @param tag     key
+         * @param history 历史数据
+         * @return 写出后的数据, 可能已与磁盘中的数据进行了合并
+         */
+        PropertyHistory write(long tag, PropertyHistory history);
+    }
+
+    static byte kindOf(Object value) {
+        if (value == null) {
+            return KIND_NULL;
+        }
+        if (value instanceof Integer) {
+            return KIND_INT;
+        }
+        if (value instanceof Long) {
+            return KIND_LONG;
+        }
+        if (value instanceof Double) {
+            return KIND_DOUBLE;
+        }
+        if (value instanceof Float) {
+            return KIND_FLOAT;
+        }
+        if (value instanceof Boolean) {
+            return KIND_BOOLEAN;
+        }
+        return KIND_OBJECT;
+    }
+
+    static long encode(byte kind, Object value) {
+        switch (kind) {
+            case KIND_INT:
+                return (Integer) value;
+            case KIND_LONG:
+                return (Long) value;
+            case KIND_FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            case KIND_DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            case KIND_BOOLEAN:
+                return ((Boolean) value) ? 1 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    static Object decode(byte kind, long bits, Object ref) {
+        switch (kind) {
+            case KIND_INT:
+                return (int) bits;
+            case KIND_LONG:
+                return bits;
+            case KIND_FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case KIND_DOUBLE:
+                return Double.longBitsToDouble(bits);
+            case KIND_BOOLEAN:
+                return bits == 1;
+            case KIND_OBJECT:
+                return ref;
+            default:
+                return null;
+        }
+    }
+
+    private class SlotReader implements HistoryReader {
+        private final long tag;
+
+        private SlotReader(long tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        public Property getProperty(long baseTime) {
+            int slot = index.get(tag);
+            if (slot < 0) {
+                return null;
+            }
+            Page page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            synchronized (page) {
+                if (!page.owns(i, tag)) {
+                    return null;
+                }
+                page.touch(i);
+                int count = page.count(i);
+                for (int pos = 0; pos < count; pos++) {
+                    if (page.time(i, pos) <= baseTime) {
+                        return page.property(i, pos);
+                    }
+                }
+                return null;
+            }
+        }
+
+        @Override
+        public Property getFirst() {
+            int slot = index.get(tag);
+            if (slot < 0) {
+                return null;
+            }
+            Page page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            synchronized (page) {
+                if (!page.owns(i, tag)) {
+                    return null;
+                }
+                return page.first(i);
+            }
+        }
+
+        @Override
+        public List<ThingProperty> getProperties(String property, long from, long to) {
+            if (LocalFileThingsDataManager.DEFAULT_MAX_STORE_SIZE_EACH_KEY == 0) {
+                return Collections.emptyList();
+            }
+            int slot = index.get(tag);
+            if (slot < 0) {
+                return Collections.emptyList();
+            }
+            Page page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            synchronized (page) {
+                if (!page.owns(i, tag)) {
+                    return Collections.emptyList();
+                }
+                page.touch(i);
+                int count = page.count(i);
+                List<ThingProperty> properties = new ArrayList<>(count);
+                for (int pos = 0; pos < count; pos++) {
+                    long time = page.time(i, pos);
+                    if (time >= from && time < to) {
+                        properties.add(page.property(i, pos).toProperty(property));
+                    } else {
+                        break;
+                    }
+                }
+                return properties;
+            }
+        }
+    }
+
+    /**
+     * 一页槽位数据,所有操作需要在页锁内进行.
+     */
+    static final class Page {
+        //flags(1) count(1) firstKind(1) reserved(1)
+        private static final int META_SIZE = 4;
+
+        private final int depth;
+
+        private final ByteBuf meta;
+        private final ByteBuf keys;
+        private final ByteBuf firstTimes;
+        private final ByteBuf firstValues;
+        private final ByteBuf times;
+        private final ByteBuf values;
+        private final ByteBuf kinds;
+
+        //非基本类型的值以及状态,按需创建. 索引: slot * (depth + 1) + pos, pos为depth时表示首次数据
+        private Object[] refs;
+        private String[] states;
+
+        Page(int depth) {
+            this.depth = depth;
+            this.meta = allocate(PAGE_SIZE * META_SIZE);
+            this.keys = allocate(PAGE_SIZE * 8);
+            this.firstTimes = allocate(PAGE_SIZE * 8);
+            this.firstValues = allocate(PAGE_SIZE * 8);
+            this.times = allocate(PAGE_SIZE * depth * 8);
+            this.values = allocate(PAGE_SIZE * depth * 8);
+            this.kinds = allocate(PAGE_SIZE * depth);
+        }
+
+        private static ByteBuf allocate(int size) {
+            ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(size, size);
+            buf.setZero(0, size);
+            return buf;
+        }
+
+        void release() {
+            ReferenceCountUtil.safeRelease(meta);
+            ReferenceCountUtil.safeRelease(keys);
+            ReferenceCountUtil.safeRelease(firstTimes);
+            ReferenceCountUtil.safeRelease(firstValues);
+            ReferenceCountUtil.safeRelease(times);
+            ReferenceCountUtil.safeRelease(values);
+            ReferenceCountUtil.safeRelease(kinds);
+            refs = null;
+            states = null;
+        }
+
+        byte flags(int i) {
+            return meta.getByte(i * META_SIZE);
+        }
+
+        void setFlags(int i, byte flags) {
+            meta.setByte(i * META_SIZE, flags);
+        }
+
+        int count(int i) {
+            return meta.getByte(i * META_SIZE + 1);
+        }
+
+        long key(int i) {
+            return keys.getLong(i * 8);
+        }
+
+        boolean owns(int i, long tag) {
+            return (flags(i) & USED) != 0 && key(i) == tag;
+        }
+
+        void touch(int i) {
+            setFlags(i, (byte) (flags(i) & ~IDLE));
+        }
+
+        long time(int i, int pos) {
+            return times.getLong((i * depth + pos) * 8);
+        }
+
+        void init(int i, long tag) {
+            clear(i);
+            keys.setLong(i * 8, tag);
+            setFlags(i, (byte) (USED | DIRTY));
+        }
+
+        void clear(int i) {
+            meta.setInt(i * META_SIZE, 0);
+            keys.setLong(i * 8, 0);
+            int from = i * (depth + 1), to = from + depth + 1;
+            if (refs != null) {
+                Arrays.fill(refs, from, to, null);
+            }
+            if (states != null) {
+                Arrays.fill(states, from, to, null);
+            }
+        }
+
+        private void setRef(int idx, Object ref) {
+            if (ref != null) {
+                if (refs == null) {
+                    refs = new Object[PAGE_SIZE * (depth + 1)];
+                }
+                refs[idx] = ref;
+            } else if (refs != null) {
+                refs[idx] = null;
+            }
+        }
+
+        private void setState(int idx, String state) {
+            if (state != null) {
+                if (states == null) {
+                    states = new String[PAGE_SIZE * (depth + 1)];
+                }
+                states[idx] = state;
+            } else if (states != null) {
+                states[idx] = null;
+            }
+        }
+
+        private Object ref(int idx) {
+            return refs == null ? null : refs[idx];
+        }
+
+        private String state(int idx) {
+            return states == null ? null : states[idx];
+        }
+
+        private void setEntry(int i, int pos, long time, byte kind, long bits, Object ref, String state) {
+            int cell = i * depth + pos;
+            times.setLong(cell * 8, time);
+            values.setLong(cell * 8, bits);
+            kinds.setByte(cell, kind);
+            int idx = i * (depth + 1) + pos;
+            setRef(idx, ref);
+            setState(idx, state);
+        }
+
+        private void moveEntry(int i, int from, int to) {
+            int src = i * depth + from, dest = i * depth + to;
+            times.setLong(dest * 8, times.getLong(src * 8));
+            values.setLong(dest * 8, values.getLong(src * 8));
+            kinds.setByte(dest, kinds.getByte(src));
+            int base = i * (depth + 1);
+            setRef(base + to, ref(base + from));
+            setState(base + to, state(base + from));
+        }
+
+        private void setFirst(int i, long time, byte kind, long bits, Object ref, String state) {
+            firstTimes.setLong(i * 8, time);
+            firstValues.setLong(i * 8, bits);
+            meta.setByte(i * META_SIZE + 2, kind);
+            int idx = i * (depth + 1) + depth;
+            setRef(idx, ref);
+            setState(idx, state);
+            setFlags(i, (byte) (flags(i) | HAS_FIRST));
+        }
+
+        void update(int i, long time, Object value, String state) {
+            byte kind = kindOf(value);
+            long bits = encode(kind, value);
+            Object ref = kind == KIND_OBJECT ? LocalFileThingsDataManager.tryIntern(value) : null;
+            state = RecyclerUtils.intern(state);
+            //更新首次时间
+            if ((flags(i) & HAS_FIRST) == 0 || firstTimes.getLong(i * 8) >= time) {
+                setFirst(i, time, kind, bits, ref, state);
+            }
+            insert(i, time, kind, bits, ref, state);
+        }
+
+        //按时间倒序插入
+        private void insert(int i, long time, byte kind, long bits, Object ref, String state) {
+            int count = count(i);
+            int pos = 0;
+            while (pos < count && time(i, pos) > time) {
+                pos++;
+            }
+            //相同时间,直接更新值
+            if (pos < count && time(i, pos) == time) {
+                setEntry(i, pos, time, kind, bits, ref, state);
+                return;
+            }
+            //比所有数据都旧,并且已满
+            if (pos >= depth) {
+                return;
+            }
+            for (int j = Math.min(count, depth - 1); j > pos; j--) {
+                moveEntry(i, j - 1, j);
+            }
+            setEntry(i, pos, time, kind, bits, ref, state);
+            if (count < depth) {
+                meta.setByte(i * META_SIZE + 1, count + 1);
+            }
+        }
+
+        private void insert(int i, Property property) {
+            Object value = property.getValue();
+            byte kind = kindOf(value);
+            insert(i,
+                   property.getTime(),
+                   kind,
+                   encode(kind, value),
+                   kind == KIND_OBJECT ? value : null,
+                   property.getState());
+        }
+
+        void merge(int i, PropertyHistory history) {
+            Property first = history.getFirst();
+            if (first != null
+                && ((flags(i) & HAS_FIRST) == 0 || first.getTime() < firstTimes.getLong(i * 8))) {
+                Object value = first.getValue();
+                byte kind = kindOf(value);
+                setFirst(i,
+                         first.getTime(),
+                         kind,
+                         encode(kind, value),
+                         kind == KIND_OBJECT ? value : null,
+                         first.getState());
+            }
+            for (Property property : history.values()) {
+                insert(i, property);
+            }
+        }
+
+        Property property(int i, int pos) {
+            int cell = i * depth + pos;
+            int idx = i * (depth + 1) + pos;
+            Property property = new Property();
+            property.setTime(times.getLong(cell * 8));
+            property.setValue(decode(kinds.getByte(cell), values.getLong(cell * 8), ref(idx)));
+            property.setState(state(idx));
+            return property;
+        }
+
+        Property first(int i) {
+            if ((flags(i) & HAS_FIRST) == 0) {
+                return null;
+            }
+            int idx = i * (depth + 1) + depth;
+            Property property = new Property();
+            property.setTime(firstTimes.getLong(i * 8));
+            property.setValue(decode(meta.getByte(i * META_SIZE + 2), firstValues.getLong(i * 8), ref(idx)));
+            property.setState(state(idx));
+            return property;
+        }
+
+        PropertyHistory snapshot(int i) {
+            PropertyHistory history = new PropertyHistory();
+            for (int pos = count(i) - 1; pos >= 0; pos--) {
+                history.updateLastUnsafe(property(i, pos));
+            }
+            history.setFirstUnsafe(first(i));
+            return history;
+        }
+    }
+
+    /**
+     * long -> int 开放寻址哈希表,读取时使用乐观锁.
+     */
+    static final class LongIntMap {
+        //tag由物实例标记左移32位得到,不会为0,因此使用0表示空位
+        private static final long EMPTY = 0;
+
+        private final StampedLock lock = new StampedLock();
+
+        private volatile Table table = new Table(1024);
+        //写锁内修改,读取时不加锁
+        private volatile int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            int value = table.get(key);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = table.get(key);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        void put(long key, int value) {
+            long stamp = lock.writeLock();
+            try {
+                Table table = this.table;
+                if ((size + 1) * 2 > table.keys.length) {
+                    table = this.table = table.resize(table.keys.length * 2);
+                }
+                if (table.put(key, value)) {
+                    size++;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int remove(long key) {
+            long stamp = lock.writeLock();
+            try {
+                int value = table.remove(key);
+                if (value >= 0) {
+                    size--;
+                }
+                return value;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new Table(1024);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        static final class Table {
+            final long[] keys;
+            final int[] values;
+            final int mask;
+
+            Table(int capacity) {
+                keys = new long[capacity];
+                values = new int[capacity];
+                mask = capacity - 1;
+            }
+
+            static int hash(long key) {
+                long h = key * 0x9E3779B97F4A7C15L;
+                return (int) (h ^ (h >>> 32));
+            }
+
+            int get(long key) {
+                int idx = hash(key) & mask;
+                //乐观读时数据可能正在变化,限制最大探测次数
+                for (int i = 0; i <= mask; i++) {
+                    long k = keys[idx];
+                    if (k == key) {
+                        return values[idx];
+                    }
+                    if (k == EMPTY) {
+                        return -1;
+                    }
+                    idx = (idx + 1) & mask;
+                }
+                return -1;
+            }
+
+            boolean put(long key, int value) {
+                int idx = hash(key) & mask;
+                for (; ; ) {
+                    long k = keys[idx];
+                    if (k == EMPTY) {
+                        values[idx] = value;
+                        keys[idx] = key;
+                        return true;
+                    }
+                    if (k == key) {
+                        values[idx] = value;
+                        return false;
+                    }
+                    idx = (idx + 1) & mask;
+                }
+            }
+
+            int remove(long key) {
+                int idx = hash(key) & mask;
+                for (; ; ) {
+                    long k = keys[idx];
+                    if (k == EMPTY) {
+                        return -1;
+                    }
+                    if (k == key) {
+                        break;
+                    }
+                    idx = (idx + 1) & mask;
+                }
+                int value = values[idx];
+                //向后移动后续元素,避免使用删除标记
+                int gap = idx;
+                int next = (gap + 1) & mask;
+                for (; keys[next] != EMPTY; next = (next + 1) & mask) {
+                    int home = hash(keys[next]) & mask;
+                    if (((next - home) & mask) >= ((next - gap) & mask)) {
+                        keys[gap] = keys[next];
+                        values[gap] = values[next];
+                        gap = next;
+                    }
+                }
+                keys[gap] = EMPTY;
+                return value;
+            }
+
+            Table resize(int capacity) {
+                Table table = new Table(capacity);
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != EMPTY) {
+                        table.put(keys[i], values[i]);
+                    }
+                }
+                return table;
+            }
+        }
+    }
+}
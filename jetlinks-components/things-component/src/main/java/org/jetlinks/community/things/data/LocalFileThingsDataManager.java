@@ -15,6 +15,11 @@
  */
 package org.jetlinks.community.things.data;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.netty.buffer.*;
 import io.netty.util.ReferenceCountUtil;
 import lombok.*;
@@ -55,7 +60,10 @@ import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -65,6 +73,9 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
     private static final AtomicIntegerFieldUpdater<LocalFileThingsDataManager>
         TAG_INC = AtomicIntegerFieldUpdater.newUpdater(LocalFileThingsDataManager.class, "tagInc");
 
+    private static final AtomicIntegerFieldUpdater<LocalFileThingsDataManager>
+        DIRTY_SIZE = AtomicIntegerFieldUpdater.newUpdater(LocalFileThingsDataManager.class, "dirtySize");
+
     //单个属性最大缓存数量 java -Dthings.data.store.max-size=8
     static int DEFAULT_MAX_STORE_SIZE_EACH_KEY = Integer
         .parseInt(
@@ -76,6 +87,12 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
             System.getProperty("jetlinks.things.data.store.flush-interval", "30s")
         );
 
+    //flush时每个时间片的最大执行时间,超过后让出写线程,避免长时间阻塞其他操作
+    static Duration FLUSH_SLICE = TimeUtils
+        .parse(
+            System.getProperty("jetlinks.things.data.store.flush-slice", "50ms")
+        );
+
     static int CACHE_SIZE = (int) Math.max(64, Runtime.getRuntime().maxMemory() / 1024 / 1024 / 64);
 
     protected final MVStore mvStore;
@@ -93,7 +110,23 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
     private final Disposable.Composite disposable = Disposables.composite();
     private volatile int tagInc;
 
+    //堆外列式存储,为null时使用l1Cache
+    private final ColumnarPropertyStore columnar;
+
+    //等待持久化的key
+    private final Queue<StoreKey> dirtyKeys = new ConcurrentLinkedQueue<>();
+    private volatile int dirtySize;
+
+    //写出的字节数
+    private final LongAdder flushBytes = new LongAdder();
+    private Timer flushTimer;
+    private DistributionSummary flushDirtySummary;
+
     public LocalFileThingsDataManager(String fileName) {
+        this(fileName, ThingsDataStoreType.heap);
+    }
+
+    public LocalFileThingsDataManager(String fileName, ThingsDataStoreType storeType) {
 
         Tuple3<MVStore,
             MVMap<String, Integer>,
@@ -113,6 +146,9 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
         this.tagStore = tp3.getT2();
         this.historyStore = tp3.getT3();
         this.tagInc = this.tagStore.size();
+        this.columnar = storeType == ThingsDataStoreType.columnar
+            ? new ColumnarPropertyStore(DEFAULT_MAX_STORE_SIZE_EACH_KEY)
+            : null;
         init();
     }
 
@@ -120,12 +156,42 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
         flushNow();
         mvStore.close(10_000);
         this.disposable.dispose();
+        if (columnar != null) {
+            columnar.dispose();
+        }
+    }
+
+    //内存中缓存的数量
+    protected int memorySize() {
+        return columnar != null ? columnar.size() : l1Cache.size();
+    }
+
+    //等待持久化的数量
+    protected int dirtySize() {
+        return columnar != null ? columnar.dirtySize() : dirtySize;
+    }
+
+    /**
+     * 注册flush耗时,待持久化数量,写出字节数等指标
+     *
+     * @param registry MeterRegistry
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jetlinks_things_data_memory_size", this, LocalFileThingsDataManager::memorySize)
+             .register(registry);
+        Gauge.builder("jetlinks_things_data_dirty_size", this, LocalFileThingsDataManager::dirtySize)
+             .register(registry);
+        FunctionCounter.builder("jetlinks_things_data_flush_bytes", flushBytes, LongAdder::sum)
+                       .baseUnit("bytes")
+                       .register(registry);
+        flushTimer = Timer.builder("jetlinks_things_data_flush_duration").register(registry);
+        flushDirtySummary = DistributionSummary.builder("jetlinks_things_data_flush_dirty").register(registry);
     }
 
     private void init() {
         disposable.add(
             Flux.interval(FLUSH_INTERVAL)
-                .onBackpressureDrop(dropped -> log.info("flush thing data too slow! in memory size:{}", l1Cache.size()))
+                .onBackpressureDrop(dropped -> log.info("flush thing data too slow! in memory size:{}", memorySize()))
                 .concatMap(ignore -> flushAsync(), 1)
                 .subscribe());
         disposable.add(this.writerScheduler);
@@ -145,37 +211,187 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
         }
     };
 
-    synchronized void flushNow() {
-        long ms = System.currentTimeMillis();
-        log.info("flushing thing data, in memory size:{}", l1Cache.size());
-        for (Map.Entry<StoreKey, PropertyHistory> entry : l1Cache.entrySet()) {
-            StoreKey key = entry.getKey();
-            PropertyHistory history = entry.getValue();
-            if (!history.isStored()) {
-                historyStore.operate(key.toTag(), history, MERGE);
-            }
-            //上一次被标记为空闲,则本次移除
-            if (history.isIdle()) {
-                l1Cache.remove(key);
-            }
-            //标记为空闲
-            else {
-                history.setIdle(true);
-            }
-        }
-        log.info("flushing thing data complete {}ms, in memory size:{}", System.currentTimeMillis() - ms, l1Cache.size());
+    void flushNow() {
+        FlushTask task = new FlushTask();
+        //不限制时间片,直接执行完成
+        while (!task.run(Long.MAX_VALUE)) ;
     }
 
     protected Mono<Void> flushAsync() {
+        return flushAsync(FLUSH_SLICE.toNanos());
+    }
+
+    Mono<Void> flushAsync(long sliceNanos) {
+        FlushTask task = new FlushTask();
+        //每个时间片单独调度到写线程,与其他写操作交替执行
         return Mono
-            .<Void>fromRunnable(this::flushNow)
+            .fromCallable(() -> task.run(sliceNanos))
             .subscribeOn(writerScheduler)
+            .repeat(() -> !task.done)
+            .then()
             .onErrorResume(err -> {
-                log.warn("write thing data error. in memory size:{}", l1Cache.size(), err);
+                log.warn("write thing data error. in memory size:{}", memorySize(), err);
                 return Mono.empty();
             });
     }
 
+    private PropertyHistory store(long tag, PropertyHistory history) {
+        historyStore.operate(tag, history, MERGE);
+        return history;
+    }
+
+    /**
+     * 增量flush任务.
+     * <p>
+     * 先持久化有变更的数据,再检查并移除空闲的缓存.任务按时间片执行,每个时间片结束后让出写线程.
+     */
+    class FlushTask {
+        private final long startTime = System.currentTimeMillis();
+        //待持久化的key数量,只处理任务开始前产生的变更
+        private int pending;
+        private int[] dirtySlots;
+        private int dirtyIndex;
+        //空闲检查进度
+        private Iterator<Map.Entry<StoreKey, PropertyHistory>> sweeper;
+        private int sweepSlot;
+
+        private int written;
+        private long elapsedNanos;
+        private int slices;
+        private volatile boolean done;
+
+        FlushTask() {
+            if (columnar != null) {
+                dirtySlots = columnar.takeDirty();
+            } else {
+                pending = dirtySize;
+            }
+            log.debug("flushing thing data, in memory size:{}, dirty size:{}", memorySize(), dirtySize());
+        }
+
+        boolean run(long sliceNanos) {
+            synchronized (LocalFileThingsDataManager.this) {
+                if (done) {
+                    return true;
+                }
+                long start = System.nanoTime();
+                try {
+                    done = columnar != null ? runColumnar(start, sliceNanos) : runHeap(start, sliceNanos);
+                } finally {
+                    elapsedNanos += System.nanoTime() - start;
+                    slices++;
+                }
+                if (done) {
+                    complete();
+                }
+                return done;
+            }
+        }
+
+        int getSlices() {
+            return slices;
+        }
+
+        int getWritten() {
+            return written;
+        }
+
+        private boolean timeout(int ops, long start, long sliceNanos) {
+            return (ops & 63) == 0
+                && sliceNanos != Long.MAX_VALUE
+                && System.nanoTime() - start >= sliceNanos;
+        }
+
+        private boolean runHeap(long start, long sliceNanos) {
+            int ops = 0;
+            //持久化有变更的数据
+            while (pending > 0) {
+                StoreKey key = dirtyKeys.poll();
+                if (key == null) {
+                    pending = 0;
+                    break;
+                }
+                pending--;
+                DIRTY_SIZE.decrementAndGet(LocalFileThingsDataManager.this);
+                PropertyHistory history = l1Cache.get(key);
+                if (history != null) {
+                    history.setQueued(false);
+                    if (!history.isStored()) {
+                        store(key.toTag(), history);
+                        written++;
+                    }
+                }
+                if (timeout(++ops, start, sliceNanos)) {
+                    return false;
+                }
+            }
+            //检查空闲
+            if (sweeper == null) {
+                sweeper = l1Cache.entrySet().iterator();
+            }
+            while (sweeper.hasNext()) {
+                Map.Entry<StoreKey, PropertyHistory> entry = sweeper.next();
+                PropertyHistory history = entry.getValue();
+                //上一次被标记为空闲,则本次移除
+                if (history.isIdle()) {
+                    if (!history.isStored()) {
+                        store(entry.getKey().toTag(), history);
+                        written++;
+                    }
+                    l1Cache.remove(entry.getKey(), history);
+                }
+                //标记为空闲
+                else {
+                    history.setIdle(true);
+                }
+                if (timeout(++ops, start, sliceNanos)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean runColumnar(long start, long sliceNanos) {
+            int ops = 0;
+            //持久化有变更的数据
+            while (dirtyIndex < dirtySlots.length) {
+                if (columnar.store(dirtySlots[dirtyIndex++], LocalFileThingsDataManager.this::store)) {
+                    written++;
+                }
+                if (timeout(++ops, start, sliceNanos)) {
+                    return false;
+                }
+            }
+            //检查空闲
+            int slotCount = columnar.slotCount();
+            while (sweepSlot < slotCount) {
+                if (columnar.sweep(sweepSlot++, LocalFileThingsDataManager.this::store)) {
+                    written++;
+                }
+                if (timeout(++ops, start, sliceNanos)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void complete() {
+            if (flushTimer != null) {
+                flushTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+            if (flushDirtySummary != null) {
+                flushDirtySummary.record(written);
+            }
+            log.info("flushing thing data complete {}ms(busy {}ms, {} slices), written:{}, in memory size:{}, total bytes written:{}",
+                     System.currentTimeMillis() - startTime,
+                     TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                     slices,
+                     written,
+                     memorySize(),
+                     flushBytes.sum());
+        }
+    }
+
     @Override
     public Mono<ThingProperty> getLastProperty(String thingType,
                                                String thingId,
@@ -217,7 +433,7 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
             thingId,
             property,
             prop -> {
-                Property p = prop.first;
+                Property p = prop.getFirst();
                 if (p == null) {
                     return null;
                 }
@@ -253,7 +469,10 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
     protected <T> Mono<T> getHistory(String thingType,
                                      String thingId,
                                      String property,
-                                     Function<PropertyHistory, T> mapper) {
+                                     Function<HistoryReader, T> mapper) {
+        if (columnar != null) {
+            return getColumnarHistory(getPropertyStoreIndex(thingType, thingId, property), mapper);
+        }
         StoreKey key = getPropertyStoreKeyObj(thingType, thingId, property);
         PropertyHistory his = l1Cache.get(key);
         //fast path
@@ -282,6 +501,27 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
             .subscribeOn(readerScheduler);
     }
 
+    private <T> Mono<T> getColumnarHistory(long tag, Function<HistoryReader, T> mapper) {
+        //fast path
+        if (columnar.isLoaded(tag)) {
+            return Mono.justOrEmpty(mapper.apply(columnar.reader(tag)));
+        }
+        // slow path
+        return Mono
+            .fromCallable(() -> {
+                PropertyHistory _his = historyStore.get(tag);
+                if (_his != null) {
+                    columnar.merge(tag, _his, true);
+                    return mapper.apply(columnar.reader(tag));
+                }
+                if (columnar.contains(tag)) {
+                    return mapper.apply(columnar.reader(tag));
+                }
+                return null;
+            })
+            .subscribeOn(readerScheduler);
+    }
+
     @Override
     public Mono<Long> getLastPropertyTime(String thingType, String thingId, long baseTime) {
         return Mono.fromCallable(() -> {
@@ -306,7 +546,7 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
                                       String thingId,
                                       T init,
                                       ARG arg,
-                                      Function4<T, ARG, Long, PropertyHistory, T> historyConsumer) {
+                                      Function4<T, ARG, Long, HistoryReader, T> historyConsumer) {
         long thingTag = getThingIndex(thingType, thingId);
 
         int tagSize = tagStore.size();
@@ -335,12 +575,22 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
             long tag = key >> 32;
 
             if (tag == thingTag) {
-                PropertyHistory propertyStore = cursor.getValue();
-                //与一级缓存进行合并
-                PropertyHistory l1 = l1Cache.get(new StoreKey(thingTag, (int) (key - (key << 32))));
-                if (l1 != null && l1.isDirty()) {
-                    l1.merge(propertyStore);
-                    propertyStore = l1;
+                HistoryReader propertyStore = cursor.getValue();
+                if (columnar != null) {
+                    //与列式存储进行合并
+                    if (columnar.contains(key)) {
+                        if (!columnar.isLoaded(key)) {
+                            columnar.merge(key, cursor.getValue(), true);
+                        }
+                        propertyStore = columnar.reader(key);
+                    }
+                } else {
+                    //与一级缓存进行合并
+                    PropertyHistory l1 = l1Cache.get(new StoreKey(thingTag, (int) (key - (key << 32))));
+                    if (l1 != null && l1.isDirty()) {
+                        l1.merge(cursor.getValue());
+                        propertyStore = l1;
+                    }
                 }
                 init = historyConsumer.apply(init, arg, key, propertyStore);
             }
@@ -360,7 +610,7 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
                     (Long) null,
                     null,
                     (init, arg, key, history) -> {
-                        Property store = history.first;
+                        Property store = history.getFirst();
                         if (store != null) {
                             if (init == null) {
                                 return store.time;
@@ -441,6 +691,11 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
                                          String state) {
 
 
+        if (columnar != null) {
+            columnar.update(getPropertyStoreIndex(thingType, thingId, property), timestamp, value, state);
+            return;
+        }
+
         StoreKey key = getPropertyStoreKeyObj(thingType, thingId, property);
 
         PropertyHistory propertyStore = l1Cache.computeIfAbsent(key, k -> new PropertyHistory().setDirty(true));
@@ -449,12 +704,24 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
         p.setValue(tryIntern(value));
         p.setState(RecyclerUtils.intern(state));
         propertyStore.update(p);
+        markDirty(key, propertyStore);
+    }
+
+    private void markDirty(StoreKey key, PropertyHistory history) {
+        if (history.setQueued(true)) {
+            DIRTY_SIZE.incrementAndGet(this);
+            dirtyKeys.add(key);
+        }
     }
 
     protected final Mono<Void> updateProperty(String thingType,
                                               String thingId,
                                               String property,
                                               PropertyHistory propertyHistory) {
+        if (columnar != null) {
+            columnar.merge(getPropertyStoreIndex(thingType, thingId, property), propertyHistory, false);
+            return Mono.empty();
+        }
         StoreKey storeKey = getPropertyStoreKeyObj(thingType, thingId, property);
 
         PropertyHistory history = l1Cache
@@ -462,6 +729,8 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
 
         //直接合并1级缓存
         history.merge(propertyHistory);
+        history.setStored(false);
+        markDirty(storeKey, history);
 
         return Mono.empty();
 
@@ -504,7 +773,11 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
                         int propertyTag = (int) (key - (key << 32));
 
                         historyStore.remove(key);
-                        l1Cache.remove(new StoreKey(thingTag, propertyTag));
+                        if (columnar != null) {
+                            columnar.remove(key);
+                        } else {
+                            l1Cache.remove(new StoreKey(thingTag, propertyTag));
+                        }
                         return null;
                     }))
             .subscribeOn(writerScheduler);
@@ -532,12 +805,16 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
     public Mono<Void> removeProperty(@Nonnull String thingType,
                                      @Nonnull String thingId,
                                      @Nonnull String property) {
-        StoreKey key = getPropertyStoreKeyObj(thingType, thingId, property);
+        long tag = getPropertyStoreIndex(thingType, thingId, property);
 
-        l1Cache.remove(key);
+        if (columnar != null) {
+            columnar.remove(tag);
+        } else {
+            l1Cache.remove(new StoreKey(tag >> 32, (int) tag));
+        }
 
         return Mono
-            .fromRunnable(() -> historyStore.remove(key.toTag()))
+            .fromRunnable(() -> historyStore.remove(tag))
             .subscribeOn(writerScheduler)
             .then();
     }
@@ -617,11 +894,43 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
         }
     }
 
-    public static class PropertyHistory implements Externalizable {
+    /**
+     * 属性历史数据读取接口
+     *
+     * @since 2.11
+     */
+    public interface HistoryReader {
+
+        /**
+         * 获取指定时间之前(包含)的最新属性
+         *
+         * @param baseTime 基准时间
+         * @return 属性, 不存在时返回<code>null</code>
+         */
+        Property getProperty(long baseTime);
+
+        /**
+         * @return 首次属性, 不存在时返回<code>null</code>
+         */
+        Property getFirst();
+
+        /**
+         * 获取时间范围内的属性,按时间倒序
+         *
+         * @param property 属性ID
+         * @param from     开始时间(包含)
+         * @param to       截止时间(不包含)
+         * @return 属性列表
+         */
+        List<ThingProperty> getProperties(String property, long from, long to);
+    }
+
+    public static class PropertyHistory implements Externalizable, HistoryReader {
         private static final byte
             STORED = 1, //已经持久化
             IDLE = 1 << 1,  //空闲的
-            DIRTY = 1 << 2; //脏数据,等待和磁盘中的数据合并
+            DIRTY = 1 << 2, //脏数据,等待和磁盘中的数据合并
+            QUEUED = 1 << 3; //已加入待持久化队列
         private static final Property NULL = new Property();
 
         static {
@@ -685,6 +994,22 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
             }
         }
 
+        /**
+         * 设置是否已加入待持久化队列
+         *
+         * @param queued 是否已加入
+         * @return 状态是否发生了变化
+         */
+        boolean setQueued(boolean queued) {
+            synchronized (this) {
+                if (((state & QUEUED) != 0) == queued) {
+                    return false;
+                }
+                setStateUnsafe(queued, QUEUED);
+                return true;
+            }
+        }
+
         boolean isDirty() {
             synchronized (this) {
                 return (state & DIRTY) != 0;
@@ -699,6 +1024,16 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
         }
 
 
+        @Override
+        public Property getFirst() {
+            return first;
+        }
+
+        void setFirstUnsafe(Property first) {
+            this.first = first;
+        }
+
+        @Override
         public Property getProperty(long baseTime) {
             setIdle(false);
             if (last == null) {
@@ -717,6 +1052,7 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
             return last.time;
         }
 
+        @Override
         public List<ThingProperty> getProperties(String property, long from, long to) {
             if (last == null) {
                 return Collections.emptyList();
@@ -1058,6 +1394,7 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
                 data.writeExternal(output);
                 output.flush();
 
+                flushBytes.add(buffer.readableBytes());
                 buff.put(buffer.nioBuffer());
             } catch (Throwable err) {
                 log.warn("write thing data error", err);
@@ -1081,6 +1418,7 @@ public class LocalFileThingsDataManager implements ThingsDataManager, ThingsData
                 }
                 output.flush();
 
+                flushBytes.add(buffer.readableBytes());
                 buff.put(buffer.nioBuffer());
 
             } catch (Throwable err) {
@@ -17,6 +17,7 @@ package org.jetlinks.community.things.data;
 
 import lombok.AllArgsConstructor;
 import org.jetlinks.community.things.data.operations.MetricBuilder;
+import org.jetlinks.community.things.data.operations.RollupLevel;
 import org.jetlinks.core.config.ConfigKey;
 import org.jetlinks.community.things.utils.ThingsDatabaseUtils;
 
@@ -80,4 +81,14 @@ public class TableSafeMetricBuilder implements MetricBuilder{
         );
     }
 
+    @Override
+    public String createPropertyRollupMetric(@Nonnull String thingType,
+                                             @Nonnull String thingTemplateId,
+                                             String thingId,
+                                             @Nonnull RollupLevel level) {
+        return ThingsDatabaseUtils.createTableName(
+            target.createPropertyRollupMetric(thingType, thingTemplateId, thingId, level)
+        );
+    }
+
 }
@@ -34,6 +34,12 @@ public interface ThingsDataConstants {
     String COLUMN_PROPERTY_OBJECT_VALUE = "objectValue";
 
 
+    //预聚合数据
+    String COLUMN_ROLLUP_MIN = "minValue";
+    String COLUMN_ROLLUP_MAX = "maxValue";
+    String COLUMN_ROLLUP_SUM = "sumValue";
+    String COLUMN_ROLLUP_COUNT = "countValue";
+
     String COLUMN_EVENT_ID = "event";
     String COLUMN_EVENT_VALUE = "value";
 
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data;
+
+/**
+ * 本地物数据内存缓存的存储方式
+ *
+ * @author zhouhao
+ * @see LocalFileThingsDataManager
+ * @since 2.11
+ */
+public enum ThingsDataStoreType {
+    /**
+     * 堆内存储,每个属性对应一个{@link LocalFileThingsDataManager.PropertyHistory}对象
+     */
+    heap,
+    /**
+     * 堆外列式存储,属性历史按列保存在堆外内存中,适用于物实例和属性数量较多的场景
+     *
+     * @see ColumnarPropertyStore
+     */
+    columnar
+}
@@ -22,6 +22,8 @@ import org.jetlinks.core.metadata.EventMetadata;
 import org.jetlinks.core.metadata.PropertyMetadata;
 import org.jetlinks.core.metadata.SimplePropertyMetadata;
 import org.jetlinks.core.metadata.types.DateTimeType;
+import org.jetlinks.core.metadata.types.DoubleType;
+import org.jetlinks.core.metadata.types.LongType;
 import org.jetlinks.core.metadata.types.ObjectType;
 import org.jetlinks.core.metadata.types.StringType;
 import org.jetlinks.core.things.ThingMetadata;
@@ -82,6 +84,20 @@ public abstract class AbstractDDLOperations implements DDLOperations {
         return metadata;
     }
 
+    protected List<PropertyMetadata> createRollupProperties() {
+        return Arrays
+            .asList(
+                SimplePropertyMetadata.of(ThingsDataConstants.COLUMN_ID, "ID", StringType.GLOBAL),
+                SimplePropertyMetadata.of(metricBuilder.getThingIdProperty(), "物ID", StringType.GLOBAL),
+                SimplePropertyMetadata.of(ThingsDataConstants.COLUMN_PROPERTY_ID, "属性ID", StringType.GLOBAL),
+                SimplePropertyMetadata.of(ThingsDataConstants.COLUMN_TIMESTAMP, "数据时间", DateTimeType.GLOBAL),
+                SimplePropertyMetadata.of(ThingsDataConstants.COLUMN_ROLLUP_MIN, "最小值", DoubleType.GLOBAL),
+                SimplePropertyMetadata.of(ThingsDataConstants.COLUMN_ROLLUP_MAX, "最大值", DoubleType.GLOBAL),
+                SimplePropertyMetadata.of(ThingsDataConstants.COLUMN_ROLLUP_SUM, "总和", DoubleType.GLOBAL),
+                SimplePropertyMetadata.of(ThingsDataConstants.COLUMN_ROLLUP_COUNT, "数量", LongType.GLOBAL)
+            );
+    }
+
     protected List<PropertyMetadata> createEventProperties(EventMetadata event) {
         List<PropertyMetadata> metadata = new ArrayList<>(
             createBasicColumns()
@@ -139,8 +155,17 @@ public abstract class AbstractDDLOperations implements DDLOperations {
                 .then();
         }
 
+        //属性预聚合,每个级别一个表
+        Flux<Void> rollup = settings.getRollup().isEnabled()
+            ? Flux
+            .fromIterable(settings.getRollup().getLevels())
+            .concatMap(level -> handler.apply(MetricType.rollup,
+                                              metricBuilder.createPropertyRollupMetric(thingType, templateId, thingId, level),
+                                              createRollupProperties()))
+            : Flux.empty();
+
         return Flux
-            .concat(properties, log, event)
+            .concat(properties, log, event, rollup)
             .then();
     }
 
@@ -161,6 +186,7 @@ public abstract class AbstractDDLOperations implements DDLOperations {
     public enum MetricType {
         properties,
         log,
-        event
+        event,
+        rollup
     }
 }
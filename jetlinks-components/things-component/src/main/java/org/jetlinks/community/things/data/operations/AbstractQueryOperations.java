@@ -19,15 +19,18 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.hswebframework.ezorm.core.dsl.Query;
 import org.hswebframework.ezorm.core.param.QueryParam;
+import org.hswebframework.ezorm.core.param.Term;
 import org.hswebframework.web.api.crud.entity.PagerResult;
 import org.hswebframework.web.api.crud.entity.QueryParamEntity;
 import org.jetlinks.core.metadata.PropertyMetadata;
+import org.jetlinks.core.metadata.types.NumberType;
 import org.jetlinks.core.things.Thing;
 import org.jetlinks.core.things.ThingMetadata;
 import org.jetlinks.core.things.ThingTemplate;
 import org.jetlinks.core.things.ThingsRegistry;
 import org.jetlinks.community.things.data.*;
 import org.jetlinks.community.timeseries.TimeSeriesData;
+import org.jetlinks.community.timeseries.query.Aggregation;
 import org.jetlinks.community.timeseries.query.AggregationData;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -181,7 +184,156 @@ public abstract class AbstractQueryOperations implements QueryOperations {
         aggRequest.getFilter().toNestQuery(this::applyQuery);
 
         return getMetadata()
-            .flatMapMany(metadata -> doAggregation(metric, aggRequest, new AggregationContext(metadata, properties)));
+            .flatMapMany(metadata -> {
+                AggregationContext context = new AggregationContext(metadata, properties);
+                RollupLevel level = selectRollupLevel(aggRequest, context);
+                if (level != null) {
+                    return doRollupAggregation(metric, level, aggRequest, context);
+                }
+                return doAggregation(metric, aggRequest, context);
+            });
+    }
+
+    /**
+     * 选择可以用于聚合查询的预聚合级别
+     *
+     * @param request 聚合请求
+     * @param context 聚合上下文
+     * @return 预聚合级别, 不能使用预聚合数据时返回null
+     * @see DataSettings.Rollup
+     */
+    protected RollupLevel selectRollupLevel(AggregationRequest request, AggregationContext context) {
+        DataSettings.Rollup rollup = settings.getRollup();
+        if (!rollup.isEnabled() || CollectionUtils.isEmpty(rollup.getLevels())) {
+            return null;
+        }
+        //未设置开始时间时无法确定历史数据是否已经预聚合
+        long from = request.getFrom().getTime();
+        if (rollup.getSince() <= 0 || from < rollup.getSince()) {
+            return null;
+        }
+        //只支持数字类型属性的min,max,avg,sum,count
+        for (PropertyAggregation property : context.getProperties()) {
+            if (!isRollupSupported(property.getAgg())) {
+                return null;
+            }
+            PropertyMetadata metadata = context.getMetadata().getPropertyOrNull(property.getProperty());
+            if (metadata == null || !(metadata.getValueType() instanceof NumberType)) {
+                return null;
+            }
+        }
+        //只支持按物ID过滤
+        for (Term term : request.getFilter().getTerms()) {
+            if (!CollectionUtils.isEmpty(term.getTerms())) {
+                return null;
+            }
+            boolean supported = metricBuilder.getThingIdProperty().equals(term.getColumn())
+                //时间条件已经转换为from和to
+                || (ThingsDataConstants.COLUMN_TIMESTAMP.equals(term.getColumn()) && term.getValue() == null);
+            if (!supported) {
+                return null;
+            }
+        }
+        return RollupLevel.select(rollup.getLevels(), request.getInterval(), from);
+    }
+
+    private static boolean isRollupSupported(Aggregation agg) {
+        return agg == Aggregation.MIN
+            || agg == Aggregation.MAX
+            || agg == Aggregation.AVG
+            || agg == Aggregation.SUM
+            || agg == Aggregation.COUNT;
+    }
+
+    /**
+     * 使用预聚合数据进行聚合查询,预聚合数据还未写入的时间范围(最近的周期)使用原始数据聚合.
+     *
+     * @param metric  原始数据度量名
+     * @param level   预聚合级别
+     * @param request 聚合请求
+     * @param context 聚合上下文
+     * @return 聚合结果
+     */
+    protected Flux<AggregationData> doRollupAggregation(String metric,
+                                                        RollupLevel level,
+                                                        AggregationRequest request,
+                                                        AggregationContext context) {
+        long from = request.getFrom().getTime();
+        long to = request.getTo().getTime();
+        NavigableMap<Long, Map<String, Object>> prepares =
+            ThingsDataUtils.prepareAggregationData(request, context.getProperties());
+
+        //已经写入了预聚合数据并且在查询范围内的结束时间
+        long end = Math.min(settings.getRollup().getWatermark(level, System.currentTimeMillis()),
+                            level.truncate(to + RollupLevel.ALIGN_TOLERANCE));
+        AggregationRequest rest = null;
+        if (end <= to) {
+            //不按时间分组时无法拆分查询
+            //prepares按时间倒序,ceilingEntry为小于等于end的最大周期
+            Map.Entry<Long, Map<String, Object>> bucket = request.getInterval() == null ? null : prepares.ceilingEntry(end);
+            if (bucket == null || prepares.tailMap(bucket.getKey(), false).isEmpty()) {
+                return doAggregation(metric, request, context);
+            }
+            end = bucket.getKey();
+            rest = request.copy();
+            rest.setFrom(new Date(end));
+            rest.setLimit(null);
+        }
+
+        QueryParamEntity param = new QueryParamEntity();
+        param.setPaging(false);
+        for (Term term : request.getFilter().getTerms()) {
+            if (term.getValue() != null) {
+                param.getTerms().add(term.clone());
+            }
+        }
+        Query<?, QueryParamEntity> query = param
+            .toQuery()
+            .in(ThingsDataConstants.COLUMN_PROPERTY_ID, context.getPropertyAlias().values())
+            .gte(ThingsDataConstants.COLUMN_TIMESTAMP, new Date(level.truncate(from)))
+            .lt(ThingsDataConstants.COLUMN_TIMESTAMP, new Date(end));
+
+        long rollupEnd = end;
+        Flux<AggregationData> rollupData = this
+            .doQuery(metricBuilder.createPropertyRollupMetric(thingType, thingTemplateId, thingId, level), query)
+            .reduceWith(HashMap<Long, Map<String, RollupValue>>::new, (container, data) -> {
+                String property = data.getString(ThingsDataConstants.COLUMN_PROPERTY_ID, null);
+                Map.Entry<Long, Map<String, Object>> bucket = prepares.ceilingEntry(data.getTimestamp());
+                if (property != null && bucket != null) {
+                    container
+                        .computeIfAbsent(bucket.getKey(), ignore -> new HashMap<>())
+                        .computeIfAbsent(property, ignore -> new RollupValue())
+                        .merge(data);
+                }
+                return container;
+            })
+            .flatMapIterable(container -> {
+                NavigableMap<Long, Map<String, Object>> buckets = prepares.tailMap(rollupEnd, false);
+                for (Map.Entry<Long, Map<String, Object>> entry : buckets.entrySet()) {
+                    Map<String, RollupValue> values = container.get(entry.getKey());
+                    if (values == null) {
+                        continue;
+                    }
+                    for (PropertyAggregation property : context.getProperties()) {
+                        RollupValue rollupValue = values.get(property.getProperty());
+                        Object value = rollupValue == null ? null : rollupValue.getValue(property.getAgg());
+                        //没有数据时使用默认值
+                        if (value != null) {
+                            entry.getValue().put(property.getAlias(), value);
+                        }
+                    }
+                }
+                return buckets.values();
+            })
+            .map(AggregationData::of);
+
+        if (rest == null) {
+            return rollupData.take(request.getLimit());
+        }
+        //结果按时间倒序
+        return Flux
+            .concat(doAggregation(metric, rest, context), rollupData)
+            .take(request.getLimit());
     }
 
 
@@ -16,7 +16,6 @@
 package org.jetlinks.community.things.data.operations;
 
 import com.google.common.collect.Maps;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.MapUtils;
 import org.hswebframework.web.id.IDGenerator;
@@ -38,23 +37,25 @@ import org.jetlinks.core.utils.StringBuilderUtils;
 import org.jetlinks.core.utils.TimestampUtils;
 import org.jetlinks.community.things.ThingConstants;
 import org.jetlinks.community.things.data.ThingLogType;
+import org.jetlinks.community.things.data.ThingsDataConstants;
 import org.jetlinks.community.timeseries.TimeSeriesData;
 import org.jetlinks.community.utils.ObjectMappers;
 import org.reactivestreams.Publisher;
 import org.springframework.util.ObjectUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
+import java.time.Duration;
 import java.util.*;
 
 import static org.hswebframework.web.utils.DigestUtils.md5Hex;
 import static org.jetlinks.community.things.data.ThingsDataConstants.*;
 
 @Slf4j
-@AllArgsConstructor
-public abstract class AbstractSaveOperations implements SaveOperations {
+public abstract class AbstractSaveOperations implements SaveOperations, Disposable {
 
     protected static final PropertyConstants.Key<String> ERROR_KEY =
         PropertyConstants.Key.of("store_error", () -> null, String.class);
@@ -65,6 +66,22 @@ public abstract class AbstractSaveOperations implements SaveOperations {
 
     protected final DataSettings settings;
 
+    //属性预聚合,开启后在第一次保存属性时创建
+    private volatile PropertyRollup rollup;
+
+    //定时写入预聚合数据的任务
+    private Disposable rollupFlusher;
+
+    private volatile boolean disposed;
+
+    public AbstractSaveOperations(ThingsRegistry registry,
+                                  MetricBuilder metricBuilder,
+                                  DataSettings settings) {
+        this.registry = registry;
+        this.metricBuilder = metricBuilder;
+        this.settings = settings;
+    }
+
     @Override
     public final Mono<Void> save(ThingMessage thingMessage) {
         return this
@@ -349,6 +366,112 @@ public abstract class AbstractSaveOperations implements SaveOperations {
                                                                               Map<String, Object> properties,
                                                                               Map<String, Long> propertySourceTimes);
 
+    /**
+     * 累加属性预聚合数据,只处理数字类型的值,未开启预聚合时忽略.
+     *
+     * @param templateId 物模版ID
+     * @param message    消息
+     * @param property   属性ID
+     * @param timestamp  数据时间(毫秒)
+     * @param value      转换后的属性值
+     * @see DataSettings.Rollup
+     */
+    protected final void rollupProperty(String templateId,
+                                        ThingMessage message,
+                                        String property,
+                                        long timestamp,
+                                        Object value) {
+        DataSettings.Rollup rollupSettings = settings.getRollup();
+        if (!rollupSettings.isEnabled() || !(value instanceof Number)) {
+            return;
+        }
+        getOrCreateRollup(rollupSettings)
+            .add(message.getThingType(),
+                 templateId,
+                 message.getThingId(),
+                 property,
+                 timestamp,
+                 ((Number) value).doubleValue());
+    }
+
+    private PropertyRollup getOrCreateRollup(DataSettings.Rollup rollupSettings) {
+        PropertyRollup rollup = this.rollup;
+        if (rollup != null) {
+            return rollup;
+        }
+        synchronized (this) {
+            if ((rollup = this.rollup) == null) {
+                PropertyRollup newRollup = new PropertyRollup(rollupSettings);
+                if (!disposed) {
+                    //定时写入已经结束的周期
+                    rollupFlusher = Flux
+                        .interval(rollupSettings.getFlushInterval())
+                        .onBackpressureDrop()
+                        .concatMap(ignore -> flushRollup(newRollup, System.currentTimeMillis()))
+                        .subscribe();
+                }
+                this.rollup = rollup = newRollup;
+            }
+        }
+        return rollup;
+    }
+
+    private Mono<Void> flushRollup(PropertyRollup rollup, long now) {
+        return Flux
+            .fromIterable(rollup.drain(now, metricBuilder).entrySet())
+            .flatMap(entry -> this
+                .doSaveRollup(entry.getKey(), Flux.fromIterable(entry.getValue()))
+                .onErrorResume(error -> {
+                    log.warn("save property rollup data [{}] error", entry.getKey(), error);
+                    return Mono.empty();
+                }))
+            .then();
+    }
+
+    /**
+     * 停止定时写入,并写入内存中剩余的预聚合数据
+     */
+    @Override
+    public void dispose() {
+        PropertyRollup rollup;
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            if (rollupFlusher != null) {
+                rollupFlusher.dispose();
+            }
+            rollup = this.rollup;
+        }
+        if (rollup == null || rollup.size() == 0) {
+            return;
+        }
+        try {
+            //写入所有周期(包括未结束的周期)的部分聚合数据,查询时会合并同一周期的多条数据
+            flushRollup(rollup, Long.MAX_VALUE).block(Duration.ofSeconds(30));
+        } catch (Throwable error) {
+            log.warn("flush property rollup data error", error);
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * 保存属性预聚合数据,数据包含{@link ThingsDataConstants#COLUMN_ROLLUP_MIN}等字段.
+     *
+     * @param metric 度量名
+     * @param data   预聚合数据
+     * @return void
+     * @see MetricBuilder#createPropertyRollupMetric(String, String, String, RollupLevel)
+     */
+    protected Mono<Void> doSaveRollup(String metric, Flux<TimeSeriesData> data) {
+        return doSave(metric, data);
+    }
+
     protected abstract Mono<Void> doSave(String metric, TimeSeriesData data);
 
     protected abstract Mono<Void> doSave(String metric, Flux<TimeSeriesData> data);
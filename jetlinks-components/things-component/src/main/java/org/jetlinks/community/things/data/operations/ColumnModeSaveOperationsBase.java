@@ -94,6 +94,9 @@ public abstract class ColumnModeSaveOperationsBase extends AbstractSaveOperation
                         return null;
                     }
                     long timestamp = convertTimestamp(message.getTimestamp());
+                    for (Map.Entry<String, Object> entry : data.entrySet()) {
+                        rollupProperty(templateId, message, entry.getKey(), timestamp, entry.getValue());
+                    }
                     data.put(metricBuilder.getThingIdProperty(), message.getThingId());
                     data.put(COLUMN_TIMESTAMP, timestamp);
                     data.put(COLUMN_CREATE_TIME, System.currentTimeMillis());
@@ -19,6 +19,10 @@ import lombok.Getter;
 import lombok.Setter;
 import org.jetlinks.community.utils.MessageTypeMatcher;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
 @Getter
 @Setter
 public class DataSettings {
@@ -31,6 +35,8 @@ public class DataSettings {
 
     private Property property = new Property();
 
+    private Rollup rollup = new Rollup();
+
     @Getter
     @Setter
     public static class Log extends MessageTypeMatcher {
@@ -48,6 +54,38 @@ public class DataSettings {
 
     }
 
+    @Getter
+    @Setter
+    public static class Rollup {
+        //是否开启属性预聚合,开启后数字类型的属性会按级别增量计算min,max,sum,count并存储到单独的表中,
+        //聚合查询时优先使用满足聚合间隔的最粗粒度的预聚合数据.
+        private boolean enabled = false;
+
+        //预聚合级别
+        private List<RollupLevel> levels = Arrays.asList(RollupLevel.values());
+
+        //检查并写入已经结束的周期的间隔
+        private Duration flushInterval = Duration.ofSeconds(30);
+
+        //周期结束后延迟写入的时间,用于等待延迟上报的数据
+        private Duration flushDelay = Duration.ofMinutes(1);
+
+        //预聚合数据的开始时间戳(毫秒),查询此时间之前的数据时不使用预聚合数据.
+        //需要设置为开启预聚合的时间(或者历史数据已经补充预聚合的时间),未设置时查询不使用预聚合数据,只写入.
+        private long since;
+
+        /**
+         * 获取指定级别已经完成写入的时间,此时间之前的周期都已经写入了预聚合数据.
+         *
+         * @param level 预聚合级别
+         * @param now   当前时间
+         * @return 时间
+         */
+        public long getWatermark(RollupLevel level, long now) {
+            return level.truncate(now - flushDelay.toMillis() - flushInterval.toMillis());
+        }
+    }
+
     @Getter
     @Setter
     public static class Event {
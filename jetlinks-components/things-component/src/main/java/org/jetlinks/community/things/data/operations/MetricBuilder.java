@@ -107,6 +107,23 @@ public interface MetricBuilder {
         return thingType + "_properties_" + group + "_" + thingTemplateId;
     }
 
+    /**
+     * 创建属性预聚合数据存储的度量名称
+     *
+     * @param thingType       物类型
+     * @param thingTemplateId 物模版ID(设备产品ID)
+     * @param thingId         物ID
+     * @param level           预聚合级别
+     * @return 度量名
+     * @see DataSettings.Rollup
+     */
+    default String createPropertyRollupMetric(@Nonnull String thingType,
+                                              @Nonnull String thingTemplateId,
+                                              String thingId,
+                                              @Nonnull RollupLevel level) {
+        return createPropertyMetric(thingType, thingTemplateId, thingId) + "_rollup_" + level.getId();
+    }
+
     /**
      * 创建事件存储的度量名称,用于存储所有事件数据
      *
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data.operations;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.hswebframework.web.id.IDGenerator;
+import org.jetlinks.community.things.data.ThingsDataConstants;
+import org.jetlinks.community.timeseries.TimeSeriesData;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 属性预聚合计算器,在内存中按(物模版,物,属性,周期)增量计算min,max,sum,count.
+ * <p>
+ * 每隔{@link DataSettings.Rollup#getFlushInterval()}检查一次,周期结束并超过{@link DataSettings.Rollup#getFlushDelay()}后
+ * 才输出该周期的预聚合数据,因此每个节点每个周期通常只写入一条数据,粗粒度级别的数据量不会随输出间隔增加.
+ * 集群下多个节点或者超过延迟时间后才上报的数据会追加新的预聚合数据(部分聚合),查询时再对同一周期的多条数据进行合并,
+ * 不需要更新已写入的数据.
+ * 未结束的周期保留在内存中,正常停止时会输出所有周期的部分聚合数据,节点异常退出时会丢失未结束周期的预聚合数据.
+ *
+ * @author zhouhao
+ * @since 2.11
+ */
+class PropertyRollup {
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final List<RollupLevel> levels;
+
+    //周期结束后延迟输出的时间
+    private final long flushDelay;
+
+    PropertyRollup(DataSettings.Rollup settings) {
+        this.levels = new ArrayList<>(settings.getLevels());
+        this.flushDelay = settings.getFlushDelay().toMillis();
+    }
+
+    /**
+     * 累加属性值
+     *
+     * @param thingType  物类型
+     * @param templateId 物模版ID
+     * @param thingId    物ID
+     * @param property   属性ID
+     * @param timestamp  数据时间
+     * @param value      属性值
+     */
+    void add(String thingType,
+             String templateId,
+             String thingId,
+             String property,
+             long timestamp,
+             double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        for (RollupLevel level : levels) {
+            BucketKey key = new BucketKey(thingType, templateId, thingId, property, level, level.truncate(timestamp));
+            //周期正在输出时,重新创建一个新的周期
+            while (true) {
+                if (buckets.computeIfAbsent(key, ignore -> new Bucket()).add(timestamp, value)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除已经结束并超过延迟时间的周期并转换为预聚合数据,之后收到的同一周期的数据会重新创建周期.
+     *
+     * @param now     当前时间,传入{@link Long#MAX_VALUE}时输出所有周期
+     * @param builder 度量名构造器
+     * @return 度量名和预聚合数据
+     */
+    Map<String, List<TimeSeriesData>> drain(long now, MetricBuilder builder) {
+        Map<String, List<TimeSeriesData>> result = new HashMap<>();
+        for (Map.Entry<BucketKey, Bucket> entry : buckets.entrySet()) {
+            BucketKey key = entry.getKey();
+            Bucket bucket = entry.getValue();
+            if (!key.isClosed(now, flushDelay) || !buckets.remove(key, bucket)) {
+                continue;
+            }
+            TimeSeriesData data = bucket.close(key, builder.getThingIdProperty());
+            if (data == null) {
+                continue;
+            }
+            result
+                .computeIfAbsent(builder.createPropertyRollupMetric(key.thingType, key.templateId, key.thingId, key.level),
+                                 ignore -> new ArrayList<>())
+                .add(data);
+        }
+        return result;
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    static class BucketKey {
+        private final String thingType;
+        private final String templateId;
+        private final String thingId;
+        private final String property;
+        private final RollupLevel level;
+        private final long bucket;
+
+        //周期是否已经结束并超过延迟时间
+        boolean isClosed(long now, long delay) {
+            return now == Long.MAX_VALUE || level.next(bucket) + delay <= now;
+        }
+    }
+
+    static class Bucket {
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+        private double sum;
+        private long count;
+        private long lastTime;
+        private boolean closed;
+
+        synchronized boolean add(long timestamp, double value) {
+            if (closed) {
+                return false;
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+            lastTime = Math.max(lastTime, timestamp);
+            return true;
+        }
+
+        synchronized TimeSeriesData close(BucketKey key, String thingIdProperty) {
+            closed = true;
+            if (count == 0) {
+                return null;
+            }
+            Map<String, Object> data = new HashMap<>(16);
+            data.put(ThingsDataConstants.COLUMN_ID, IDGenerator.RANDOM.generate());
+            data.put(thingIdProperty, key.thingId);
+            data.put(ThingsDataConstants.COLUMN_PROPERTY_ID, key.property);
+            //使用周期内最后一条数据的时间作为预聚合数据的时间,避免以时间为主键的存储(如TDengine)覆盖同一周期的多条数据.
+            data.put(ThingsDataConstants.COLUMN_TIMESTAMP, lastTime);
+            data.put(ThingsDataConstants.COLUMN_ROLLUP_MIN, min);
+            data.put(ThingsDataConstants.COLUMN_ROLLUP_MAX, max);
+            data.put(ThingsDataConstants.COLUMN_ROLLUP_SUM, sum);
+            data.put(ThingsDataConstants.COLUMN_ROLLUP_COUNT, count);
+            return TimeSeriesData.of(lastTime, data);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data.operations;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetlinks.community.Interval;
+import org.jetlinks.community.IntervalUnit;
+
+import java.util.List;
+
+/**
+ * 属性预聚合级别,每个级别使用单独的表(索引)存储.
+ *
+ * @author zhouhao
+ * @see DataSettings.Rollup
+ * @since 2.11
+ */
+@Getter
+@AllArgsConstructor
+public enum RollupLevel {
+    minute("1m", IntervalUnit.MINUTES),
+    hour("1h", IntervalUnit.HOURS),
+    day("1d", IntervalUnit.DAYS);
+
+    //时间对齐允许的误差,时间范围通常只精确到秒
+    static final long ALIGN_TOLERANCE = 1000;
+
+    private final String id;
+
+    private final IntervalUnit unit;
+
+    /**
+     * 获取时间戳所在的预聚合周期的开始时间
+     *
+     * @param timestamp 时间戳
+     * @return 周期开始时间
+     */
+    public long truncate(long timestamp) {
+        return unit.truncatedTo(timestamp);
+    }
+
+    /**
+     * 获取预聚合周期的结束时间(不包含)
+     *
+     * @param bucket 周期开始时间
+     * @return 周期结束时间
+     */
+    public long next(long bucket) {
+        return bucket + unit.toMillis(1);
+    }
+
+    //聚合间隔是否为当前级别的整数倍
+    boolean isSupported(Interval interval) {
+        if (interval == null) {
+            return true;
+        }
+        if (interval.getNumber().intValue() < 1
+            || interval.getNumber().stripTrailingZeros().scale() > 0) {
+            return false;
+        }
+        IntervalUnit intervalUnit = interval.getUnit();
+        switch (intervalUnit) {
+            case MILLIS:
+            case SECONDS:
+            case FOREVER:
+                return false;
+            case MINUTES:
+            case HOURS:
+                return intervalUnit.compareTo(unit) >= 0;
+            default:
+                //天及以上的周期都按天对齐
+                return true;
+        }
+    }
+
+    /**
+     * 选择满足聚合间隔的最粗粒度的预聚合级别,开始时间需要与级别的周期对齐,否则周期内会包含开始时间之前的数据.
+     *
+     * @param levels   启用的级别
+     * @param interval 聚合间隔,为null时表示不按时间分组
+     * @param from     开始时间
+     * @return 预聚合级别, 没有满足条件的级别时返回null
+     */
+    static RollupLevel select(List<RollupLevel> levels, Interval interval, long from) {
+        RollupLevel selected = null;
+        for (RollupLevel level : levels) {
+            if (!level.isSupported(interval) || from - level.truncate(from) > ALIGN_TOLERANCE) {
+                continue;
+            }
+            if (selected == null || level.compareTo(selected) > 0) {
+                selected = level;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data.operations;
+
+import org.jetlinks.community.things.data.ThingsDataConstants;
+import org.jetlinks.community.timeseries.TimeSeriesData;
+import org.jetlinks.community.timeseries.query.Aggregation;
+
+/**
+ * 合并同一个周期的多条部分预聚合数据
+ *
+ * @author zhouhao
+ * @see PropertyRollup
+ * @since 2.11
+ */
+class RollupValue {
+    private double min = Double.MAX_VALUE;
+    private double max = -Double.MAX_VALUE;
+    private double sum;
+    private long count;
+
+    void merge(TimeSeriesData data) {
+        long count = data.getLong(ThingsDataConstants.COLUMN_ROLLUP_COUNT, 0);
+        if (count <= 0) {
+            return;
+        }
+        this.min = Math.min(this.min, data.getDouble(ThingsDataConstants.COLUMN_ROLLUP_MIN, this.min));
+        this.max = Math.max(this.max, data.getDouble(ThingsDataConstants.COLUMN_ROLLUP_MAX, this.max));
+        this.sum += data.getDouble(ThingsDataConstants.COLUMN_ROLLUP_SUM, 0);
+        this.count += count;
+    }
+
+    Object getValue(Aggregation agg) {
+        switch (agg) {
+            case MIN:
+                return count == 0 ? null : min;
+            case MAX:
+                return count == 0 ? null : max;
+            case SUM:
+                return sum;
+            case COUNT:
+                return count;
+            default:
+                return count == 0 ? null : sum / count;
+        }
+    }
+}
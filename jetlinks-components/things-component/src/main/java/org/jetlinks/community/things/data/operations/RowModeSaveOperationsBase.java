@@ -87,18 +87,19 @@ public abstract class RowModeSaveOperationsBase extends AbstractSaveOperations {
                 long timestamp = convertTimestamp(
                     propertySourceTimes.getOrDefault(property, message.getTimestamp()));
                 String dataId = createPropertyDataId(property, message, timestamp);
-
-                data.add(
-                    Tuples.of(
-                        metric,
-                        TimeSeriesData.of(timestamp, this
-                            .createRowPropertyData(dataId,
-                                                   TimestampUtils.toMillis(timestamp),
-                                                   message,
-                                                   propertyMetadata,
-                                                   value))
-                    )
-                );
+                Map<String, Object> rowData = this
+                    .createRowPropertyData(dataId,
+                                           TimestampUtils.toMillis(timestamp),
+                                           message,
+                                           propertyMetadata,
+                                           value);
+                data.add(Tuples.of(metric, TimeSeriesData.of(timestamp, rowData)));
+
+                rollupProperty(templateId,
+                               message,
+                               property,
+                               TimestampUtils.toMillis(timestamp),
+                               rowData.get(COLUMN_PROPERTY_NUMBER_VALUE));
             } catch (Throwable err) {
                 handlerError("create property[" + property + "] ts data", message, err);
             }
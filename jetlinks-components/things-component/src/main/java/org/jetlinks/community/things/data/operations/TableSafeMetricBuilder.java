@@ -79,4 +79,14 @@ public class TableSafeMetricBuilder implements MetricBuilder{
         );
     }
 
+    @Override
+    public String createPropertyRollupMetric(@Nonnull String thingType,
+                                             @Nonnull String thingTemplateId,
+                                             String thingId,
+                                             @Nonnull RollupLevel level) {
+        return ThingsDatabaseUtils.createTableName(
+            target.createPropertyRollupMetric(thingType, thingTemplateId, thingId, level)
+        );
+    }
+
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data;
+
+import org.jetlinks.core.event.EventBus;
+import org.jetlinks.core.event.Subscription;
+import org.jetlinks.core.message.ThingMessage;
+import org.jetlinks.core.message.property.ReportPropertyMessage;
+import org.jetlinks.core.things.ThingProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import reactor.core.publisher.Sinks;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class AutoUpdateThingsDataManagerTest {
+
+    static final String THING_TYPE = "device";
+
+    @TempDir
+    Path dir;
+
+    private final List<Sub> subscriptions = new CopyOnWriteArrayList<>();
+
+    private AutoUpdateThingsDataManager manager;
+
+    private static class Sub {
+        private final Subscription subscription;
+        private final Sinks.Many<ThingMessage> sink = Sinks.many().multicast().directBestEffort();
+        private volatile boolean cancelled;
+
+        private Sub(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        private boolean isLocal() {
+            return subscription.hasFeature(Subscription.Feature.local);
+        }
+
+        private boolean isBroker() {
+            return subscription.hasFeature(Subscription.Feature.broker);
+        }
+
+        private boolean hasTopic(String part) {
+            return Arrays.stream(subscription.getTopics()).anyMatch(topic -> topic.contains(part));
+        }
+    }
+
+    private AutoUpdateThingsDataManager create(Duration ttl) {
+        EventBus eventBus = Mockito.mock(EventBus.class);
+        Mockito
+            .when(eventBus.subscribe(any(Subscription.class), eq(ThingMessage.class)))
+            .thenAnswer(invocation -> {
+                Sub sub = new Sub(invocation.getArgument(0));
+                subscriptions.add(sub);
+                return sub.sink.asFlux().doOnCancel(() -> sub.cancelled = true);
+            });
+        return manager = new AutoUpdateThingsDataManager(
+            dir.resolve("things-data").toString(), eventBus, ThingsDataStoreType.heap, ttl);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    private static ReportPropertyMessage report(String deviceId, String property, Object value, long time) {
+        ReportPropertyMessage message = new ReportPropertyMessage();
+        message.setDeviceId(deviceId);
+        message.setTimestamp(time);
+        message.setProperties(Collections.singletonMap(property, value));
+        return message;
+    }
+
+    private Object last(String thingId, String property) {
+        return manager
+            .getLastProperty(THING_TYPE, thingId, property, Long.MAX_VALUE)
+            .map(ThingProperty::getValue)
+            .block();
+    }
+
+    private Sub shared() {
+        assertEquals(1, subscriptions.size());
+        return subscriptions.get(0);
+    }
+
+    @Test
+    void testSubscription() {
+        create(Duration.ofMinutes(10));
+        for (int i = 0; i < 100; i++) {
+            assertNull(last("device-" + i, "temp"));
+        }
+        assertNull(last("device-0", "hum"));
+
+        //订阅数量不随物的数量增长,同一个物类型只有一个订阅,同时接收本地和集群的消息
+        Sub shared = shared();
+        assertTrue(shared.isLocal());
+        assertTrue(shared.isBroker());
+        assertTrue(shared.hasTopic("/*/message"));
+        assertEquals(1, manager.subscriptionSize());
+        assertEquals(100, manager.updaterSize());
+
+        //其他物类型使用单独的订阅
+        assertNull(manager
+                       .getLastProperty("other", "device-0", "temp", Long.MAX_VALUE)
+                       .block());
+        assertEquals(2, subscriptions.size());
+        assertEquals(2, manager.subscriptionSize());
+    }
+
+    @Test
+    void testDispatch() {
+        create(Duration.ofMinutes(10));
+        assertNull(last("device-1", "temp"));
+        assertNull(last("device-2", "temp"));
+
+        Sinks.Many<ThingMessage> local = shared().sink;
+        local.tryEmitNext(report("device-1", "temp", 10, 1000));
+        local.tryEmitNext(report("device-2", "temp", 20, 1000));
+        //没有获取过的物和属性不更新
+        local.tryEmitNext(report("device-3", "temp", 30, 1000));
+        local.tryEmitNext(report("device-1", "hum", 40, 1000));
+
+        assertEquals(10, last("device-1", "temp"));
+        assertEquals(20, last("device-2", "temp"));
+        assertNull(last("device-3", "temp"));
+        assertNull(last("device-1", "hum"));
+
+        local.tryEmitNext(report("device-1", "temp", 11, 2000));
+        assertEquals(11, last("device-1", "temp"));
+        assertEquals(20, last("device-2", "temp"));
+    }
+
+    @Test
+    void testExpire() throws Exception {
+        create(Duration.ofMillis(200));
+        assertNull(last("device-1", "temp"));
+        assertNull(last("device-2", "temp"));
+        assertEquals(2, manager.updaterSize());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (manager.updaterSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, manager.updaterSize());
+        assertEquals(0, manager.subscriptionSize());
+        for (Sub sub : subscriptions) {
+            assertTrue(sub.cancelled);
+        }
+
+        //过期后重新获取时重新订阅
+        subscriptions.clear();
+        assertNull(last("device-1", "temp"));
+        assertEquals(1, manager.updaterSize());
+        assertEquals(1, manager.subscriptionSize());
+        shared().sink.tryEmitNext(report("device-1", "temp", 10, 1000));
+        assertEquals(10, last("device-1", "temp"));
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data;
+
+import org.jetlinks.community.things.data.LocalFileThingsDataManager.HistoryReader;
+import org.jetlinks.community.things.data.LocalFileThingsDataManager.Property;
+import org.jetlinks.community.things.data.LocalFileThingsDataManager.PropertyHistory;
+import org.jetlinks.core.things.ThingProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPropertyStoreTest {
+
+    private final ColumnarPropertyStore store = new ColumnarPropertyStore(3);
+
+    static long tag(int thing, int property) {
+        return ((long) (thing + 1) << 32) | property;
+    }
+
+    static Property property(long time, Object value) {
+        Property property = new Property();
+        property.setTime(time);
+        property.setValue(value);
+        return property;
+    }
+
+    @AfterEach
+    void cleanup() {
+        store.dispose();
+    }
+
+    @Test
+    void testUpdateAndRead() {
+        long tag = tag(1, 1);
+        store.update(tag, 100, 1, null);
+        store.update(tag, 200, 2.5D, "ok");
+
+        assertTrue(store.contains(tag));
+        assertEquals(1, store.size());
+
+        HistoryReader reader = store.reader(tag);
+        Property latest = reader.getProperty(Long.MAX_VALUE);
+        assertNotNull(latest);
+        assertEquals(200, latest.getTime());
+        assertEquals(2.5D, latest.getValue());
+        assertEquals("ok", latest.getState());
+
+        Property before = reader.getProperty(150);
+        assertNotNull(before);
+        assertEquals(1, before.getValue());
+        assertNull(reader.getProperty(50));
+
+        Property first = reader.getFirst();
+        assertNotNull(first);
+        assertEquals(100, first.getTime());
+        assertEquals(1, first.getValue());
+
+        assertNull(store.reader(tag(2, 1)).getProperty(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testValueKinds() {
+        Object[] values = {1, 2L, 3.5F, 4.5D, true, "str", null};
+        for (int i = 0; i < values.length; i++) {
+            store.update(tag(i, 1), 100, values[i], null);
+        }
+        for (int i = 0; i < values.length; i++) {
+            Property property = store.reader(tag(i, 1)).getProperty(100);
+            assertNotNull(property);
+            assertEquals(values[i], property.getValue());
+        }
+    }
+
+    @Test
+    void testDepth() {
+        long tag = tag(1, 1);
+        //乱序写入
+        for (long time : new long[]{300, 100, 500, 200, 400}) {
+            store.update(tag, time, time, null);
+        }
+        List<ThingProperty> properties = store.reader(tag).getProperties("temp", 0, Long.MAX_VALUE);
+        assertEquals(3, properties.size());
+        assertEquals(500, properties.get(0).getTimestamp());
+        assertEquals(400, properties.get(1).getTimestamp());
+        assertEquals(300, properties.get(2).getTimestamp());
+
+        //首次数据不受深度限制
+        assertEquals(100, store.reader(tag).getFirst().getTime());
+
+        //相同时间直接更新
+        store.update(tag, 500, 5, null);
+        assertEquals(5, store.reader(tag).getProperty(Long.MAX_VALUE).getValue());
+    }
+
+    @Test
+    void testStore() {
+        long tag = tag(1, 1);
+        store.update(tag, 100, 1, null);
+        store.update(tag, 200, 2, null);
+
+        //同一个槽位只加入一次待持久化队列
+        assertEquals(1, store.dirtySize());
+        int[] dirty = store.takeDirty();
+        assertEquals(1, dirty.length);
+        assertEquals(0, store.dirtySize());
+        assertFalse(store.isLoaded(tag));
+
+        List<PropertyHistory> written = new ArrayList<>();
+        assertTrue(store.store(dirty[0], (t, history) -> {
+            assertEquals(tag, t);
+            assertTrue(history.isDirty());
+            written.add(history);
+            return history.setDirty(false);
+        }));
+        assertEquals(1, written.size());
+        assertEquals(2, written.get(0).values().size());
+        assertTrue(store.isLoaded(tag));
+
+        //已经持久化
+        assertFalse(store.store(dirty[0], (t, history) -> fail("stored")));
+
+        store.update(tag, 300, 3, null);
+        assertEquals(1, store.dirtySize());
+    }
+
+    @Test
+    void testMerge() {
+        long tag = tag(1, 1);
+        store.update(tag, 300, 3, null);
+
+        PropertyHistory history = new PropertyHistory();
+        history.updateLastUnsafe(property(100, 1));
+        history.updateLastUnsafe(property(200, 2));
+        history.setFirstUnsafe(property(50, 0));
+        store.merge(tag, history, true);
+
+        assertTrue(store.isLoaded(tag));
+        HistoryReader reader = store.reader(tag);
+        assertEquals(50, reader.getFirst().getTime());
+        assertEquals(3, reader.getProperty(Long.MAX_VALUE).getValue());
+        assertEquals(2, reader.getProperty(250).getValue());
+        assertEquals(1, reader.getProperty(150).getValue());
+    }
+
+    @Test
+    void testSweep() {
+        long tag = tag(1, 1);
+        store.update(tag, 100, 1, null);
+        int slot = store.takeDirty()[0];
+        ColumnarPropertyStore.Writer writer = (t, history) -> history.setDirty(false);
+
+        //第一次标记为空闲,未持久化的数据在回收前写出
+        assertFalse(store.sweep(slot, writer));
+        assertTrue(store.sweep(slot, writer));
+        assertFalse(store.contains(tag));
+        assertEquals(0, store.size());
+
+        //访问后不会被回收
+        store.update(tag, 100, 1, null);
+        slot = store.takeDirty()[0];
+        store.store(slot, writer);
+        assertFalse(store.sweep(slot, writer));
+        store.reader(tag).getProperty(Long.MAX_VALUE);
+        assertFalse(store.sweep(slot, writer));
+        assertTrue(store.contains(tag));
+        assertFalse(store.sweep(slot, writer));
+        assertFalse(store.contains(tag));
+    }
+
+    @Test
+    void testRemoveAndReuseSlot() {
+        store.update(tag(1, 1), 100, 1, null);
+        store.update(tag(2, 1), 100, 2, null);
+        assertEquals(2, store.slotCount());
+
+        store.remove(tag(1, 1));
+        assertFalse(store.contains(tag(1, 1)));
+        assertEquals(1, store.size());
+
+        store.update(tag(3, 1), 100, 3, null);
+        assertEquals(2, store.slotCount());
+        assertEquals(2, store.size());
+        assertEquals(3, store.reader(tag(3, 1)).getProperty(100).getValue());
+        assertEquals(2, store.reader(tag(2, 1)).getProperty(100).getValue());
+    }
+
+    @Test
+    void testMultiPage() {
+        int count = ColumnarPropertyStore.PAGE_SIZE * 2 + 10;
+        for (int i = 0; i < count; i++) {
+            store.update(tag(i, 1), 100, i, null);
+        }
+        assertEquals(count, store.size());
+        assertEquals(count, store.slotCount());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, store.reader(tag(i, 1)).getProperty(100).getValue());
+        }
+    }
+
+    @Test
+    void testConcurrentUpdate() throws Exception {
+        int threads = 8, keys = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < keys; i++) {
+                        store.update(tag(i, thread), i, i, null);
+                        assertNotNull(store.reader(tag(i, thread)).getProperty(i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * keys, store.size());
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < keys; i++) {
+                assertEquals(i, store.reader(tag(i, t)).getProperty(i).getValue());
+            }
+        }
+    }
+
+    @Test
+    void testLongIntMap() {
+        ColumnarPropertyStore.LongIntMap map = new ColumnarPropertyStore.LongIntMap();
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            map.put(tag(i, 1), i);
+        }
+        assertEquals(count, map.size());
+        //覆盖不增加数量
+        map.put(tag(0, 1), 100);
+        assertEquals(count, map.size());
+        assertEquals(100, map.get(tag(0, 1)));
+
+        for (int i = 0; i < count; i += 2) {
+            assertEquals(i == 0 ? 100 : i, map.remove(tag(i, 1)));
+        }
+        assertEquals(count / 2, map.size());
+        assertEquals(-1, map.remove(tag(0, 1)));
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 0 ? -1 : i, map.get(tag(i, 1)));
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(tag(1, 1)));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data;
+
+import org.jetlinks.core.things.ThingProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFileThingsDataManagerTest {
+
+    static final String THING_TYPE = "device";
+
+    static final int SIZE = 1000;
+
+    @TempDir
+    Path dir;
+
+    private LocalFileThingsDataManager manager;
+
+    @AfterEach
+    void shutdown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    private LocalFileThingsDataManager create(ThingsDataStoreType storeType) {
+        manager = new LocalFileThingsDataManager(dir.resolve("things-data").toString(), storeType);
+        for (int i = 0; i < SIZE; i++) {
+            update("device-" + i, i);
+        }
+        return manager;
+    }
+
+    private void update(String thingId, Object value) {
+        manager.updateProperty(THING_TYPE, thingId, "temp", 1000, value, null).block();
+    }
+
+    private Object last(String thingId) {
+        return manager
+            .getLastProperty(THING_TYPE, thingId, "temp", Long.MAX_VALUE)
+            .map(ThingProperty::getValue)
+            .block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testFlushInSlices() {
+        create(ThingsDataStoreType.heap);
+        assertEquals(SIZE, manager.dirtySize());
+
+        LocalFileThingsDataManager.FlushTask task = manager.new FlushTask();
+        //时间片为0时每处理64条数据让出一次
+        assertFalse(task.run(0));
+        assertEquals(1, task.getSlices());
+        assertEquals(SIZE - 64, manager.dirtySize());
+
+        //让出期间的写入不影响本次flush
+        update("device-new", 1);
+        int runs = 1;
+        while (!task.run(0)) {
+            runs++;
+        }
+        assertTrue(runs > SIZE / 64, "runs: " + runs);
+        assertEquals(runs + 1, task.getSlices());
+        assertEquals(SIZE, task.getWritten());
+        //只处理任务开始前的变更,新的变更由下一次flush处理
+        assertEquals(1, manager.dirtySize());
+
+        //已完成的任务不再执行
+        assertTrue(task.run(0));
+        assertEquals(runs + 1, task.getSlices());
+
+        manager.flushAsync(0).block(Duration.ofSeconds(10));
+        assertEquals(0, manager.dirtySize());
+        assertEquals(1, last("device-new"));
+        assertEquals(SIZE - 1, last("device-" + (SIZE - 1)));
+    }
+
+    @Test
+    void testFlushWithoutSlice() {
+        create(ThingsDataStoreType.heap);
+
+        LocalFileThingsDataManager.FlushTask task = manager.new FlushTask();
+        //不限制时间片时一次执行完成
+        assertTrue(task.run(Long.MAX_VALUE));
+        assertEquals(1, task.getSlices());
+        assertEquals(SIZE, task.getWritten());
+        assertEquals(0, manager.dirtySize());
+    }
+
+    @Test
+    void testColumnarFlushInSlices() {
+        create(ThingsDataStoreType.columnar);
+
+        LocalFileThingsDataManager.FlushTask task = manager.new FlushTask();
+        int runs = 1;
+        while (!task.run(0)) {
+            runs++;
+        }
+        assertTrue(runs > SIZE / 64, "runs: " + runs);
+        assertEquals(runs, task.getSlices());
+        assertEquals(SIZE, task.getWritten());
+        assertEquals(0, manager.dirtySize());
+        assertEquals(0, last("device-0"));
+    }
+
+    @Test
+    void testFlushAsync() {
+        create(ThingsDataStoreType.heap);
+
+        //每个时间片单独调度,直到全部持久化
+        manager.flushAsync(0).block(Duration.ofSeconds(10));
+        assertEquals(0, manager.dirtySize());
+        for (int i = 0; i < SIZE; i += 100) {
+            assertEquals(i, last("device-" + i));
+        }
+    }
+}
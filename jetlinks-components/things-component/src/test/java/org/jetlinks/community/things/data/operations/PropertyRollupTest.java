@@ -0,0 +1,103 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data.operations;
+
+import org.jetlinks.community.things.data.ThingsDataConstants;
+import org.jetlinks.community.timeseries.TimeSeriesData;
+import org.jetlinks.community.timeseries.query.Aggregation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertyRollupTest {
+
+    static final long INTERVAL = Duration.ofSeconds(30).toMillis();
+
+    static final long DELAY = Duration.ofMinutes(1).toMillis();
+
+    private final Map<String, List<TimeSeriesData>> written = new HashMap<>();
+
+    private PropertyRollup create() {
+        DataSettings.Rollup settings = new DataSettings.Rollup();
+        settings.setLevels(Arrays.asList(RollupLevel.hour, RollupLevel.day));
+        settings.setFlushInterval(Duration.ofMillis(INTERVAL));
+        settings.setFlushDelay(Duration.ofMillis(DELAY));
+        return new PropertyRollup(settings);
+    }
+
+    private void drain(PropertyRollup rollup, long now) {
+        rollup.drain(now, MetricBuilder.DEFAULT)
+              .forEach((metric, data) -> written.computeIfAbsent(metric, ignore -> new ArrayList<>()).addAll(data));
+    }
+
+    private List<TimeSeriesData> written(RollupLevel level) {
+        return written.getOrDefault(
+            MetricBuilder.DEFAULT.createPropertyRollupMetric("device", "product", "device-1", level),
+            Collections.emptyList());
+    }
+
+    @Test
+    void testOneRowPerClosedBucket() {
+        PropertyRollup rollup = create();
+        long day = RollupLevel.day.truncate(System.currentTimeMillis()) - RollupLevel.day.getUnit().toMillis(2);
+        long end = RollupLevel.day.next(day);
+
+        //设备每30秒上报一次,每次上报后执行一次定时输出
+        for (long time = day; time < end; time += INTERVAL) {
+            rollup.add("device", "product", "device-1", "temp", time, 1);
+            drain(rollup, time);
+        }
+        //最后一个小时和当天的周期还未超过延迟时间
+        assertEquals(23, written(RollupLevel.hour).size());
+        assertTrue(written(RollupLevel.day).isEmpty());
+
+        drain(rollup, end + DELAY);
+
+        List<TimeSeriesData> hours = written(RollupLevel.hour);
+        assertEquals(24, hours.size());
+        for (TimeSeriesData data : hours) {
+            assertEquals(120L, data.getLong(ThingsDataConstants.COLUMN_ROLLUP_COUNT, 0));
+        }
+
+        List<TimeSeriesData> days = written(RollupLevel.day);
+        assertEquals(1, days.size());
+        assertEquals(2880L, days.get(0).getLong(ThingsDataConstants.COLUMN_ROLLUP_COUNT, 0));
+        assertEquals(0, rollup.size());
+    }
+
+    @Test
+    void testLateDataAppendsPartialRow() {
+        PropertyRollup rollup = create();
+        long hour = RollupLevel.hour.truncate(System.currentTimeMillis()) - RollupLevel.hour.getUnit().toMillis(3);
+        long end = RollupLevel.hour.next(hour);
+
+        rollup.add("device", "product", "device-1", "temp", hour, 1);
+        drain(rollup, end + DELAY);
+        assertEquals(1, written(RollupLevel.hour).size());
+
+        //超过延迟时间后才上报的数据追加一条部分聚合数据
+        rollup.add("device", "product", "device-1", "temp", hour + 1000, 3);
+        drain(rollup, end + DELAY + INTERVAL);
+        assertEquals(2, written(RollupLevel.hour).size());
+
+        RollupValue value = new RollupValue();
+        written(RollupLevel.hour).forEach(value::merge);
+        assertEquals(2L, value.getValue(Aggregation.COUNT));
+    }
+}
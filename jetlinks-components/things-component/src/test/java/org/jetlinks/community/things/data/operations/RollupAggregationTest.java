@@ -0,0 +1,242 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data.operations;
+
+import org.hswebframework.ezorm.core.dsl.Query;
+import org.hswebframework.ezorm.core.param.Term;
+import org.hswebframework.web.api.crud.entity.PagerResult;
+import org.hswebframework.web.api.crud.entity.QueryParamEntity;
+import org.jetlinks.community.Interval;
+import org.jetlinks.community.things.data.AggregationRequest;
+import org.jetlinks.community.things.data.PropertyAggregation;
+import org.jetlinks.community.things.data.ThingPropertyDetail;
+import org.jetlinks.community.things.data.ThingsDataConstants;
+import org.jetlinks.community.timeseries.TimeSeriesData;
+import org.jetlinks.community.timeseries.query.Aggregation;
+import org.jetlinks.community.timeseries.query.AggregationData;
+import org.jetlinks.core.metadata.PropertyMetadata;
+import org.jetlinks.core.things.ThingMetadata;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupAggregationTest {
+
+    static final long HOUR = RollupLevel.hour.getUnit().toMillis(1);
+
+    static final double RAW_VALUE = 100;
+
+    static final DateTimeFormatter FORMATTER = DateTimeFormat.forPattern("yyyy-MM-dd HH");
+
+    @Test
+    void testRollupOnly() {
+        long from = RollupLevel.day.truncate(System.currentTimeMillis()) - 3 * RollupLevel.day.getUnit().toMillis(1);
+        long to = from + 5 * HOUR - 1;
+        TestOperations operations = new TestOperations(settings(), rollupData(from, from + 5 * HOUR));
+
+        List<AggregationData> result = operations
+            .doRollupAggregation("properties", RollupLevel.hour, request(from, to), context())
+            .collectList()
+            .block();
+
+        assertNotNull(result);
+        assertEquals(5, result.size());
+        assertTrue(operations.rawRequests.isEmpty());
+        for (AggregationData data : result) {
+            //每个周期2条部分聚合数据: (1,5,6,2) (0,3,3,1)
+            assertEquals(3D, data.values().get("avg"));
+            assertEquals(5D, data.values().get("max"));
+            assertEquals(3L, data.values().get("count"));
+        }
+    }
+
+    @Test
+    void testSplitRollupAndRaw() {
+        long now = System.currentTimeMillis();
+        long from = RollupLevel.hour.truncate(now) - 3 * HOUR;
+        long to = now + HOUR / 2;
+        DataSettings settings = settings();
+        long watermark = settings.getRollup().getWatermark(RollupLevel.hour, now);
+        //包含当前未结束周期的部分聚合数据
+        TestOperations operations = new TestOperations(settings, rollupData(from, to));
+
+        List<AggregationData> result = operations
+            .doRollupAggregation("properties", RollupLevel.hour, request(from, to), context())
+            .collectList()
+            .block();
+
+        assertNotNull(result);
+        //未写入预聚合数据的周期使用原始数据聚合
+        assertEquals(1, operations.rawRequests.size());
+        assertEquals(watermark, operations.rawRequests.get(0).getFrom().getTime());
+        assertEquals(watermark, operations.rollupTo);
+
+        int raw = 0, rollup = 0;
+        long last = Long.MAX_VALUE;
+        for (AggregationData data : result) {
+            long time = FORMATTER.parseMillis((String) data.values().get("time"));
+            //结果按时间倒序
+            assertTrue(time < last);
+            last = time;
+            if (time >= watermark) {
+                raw++;
+                assertEquals(RAW_VALUE, data.values().get("avg"));
+            } else {
+                rollup++;
+                assertEquals(3D, data.values().get("avg"));
+                assertEquals(3L, data.values().get("count"));
+            }
+        }
+        assertEquals((watermark - from) / HOUR, rollup);
+        assertTrue(raw > 0);
+    }
+
+    @Test
+    void testRequireSince() {
+        long from = RollupLevel.day.truncate(System.currentTimeMillis()) - 3 * RollupLevel.day.getUnit().toMillis(1);
+        DataSettings settings = settings();
+        //未设置开始时间时不使用预聚合数据
+        settings.getRollup().setSince(0);
+        assertNull(new TestOperations(settings, Collections.emptyList())
+                       .selectRollupLevel(request(from, from + HOUR), context()));
+
+        settings.getRollup().setSince(from + 1);
+        assertNull(new TestOperations(settings, Collections.emptyList())
+                       .selectRollupLevel(request(from, from + HOUR), context()));
+    }
+
+    static DataSettings settings() {
+        DataSettings settings = new DataSettings();
+        settings.getRollup().setEnabled(true);
+        settings.getRollup().setSince(1);
+        return settings;
+    }
+
+    static AggregationRequest request(long from, long to) {
+        AggregationRequest request = new AggregationRequest();
+        request.setInterval(Interval.ofHours(1));
+        request.setFormat("yyyy-MM-dd HH");
+        request.setFrom(new Date(from));
+        request.setTo(new Date(to));
+        return request;
+    }
+
+    static AbstractQueryOperations.AggregationContext context() {
+        return new AbstractQueryOperations.AggregationContext(
+            null,
+            new PropertyAggregation("temp", "avg", Aggregation.AVG),
+            new PropertyAggregation("temp", "max", Aggregation.MAX),
+            new PropertyAggregation("temp", "count", Aggregation.COUNT));
+    }
+
+    //每个周期2条部分聚合数据
+    static List<TimeSeriesData> rollupData(long from, long to) {
+        List<TimeSeriesData> data = new ArrayList<>();
+        for (long time = from; time < to; time += HOUR) {
+            data.add(rollup(time + 1000, 1, 5, 6, 2));
+            data.add(rollup(time + 2000, 0, 3, 3, 1));
+        }
+        return data;
+    }
+
+    static TimeSeriesData rollup(long timestamp, double min, double max, double sum, long count) {
+        Map<String, Object> data = new HashMap<>(RollupValueTest.rollup(timestamp, min, max, sum, count).values());
+        data.put(ThingsDataConstants.COLUMN_PROPERTY_ID, "temp");
+        return TimeSeriesData.of(timestamp, data);
+    }
+
+    static class TestOperations extends AbstractQueryOperations {
+        private final List<TimeSeriesData> rollupData;
+        private final List<AggregationRequest> rawRequests = new ArrayList<>();
+        private long rollupTo;
+
+        TestOperations(DataSettings settings, List<TimeSeriesData> rollupData) {
+            super("device", "product", null, MetricBuilder.DEFAULT, settings, null);
+            this.rollupData = rollupData;
+        }
+
+        @Override
+        protected Flux<TimeSeriesData> doQuery(String metric, Query<?, QueryParamEntity> query) {
+            assertTrue(metric.endsWith("_rollup_" + RollupLevel.hour.getId()));
+            long gte = Long.MIN_VALUE, lt = Long.MAX_VALUE;
+            for (Term term : query.getParam().getTerms()) {
+                if (!ThingsDataConstants.COLUMN_TIMESTAMP.equals(term.getColumn())) {
+                    continue;
+                }
+                long value = ((Date) term.getValue()).getTime();
+                if ("gte".equals(term.getTermType())) {
+                    gte = value;
+                } else if ("lt".equals(term.getTermType())) {
+                    lt = rollupTo = value;
+                }
+            }
+            long _gte = gte, _lt = lt;
+            return Flux
+                .fromIterable(rollupData)
+                .filter(data -> data.getTimestamp() >= _gte && data.getTimestamp() < _lt);
+        }
+
+        @Override
+        protected Flux<AggregationData> doAggregation(String metric, AggregationRequest request, AggregationContext context) {
+            rawRequests.add(request);
+            List<AggregationData> data = new ArrayList<>();
+            for (long time = request.getTo().getTime(); time >= request.getFrom().getTime(); time -= HOUR) {
+                Map<String, Object> value = new HashMap<>();
+                value.put("time", FORMATTER.print(RollupLevel.hour.truncate(time)));
+                value.put("avg", RAW_VALUE);
+                data.add(AggregationData.of(value));
+            }
+            return Flux.fromIterable(data);
+        }
+
+        @Override
+        protected <T> Mono<PagerResult<T>> doQueryPage(String metric,
+                                                       Query<?, QueryParamEntity> query,
+                                                       Function<TimeSeriesData, T> mapper) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Flux<ThingPropertyDetail> queryProperty(@Nonnull QueryParamEntity param,
+                                                          @Nonnull ThingMetadata metadata,
+                                                          @Nonnull Map<String, PropertyMetadata> properties) {
+            return Flux.empty();
+        }
+
+        @Override
+        protected Mono<PagerResult<ThingPropertyDetail>> queryPropertyPage(@Nonnull QueryParamEntity param,
+                                                                           @Nonnull ThingMetadata metadata,
+                                                                           @Nonnull Map<String, PropertyMetadata> properties) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Flux<ThingPropertyDetail> queryEachProperty(@Nonnull String metric,
+                                                              @Nonnull Query<?, QueryParamEntity> query,
+                                                              @Nonnull ThingMetadata metadata,
+                                                              @Nonnull Map<String, PropertyMetadata> properties) {
+            return Flux.empty();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data.operations;
+
+import org.jetlinks.community.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupLevelTest {
+
+    @Test
+    void testSelectCoarsestLevel() {
+        long day = RollupLevel.day.truncate(System.currentTimeMillis()) - RollupLevel.day.getUnit().toMillis(3);
+
+        assertEquals(RollupLevel.day,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofDays(1), day));
+        assertEquals(RollupLevel.day,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofMonth(1), day));
+        //不按时间分组
+        assertEquals(RollupLevel.day,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), null, day));
+        assertEquals(RollupLevel.hour,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofHours(1), day));
+        assertEquals(RollupLevel.minute,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.of("90m"), day));
+    }
+
+    @Test
+    void testSelectAlignedFrom() {
+        long hour = RollupLevel.hour.truncate(System.currentTimeMillis()) - RollupLevel.hour.getUnit().toMillis(2);
+        //开始时间不是整天,不能使用天级别
+        long from = RollupLevel.day.truncate(hour) == hour
+            ? hour + RollupLevel.hour.getUnit().toMillis(1)
+            : hour;
+
+        assertEquals(RollupLevel.hour,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofDays(1), from));
+        //允许秒级误差
+        assertEquals(RollupLevel.hour,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofHours(1), from + 500));
+        assertEquals(RollupLevel.minute,
+                     RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofHours(1), from + 60_000));
+        assertNull(RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofHours(1), from + 30_000));
+    }
+
+    @Test
+    void testSelectUnsupported() {
+        long hour = RollupLevel.hour.truncate(System.currentTimeMillis());
+
+        assertNull(RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.ofSeconds(30), hour));
+        assertNull(RollupLevel.select(Arrays.asList(RollupLevel.values()), Interval.of("1.5h"), hour));
+        assertNull(RollupLevel.select(Collections.singletonList(RollupLevel.hour), Interval.ofMinutes(1), hour));
+        assertNull(RollupLevel.select(Collections.emptyList(), Interval.ofHours(1), hour));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.things.data.operations;
+
+import org.jetlinks.community.things.data.ThingsDataConstants;
+import org.jetlinks.community.timeseries.TimeSeriesData;
+import org.jetlinks.community.timeseries.query.Aggregation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupValueTest {
+
+    static TimeSeriesData rollup(long timestamp, double min, double max, double sum, long count) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(ThingsDataConstants.COLUMN_ROLLUP_MIN, min);
+        data.put(ThingsDataConstants.COLUMN_ROLLUP_MAX, max);
+        data.put(ThingsDataConstants.COLUMN_ROLLUP_SUM, sum);
+        data.put(ThingsDataConstants.COLUMN_ROLLUP_COUNT, count);
+        return TimeSeriesData.of(timestamp, data);
+    }
+
+    @Test
+    void testMergePartial() {
+        RollupValue value = new RollupValue();
+        value.merge(rollup(1, 1, 5, 6, 2));
+        value.merge(rollup(2, 0, 3, 3, 1));
+        value.merge(rollup(3, -10, 10, 0, 0));
+
+        assertEquals(0D, value.getValue(Aggregation.MIN));
+        assertEquals(5D, value.getValue(Aggregation.MAX));
+        assertEquals(9D, value.getValue(Aggregation.SUM));
+        assertEquals(3L, value.getValue(Aggregation.COUNT));
+        assertEquals(3D, value.getValue(Aggregation.AVG));
+    }
+
+    @Test
+    void testEmpty() {
+        RollupValue value = new RollupValue();
+        value.merge(rollup(1, 1, 5, 6, 0));
+
+        assertNull(value.getValue(Aggregation.MIN));
+        assertNull(value.getValue(Aggregation.MAX));
+        assertNull(value.getValue(Aggregation.AVG));
+        assertEquals(0D, value.getValue(Aggregation.SUM));
+        assertEquals(0L, value.getValue(Aggregation.COUNT));
+    }
+
+    @Test
+    void testDrainOpenBucket() {
+        DataSettings.Rollup settings = new DataSettings.Rollup();
+        settings.setLevels(Collections.singletonList(RollupLevel.hour));
+        PropertyRollup rollup = new PropertyRollup(settings);
+        long now = System.currentTimeMillis();
+
+        rollup.add("device", "product", "device-1", "temp", now, 1);
+        rollup.add("device", "product", "device-1", "temp", now, 5);
+
+        //停止时未结束的周期也会输出部分聚合数据
+        assertTrue(rollup.drain(now, MetricBuilder.DEFAULT).isEmpty());
+        Map<String, List<TimeSeriesData>> first = rollup.drain(Long.MAX_VALUE, MetricBuilder.DEFAULT);
+        assertEquals(0, rollup.size());
+        rollup.add("device", "product", "device-1", "temp", now, 3);
+        Map<String, List<TimeSeriesData>> second = rollup.drain(Long.MAX_VALUE, MetricBuilder.DEFAULT);
+
+        String metric = MetricBuilder.DEFAULT
+            .createPropertyRollupMetric("device", "product", "device-1", RollupLevel.hour);
+        assertEquals(1, first.get(metric).size());
+        assertEquals(1, second.get(metric).size());
+
+        RollupValue value = new RollupValue();
+        first.get(metric).forEach(value::merge);
+        second.get(metric).forEach(value::merge);
+        assertEquals(1D, value.getValue(Aggregation.MIN));
+        assertEquals(5D, value.getValue(Aggregation.MAX));
+        assertEquals(3L, value.getValue(Aggregation.COUNT));
+        assertTrue(rollup.drain(Long.MAX_VALUE, MetricBuilder.DEFAULT).isEmpty());
+    }
+}
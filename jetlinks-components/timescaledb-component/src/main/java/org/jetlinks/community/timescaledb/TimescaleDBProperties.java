@@ -57,6 +57,13 @@ public class TimescaleDBProperties {
      */
     private BufferProperties writeBuffer = new BufferProperties();
 
+    /**
+     * 数据写入方式
+     *
+     * @see WriteMode
+     */
+    private WriteMode writeMode = WriteMode.upsert;
+
     public TimescaleDBProperties() {
         writeBuffer.setFilePath("./data/timescaledb-buffer");
         writeBuffer.setSize(1000);
@@ -64,5 +71,10 @@ public class TimescaleDBProperties {
         r2dbc.getPool().setMaxSize(64);
     }
 
-
+    public enum WriteMode {
+        //逐行绑定参数upsert写入
+        upsert,
+        //使用COPY FROM STDIN (FORMAT binary)批量写入,失败时降级为upsert
+        copy
+    }
 }
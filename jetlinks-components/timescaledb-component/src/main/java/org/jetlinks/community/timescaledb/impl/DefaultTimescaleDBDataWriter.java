@@ -17,6 +17,7 @@ package org.jetlinks.community.timescaledb.impl;
 
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Maps;
+import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.R2dbcBadGrammarException;
 import io.r2dbc.spi.R2dbcException;
 import lombok.AllArgsConstructor;
@@ -63,10 +64,20 @@ public class DefaultTimescaleDBDataWriter implements TimescaleDBDataWriter, Comm
 
     final DatabaseOperator database;
 
+    //使用COPY写入,为null时使用upsert写入
+    private final TimescaleDBCopyWriter copyWriter;
+
     public DefaultTimescaleDBDataWriter(DatabaseOperator database,
                                         BufferProperties properties) {
+        this(database, properties, null);
+    }
+
+    public DefaultTimescaleDBDataWriter(DatabaseOperator database,
+                                        BufferProperties properties,
+                                        ConnectionFactory copyConnectionFactory) {
         this.database = database;
         this.properties = properties;
+        this.copyWriter = copyConnectionFactory == null ? null : new TimescaleDBCopyWriter(copyConnectionFactory);
         this.buffer = new PersistenceBuffer<>(
             BufferSettings.create(properties),
             Buffer::new,
@@ -145,16 +156,31 @@ public class DefaultTimescaleDBDataWriter implements TimescaleDBDataWriter, Comm
             .getTableOrViewReactive(metric, false)
             .cast(RDBTableMetadata.class)
             .switchIfEmpty(Mono.error(() -> new BusinessException.NoStackTrace("metric [" + metric + "] not found")))
-            .flatMap(table -> database
-                .dml()
-                .upsert(table)
-                .values(data instanceof List ? ((List<Map<String, Object>>) data) : new ArrayList<>(data))
-                .execute()
-                .reactive()
-                .then())
+            .flatMap(table -> copyWriter == null ? upsert(table, data) : copy(table, data))
             .contextWrite(ctx -> ctx.put(Logger.class, log));
     }
 
+    private Mono<Void> copy(RDBTableMetadata table, Collection<Map<String, Object>> data) {
+        return copyWriter
+            .copy(table, data)
+            //COPY失败(如唯一索引冲突)时降级为upsert写入
+            .onErrorResume(err -> {
+                log.debug("copy timescaledb data [{}] error, fallback to upsert", table.getName(), err);
+                return Reactors.ALWAYS_FALSE;
+            })
+            .flatMap(copied -> copied ? Mono.<Void>empty() : upsert(table, data));
+    }
+
+    private Mono<Void> upsert(RDBTableMetadata table, Collection<Map<String, Object>> data) {
+        return database
+            .dml()
+            .upsert(table)
+            .values(data instanceof List ? ((List<Map<String, Object>>) data) : new ArrayList<>(data))
+            .execute()
+            .reactive()
+            .then();
+    }
+
     private boolean needRetry(Throwable err) {
         // 数据库语法错误?
         if (ErrorUtils.hasException(err, R2dbcBadGrammarException.class)) {
@@ -16,6 +16,10 @@
 package org.jetlinks.community.timescaledb.impl;
 
 import com.google.common.collect.Maps;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Option;
 import lombok.RequiredArgsConstructor;
 import org.hswebframework.ezorm.rdb.executor.reactive.ReactiveSqlExecutor;
 import org.hswebframework.ezorm.rdb.executor.reactive.ReactiveSyncSqlExecutor;
@@ -35,12 +39,15 @@ import org.jetlinks.community.timescaledb.metadata.TimescaleDBPropertiesFeature;
 import org.springframework.beans.BeansException;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import reactor.core.Disposable;
 import reactor.core.Disposables;
 
 import javax.annotation.Nonnull;
+import java.time.Duration;
 import java.util.Map;
 
 @RequiredArgsConstructor
@@ -94,11 +101,43 @@ public class DefaultTimescaleDBOperations implements TimescaleDBOperations, Appl
             database = dataSource.operator();
             database.getMetadata().addFeature(TimescaleDBPropertiesFeature.of(properties));
         }
-        writer = new DefaultTimescaleDBDataWriter(database, properties.getWriteBuffer());
+        writer = new DefaultTimescaleDBDataWriter(database, properties.getWriteBuffer(), createCopyConnectionFactory());
         writer.init();
         disposable.add(writer::stop);
     }
 
+    //COPY写入使用的连接
+    private ConnectionFactory createCopyConnectionFactory() {
+        if (properties.getWriteMode() != TimescaleDBProperties.WriteMode.copy) {
+            return null;
+        }
+        if (properties.isSharedSpring() && context != null) {
+            return context.getBeanProvider(ConnectionFactory.class).getIfAvailable();
+        }
+        R2dbcProperties r2dbc = properties.getR2dbc();
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder
+            .withUrl(r2dbc.getUrl())
+            .configure(options -> r2dbc
+                .getProperties()
+                .forEach((key, value) -> options.option(Option.valueOf(key), value)));
+        if (r2dbc.getUsername() != null) {
+            builder.username(r2dbc.getUsername());
+        }
+        if (r2dbc.getPassword() != null) {
+            builder.password(r2dbc.getPassword());
+        }
+        //COPY写入的并发数与写入缓冲区的并行度一致
+        ConnectionPool pool = new ConnectionPool(
+            ConnectionPoolConfiguration
+                .builder(builder.build())
+                .maxSize(Math.max(1, properties.getWriteBuffer().getParallelism()))
+                .maxIdleTime(Duration.ofMinutes(5))
+                .maxLifeTime(Duration.ofMinutes(10))
+                .build());
+        disposable.add(() -> pool.close().subscribe());
+        return pool;
+    }
+
     @Override
     public DatabaseOperator database() {
         return database;
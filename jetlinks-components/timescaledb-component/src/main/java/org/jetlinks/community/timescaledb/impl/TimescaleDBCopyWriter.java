@@ -0,0 +1,430 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.timescaledb.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import org.hswebframework.ezorm.rdb.metadata.RDBColumnMetadata;
+import org.hswebframework.ezorm.rdb.metadata.RDBTableMetadata;
+import org.jetlinks.community.utils.ObjectMappers;
+import org.jetlinks.core.utils.Reactors;
+import org.jetlinks.reactor.ql.utils.CastUtils;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * 使用PostgreSQL <code>COPY ... FROM STDIN (FORMAT binary)</code>批量写入数据.
+ * <p>
+ * 按建表时(参见{@link org.jetlinks.community.timescaledb.metadata.TimescaleDBCreateTableSqlBuilder})
+ * 的列顺序和列类型,将一批数据直接编码为COPY二进制格式,一次请求写入整批数据,避免逐行绑定参数.
+ * 表中包含不支持二进制编码的列类型时返回<code>false</code>,由调用方使用原有方式写入.
+ *
+ * @author zhouhao
+ * @see DefaultTimescaleDBDataWriter
+ * @since 2.11
+ */
+@Slf4j
+class TimescaleDBCopyWriter {
+
+    //PGCOPY\n\377\r\n\0
+    private static final byte[] HEADER = {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0
+    };
+
+    //2000-01-01 00:00:00 UTC
+    private static final long PG_EPOCH_MILLIS = 946684800000L;
+
+    private static final short NUMERIC_POS = 0x0000;
+    private static final short NUMERIC_NEG = 0x4000;
+    private static final short NUMERIC_NAN = (short) 0xC000;
+
+    private final ConnectionFactory connectionFactory;
+
+    TimescaleDBCopyWriter(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * 使用COPY写入数据
+     *
+     * @param table 表结构
+     * @param data  数据
+     * @return 是否已写入, 表结构不支持COPY时返回<code>false</code>
+     */
+    Mono<Boolean> copy(RDBTableMetadata table, Collection<Map<String, Object>> data) {
+        List<CopyColumn> columns = createColumns(table, data);
+        if (columns == null) {
+            return Reactors.ALWAYS_FALSE;
+        }
+        if (columns.isEmpty()) {
+            return Reactors.ALWAYS_TRUE;
+        }
+        String sql = createSql(table, columns);
+        return Mono
+            .usingWhen(
+                connectionFactory.create(),
+                connection -> unwrap(connection)
+                    .copyIn(sql, Mono.fromSupplier(() -> encode(columns, data))),
+                Connection::close)
+            .doOnNext(rows -> log.trace("copy {} rows into {}", rows, table.getFullName()))
+            .thenReturn(true);
+    }
+
+    static PostgresqlConnection unwrap(Connection connection) {
+        Object conn = connection;
+        while (!(conn instanceof PostgresqlConnection) && conn instanceof Wrapped) {
+            conn = ((Wrapped<?>) conn).unwrap();
+        }
+        if (conn instanceof PostgresqlConnection) {
+            return (PostgresqlConnection) conn;
+        }
+        throw new UnsupportedOperationException("unsupported copy in connection: " + connection);
+    }
+
+    static String createSql(RDBTableMetadata table, List<CopyColumn> columns) {
+        StringJoiner joiner = new StringJoiner(",", "COPY " + table.getFullName() + " (", ") FROM STDIN (FORMAT binary)");
+        for (CopyColumn column : columns) {
+            joiner.add(column.column.getQuoteName());
+        }
+        return joiner.toString();
+    }
+
+    //按表中列的顺序获取数据中出现过的列
+    static List<CopyColumn> createColumns(RDBTableMetadata table, Collection<Map<String, Object>> data) {
+        Set<String> keys = new HashSet<>();
+        for (Map<String, Object> row : data) {
+            keys.addAll(row.keySet());
+        }
+        List<CopyColumn> columns = new ArrayList<>(keys.size());
+        for (RDBColumnMetadata column : table.getColumns()) {
+            String key = keys.contains(column.getName())
+                ? column.getName()
+                : (column.getAlias() != null && keys.contains(column.getAlias()) ? column.getAlias() : null);
+            if (key == null) {
+                continue;
+            }
+            CopyType type = CopyType.of(column.getDataType());
+            if (type == null) {
+                log.debug("unsupported copy column type [{}] in {}", column.getDataType(), table.getFullName());
+                return null;
+            }
+            columns.add(new CopyColumn(column, key, type));
+        }
+        return columns;
+    }
+
+    static ByteBuf encode(List<CopyColumn> columns, Collection<Map<String, Object>> data) {
+        ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(19 + data.size() * columns.size() * 16);
+        try {
+            buf.writeBytes(HEADER);
+            //flags
+            buf.writeInt(0);
+            //header extension length
+            buf.writeInt(0);
+            for (Map<String, Object> row : data) {
+                buf.writeShort(columns.size());
+                for (CopyColumn column : columns) {
+                    Object value = row.get(column.key);
+                    if (value == null) {
+                        buf.writeInt(-1);
+                    } else {
+                        column.type.write(buf, value);
+                    }
+                }
+            }
+            //trailer
+            buf.writeShort(-1);
+            return buf;
+        } catch (Throwable e) {
+            ReferenceCountUtil.safeRelease(buf);
+            throw e;
+        }
+    }
+
+    static class CopyColumn {
+        final RDBColumnMetadata column;
+        final String key;
+        final CopyType type;
+
+        CopyColumn(RDBColumnMetadata column, String key, CopyType type) {
+            this.column = column;
+            this.key = key;
+            this.type = type;
+        }
+    }
+
+    enum CopyType {
+        INT2 {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                buf.writeInt(2);
+                buf.writeShort(CastUtils.castNumber(value).shortValue());
+            }
+        },
+        INT4 {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                buf.writeInt(4);
+                buf.writeInt(CastUtils.castNumber(value).intValue());
+            }
+        },
+        INT8 {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                buf.writeInt(8);
+                buf.writeLong(value instanceof Date
+                                  ? ((Date) value).getTime()
+                                  : CastUtils.castNumber(value).longValue());
+            }
+        },
+        FLOAT4 {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                buf.writeInt(4);
+                buf.writeFloat(CastUtils.castNumber(value).floatValue());
+            }
+        },
+        FLOAT8 {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                buf.writeInt(8);
+                buf.writeDouble(CastUtils.castNumber(value).doubleValue());
+            }
+        },
+        NUMERIC {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                Number number = CastUtils.castNumber(value);
+                if (number instanceof BigDecimal) {
+                    writeNumeric(buf, (BigDecimal) number);
+                } else if (number instanceof BigInteger) {
+                    writeNumeric(buf, new BigDecimal((BigInteger) number));
+                } else if (number instanceof Double || number instanceof Float) {
+                    double val = number.doubleValue();
+                    if (Double.isNaN(val)) {
+                        buf.writeInt(8);
+                        buf.writeShort(0);
+                        buf.writeShort(0);
+                        buf.writeShort(NUMERIC_NAN);
+                        buf.writeShort(0);
+                    } else if (Double.isInfinite(val)) {
+                        buf.writeInt(-1);
+                    } else {
+                        writeNumeric(buf, BigDecimal.valueOf(val));
+                    }
+                } else {
+                    writeNumeric(buf, BigDecimal.valueOf(number.longValue()));
+                }
+            }
+        },
+        BOOL {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                buf.writeInt(1);
+                buf.writeByte(CastUtils.castBoolean(value) ? 1 : 0);
+            }
+        },
+        TEXT {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                writeText(buf, value instanceof String ? (String) value : toText(value));
+            }
+        },
+        JSONB {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                int idx = buf.writerIndex();
+                buf.writeInt(0);
+                //jsonb version
+                buf.writeByte(1);
+                int len = value instanceof String
+                    ? ByteBufUtil.writeUtf8(buf, (String) value)
+                    : writeBytes(buf, ObjectMappers.toJsonBytes(value));
+                buf.setInt(idx, len + 1);
+            }
+        },
+        TIMESTAMP {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                //timestamp without time zone 使用系统时区的本地时间
+                long millis = CastUtils.castDate(value).getTime();
+                long offset = ZoneId
+                    .systemDefault()
+                    .getRules()
+                    .getOffset(Instant.ofEpochMilli(millis))
+                    .getTotalSeconds() * 1000L;
+                buf.writeInt(8);
+                buf.writeLong((millis + offset - PG_EPOCH_MILLIS) * 1000);
+            }
+        },
+        TIMESTAMPTZ {
+            @Override
+            void write(ByteBuf buf, Object value) {
+                buf.writeInt(8);
+                buf.writeLong((CastUtils.castDate(value).getTime() - PG_EPOCH_MILLIS) * 1000);
+            }
+        };
+
+        abstract void write(ByteBuf buf, Object value);
+
+        //根据建表时的列类型获取编码方式,不支持时返回null
+        static CopyType of(String dataType) {
+            if (dataType == null) {
+                return null;
+            }
+            String type = dataType.trim().toLowerCase();
+            int idx = type.indexOf('(');
+            String name = idx > 0 ? type.substring(0, idx).trim() : type;
+            switch (name) {
+                case "int2":
+                case "smallint":
+                    return INT2;
+                case "int":
+                case "int4":
+                case "integer":
+                    return INT4;
+                case "int8":
+                case "bigint":
+                    return INT8;
+                case "float4":
+                case "real":
+                    return FLOAT4;
+                case "float8":
+                case "double precision":
+                    return FLOAT8;
+                case "float":
+                    //float(p) p<=24时为float4
+                    return idx > 0 ? null : FLOAT8;
+                case "numeric":
+                case "decimal":
+                    return NUMERIC;
+                case "bool":
+                case "boolean":
+                    return BOOL;
+                case "text":
+                case "varchar":
+                case "character varying":
+                case "char":
+                case "character":
+                case "bpchar":
+                case "json":
+                    return TEXT;
+                case "jsonb":
+                    return JSONB;
+                case "timestamp":
+                case "timestamp without time zone":
+                    return TIMESTAMP;
+                case "timestamptz":
+                case "timestamp with time zone":
+                    return TIMESTAMPTZ;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    static String toText(Object value) {
+        if (value instanceof Map || value instanceof Collection) {
+            return ObjectMappers.toJsonString(value);
+        }
+        return String.valueOf(value);
+    }
+
+    static void writeText(ByteBuf buf, String value) {
+        int idx = buf.writerIndex();
+        buf.writeInt(0);
+        buf.setInt(idx, ByteBufUtil.writeUtf8(buf, value));
+    }
+
+    static int writeBytes(ByteBuf buf, byte[] bytes) {
+        buf.writeBytes(bytes);
+        return bytes.length;
+    }
+
+    /**
+     * 按PostgreSQL numeric二进制格式写入: ndigits,weight,sign,dscale以及以10000为基数的数字.
+     */
+    static void writeNumeric(ByteBuf buf, BigDecimal value) {
+        short sign = value.signum() < 0 ? NUMERIC_NEG : NUMERIC_POS;
+        value = value.abs();
+        if (value.scale() < 0) {
+            value = value.setScale(0);
+        }
+        int scale = value.scale();
+        String unscaled = value.unscaledValue().toString();
+        int intLen = unscaled.length() - scale;
+
+        String intPart, fracPart;
+        if (intLen > 0) {
+            intPart = unscaled.substring(0, intLen);
+            fracPart = unscaled.substring(intLen);
+        } else {
+            intPart = "";
+            fracPart = "0".repeat(-intLen) + unscaled;
+        }
+        int intGroups = (intPart.length() + 3) / 4;
+        int fracGroups = (fracPart.length() + 3) / 4;
+        short[] digits = new short[intGroups + fracGroups];
+
+        //整数部分左侧补0对齐
+        int offset = intGroups * 4 - intPart.length();
+        for (int i = 0; i < intPart.length(); i++) {
+            int pos = offset + i;
+            digits[pos / 4] = (short) (digits[pos / 4] * 10 + (intPart.charAt(i) - '0'));
+        }
+        //小数部分右侧补0对齐
+        for (int i = 0; i < fracGroups * 4; i++) {
+            int d = i < fracPart.length() ? fracPart.charAt(i) - '0' : 0;
+            int group = intGroups + i / 4;
+            digits[group] = (short) (digits[group] * 10 + d);
+        }
+
+        int weight = intGroups - 1;
+        int start = 0, end = digits.length;
+        while (start < end && digits[start] == 0) {
+            start++;
+            weight--;
+        }
+        while (end > start && digits[end - 1] == 0) {
+            end--;
+        }
+        int ndigits = end - start;
+        if (ndigits == 0) {
+            weight = 0;
+            sign = NUMERIC_POS;
+        }
+        buf.writeInt(8 + ndigits * 2);
+        buf.writeShort(ndigits);
+        buf.writeShort(weight);
+        buf.writeShort(sign);
+        buf.writeShort(scale);
+        for (int i = start; i < end; i++) {
+            buf.writeShort(digits[i]);
+        }
+    }
+}
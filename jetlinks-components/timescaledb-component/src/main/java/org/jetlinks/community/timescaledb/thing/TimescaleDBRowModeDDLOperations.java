@@ -127,6 +127,15 @@ public class TimescaleDBRowModeDDLOperations extends RowModeDDLOperationsBase {
                 .column(ThingsDataConstants.COLUMN_TIMESTAMP, RDBIndexMetadata.IndexSort.desc)
                 .column(ThingsDataConstants.COLUMN_LOG_TYPE)
                 .commit();
+        } else if (metricType == MetricType.rollup) {
+            //索引
+            builder
+                .index()
+                .name("idx_" + metric + "_rollup")
+                .column(metricBuilder.getThingIdProperty())
+                .column(ThingsDataConstants.COLUMN_PROPERTY_ID)
+                .column(ThingsDataConstants.COLUMN_TIMESTAMP, RDBIndexMetadata.IndexSort.desc)
+                .commit();
         }
 
         table.addFeature(new CreateHypertable(ThingsDataConstants.COLUMN_TIMESTAMP, this.properties.getChunkTimeInterval()));
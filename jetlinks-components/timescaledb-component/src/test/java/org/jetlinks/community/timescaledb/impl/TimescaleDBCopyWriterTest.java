@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.timescaledb.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.spi.ConnectionFactory;
+import org.hswebframework.ezorm.rdb.metadata.RDBColumnMetadata;
+import org.hswebframework.ezorm.rdb.metadata.RDBTableMetadata;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimescaleDBCopyWriterTest {
+
+    //PGCOPY\n\377\r\n\0 + flags + 头部扩展长度
+    static final String HEADER = "5047434f50590aff0d0a00" + "00000000" + "00000000";
+
+    static final String TRAILER = "ffff";
+
+    //2000-01-01 00:00:00 UTC
+    static final long PG_EPOCH = 946684800000L;
+
+    private static String encode(TimescaleDBCopyWriter.CopyType type, Object value) {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            type.write(buf, value);
+            return ByteBufUtil.hexDump(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static String encode(List<TimescaleDBCopyWriter.CopyColumn> columns, Collection<Map<String, Object>> data) {
+        ByteBuf buf = TimescaleDBCopyWriter.encode(columns, data);
+        try {
+            return ByteBufUtil.hexDump(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static RDBColumnMetadata column(String name, String dataType) {
+        RDBColumnMetadata column = Mockito.mock(RDBColumnMetadata.class);
+        Mockito.when(column.getName()).thenReturn(name);
+        Mockito.when(column.getDataType()).thenReturn(dataType);
+        Mockito.when(column.getQuoteName()).thenReturn("\"" + name + "\"");
+        return column;
+    }
+
+    private static RDBTableMetadata table(RDBColumnMetadata... columns) {
+        RDBTableMetadata table = Mockito.mock(RDBTableMetadata.class);
+        Mockito.when(table.getColumns()).thenReturn(Arrays.asList(columns));
+        Mockito.when(table.getFullName()).thenReturn("public.test");
+        return table;
+    }
+
+    private static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
+    }
+
+    @Test
+    void testHeader() {
+        List<TimescaleDBCopyWriter.CopyColumn> columns = Collections.singletonList(
+            new TimescaleDBCopyWriter.CopyColumn(column("value", "int4"), "value", TimescaleDBCopyWriter.CopyType.INT4));
+
+        assertEquals(HEADER + TRAILER, encode(columns, Collections.emptyList()));
+    }
+
+    @Test
+    void testRow() {
+        RDBTableMetadata table = table(column("id", "varchar(64)"),
+                                       column("timestamp", "timestamptz"),
+                                       column("value", "numeric(20,4)"),
+                                       column("other", "int8"));
+        List<Map<String, Object>> data = Arrays.asList(
+            row("id", "a", "timestamp", new Date(PG_EPOCH), "value", 1),
+            row("id", "b", "timestamp", new Date(PG_EPOCH), "value", null));
+
+        //只写入数据中出现的列
+        List<TimescaleDBCopyWriter.CopyColumn> columns = TimescaleDBCopyWriter.createColumns(table, data);
+        assertNotNull(columns);
+        assertEquals(3, columns.size());
+        assertEquals("COPY public.test (\"id\",\"timestamp\",\"value\") FROM STDIN (FORMAT binary)",
+                     TimescaleDBCopyWriter.createSql(table, columns));
+
+        assertEquals(HEADER
+                         //列数量,id,timestamp,value
+                         + "0003" + "00000001" + "61" + "00000008" + "0000000000000000" + "0000000a" + "00010000000000000001"
+                         //null值长度为-1
+                         + "0003" + "00000001" + "62" + "00000008" + "0000000000000000" + "ffffffff"
+                         + TRAILER,
+                     encode(columns, data));
+    }
+
+    @Test
+    void testNumeric() {
+        TimescaleDBCopyWriter.CopyType type = TimescaleDBCopyWriter.CopyType.NUMERIC;
+        //长度 + ndigits,weight,sign,dscale + 以10000为基数的数字,与PostgreSQL numeric_send一致
+        assertEquals("00000008" + "0000000000000000", encode(type, 0));
+        assertEquals("0000000e" + "0003000100000003000109291a7c", encode(type, new BigDecimal("12345.678")));
+        assertEquals("0000000a" + "0001ffff400000040001", encode(type, new BigDecimal("-0.0001")));
+        assertEquals("0000000a" + "00010001000000000001", encode(type, 10000));
+        assertEquals("0000000c" + "000200000000000200011388", encode(type, new BigDecimal("1.50")));
+        assertEquals("0000000a" + "0001ffff000000011388", encode(type, 0.5D));
+        assertEquals("0000000e" + "0003000200000000000109291a85", encode(type, 123456789L));
+        assertEquals("0000000a" + "00010000400000000001", encode(type, -1));
+        assertEquals("00000008" + "00000000c0000000", encode(type, Double.NaN));
+        //无穷大不支持,写入null
+        assertEquals("ffffffff", encode(type, Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void testTimestampWithTimeZone() {
+        TimescaleDBCopyWriter.CopyType type = TimescaleDBCopyWriter.CopyType.TIMESTAMPTZ;
+        //从2000-01-01 00:00:00 UTC开始的微秒数
+        assertEquals("00000008" + "0000000000000000", encode(type, new Date(PG_EPOCH)));
+        assertEquals("00000008" + "000000000016e360", encode(type, new Date(PG_EPOCH + 1500)));
+        assertEquals("00000008" + "fffca2fec4c82000", encode(type, new Date(0)));
+        assertEquals("00000008" + "000000141dd76000", encode(type, PG_EPOCH + 86400_000L));
+    }
+
+    @Test
+    void testTimestamp() {
+        TimeZone timeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        try {
+            TimescaleDBCopyWriter.CopyType type = TimescaleDBCopyWriter.CopyType.TIMESTAMP;
+            //不带时区的时间使用系统时区的本地时间: 2000-01-01 00:00:00 +08:00
+            long local = PG_EPOCH - 8 * 3600_000L;
+            assertEquals("00000008" + "0000000000000000", encode(type, new Date(local)));
+            assertEquals("00000008" + "000000000016e360", encode(type, new Date(local + 1500)));
+            assertEquals("00000008" + "000000141dd76000", encode(type, new Date(local + 86400_000L)));
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
+
+    @Test
+    void testUnsupportedType() {
+        ConnectionFactory connectionFactory = Mockito.mock(ConnectionFactory.class);
+        TimescaleDBCopyWriter writer = new TimescaleDBCopyWriter(connectionFactory);
+        List<Map<String, Object>> data = Collections.singletonList(row("id", "a", "value", 1));
+
+        //无法获取列类型
+        assertEquals(Boolean.FALSE, writer.copy(table(column("id", "varchar(64)"), column("value", null)), data).block());
+        //不支持的列类型
+        assertEquals(Boolean.FALSE, writer.copy(table(column("id", "varchar(64)"), column("value", "geometry")), data).block());
+        //float(p)的精度不确定
+        assertEquals(Boolean.FALSE, writer.copy(table(column("id", "varchar(64)"), column("value", "float(10)")), data).block());
+        Mockito.verifyNoInteractions(connectionFactory);
+
+        //数据中没有的列不影响
+        assertNotNull(TimescaleDBCopyWriter.createColumns(
+            table(column("id", "varchar(64)"), column("other", "geometry")), data));
+    }
+}
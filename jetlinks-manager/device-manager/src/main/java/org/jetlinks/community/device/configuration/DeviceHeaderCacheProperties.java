@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.device.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 设备消息header本地缓存配置
+ *
+ * @author zhouhao
+ * @see org.jetlinks.community.device.message.DeviceConfigHeaderCache
+ * @since 2.11
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jetlinks.device.message.header-cache")
+public class DeviceHeaderCacheProperties {
+
+    //是否开启缓存
+    private boolean enabled = true;
+
+    //最大缓存设备数量,超过后按最近最少使用淘汰
+    private long maximumSize = 100_000;
+
+    //缓存过期时间,兜底未通过事件感知到的配置变更
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+}
@@ -15,12 +15,14 @@
  */
 package org.jetlinks.community.device.configuration;
 
+import io.micrometer.core.instrument.Metrics;
 import org.hswebframework.ezorm.rdb.mapping.ReactiveRepository;
 import org.hswebframework.ezorm.rdb.operator.DatabaseOperator;
 import org.jetlinks.community.buffer.BufferProperties;
 import org.jetlinks.community.device.entity.DeviceInstanceEntity;
 import org.jetlinks.community.device.function.ReactorQLDeviceSelectorBuilder;
 import org.jetlinks.community.device.function.RelationDeviceSelectorProvider;
+import org.jetlinks.community.device.message.DeviceConfigHeaderCache;
 import org.jetlinks.community.device.message.DeviceMessageConnector;
 import org.jetlinks.community.device.message.writer.TimeSeriesMessageWriterConnector;
 import org.jetlinks.community.device.service.data.*;
@@ -46,15 +48,24 @@ import org.springframework.core.annotation.Order;
 import java.time.Duration;
 
 @Configuration
-@EnableConfigurationProperties({DeviceDataStorageProperties.class, DeviceEventProperties.class})
+@EnableConfigurationProperties({DeviceDataStorageProperties.class, DeviceEventProperties.class, DeviceHeaderCacheProperties.class})
 public class DeviceManagerConfiguration {
 
+    @Bean
+    public DeviceConfigHeaderCache deviceConfigHeaderCache(EventBus eventBus,
+                                                           DeviceHeaderCacheProperties properties) {
+        DeviceConfigHeaderCache cache = new DeviceConfigHeaderCache(eventBus, properties);
+        cache.bindTo(Metrics.globalRegistry);
+        return cache;
+    }
+
     @Bean
     public DeviceMessageConnector deviceMessageConnector(EventBus eventBus,
                                                          MessageHandler messageHandler,
                                                          DeviceSessionManager sessionManager,
-                                                         DeviceRegistry registry) {
-        return new DeviceMessageConnector(eventBus, registry, messageHandler, sessionManager);
+                                                         DeviceRegistry registry,
+                                                         DeviceConfigHeaderCache headerCache) {
+        return new DeviceMessageConnector(eventBus, registry, messageHandler, sessionManager, headerCache);
     }
 
     @Bean
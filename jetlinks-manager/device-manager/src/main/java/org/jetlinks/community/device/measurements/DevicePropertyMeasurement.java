@@ -134,7 +134,7 @@ class DevicePropertyMeasurement extends StaticMeasurement {
     /**
      * 聚合数据
      */
-    private class AggDevicePropertyDimension implements MeasurementDimension {
+    private class AggDevicePropertyDimension implements TimeBucketMeasurementDimension {
 
         @Override
         @Generated
@@ -165,6 +165,26 @@ class DevicePropertyMeasurement extends StaticMeasurement {
             return false;
         }
 
+        @Override
+        public Interval getInterval(MeasurementParameter parameter) {
+            return parameter.getInterval("time", Interval.ofSeconds(10));
+        }
+
+        @Override
+        public Date getFrom(MeasurementParameter parameter) {
+            return parameter.getDate("from", DateTime.now().plusDays(-1).toDate());
+        }
+
+        @Override
+        public Date getTo(MeasurementParameter parameter) {
+            return parameter.getDate("to", DateTime.now().plusDays(-1).toDate());
+        }
+
+        @Override
+        public int getLimit(MeasurementParameter parameter) {
+            return parameter.getInt("limit", 10);
+        }
+
         @Override
         public Flux<SimpleMeasurementValue> getValue(MeasurementParameter parameter) {
 
@@ -176,11 +196,11 @@ class DevicePropertyMeasurement extends StaticMeasurement {
             String format = parameter.getString("format", "HH:mm:ss");
             DateTimeFormatter formatter = DateTimeFormat.forPattern(format);
 
-            request.setLimit(parameter.getInt("limit", 10));
-            request.setInterval(parameter.getInterval("time", Interval.ofSeconds(10)));
+            request.setLimit(getLimit(parameter));
+            request.setInterval(getInterval(parameter));
             request.setFormat(format);
-            request.setFrom(parameter.getDate("from", DateTime.now().plusDays(-1).toDate()));
-            request.setTo(parameter.getDate("to", DateTime.now().plusDays(-1).toDate()));
+            request.setFrom(getFrom(parameter));
+            request.setTo(getTo(parameter));
             Flux<AggregationData> dataFlux;
 
             if (StringUtils.hasText(deviceId)) {
@@ -16,6 +16,7 @@
 package org.jetlinks.community.device.measurements.status;
 
 import lombok.Generated;
+import org.jetlinks.community.Interval;
 import org.jetlinks.community.dashboard.*;
 import org.jetlinks.community.dashboard.supports.StaticMeasurement;
 import org.jetlinks.community.device.enums.DeviceState;
@@ -89,7 +90,7 @@ class DeviceStatusChangeMeasurement extends StaticMeasurement {
     /**
      * 设备状态统计
      */
-    class CountDeviceStateDimension implements MeasurementDimension {
+    class CountDeviceStateDimension implements TimeBucketMeasurementDimension {
 
         @Override
         public DimensionDefinition getDefinition() {
@@ -119,20 +120,40 @@ class DeviceStatusChangeMeasurement extends StaticMeasurement {
             return AggregationQueryParam
                 .of()
                 .sum("count")
-                .groupBy(parameter.getInterval("time", null), format)
+                .groupBy(getInterval(parameter), format)
                 .filter(query ->
                             query.where("name", parameter.getString("type").orElse("online"))
                                  .is("productId", parameter.getString("productId").orElse(null))
                 )
-                .limit(parameter.getInt("limit").orElse(1))
-                .from(parameter
-                          .getDate("from")
-                          .orElse(Date.from(LocalDateTime
-                                                .now()
-                                                .plusDays(-1)
-                                                .atZone(ZoneId.systemDefault())
-                                                .toInstant())))
-                .to(parameter.getDate("to").orElse(new Date()));
+                .limit(getLimit(parameter))
+                .from(getFrom(parameter))
+                .to(getTo(parameter));
+        }
+
+        @Override
+        public Interval getInterval(MeasurementParameter parameter) {
+            return parameter.getInterval("time", null);
+        }
+
+        @Override
+        public Date getFrom(MeasurementParameter parameter) {
+            return parameter
+                .getDate("from")
+                .orElse(Date.from(LocalDateTime
+                                      .now()
+                                      .plusDays(-1)
+                                      .atZone(ZoneId.systemDefault())
+                                      .toInstant()));
+        }
+
+        @Override
+        public Date getTo(MeasurementParameter parameter) {
+            return parameter.getDate("to").orElse(new Date());
+        }
+
+        @Override
+        public int getLimit(MeasurementParameter parameter) {
+            return parameter.getInt("limit").orElse(1);
         }
 
         @Override
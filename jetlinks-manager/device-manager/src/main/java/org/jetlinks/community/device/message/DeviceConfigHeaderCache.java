@@ -0,0 +1,252 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.device.message;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.hswebframework.web.crud.events.EntityDeletedEvent;
+import org.hswebframework.web.crud.events.EntityModifyEvent;
+import org.hswebframework.web.crud.events.EntitySavedEvent;
+import org.jetlinks.community.PropertyConstants;
+import org.jetlinks.community.device.configuration.DeviceHeaderCacheProperties;
+import org.jetlinks.community.device.entity.DeviceInstanceEntity;
+import org.jetlinks.community.device.entity.DeviceProductEntity;
+import org.jetlinks.community.device.events.DeviceDeployedEvent;
+import org.jetlinks.community.device.events.DeviceProductDeployEvent;
+import org.jetlinks.community.device.events.DeviceUnregisterEvent;
+import org.jetlinks.community.gateway.annotation.Subscribe;
+import org.jetlinks.core.Values;
+import org.jetlinks.core.event.EventBus;
+import org.jetlinks.core.event.Subscription;
+import org.springframework.context.event.EventListener;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 设备消息header本地缓存,缓存设备的产品ID,产品名称,设备名称,组织ID等配置信息,
+ * 命中缓存时构造设备消息topic无需再从设备注册中心中获取配置.
+ * <p>
+ * 缓存按最近最少使用淘汰,设备或产品发生变更时通过事件失效,并广播到集群其他节点.
+ * 从注册中心读取配置期间如果发生了失效,则不写入缓存,避免旧的配置覆盖失效并一直保留到过期.
+ *
+ * @author zhouhao
+ * @see DeviceMessageConnector
+ * @since 2.11
+ */
+@Slf4j
+public class DeviceConfigHeaderCache {
+
+    static final String METRIC_NAME = "jetlinks_device_header_cache";
+
+    static final String TOPIC_DEVICE_INVALIDATE = "/_sys/device-header-cache/device/invalidate";
+    static final String TOPIC_PRODUCT_INVALIDATE = "/_sys/device-header-cache/product/invalidate";
+
+    private final EventBus eventBus;
+
+    private final Cache<String, Values> cache;
+
+    //每次失效时递增,用于判断读取注册中心期间是否发生了失效
+    private final AtomicLong generation = new AtomicLong();
+
+    public DeviceConfigHeaderCache(EventBus eventBus,
+                                   DeviceHeaderCacheProperties properties) {
+        this.eventBus = eventBus;
+        this.cache = properties.isEnabled()
+            ? Caffeine
+            .newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .build()
+            : null;
+    }
+
+    /**
+     * 注册缓存命中率等指标
+     *
+     * @param registry MeterRegistry
+     */
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, METRIC_NAME);
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * 获取设备的header缓存,未命中时返回<code>null</code>
+     *
+     * @param deviceId 设备ID
+     * @return header
+     */
+    public Values getIfPresent(String deviceId) {
+        return cache == null ? null : cache.getIfPresent(deviceId);
+    }
+
+    /**
+     * 获取当前的失效版本,在从注册中心读取配置之前获取,并在写入缓存时传入.
+     *
+     * @return 失效版本
+     * @see DeviceConfigHeaderCache#put(String, Values, long)
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 写入缓存,如果读取配置期间发生了失效,则不写入.
+     *
+     * @param deviceId   设备ID
+     * @param values     配置
+     * @param generation 读取配置之前获取的失效版本
+     */
+    public void put(String deviceId, Values values, long generation) {
+        if (cache == null || this.generation.get() != generation) {
+            return;
+        }
+        cache.put(deviceId, values);
+        //写入后再次检查,失效可能发生在检查与写入之间
+        if (this.generation.get() != generation) {
+            cache.asMap().remove(deviceId, values);
+        }
+    }
+
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    @Subscribe(value = TOPIC_DEVICE_INVALIDATE, features = Subscription.Feature.broker)
+    public Mono<Void> doInvalidateDevice(Collection<String> deviceId) {
+        if (cache != null) {
+            generation.incrementAndGet();
+            cache.invalidateAll(deviceId);
+        }
+        return Mono.empty();
+    }
+
+    @Subscribe(value = TOPIC_PRODUCT_INVALIDATE, features = Subscription.Feature.broker)
+    public Mono<Void> doInvalidateProduct(Collection<String> productId) {
+        if (cache != null && !productId.isEmpty()) {
+            //产品变更频率较低,直接遍历缓存删除对应产品下的设备
+            String key = PropertyConstants.productId.getKey();
+            generation.incrementAndGet();
+            cache
+                .asMap()
+                .values()
+                .removeIf(values -> values
+                    .getValue(key)
+                    .map(productId::contains)
+                    .orElse(false));
+        }
+        return Mono.empty();
+    }
+
+    public Mono<Void> invalidateDevice(Collection<String> deviceId) {
+        if (cache == null || deviceId.isEmpty()) {
+            return Mono.empty();
+        }
+        return this
+            .doInvalidateDevice(deviceId)
+            .then(eventBus.publish(TOPIC_DEVICE_INVALIDATE, deviceId))
+            .then();
+    }
+
+    public Mono<Void> invalidateProduct(Collection<String> productId) {
+        if (cache == null || productId.isEmpty()) {
+            return Mono.empty();
+        }
+        return this
+            .doInvalidateProduct(productId)
+            .then(eventBus.publish(TOPIC_PRODUCT_INVALIDATE, productId))
+            .then();
+    }
+
+    private static <T> Set<String> collectId(Collection<T> entities, Function<T, String> idGetter) {
+        Set<String> id = new HashSet<>();
+        for (T entity : entities) {
+            String _id = idGetter.apply(entity);
+            if (_id != null) {
+                id.add(_id);
+            }
+        }
+        return id;
+    }
+
+    @EventListener
+    public void handleDeviceEvent(EntityModifyEvent<DeviceInstanceEntity> event) {
+        event.async(invalidateDevice(collectId(event.getAfter(), DeviceInstanceEntity::getId)));
+    }
+
+    @EventListener
+    public void handleDeviceEvent(EntitySavedEvent<DeviceInstanceEntity> event) {
+        event.async(invalidateDevice(collectId(event.getEntity(), DeviceInstanceEntity::getId)));
+    }
+
+    @EventListener
+    public void handleDeviceEvent(EntityDeletedEvent<DeviceInstanceEntity> event) {
+        event.async(invalidateDevice(collectId(event.getEntity(), DeviceInstanceEntity::getId)));
+    }
+
+    @EventListener
+    public void handleDeviceEvent(DeviceDeployedEvent event) {
+        event.async(invalidateDevice(collectId(event.getDevices(), DeviceInstanceEntity::getId)));
+    }
+
+    @EventListener
+    public void handleDeviceEvent(DeviceUnregisterEvent event) {
+        event.async(invalidateDevice(collectId(event.getDevices(), DeviceInstanceEntity::getId)));
+    }
+
+    @EventListener
+    public void handleProductEvent(EntityModifyEvent<DeviceProductEntity> event) {
+        event.async(invalidateProduct(collectId(event.getAfter(), DeviceProductEntity::getId)));
+    }
+
+    @EventListener
+    public void handleProductEvent(EntitySavedEvent<DeviceProductEntity> event) {
+        event.async(invalidateProduct(collectId(event.getEntity(), DeviceProductEntity::getId)));
+    }
+
+    @EventListener
+    public void handleProductEvent(EntityDeletedEvent<DeviceProductEntity> event) {
+        event.async(invalidateProduct(collectId(event.getEntity(), DeviceProductEntity::getId)));
+    }
+
+    @EventListener
+    public void handleProductEvent(DeviceProductDeployEvent event) {
+        if (Objects.nonNull(event.getId())) {
+            event.async(invalidateProduct(Set.of(event.getId())));
+        }
+    }
+
+}
@@ -172,14 +172,24 @@ public class DeviceMessageConnector implements DecodedClientMessageHandler {
     private final DeviceRegistry registry;
     private final EventBus eventBus;
     private final MessageHandler messageHandler;
+    private final DeviceConfigHeaderCache headerCache;
 
     public DeviceMessageConnector(EventBus eventBus,
                                   DeviceRegistry registry,
                                   MessageHandler messageHandler,
                                   DeviceSessionManager sessionManager) {
+        this(eventBus, registry, messageHandler, sessionManager, null);
+    }
+
+    public DeviceMessageConnector(EventBus eventBus,
+                                  DeviceRegistry registry,
+                                  MessageHandler messageHandler,
+                                  DeviceSessionManager sessionManager,
+                                  DeviceConfigHeaderCache headerCache) {
         this.registry = registry;
         this.eventBus = eventBus;
         this.messageHandler = messageHandler;
+        this.headerCache = headerCache;
         sessionManager.listenEvent(event -> {
             if (event.isClusterExists()) {
                 return Mono.empty();
@@ -227,32 +237,66 @@ public class DeviceMessageConnector implements DecodedClientMessageHandler {
     }
 
     public static Flux<String> createDeviceMessageTopic(DeviceRegistry deviceRegistry, Message message) {
-        return Flux.defer(() -> {
-            if (message instanceof DeviceMessage) {
-                DeviceMessage deviceMessage = ((DeviceMessage) message);
-                String deviceId = deviceMessage.getDeviceId();
-                if (deviceId == null) {
-                    log.warn("无法从消息中获取设备ID:{}", deviceMessage);
-                    return Mono.empty();
-                }
-                return deviceRegistry
-                        .getDevice(deviceId)
-                        .flatMap(configGetter)
-                        .defaultIfEmpty(emptyValues)
-                        .flatMapIterable(configs -> {
-                            configs.getAllValues().forEach(deviceMessage::addHeader);
-                            String productId = deviceMessage.getHeader(PropertyConstants.productId).orElse("null");
-                            String topic = createDeviceMessageTopic(productId, deviceId, deviceMessage);
-                            List<String> topics = new ArrayList<>(2);
-                            topics.add(topic);
-                            configs.getValue(PropertyConstants.orgId)
-                                   .ifPresent(orgId -> topics.add("/org/" + orgId + topic));
-
-                            return topics;
-                        });
+        return createDeviceMessageTopic(deviceRegistry, null, message);
+    }
+
+    /**
+     * 根据消息创建topic,并将设备注册中心中的配置追加到消息header中.
+     * <p>
+     * 指定了缓存并且命中时,直接使用缓存中的配置构造topic,不再从注册中心获取.
+     *
+     * @param deviceRegistry 设备注册中心
+     * @param headerCache    header缓存,为<code>null</code>时不使用缓存
+     * @param message        消息
+     * @return topic
+     */
+    public static Flux<String> createDeviceMessageTopic(DeviceRegistry deviceRegistry,
+                                                        DeviceConfigHeaderCache headerCache,
+                                                        Message message) {
+        return Flux.defer(() -> doCreateDeviceMessageTopic(deviceRegistry, headerCache, message));
+    }
+
+    private static Flux<String> doCreateDeviceMessageTopic(DeviceRegistry deviceRegistry,
+                                                           DeviceConfigHeaderCache headerCache,
+                                                           Message message) {
+        if (!(message instanceof DeviceMessage)) {
+            return Flux.just("/device/unknown/message/unknown");
+        }
+        DeviceMessage deviceMessage = ((DeviceMessage) message);
+        String deviceId = deviceMessage.getDeviceId();
+        if (deviceId == null) {
+            log.warn("无法从消息中获取设备ID:{}", deviceMessage);
+            return Flux.empty();
+        }
+        if (headerCache != null) {
+            Values cached = headerCache.getIfPresent(deviceId);
+            if (cached != null) {
+                return Flux.fromIterable(createDeviceMessageTopic(deviceMessage, cached));
             }
-            return Mono.just("/device/unknown/message/unknown");
-        });
+        }
+        //读取前获取失效版本,读取期间发生失效时不写入缓存
+        long generation = headerCache == null ? 0 : headerCache.generation();
+        return deviceRegistry
+            .getDevice(deviceId)
+            .flatMap(configGetter)
+            .doOnNext(configs -> {
+                if (headerCache != null) {
+                    headerCache.put(deviceId, configs, generation);
+                }
+            })
+            .defaultIfEmpty(emptyValues)
+            .flatMapIterable(configs -> createDeviceMessageTopic(deviceMessage, configs));
+    }
+
+    private static List<String> createDeviceMessageTopic(DeviceMessage deviceMessage, Values configs) {
+        configs.getAllValues().forEach(deviceMessage::addHeader);
+        String productId = deviceMessage.getHeader(PropertyConstants.productId).orElse("null");
+        String topic = createDeviceMessageTopic(productId, deviceMessage.getDeviceId(), deviceMessage);
+        List<String> topics = new ArrayList<>(2);
+        topics.add(topic);
+        configs.getValue(PropertyConstants.orgId)
+               .ifPresent(orgId -> topics.add("/org/" + orgId + topic));
+        return topics;
     }
 
     public static String createDeviceMessageTopic(String productId, String deviceId, DeviceMessage message) {
@@ -299,7 +343,7 @@ public class DeviceMessageConnector implements DecodedClientMessageHandler {
     }
 
     private Flux<String> getTopic(Message message) {
-        Flux<String> topicsStream = createDeviceMessageTopic(registry, message);
+        Flux<String> topicsStream = createDeviceMessageTopic(registry, headerCache, message);
         if (message instanceof ChildDeviceMessage) { //子设备消息
             return this
                     .onMessage(((ChildDeviceMessage) message).getChildDeviceMessage())
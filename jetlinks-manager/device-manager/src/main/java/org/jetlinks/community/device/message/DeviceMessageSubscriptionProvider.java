@@ -21,13 +21,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.jetlinks.community.gateway.external.Message;
 import org.jetlinks.community.gateway.external.SubscribeRequest;
+import org.jetlinks.community.gateway.external.SubscriptionConflation;
 import org.jetlinks.community.gateway.external.SubscriptionProvider;
 import org.jetlinks.core.event.EventBus;
 import org.jetlinks.core.event.Subscription;
+import org.jetlinks.core.message.property.ReportPropertyMessage;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Component
 @RequiredArgsConstructor
 @ConfigurationProperties(prefix = "jetlinks.messaging.device-message-subscriber")
@@ -66,7 +71,7 @@ public class DeviceMessageSubscriptionProvider implements SubscriptionProvider {
 
     @Override
     public Flux<Message> subscribe(SubscribeRequest request) {
-        return eventBus
+        Flux<Message> messages = eventBus
             .subscribe(
                 org.jetlinks.core.event.Subscription.of(
                     "DeviceMessageSubscriptionProvider:" + request.getAuthentication().getUser().getId(),
@@ -75,5 +80,31 @@ public class DeviceMessageSubscriptionProvider implements SubscriptionProvider {
                     Subscription.Feature.broker
                 ))
             .map(topicMessage -> Message.success(request.getId(), topicMessage.getTopic(), topicMessage.decode()));
+        //按topic(设备+消息类型)合并,属性上报按属性合并为最新值
+        return SubscriptionConflation.conflate(request, messages, Message::getTopic, this::merge);
+    }
+
+    private Message merge(Message older, Message newer) {
+        if (older.getPayload() instanceof ReportPropertyMessage oldReport
+            && newer.getPayload() instanceof ReportPropertyMessage newReport) {
+            ReportPropertyMessage merged = (ReportPropertyMessage) newReport.copy();
+            merged.setProperties(mergeMap(oldReport.getProperties(), newReport.getProperties()));
+            merged.setPropertySourceTimes(mergeMap(oldReport.getPropertySourceTimes(), newReport.getPropertySourceTimes()));
+            merged.setPropertyStates(mergeMap(oldReport.getPropertyStates(), newReport.getPropertyStates()));
+            return Message.success(newer.getRequestId(), newer.getTopic(), merged);
+        }
+        return newer;
+    }
+
+    private static <V> Map<String, V> mergeMap(Map<String, V> older, Map<String, V> newer) {
+        if (older == null || older.isEmpty()) {
+            return newer;
+        }
+        if (newer == null || newer.isEmpty()) {
+            return older;
+        }
+        Map<String, V> merged = new LinkedHashMap<>(older);
+        merged.putAll(newer);
+        return merged;
     }
 }
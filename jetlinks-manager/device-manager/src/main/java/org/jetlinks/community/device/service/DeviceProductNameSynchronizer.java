@@ -24,6 +24,7 @@ import org.jetlinks.core.trace.MonoTracer;
 import org.jetlinks.community.PropertyConstants;
 import org.jetlinks.community.device.entity.DeviceInstanceEntity;
 import org.jetlinks.community.device.entity.DeviceProductEntity;
+import org.jetlinks.community.device.message.DeviceConfigHeaderCache;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -53,6 +54,8 @@ public class DeviceProductNameSynchronizer {
 
     private final DeviceRegistry registry;
 
+    private final DeviceConfigHeaderCache headerCache;
+
     //自动更新产品名称
     @EventListener
     public void autoUpdateProductName(EntityModifyEvent<DeviceProductEntity> event) {
@@ -160,6 +163,8 @@ public class DeviceProductNameSynchronizer {
                 .getDevices()
                 .flatMap(device -> device.setConfig(PropertyConstants.productName, name))
                 .then())
+            //注册中心更新完成后再使header缓存失效,避免更新期间读取到旧的名称并写入缓存
+            .then(headerCache.invalidateProduct(Set.of(productId)))
             .as(MonoTracer.create("/product/" + productId + "/sync-device-name"))
             .subscribe(null,
                        err -> log.warn("sync device product [{}] name error", productId, err));
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.device.message;
+
+import org.jetlinks.community.PropertyConstants;
+import org.jetlinks.community.device.configuration.DeviceHeaderCacheProperties;
+import org.jetlinks.core.Values;
+import org.jetlinks.supports.event.InternalEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeviceConfigHeaderCacheTest {
+
+    private final DeviceConfigHeaderCache cache = new DeviceConfigHeaderCache(
+        new InternalEventBus(), new DeviceHeaderCacheProperties());
+
+    private static Values productValues(String productId) {
+        return Values.of(Collections.singletonMap(PropertyConstants.productId.getKey(), productId));
+    }
+
+    @Test
+    void testPut() {
+        cache.put("device-1", productValues("product-1"), cache.generation());
+        assertNotNull(cache.getIfPresent("device-1"));
+
+        cache.invalidateDevice(Set.of("device-1")).block();
+        assertNull(cache.getIfPresent("device-1"));
+    }
+
+    @Test
+    void testSkipPutAfterDeviceInvalidated() {
+        //开始读取注册中心
+        long generation = cache.generation();
+        //读取期间设备发生了变更
+        cache.invalidateDevice(Set.of("device-1")).block();
+        //读取完成,旧的配置不能写入缓存
+        cache.put("device-1", productValues("product-1"), generation);
+        assertNull(cache.getIfPresent("device-1"));
+
+        //下一次读取正常写入
+        cache.put("device-1", productValues("product-2"), cache.generation());
+        assertNotNull(cache.getIfPresent("device-1"));
+    }
+
+    @Test
+    void testSkipPutAfterProductInvalidated() {
+        long generation = cache.generation();
+        cache.invalidateProduct(Set.of("product-1")).block();
+        cache.put("device-1", productValues("product-1"), generation);
+        assertNull(cache.getIfPresent("device-1"));
+    }
+
+    @Test
+    void testInvalidateProduct() {
+        cache.put("device-1", productValues("product-1"), cache.generation());
+        cache.put("device-2", productValues("product-2"), cache.generation());
+
+        cache.invalidateProduct(Set.of("product-1")).block();
+        assertNull(cache.getIfPresent("device-1"));
+        assertNotNull(cache.getIfPresent("device-2"));
+    }
+}
@@ -48,7 +48,8 @@ public abstract class AbstractSceneTriggerProvider<E extends SceneTriggerProvide
             .get(shakeLimitProvider)
             .orElse(SimpleShakeLimitProvider.GLOBAL)
             .shakeLimit(key,
-                        source.groupBy(this::getShakeLimitKey, Integer.MAX_VALUE),
+                        source,
+                        this::getShakeLimitKey,
                         limit);
     }
 }
@@ -38,6 +38,7 @@ import org.jetlinks.core.utils.Reactors;
 import org.jetlinks.community.rule.engine.commons.ShakeLimit;
 import org.jetlinks.community.rule.engine.commons.TermsConditionEvaluator;
 import org.jetlinks.community.rule.engine.enums.SceneFeature;
+import org.jetlinks.community.rule.engine.scene.internal.triggers.DeviceTriggerIndex;
 import org.jetlinks.community.rule.engine.scene.internal.triggers.ManualTriggerProvider;
 import org.jetlinks.community.rule.engine.scene.term.TermColumn;
 import org.jetlinks.community.terms.TermSpec;
@@ -138,6 +139,20 @@ public class SceneRule implements Serializable {
         return EmptySqlRequest.INSTANCE;
     }
 
+    /**
+     * 创建共享触发索引规则,只有简单的设备触发条件才支持,不支持时返回<code>null</code>
+     *
+     * @param hasWhere 是否处理条件
+     * @return 索引规则
+     * @see DeviceTriggerIndex
+     */
+    public DeviceTriggerIndex.Spec createTriggerIndexSpec(boolean hasWhere) {
+        if (trigger == null) {
+            return null;
+        }
+        return trigger.createIndexSpec(getTermList(), hasWhere);
+    }
+
     public Function<Map<String, Object>, Mono<Boolean>> createDefaultFilter(List<Term> terms) {
         if (trigger != null) {
             return createDefaultFilter(trigger.createFilter(terms));
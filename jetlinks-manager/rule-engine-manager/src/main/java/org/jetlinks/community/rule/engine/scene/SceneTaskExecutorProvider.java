@@ -15,13 +15,13 @@
  */
 package org.jetlinks.community.rule.engine.scene;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.hswebframework.ezorm.rdb.executor.SqlRequest;
 import org.hswebframework.web.bean.FastBeanCopier;
 import org.hswebframework.web.id.IDGenerator;
 import org.jetlinks.community.PropertyConstants;
+import org.jetlinks.community.rule.engine.scene.internal.triggers.DeviceTriggerIndex;
 import org.jetlinks.core.event.EventBus;
 import org.jetlinks.core.event.Subscription;
 import org.jetlinks.core.trace.TraceHolder;
@@ -44,18 +44,29 @@ import java.util.Map;
 import static org.jetlinks.community.rule.engine.scene.SceneRule.TRIGGER_TYPE;
 
 @Slf4j
-@AllArgsConstructor
 public class SceneTaskExecutorProvider implements TaskExecutorProvider {
 
     private static final int BACKPRESSURE_BUFFER_MAX_SIZE =
         Integer.getInteger("scene.backpressure-buffer-size", 10_0000);
 
+    //简单的设备触发条件使用共享索引处理,默认关闭,全部使用ReactorQL处理
+    private static final boolean SHARED_TRIGGER_INDEX =
+        Boolean.parseBoolean(System.getProperty("scene.shared-trigger-index", "false"));
+
     public static final String EXECUTOR = "scene";
 
     private final EventBus eventBus;
 
     private final SceneFilter filter;
 
+    private final DeviceTriggerIndex triggerIndex;
+
+    public SceneTaskExecutorProvider(EventBus eventBus, SceneFilter filter) {
+        this.eventBus = eventBus;
+        this.filter = filter;
+        this.triggerIndex = SHARED_TRIGGER_INDEX ? new DeviceTriggerIndex(eventBus) : null;
+    }
+
     @Override
     public String getExecutor() {
         return "scene";
@@ -155,11 +166,21 @@ public class SceneTaskExecutorProvider implements TaskExecutorProvider {
             ruleName = rule.getName();
             useBranch = CollectionUtils.isNotEmpty(rule.getBranches());
 
+            DeviceTriggerIndex.Spec indexSpec = triggerIndex == null ? null : rule.createTriggerIndexSpec(!useBranch);
             SqlRequest request = rule.createSql(!useBranch);
             Flux<Map<String, Object>> source;
 
+            if (indexSpec != null) {
+                //简单条件,使用共享索引处理
+                if (log.isInfoEnabled()) {
+                    log.info("init scene [{}:{}] with shared trigger index:{}", ruleId, ruleName, indexSpec);
+                }
+                source = triggerIndex
+                    .subscribe(indexSpec)
+                    .map(row -> RuleDataHelper.toContextMap(context.newRuleData(row)));
+            }
             //不是通过SQL来处理数据
-            if (request.isEmpty()) {
+            else if (request.isEmpty()) {
                 source = context
                     .getInput()
                     .accept()
@@ -114,6 +114,16 @@ public class Trigger implements Serializable {
         return config == null ? EmptySqlRequest.INSTANCE : provider().createSql(config, terms, hasWhere);
     }
 
+    public DeviceTriggerIndex.Spec createIndexSpec(List<Term> terms, boolean hasWhere) {
+        if (device == null || !DeviceTriggerProvider.PROVIDER.equals(type)) {
+            return null;
+        }
+        SceneTriggerProvider<?> provider = provider();
+        return provider instanceof DeviceTriggerProvider deviceProvider
+            ? deviceProvider.createIndexSpec(device, terms, hasWhere)
+            : null;
+    }
+
     public SqlFragments createFilter(List<Term> terms) {
         SceneTriggerProvider.TriggerConfig config = triggerConfig();
 
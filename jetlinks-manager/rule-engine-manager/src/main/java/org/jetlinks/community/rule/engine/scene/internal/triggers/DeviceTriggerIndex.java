@@ -0,0 +1,586 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.rule.engine.scene.internal.triggers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hswebframework.ezorm.core.param.Term;
+import org.jetlinks.core.event.EventBus;
+import org.jetlinks.core.event.Subscription;
+import org.jetlinks.community.reactorql.term.FixedTermTypeSupport;
+import org.jetlinks.community.reactorql.term.TermType;
+import org.jetlinks.community.reactorql.term.TermUtils;
+import org.jetlinks.community.reactorql.term.TermValue;
+import org.jetlinks.community.rule.engine.executor.device.SelectorValue;
+import org.jetlinks.community.rule.engine.scene.DeviceOperation;
+import org.jetlinks.community.rule.engine.scene.SceneRule;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.*;
+
+import static org.jetlinks.community.rule.engine.scene.SceneRule.DEFAULT_FILTER_TABLE;
+
+/**
+ * 设备触发共享索引.
+ * <p>
+ * 默认情况下每个场景都会启动一个ReactorQL并单独订阅事件总线,场景数量较多时,同一条消息会被解码和计算多次.
+ * 对于简单的设备触发条件(如: 属性上报且条件为属性与固定值比较),使用此索引按产品、消息类型和设备进行分组,
+ * 同一个topic只订阅一次事件总线,每条消息只解码一次,相同的条件只计算一次,然后只分发给满足条件的场景.
+ * <p>
+ * 不满足条件的场景(如: 使用了指标、变量、函数、历史值或者嵌套条件等)依然使用ReactorQL处理.
+ * <p>
+ * 索引中的期望值与SQL一样经过条件重构和值转换,然后使用{@link FixedTermTypeSupport#matchBlocking(Object, Object)}判断,
+ * 与ReactorQL的一致性见<code>DeviceTriggerIndexTest</code>.
+ * 默认不开启,可通过<code>-Dscene.shared-trigger-index=true</code>开启.
+ *
+ * @author zhouhao
+ * @see DeviceTrigger#createSql(List, Set, boolean)
+ * @since 2.11
+ */
+@Slf4j
+public class DeviceTriggerIndex {
+
+    //支持的条件类型
+    private static final Set<FixedTermTypeSupport> SUPPORTED_TERM_TYPES = EnumSet.of(
+        FixedTermTypeSupport.eq,
+        FixedTermTypeSupport.neq,
+        FixedTermTypeSupport.gt,
+        FixedTermTypeSupport.gte,
+        FixedTermTypeSupport.lt,
+        FixedTermTypeSupport.lte,
+        FixedTermTypeSupport.isnull,
+        FixedTermTypeSupport.notnull
+    );
+
+    //条件中可以直接使用的公共列
+    private static final Set<String> COMMON_COLUMNS = Set.of(
+        "deviceId", "deviceName", "productId", "productName", "timestamp"
+    );
+
+    private final EventBus eventBus;
+
+    private final Map<String, TopicIndex> topics = new HashMap<>();
+
+    public DeviceTriggerIndex(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * 尝试根据设备触发配置创建索引规则,不支持使用索引时返回<code>null</code>.
+     *
+     * @param trigger  设备触发配置
+     * @param terms    条件
+     * @param headers  自定义填充的header
+     * @param hasWhere 是否需要处理条件
+     * @return 索引规则
+     */
+    public static Spec compile(DeviceTrigger trigger, List<Term> terms, Set<String> headers, boolean hasWhere) {
+        DeviceOperation operation = trigger.getOperation();
+        if (operation == null || operation.getOperator() == null || !StringUtils.hasText(trigger.getProductId())) {
+            return null;
+        }
+        String topic;
+        switch (operation.getOperator()) {
+            case reportProperty:
+                topic = "/device/" + trigger.getProductId() + "/*/message/property/report";
+                break;
+            case reportEvent:
+                if (!StringUtils.hasText(operation.getEventId())) {
+                    return null;
+                }
+                topic = "/device/" + trigger.getProductId() + "/*/message/event/" + operation.getEventId();
+                break;
+            case online:
+                topic = "/device/" + trigger.getProductId() + "/*/online";
+                break;
+            case offline:
+                topic = "/device/" + trigger.getProductId() + "/*/offline";
+                break;
+            default:
+                return null;
+        }
+
+        //设备选择器,只支持全部设备和固定设备
+        Set<String> deviceIds = null;
+        String selector = trigger.getSelector();
+        if (StringUtils.hasText(selector) && !"all".equals(selector)) {
+            if (!"fixed".equals(selector) || CollectionUtils.isEmpty(trigger.getSelectorValues())) {
+                return null;
+            }
+            deviceIds = new HashSet<>();
+            for (SelectorValue value : trigger.getSelectorValues()) {
+                if (value.getValue() == null) {
+                    return null;
+                }
+                deviceIds.add(String.valueOf(value.getValue()));
+            }
+        }
+
+        boolean properties = operation.getOperator() == DeviceOperation.Operator.reportProperty;
+
+        //需要输出的列,与SQL中的别名保持一致
+        Map<String, Column> columns = new LinkedHashMap<>();
+        for (Term term : TermUtils.expandTermToList(terms == null ? Collections.emptyList() : terms)) {
+            if (!StringUtils.hasText(term.getColumn())) {
+                continue;
+            }
+            Column column = Column.of(term.getColumn(), properties);
+            if (column == null) {
+                return null;
+            }
+            if (column.property != null) {
+                columns.putIfAbsent(column.alias, column);
+            }
+        }
+
+        List<Condition> conditions = new ArrayList<>();
+        if (hasWhere && terms != null) {
+            for (int i = 0; i < terms.size(); i++) {
+                Term term = terms.get(i);
+                //只支持平铺的and条件
+                if (!CollectionUtils.isEmpty(term.getTerms())
+                    || (i > 0 && term.getType() != Term.Type.and)) {
+                    return null;
+                }
+                if (!StringUtils.hasText(term.getColumn())) {
+                    continue;
+                }
+                Condition condition = Condition.of(term, properties);
+                if (condition == null) {
+                    return null;
+                }
+                conditions.add(condition);
+            }
+        }
+
+        return new Spec(topic,
+                        deviceIds,
+                        operation.getOperator(),
+                        headers == null ? Collections.emptySet() : headers,
+                        new ArrayList<>(columns.values()),
+                        conditions);
+    }
+
+    /**
+     * 订阅满足索引规则的数据,数据格式与{@link DeviceTrigger#createSql(List, Set, boolean)}的输出一致.
+     *
+     * @param spec 索引规则
+     * @return 数据流
+     */
+    public Flux<Map<String, Object>> subscribe(Spec spec) {
+        return Flux.create(sink -> {
+            Entry entry = new Entry(spec, sink);
+            register(entry);
+            sink.onDispose(() -> unregister(entry));
+        });
+    }
+
+    private synchronized void register(Entry entry) {
+        topics
+            .computeIfAbsent(entry.spec.topic, TopicIndex::new)
+            .add(entry);
+    }
+
+    private synchronized void unregister(Entry entry) {
+        TopicIndex index = topics.get(entry.spec.topic);
+        if (index != null && index.remove(entry)) {
+            topics.remove(entry.spec.topic);
+            index.dispose();
+        }
+    }
+
+    private class TopicIndex implements Disposable {
+        private final String topic;
+
+        //全部设备
+        private volatile List<Entry> all = Collections.emptyList();
+
+        //固定设备
+        private volatile Map<String, List<Entry>> fixed = Collections.emptyMap();
+
+        private int size;
+
+        private Disposable subscription;
+
+        private TopicIndex(String topic) {
+            this.topic = topic;
+        }
+
+        //修改操作在DeviceTriggerIndex的锁中执行,使用写时复制避免读取时加锁
+        private void add(Entry entry) {
+            if (entry.spec.deviceIds == null) {
+                List<Entry> all = new ArrayList<>(this.all);
+                all.add(entry);
+                this.all = all;
+            } else {
+                Map<String, List<Entry>> fixed = new HashMap<>(this.fixed);
+                for (String deviceId : entry.spec.deviceIds) {
+                    List<Entry> entries = new ArrayList<>(fixed.getOrDefault(deviceId, Collections.emptyList()));
+                    entries.add(entry);
+                    fixed.put(deviceId, entries);
+                }
+                this.fixed = fixed;
+            }
+            if (size++ == 0) {
+                subscription = eventBus
+                    .subscribe(
+                        Subscription
+                            .builder()
+                            .justLocal()
+                            .topics(topic)
+                            .subscriberId("scene:trigger-index")
+                            .build())
+                    .subscribe(payload -> {
+                        Map<String, Object> data;
+                        try {
+                            data = payload.bodyToJson(true);
+                        } catch (Throwable err) {
+                            log.warn("decode payload error {}", payload.getTopic(), err);
+                            return;
+                        }
+                        handle(data);
+                    });
+                log.debug("subscribe shared scene trigger topic:{}", topic);
+            }
+        }
+
+        //返回是否已经没有订阅者
+        private boolean remove(Entry entry) {
+            if (entry.spec.deviceIds == null) {
+                List<Entry> all = new ArrayList<>(this.all);
+                if (!all.remove(entry)) {
+                    return false;
+                }
+                this.all = all;
+            } else {
+                Map<String, List<Entry>> fixed = new HashMap<>(this.fixed);
+                boolean removed = false;
+                for (String deviceId : entry.spec.deviceIds) {
+                    List<Entry> entries = fixed.get(deviceId);
+                    if (entries == null) {
+                        continue;
+                    }
+                    entries = new ArrayList<>(entries);
+                    removed |= entries.remove(entry);
+                    if (entries.isEmpty()) {
+                        fixed.remove(deviceId);
+                    } else {
+                        fixed.put(deviceId, entries);
+                    }
+                }
+                if (!removed) {
+                    return false;
+                }
+                this.fixed = fixed;
+            }
+            return --size == 0;
+        }
+
+        private void handle(Map<String, Object> payload) {
+            List<Entry> all = this.all;
+            Object deviceId = payload.get("deviceId");
+            List<Entry> fixed = deviceId == null
+                ? Collections.emptyList()
+                : this.fixed.getOrDefault(String.valueOf(deviceId), Collections.emptyList());
+            if (all.isEmpty() && fixed.isEmpty()) {
+                return;
+            }
+            Map<String, Object> row = createRow(payload);
+            //多个场景时缓存条件的计算结果,相同的条件只计算一次
+            Map<Condition, Boolean> results = all.size() + fixed.size() > 1 ? new HashMap<>() : null;
+            dispatch(all, payload, row, results);
+            dispatch(fixed, payload, row, results);
+        }
+
+        private void dispatch(List<Entry> entries,
+                              Map<String, Object> payload,
+                              Map<String, Object> row,
+                              Map<Condition, Boolean> results) {
+            for (Entry entry : entries) {
+                try {
+                    if (entry.match(payload, row, results)) {
+                        entry.sink.next(entry.spec.createRow(payload, row));
+                    }
+                } catch (Throwable err) {
+                    log.warn("handle scene trigger [{}] error", topic, err);
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (subscription != null) {
+                subscription.dispose();
+                log.debug("unsubscribe shared scene trigger topic:{}", topic);
+            }
+        }
+    }
+
+    //与SQL中的公共列保持一致
+    private static Map<String, Object> createRow(Map<String, Object> payload) {
+        Map<String, Object> headers = getMap(payload, "headers");
+        Map<String, Object> row = new HashMap<>();
+        row.put("_now", System.currentTimeMillis());
+        putNonNull(row, "timestamp", payload.get("timestamp"));
+        putNonNull(row, "deviceId", payload.get("deviceId"));
+        putNonNull(row, "deviceName", headers.get("deviceName"));
+        putNonNull(row, "productId", headers.get("productId"));
+        putNonNull(row, "productName", headers.get("productName"));
+        row.put(SceneRule.SOURCE_TYPE_KEY, DeviceTriggerProvider.PROVIDER);
+        putNonNull(row, SceneRule.SOURCE_ID_KEY, payload.get("deviceId"));
+        putNonNull(row, SceneRule.SOURCE_NAME_KEY, payload.get("deviceName"));
+        putNonNull(row, "_uid", headers.get("_uid"));
+        putNonNull(row, "_bindings", headers.get("bindings"));
+        putNonNull(row, "traceparent", headers.get("traceparent"));
+        return row;
+    }
+
+    @SuppressWarnings("all")
+    private static Map<String, Object> getMap(Map<String, Object> payload, String key) {
+        Object value = payload.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> source = (Map<Object, Object>) value;
+            Map<Object, Object> copy = new LinkedHashMap<>(source.size() * 4 / 3 + 1);
+            source.forEach((key, val) -> copy.put(key, deepCopy(val)));
+            return copy;
+        }
+        if (value instanceof Collection) {
+            Collection<Object> source = (Collection<Object>) value;
+            List<Object> copy = new ArrayList<>(source.size());
+            for (Object val : source) {
+                copy.add(deepCopy(val));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static void putNonNull(Map<String, Object> row, String key, Object value) {
+        if (value != null) {
+            row.put(key, value);
+        }
+    }
+
+    /**
+     * 索引规则
+     */
+    public static class Spec {
+        private final String topic;
+        //为null时表示全部设备
+        private final Set<String> deviceIds;
+        private final DeviceOperation.Operator operator;
+        private final Set<String> headers;
+        private final List<Column> columns;
+        private final List<Condition> conditions;
+
+        private Spec(String topic,
+                     Set<String> deviceIds,
+                     DeviceOperation.Operator operator,
+                     Set<String> headers,
+                     List<Column> columns,
+                     List<Condition> conditions) {
+            this.topic = topic;
+            this.deviceIds = deviceIds;
+            this.operator = operator;
+            this.headers = headers;
+            this.columns = columns;
+            this.conditions = conditions;
+        }
+
+        private Map<String, Object> createRow(Map<String, Object> payload, Map<String, Object> common) {
+            Map<String, Object> row = new HashMap<>(common);
+            if (!headers.isEmpty()) {
+                Map<String, Object> messageHeaders = getMap(payload, "headers");
+                for (String header : headers) {
+                    putNonNull(row, header, messageHeaders.get(header));
+                }
+            }
+            //消息会分发给多个场景,每个场景使用单独的副本,避免共享可变的Map
+            switch (operator) {
+                case reportProperty:
+                    putNonNull(row, "properties", deepCopy(payload.get("properties")));
+                    break;
+                case reportEvent:
+                    putNonNull(row, "data", deepCopy(payload.get("data")));
+                    break;
+            }
+            for (Column column : columns) {
+                putNonNull(row, column.alias, column.getValue(payload, row));
+            }
+            return row;
+        }
+
+        //创建发送给场景的数据
+        Map<String, Object> createRow(Map<String, Object> payload) {
+            return createRow(payload, DeviceTriggerIndex.createRow(payload));
+        }
+
+        //判断消息是否满足条件
+        boolean match(Map<String, Object> payload) {
+            return match(payload, DeviceTriggerIndex.createRow(payload), null);
+        }
+
+        private boolean match(Map<String, Object> payload,
+                              Map<String, Object> row,
+                              Map<Condition, Boolean> results) {
+            for (Condition condition : conditions) {
+                boolean matched = results == null
+                    ? condition.match(payload, row)
+                    : results.computeIfAbsent(condition, c -> c.match(payload, row));
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return topic + (deviceIds == null ? "" : " " + deviceIds) + " where " + conditions;
+        }
+    }
+
+    private static class Entry {
+        private final Spec spec;
+        private final FluxSink<Map<String, Object>> sink;
+
+        private Entry(Spec spec, FluxSink<Map<String, Object>> sink) {
+            this.spec = spec;
+            this.sink = sink;
+        }
+
+        private boolean match(Map<String, Object> payload,
+                              Map<String, Object> row,
+                              Map<Condition, Boolean> results) {
+            return spec.match(payload, row, results);
+        }
+    }
+
+    /**
+     * 条件列,properties.{property}.current或者公共列(如: deviceId)
+     *
+     * @param alias    列别名
+     * @param property 属性ID,为null时表示公共列
+     */
+    private record Column(String alias, String property) {
+
+        static Column of(String column, boolean properties) {
+            if (!column.contains(".")) {
+                return COMMON_COLUMNS.contains(column) ? new Column(column, null) : null;
+            }
+            String[] arr = column.split("[.]");
+            if (properties
+                && arr.length == 3
+                && "properties".equals(arr[0])
+                && DeviceOperation.PropertyValueType.current.name().equals(arr[2])) {
+                return new Column(DeviceTrigger.createColumnAlias(column, false), arr[1]);
+            }
+            //历史值,指标等需要使用ReactorQL处理
+            return null;
+        }
+
+        //row中只有公共列,属性值从原始消息中获取
+        Object getValue(Map<String, Object> payload, Map<String, Object> row) {
+            if (property == null) {
+                return row.get(alias);
+            }
+            return getMap(payload, "properties").get(property);
+        }
+    }
+
+    /**
+     * 条件,相同的条件在同一条消息中只计算一次
+     *
+     * @param column 列
+     * @param type   条件类型
+     * @param expect 期望值
+     */
+    private record Condition(Column column, FixedTermTypeSupport type, Object expect) {
+
+        static Condition of(Term term, boolean properties) {
+            if (!CollectionUtils.isEmpty(term.getOptions())) {
+                return null;
+            }
+            Column column = Column.of(term.getColumn(), properties);
+            if (column == null) {
+                return null;
+            }
+            FixedTermTypeSupport type = parseType(term.getTermType());
+            if (type == null || !SUPPORTED_TERM_TYPES.contains(type)) {
+                return null;
+            }
+            Object expect = null;
+            if (type != FixedTermTypeSupport.isnull && type != FixedTermTypeSupport.notnull) {
+                List<TermValue> values = TermValue.of(term);
+                //只支持单个固定值
+                if (values.size() != 1) {
+                    return null;
+                }
+                TermValue value = values.get(0);
+                if ((value.getSource() != TermValue.Source.manual && value.getSource() != TermValue.Source.fixed)
+                    || value.getValue() == null) {
+                    return null;
+                }
+                //与SQL使用相同的条件重构和值转换,保证期望值与ReactorQL中的参数一致
+                Term copy = type.refactorTerm(DEFAULT_FILTER_TABLE, term.clone(), DeviceTrigger::refactorTermValue);
+                if (copy.getOptions().contains(TermType.OPTIONS_NATIVE_SQL)) {
+                    return null;
+                }
+                Object[] parameters = type
+                    .createSql(copy.getColumn(), copy.getValue(), copy)
+                    .toRequest()
+                    .getParameters();
+                if (parameters.length != 1 || parameters[0] == null || parameters[0] instanceof Collection) {
+                    return null;
+                }
+                expect = parameters[0];
+            }
+            return new Condition(column, type, expect);
+        }
+
+        private static FixedTermTypeSupport parseType(String termType) {
+            if (!StringUtils.hasText(termType)) {
+                return null;
+            }
+            try {
+                return FixedTermTypeSupport.valueOf(termType);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        boolean match(Map<String, Object> payload, Map<String, Object> row) {
+            Object actual = column.getValue(payload, row);
+            if (actual == null && type != FixedTermTypeSupport.isnull && type != FixedTermTypeSupport.notnull) {
+                return false;
+            }
+            return type.matchBlocking(expect, actual);
+        }
+
+        @Override
+        public String toString() {
+            return column.alias + " " + type.name() + " " + (expect == null ? "" : expect);
+        }
+    }
+}
@@ -89,6 +89,15 @@ public class DeviceTriggerProvider extends AbstractSceneTriggerProvider<DeviceTr
         return config.createSql(terms, customHeaders, hasFilter);
     }
 
+    /**
+     * 创建共享触发索引规则,不支持时返回<code>null</code>
+     *
+     * @see DeviceTriggerIndex#compile(DeviceTrigger, List, Set, boolean)
+     */
+    public DeviceTriggerIndex.Spec createIndexSpec(DeviceTrigger config, List<Term> terms, boolean hasFilter) {
+        return DeviceTriggerIndex.compile(config, terms, customHeaders, hasFilter);
+    }
+
     @Override
     public SqlFragments createFilter(DeviceTrigger config, List<Term> terms) {
         return config.createFragments(terms);
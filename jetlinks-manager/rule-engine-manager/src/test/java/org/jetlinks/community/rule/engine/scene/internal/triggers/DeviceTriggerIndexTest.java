@@ -0,0 +1,209 @@
+/*
+ * Copyright 2025 JetLinks https://www.jetlinks.cn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetlinks.community.rule.engine.scene.internal.triggers;
+
+import org.hswebframework.ezorm.core.param.Term;
+import org.hswebframework.ezorm.rdb.executor.SqlRequest;
+import org.jetlinks.community.rule.engine.scene.DeviceOperation;
+import org.jetlinks.reactor.ql.ReactorQL;
+import org.jetlinks.reactor.ql.ReactorQLContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import reactor.core.publisher.Flux;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeviceTriggerIndexTest {
+
+    private static DeviceTrigger createTrigger() {
+        DeviceOperation operation = new DeviceOperation();
+        operation.setOperator(DeviceOperation.Operator.reportProperty);
+        DeviceTrigger trigger = new DeviceTrigger();
+        trigger.setProductId("test");
+        trigger.setSelector("all");
+        trigger.setOperation(operation);
+        return trigger;
+    }
+
+    private static Term createTerm(String termType, Object value) {
+        Term term = new Term();
+        term.setColumn("properties.temp.current");
+        term.setTermType(termType);
+        term.setValue(value);
+        return term;
+    }
+
+    private static Map<String, Object> createMessage(Object actual) {
+        Map<String, Object> properties = new HashMap<>();
+        if (actual != null) {
+            properties.put("temp", actual);
+        }
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("productId", "test");
+        headers.put("deviceName", "test-device");
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("deviceId", "device-1");
+        message.put("timestamp", System.currentTimeMillis());
+        message.put("headers", headers);
+        message.put("properties", properties);
+        return message;
+    }
+
+    //使用场景中相同的方式执行SQL
+    private static boolean matchBySql(DeviceTrigger trigger, List<Term> terms, Map<String, Object> message) {
+        SqlRequest request = trigger.createSql(terms, Collections.emptySet(), true);
+        ReactorQLContext context = ReactorQLContext.ofDatasource(table -> Flux.just(message));
+        for (Object parameter : request.getParameters()) {
+            context.bind(parameter);
+        }
+        Boolean matched = ReactorQL
+            .builder()
+            .sql(request.getSql())
+            .build()
+            .start(context)
+            .hasElements()
+            .block();
+        return Boolean.TRUE.equals(matched);
+    }
+
+    private static Map<String, Object> manual(Object value) {
+        Map<String, Object> termValue = new HashMap<>();
+        termValue.put("source", "manual");
+        termValue.put("value", value);
+        return termValue;
+    }
+
+    static Stream<Arguments> conditions() {
+        return Stream.of(
+            //字符与数字比较
+            Arguments.of("eq", "30", 30),
+            Arguments.of("eq", "30", 30.0D),
+            Arguments.of("eq", 30, "30"),
+            Arguments.of("eq", "30", 31),
+            Arguments.of("eq", "abc", "abc"),
+            Arguments.of("eq", "abc", 30),
+            Arguments.of("neq", "30", 30),
+            Arguments.of("neq", "30", 31),
+            Arguments.of("gt", "30", 31),
+            Arguments.of("gt", "30", 29.5D),
+            Arguments.of("gt", 30, "31"),
+            Arguments.of("gt", "30.5", 30),
+            Arguments.of("gt", "100", "20"),
+            Arguments.of("gte", "30", 30L),
+            Arguments.of("lt", "30", 29),
+            Arguments.of("lt", 30, "31"),
+            Arguments.of("lt", "30", "4"),
+            Arguments.of("lte", "30", 30.0F),
+            //空值
+            Arguments.of("gt", "30", null),
+            Arguments.of("eq", "30", null),
+            Arguments.of("isnull", null, null),
+            Arguments.of("isnull", null, 30),
+            Arguments.of("isnull", null, "30"),
+            Arguments.of("notnull", null, null),
+            Arguments.of("notnull", null, "30"),
+            //前端传入的值为数组
+            Arguments.of("eq", manual(Collections.singletonList("30")), 30),
+            Arguments.of("gt", manual(Collections.singletonList(30)), "31")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("conditions")
+    void testSameAsSql(String termType, Object expect, Object actual) {
+        DeviceTrigger trigger = createTrigger();
+        List<Term> terms = Collections.singletonList(createTerm(termType, expect));
+
+        DeviceTriggerIndex.Spec spec = DeviceTriggerIndex.compile(trigger, terms, Collections.emptySet(), true);
+        assertNotNull(spec);
+
+        Map<String, Object> message = createMessage(actual);
+        assertEquals(matchBySql(trigger, terms, message),
+                     spec.match(message),
+                     termType + " " + expect + " : " + actual);
+    }
+
+    @Test
+    void testMultipleConditions() {
+        DeviceTrigger trigger = createTrigger();
+        Term gt = createTerm("gt", "20");
+        Term lt = createTerm("lt", "30");
+        lt.setType(Term.Type.and);
+        List<Term> terms = Arrays.asList(gt, lt);
+
+        DeviceTriggerIndex.Spec spec = DeviceTriggerIndex.compile(trigger, terms, Collections.emptySet(), true);
+        assertNotNull(spec);
+
+        for (Object actual : Arrays.asList(10, 25, "25", 25.5D, 30, "35", null)) {
+            Map<String, Object> message = createMessage(actual);
+            assertEquals(matchBySql(trigger, terms, message), spec.match(message), String.valueOf(actual));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRowNotShared() {
+        DeviceTrigger trigger = createTrigger();
+        DeviceTriggerIndex.Spec spec = DeviceTriggerIndex.compile(
+            trigger, Collections.singletonList(createTerm("gt", "20")), Collections.emptySet(), true);
+        assertNotNull(spec);
+
+        Map<String, Object> message = createMessage(30);
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("value", 1);
+        ((Map<String, Object>) message.get("properties")).put("obj", nested);
+
+        Map<String, Object> first = spec.createRow(message);
+        Map<String, Object> second = spec.createRow(message);
+        Map<String, Object> firstProperties = (Map<String, Object>) first.get("properties");
+        Map<String, Object> secondProperties = (Map<String, Object>) second.get("properties");
+        assertEquals(message.get("properties"), firstProperties);
+
+        //每个场景修改数据不影响其他场景和原始消息
+        firstProperties.put("temp", 40);
+        ((Map<String, Object>) firstProperties.get("obj")).put("value", 2);
+        assertEquals(30, secondProperties.get("temp"));
+        assertEquals(1, ((Map<String, Object>) secondProperties.get("obj")).get("value"));
+        assertEquals(30, ((Map<String, Object>) message.get("properties")).get("temp"));
+        assertEquals(1, nested.get("value"));
+    }
+
+    @Test
+    void testUnsupportedValue() {
+        DeviceTrigger trigger = createTrigger();
+
+        //上游变量需要使用ReactorQL处理
+        Map<String, Object> upper = new HashMap<>();
+        upper.put("source", "upper");
+        upper.put("value", "scene.temp");
+        assertNull(DeviceTriggerIndex.compile(
+            trigger, Collections.singletonList(createTerm("eq", upper)), Collections.emptySet(), true));
+
+        //多个值
+        assertNull(DeviceTriggerIndex.compile(
+            trigger, Collections.singletonList(createTerm("eq", Arrays.asList(1, 2))), Collections.emptySet(), true));
+
+        //不支持的条件类型
+        assertNull(DeviceTriggerIndex.compile(
+            trigger, Collections.singletonList(createTerm("like", "30%")), Collections.emptySet(), true));
+    }
+}